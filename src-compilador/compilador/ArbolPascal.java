@@ -0,0 +1,355 @@
+package compilador;
+
+import java.util.List;
+
+/**
+ * Arbol sintactico del subconjunto de PASCAL que compila GeneradorBytecode:
+ * constantes (escalares y arreglos), variables de tipos ordinales, cadenas y
+ * arreglos, y las sentencias begin/if/while/repeat/for/case, asignaciones y
+ * llamadas a procedimientos predefinidos
+ */
+final class ArbolPascal {
+    
+    private ArbolPascal() {
+    }
+    
+    /**
+     * Tipos basicos; integer y word se representan como int
+     */
+    enum Base {
+        INTEGER,
+        WORD,
+        BYTE,
+        CHAR,
+        BOOLEAN,
+        STRING
+    }
+    
+    /**
+     * Tipo de una constante, variable o expresion
+     */
+    static final class Tipo {
+        static final Tipo INTEGER = new Tipo(Base.INTEGER);
+        static final Tipo WORD = new Tipo(Base.WORD);
+        static final Tipo BYTE = new Tipo(Base.BYTE);
+        static final Tipo CHAR = new Tipo(Base.CHAR);
+        static final Tipo BOOLEAN = new Tipo(Base.BOOLEAN);
+        static final Tipo STRING = new Tipo(Base.STRING);
+        
+        final Base base;
+        // Para arreglos: limites del indice; base es el tipo de los elementos
+        final boolean arreglo;
+        final int inferior;
+        final int superior;
+        
+        private Tipo(Base base) {
+            this(base, false, 0, 0);
+        }
+        
+        private Tipo(Base base, boolean arreglo, int inferior, int superior) {
+            this.base = base;
+            this.arreglo = arreglo;
+            this.inferior = inferior;
+            this.superior = superior;
+        }
+        
+        static Tipo arreglo(Base elemento, int inferior, int superior) {
+            return new Tipo(elemento, true, inferior, superior);
+        }
+        
+        /**
+         * Tipo de un elemento del arreglo
+         */
+        Tipo elemento() {
+            switch (base) {
+                case INTEGER: return INTEGER;
+                case WORD: return WORD;
+                case BYTE: return BYTE;
+                case CHAR: return CHAR;
+                case BOOLEAN: return BOOLEAN;
+                default: return STRING;
+            }
+        }
+        
+        int longitud() {
+            return superior - inferior + 1;
+        }
+        
+        /**
+         * Tipos que se guardan como int en la JVM
+         */
+        boolean esOrdinal() {
+            return !arreglo && base != Base.STRING;
+        }
+        
+        boolean esNumerico() {
+            return !arreglo && (base == Base.INTEGER || base == Base.WORD || base == Base.BYTE);
+        }
+        
+        @Override
+        public String toString() {
+            String nombre = base.name().toLowerCase();
+            return arreglo ? "array[" + inferior + ".." + superior + "] of " + nombre : nombre;
+        }
+    }
+    
+    /**
+     * Programa completo
+     */
+    static final class Programa {
+        final String nombre;
+        final List<Constante> constantes;
+        final List<Variable> variables;
+        final Compuesta cuerpo;
+        
+        Programa(String nombre, List<Constante> constantes, List<Variable> variables, Compuesta cuerpo) {
+            this.nombre = nombre;
+            this.constantes = constantes;
+            this.variables = variables;
+            this.cuerpo = cuerpo;
+        }
+    }
+    
+    /**
+     * Constante; si tiene tipo arreglo, sus valores estan en elementos
+     */
+    static final class Constante {
+        final String nombre;
+        final Tipo tipo;
+        final Expresion valor;
+        final List<Expresion> elementos;
+        final int linea;
+        
+        Constante(String nombre, Tipo tipo, Expresion valor, List<Expresion> elementos, int linea) {
+            this.nombre = nombre;
+            this.tipo = tipo;
+            this.valor = valor;
+            this.elementos = elementos;
+            this.linea = linea;
+        }
+    }
+    
+    static final class Variable {
+        final String nombre;
+        final Tipo tipo;
+        final int linea;
+        
+        Variable(String nombre, Tipo tipo, int linea) {
+            this.nombre = nombre;
+            this.tipo = tipo;
+            this.linea = linea;
+        }
+    }
+    
+    // ===== Sentencias =====
+    
+    abstract static class Sentencia {
+        final int linea;
+        
+        Sentencia(int linea) {
+            this.linea = linea;
+        }
+    }
+    
+    static final class Compuesta extends Sentencia {
+        final List<Sentencia> sentencias;
+        
+        Compuesta(List<Sentencia> sentencias, int linea) {
+            super(linea);
+            this.sentencias = sentencias;
+        }
+    }
+    
+    static final class Asignacion extends Sentencia {
+        final Nombre destino;
+        final Expresion valor;
+        
+        Asignacion(Nombre destino, Expresion valor, int linea) {
+            super(linea);
+            this.destino = destino;
+            this.valor = valor;
+        }
+    }
+    
+    /**
+     * Llamada a un procedimiento; anchos tiene el formato :n de write/writeln
+     * (null donde no se indico)
+     */
+    static final class Procedimiento extends Sentencia {
+        final String nombre;
+        final List<Expresion> argumentos;
+        final List<Expresion> anchos;
+        
+        Procedimiento(String nombre, List<Expresion> argumentos, List<Expresion> anchos, int linea) {
+            super(linea);
+            this.nombre = nombre;
+            this.argumentos = argumentos;
+            this.anchos = anchos;
+        }
+    }
+    
+    static final class Si extends Sentencia {
+        final Expresion condicion;
+        final Sentencia entonces;
+        final Sentencia sino;
+        
+        Si(Expresion condicion, Sentencia entonces, Sentencia sino, int linea) {
+            super(linea);
+            this.condicion = condicion;
+            this.entonces = entonces;
+            this.sino = sino;
+        }
+    }
+    
+    static final class Mientras extends Sentencia {
+        final Expresion condicion;
+        final Sentencia cuerpo;
+        
+        Mientras(Expresion condicion, Sentencia cuerpo, int linea) {
+            super(linea);
+            this.condicion = condicion;
+            this.cuerpo = cuerpo;
+        }
+    }
+    
+    static final class Repetir extends Sentencia {
+        final List<Sentencia> cuerpo;
+        final Expresion condicion;
+        
+        Repetir(List<Sentencia> cuerpo, Expresion condicion, int linea) {
+            super(linea);
+            this.cuerpo = cuerpo;
+            this.condicion = condicion;
+        }
+    }
+    
+    static final class Para extends Sentencia {
+        final String variable;
+        final Expresion desde;
+        final Expresion hasta;
+        final boolean descendente;
+        final Sentencia cuerpo;
+        
+        Para(String variable, Expresion desde, Expresion hasta, boolean descendente, Sentencia cuerpo, int linea) {
+            super(linea);
+            this.variable = variable;
+            this.desde = desde;
+            this.hasta = hasta;
+            this.descendente = descendente;
+            this.cuerpo = cuerpo;
+        }
+    }
+    
+    static final class Caso extends Sentencia {
+        final Expresion selector;
+        final List<Rama> ramas;
+        final Sentencia sino;
+        
+        Caso(Expresion selector, List<Rama> ramas, Sentencia sino, int linea) {
+            super(linea);
+            this.selector = selector;
+            this.ramas = ramas;
+            this.sino = sino;
+        }
+    }
+    
+    /**
+     * Rama de un case; las etiquetas son expresiones constantes
+     */
+    static final class Rama {
+        final List<Expresion> etiquetas;
+        final Sentencia sentencia;
+        
+        Rama(List<Expresion> etiquetas, Sentencia sentencia) {
+            this.etiquetas = etiquetas;
+            this.sentencia = sentencia;
+        }
+    }
+    
+    static final class Vacia extends Sentencia {
+        Vacia(int linea) {
+            super(linea);
+        }
+    }
+    
+    // ===== Expresiones =====
+    
+    abstract static class Expresion {
+        final int linea;
+        
+        Expresion(int linea) {
+            this.linea = linea;
+        }
+    }
+    
+    static final class Numero extends Expresion {
+        final int valor;
+        
+        Numero(int valor, int linea) {
+            super(linea);
+            this.valor = valor;
+        }
+    }
+    
+    /**
+     * Literal de cadena; si tiene un solo caracter tambien sirve como char
+     */
+    static final class Texto extends Expresion {
+        final String valor;
+        
+        Texto(String valor, int linea) {
+            super(linea);
+            this.valor = valor;
+        }
+    }
+    
+    /**
+     * Referencia a una constante, variable o elemento de arreglo, o llamada a
+     * una funcion sin argumentos (readkey)
+     */
+    static final class Nombre extends Expresion {
+        final String nombre;
+        final Expresion indice;
+        
+        Nombre(String nombre, Expresion indice, int linea) {
+            super(linea);
+            this.nombre = nombre;
+            this.indice = indice;
+        }
+    }
+    
+    static final class Funcion extends Expresion {
+        final String nombre;
+        final List<Expresion> argumentos;
+        
+        Funcion(String nombre, List<Expresion> argumentos, int linea) {
+            super(linea);
+            this.nombre = nombre;
+            this.argumentos = argumentos;
+        }
+    }
+    
+    static final class Binaria extends Expresion {
+        final String operador;
+        final Expresion izquierda;
+        final Expresion derecha;
+        
+        Binaria(String operador, Expresion izquierda, Expresion derecha, int linea) {
+            super(linea);
+            this.operador = operador;
+            this.izquierda = izquierda;
+            this.derecha = derecha;
+        }
+    }
+    
+    static final class Unaria extends Expresion {
+        final String operador;
+        final Expresion operando;
+        
+        Unaria(String operador, Expresion operando, int linea) {
+            super(linea);
+            this.operador = operador;
+            this.operando = operando;
+        }
+    }
+}
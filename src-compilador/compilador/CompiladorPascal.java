@@ -0,0 +1,132 @@
+package compilador;
+
+import analizador.LectorArchivos;
+import java.io.IOException;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+
+/**
+ * Compilador de programas PASCAL a clases de la JVM.
+ * Reune el escaner, el parser y el generador de bytecode: el programa se
+ * convierte en una clase con el nombre del programa cuyo main ejecuta el
+ * bloque principal, y que usa EntornoPascal para la entrada/salida y las
+ * rutinas de crt y dos
+ */
+public class CompiladorPascal {
+    
+    private CompiladorPascal() {
+    }
+    
+    /**
+     * Compila un programa
+     * @param fuente Codigo fuente completo
+     * @param archivoFuente Nombre del archivo, que se guarda en la clase para las trazas
+     * @return Clase compilada
+     * @throws ErrorCompilacion Si el programa tiene errores o usa algo no soportado
+     */
+    public static ClaseCompilada compilar(String fuente, String archivoFuente) throws ErrorCompilacion {
+        ArbolPascal.Programa programa = new ParserPascal(new EscanerPascal(fuente).escanear()).analizarPrograma();
+        byte[] bytes = new GeneradorBytecode(programa, archivoFuente).generar();
+        return new ClaseCompilada(programa.nombre, bytes);
+    }
+    
+    /**
+     * Compila un archivo .pas y escribe la clase junto a el
+     * @param nombreArchivo Archivo fuente
+     * @return Ruta del archivo .class generado
+     * @throws IOException Si no se puede leer la fuente o escribir la clase
+     * @throws ErrorCompilacion Si el programa tiene errores o usa algo no soportado
+     */
+    public static Path compilarArchivo(String nombreArchivo) throws IOException, ErrorCompilacion {
+        ClaseCompilada clase = compilarFuente(nombreArchivo);
+        Path fuente = Paths.get(nombreArchivo).toAbsolutePath();
+        Path destino = fuente.resolveSibling(clase.getNombre() + ".class");
+        new LectorArchivos().escribirArchivoAtomico(destino.toString(), clase.getBytes());
+        return destino;
+    }
+    
+    /**
+     * Compila un archivo .pas y lo ejecuta en esta misma JVM
+     * @param nombreArchivo Archivo fuente
+     * @throws IOException Si no se puede leer la fuente
+     * @throws ErrorCompilacion Si el programa tiene errores o usa algo no soportado
+     */
+    public static void ejecutarArchivo(String nombreArchivo) throws IOException, ErrorCompilacion {
+        compilarFuente(nombreArchivo).ejecutar();
+    }
+    
+    private static ClaseCompilada compilarFuente(String nombreArchivo) throws IOException, ErrorCompilacion {
+        if (!Files.isReadable(Paths.get(nombreArchivo))) {
+            throw new IOException("No se puede leer el archivo " + nombreArchivo);
+        }
+        String fuente = new LectorArchivos().leerArchivo(nombreArchivo);
+        return compilar(fuente, Paths.get(nombreArchivo).getFileName().toString());
+    }
+    
+    /**
+     * Resultado de la compilacion
+     */
+    public static class ClaseCompilada {
+        private final String nombre;
+        private final byte[] bytes;
+        
+        ClaseCompilada(String nombre, byte[] bytes) {
+            this.nombre = nombre;
+            this.bytes = bytes;
+        }
+        
+        /**
+         * Obtiene el nombre de la clase (el del programa)
+         * @return Nombre de la clase
+         */
+        public String getNombre() {
+            return nombre;
+        }
+        
+        public byte[] getBytes() {
+            return bytes.clone();
+        }
+        
+        /**
+         * Carga la clase en un cargador propio y ejecuta su main
+         */
+        public void ejecutar() {
+            Class<?> clase = new CargadorPrograma().definir(nombre, bytes);
+            try {
+                Method main = clase.getMethod("main", String[].class);
+                main.invoke(null, (Object) new String[0]);
+            } catch (InvocationTargetException e) {
+                Throwable causa = e.getCause();
+                if (causa instanceof RuntimeException excepcion) {
+                    throw excepcion;
+                }
+                if (causa instanceof Error error) {
+                    throw error;
+                }
+                throw new IllegalStateException(causa);
+            } catch (ReflectiveOperationException e) {
+                throw new IllegalStateException("No se pudo ejecutar la clase " + nombre, e);
+            } finally {
+                EntornoPascal.terminar();
+            }
+        }
+    }
+    
+    /**
+     * Cargador de una sola clase compilada; EntornoPascal se resuelve con el
+     * cargador del compilador
+     */
+    private static class CargadorPrograma extends ClassLoader {
+    
+        CargadorPrograma() {
+            super(CompiladorPascal.class.getClassLoader());
+        }
+        
+        Class<?> definir(String nombre, byte[] bytes) {
+            return defineClass(nombre, bytes, 0, bytes.length);
+        }
+    }
+}
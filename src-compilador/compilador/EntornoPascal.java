@@ -0,0 +1,301 @@
+package compilador;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.Locale;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Rutinas de apoyo de los programas compilados por CompiladorPascal: la
+ * salida de write/writeln y sustitutos minimos de las unidades crt y dos
+ * (clrscr, gotoxy, readkey, keypressed, delay, getdate, gettime).
+ * La salida se acumula y se envia a la consola al esperar una tecla o al
+ * terminar el programa. Los caracteres se interpretan con la pagina de codigos
+ * 437 de DOS, de modo que los marcos (#201, #205, ...) y las flechas (#24 a
+ * #27) se ven igual que en Turbo Pascal
+ */
+public final class EntornoPascal {
+    
+    // Caracteres 1-31 y 128-255 de la pagina de codigos 437
+    private static final String CONTROL_437 = "\u0000☺☻♥♦♣♠•◘○◙♂♀♪♫☼►◄↕‼¶§▬↨↑↓→←∟↔▲▼";
+    private static final String EXTENDIDOS_437 =
+        "ÇüéâäàåçêëèïîìÄÅÉæÆôöòûùÿÖÜ¢£¥₧ƒáíóúñÑªº¿⌐¬½¼¡«»"
+        + "░▒▓│┤╡╢╖╕╣║╗╝╜╛┐└┴┬├─┼╞╟╚╔╩╦╠═╬╧╨╤╥╙╘╒╓╫╪┘┌█▄▌▐▀"
+        + "αßΓπΣσµτΦΘΩδ∞φε∩≡±≥≤⌠⌡÷≈°∙·√ⁿ²■ ";
+    
+    // Teclas extendidas de DOS para las flechas ESC [ A/B/C/D
+    private static final int ARRIBA = 72;
+    private static final int ABAJO = 80;
+    private static final int DERECHA = 77;
+    private static final int IZQUIERDA = 75;
+    private static final int ESCAPE = 27;
+    
+    private static final StringBuilder salida = new StringBuilder();
+    private static final ArrayDeque<Integer> teclasPendientes = new ArrayDeque<>();
+    private static boolean modoCrudo;
+    
+    private EntornoPascal() {
+    }
+    
+    // ===== Salida =====
+    
+    public static void escribir(String texto) {
+        for (int i = 0; i < texto.length(); i++) {
+            salida.append(traducir(texto.charAt(i)));
+        }
+    }
+    
+    public static void escribir(String texto, int ancho) {
+        rellenar(ancho - texto.length());
+        escribir(texto);
+    }
+    
+    public static void escribir(int valor) {
+        salida.append(valor);
+    }
+    
+    public static void escribir(int valor, int ancho) {
+        escribir(Integer.toString(valor), ancho);
+    }
+    
+    public static void escribirCaracter(int codigo) {
+        salida.append(traducir((char) codigo));
+    }
+    
+    public static void escribirCaracter(int codigo, int ancho) {
+        rellenar(ancho - 1);
+        escribirCaracter(codigo);
+    }
+    
+    public static void escribirLinea() {
+        salida.append(System.lineSeparator());
+    }
+    
+    private static void rellenar(int espacios) {
+        for (int i = 0; i < espacios; i++) {
+            salida.append(' ');
+        }
+    }
+    
+    private static char traducir(char c) {
+        if (c > 0 && c < 32 && c != 7 && c != 8 && c != 9 && c != 10 && c != 13) {
+            return CONTROL_437.charAt(c);
+        }
+        if (c >= 128 && c <= 255) {
+            return EXTENDIDOS_437.charAt(c - 128);
+        }
+        return c;
+    }
+    
+    /**
+     * Envia a la consola la salida acumulada
+     */
+    public static void vaciar() {
+        if (salida.length() > 0) {
+            byte[] bytes = salida.toString().getBytes(StandardCharsets.UTF_8);
+            System.out.write(bytes, 0, bytes.length);
+            System.out.flush();
+            salida.setLength(0);
+        }
+    }
+    
+    // ===== crt =====
+    
+    public static void limpiarPantalla() {
+        salida.append("\u001B[2J\u001B[H");
+    }
+    
+    public static void posicionarCursor(int columna, int fila) {
+        salida.append("\u001B[").append(fila).append(';').append(columna).append('H');
+    }
+    
+    /**
+     * readkey: las flechas llegan como 0 seguido del codigo extendido de DOS.
+     * El fin de la entrada se lee como ESC para que los programas que esperan
+     * una tecla terminen al recibir la entrada desde un archivo
+     * @return Codigo de la tecla
+     */
+    public static int leerTecla() {
+        vaciar();
+        if (!teclasPendientes.isEmpty()) {
+            return teclasPendientes.poll();
+        }
+        activarModoCrudo();
+        try {
+            InputStream entrada = System.in;
+            int c = entrada.read();
+            if (c < 0) {
+                return ESCAPE;
+            }
+            if (c == ESCAPE && entrada.available() > 0) {
+                int siguiente = entrada.read();
+                if (siguiente == '[' || siguiente == 'O') {
+                    int extendida = switch (entrada.read()) {
+                        case 'A' -> ARRIBA;
+                        case 'B' -> ABAJO;
+                        case 'C' -> DERECHA;
+                        case 'D' -> IZQUIERDA;
+                        default -> -1;
+                    };
+                    if (extendida >= 0) {
+                        teclasPendientes.add(extendida);
+                        return 0;
+                    }
+                }
+                return ESCAPE;
+            }
+            return c == '\n' ? 13 : c;
+        } catch (IOException e) {
+            return ESCAPE;
+        }
+    }
+    
+    public static int teclaPresionada() {
+        try {
+            return !teclasPendientes.isEmpty() || System.in.available() > 0 ? 1 : 0;
+        } catch (IOException e) {
+            return 0;
+        }
+    }
+    
+    public static void esperar(int milisegundos) {
+        vaciar();
+        try {
+            Thread.sleep(Math.max(0, milisegundos));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+    
+    /**
+     * Pone la terminal en modo caracter a caracter para readkey; solo si hay
+     * una consola interactiva y existe stty
+     */
+    private static void activarModoCrudo() {
+        if (modoCrudo || System.console() == null || !new File("/dev/tty").exists()) {
+            return;
+        }
+        if (stty("-icanon", "-echo", "min", "1")) {
+            modoCrudo = true;
+            Runtime.getRuntime().addShutdownHook(new Thread(EntornoPascal::restaurarTerminal));
+        }
+    }
+    
+    private static void restaurarTerminal() {
+        if (modoCrudo) {
+            stty("icanon", "echo");
+            modoCrudo = false;
+        }
+    }
+    
+    private static boolean stty(String... opciones) {
+        String[] comando = new String[opciones.length + 1];
+        comando[0] = "stty";
+        System.arraycopy(opciones, 0, comando, 1, opciones.length);
+        try {
+            Process proceso = new ProcessBuilder(comando)
+                .redirectInput(ProcessBuilder.Redirect.from(new File("/dev/tty")))
+                .start();
+            return proceso.waitFor() == 0;
+        } catch (IOException e) {
+            return false;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+    
+    // ===== dos =====
+    
+    /**
+     * getdate
+     * @return Anio, mes (1-12), dia y dia de la semana (0 = domingo)
+     */
+    public static int[] obtenerFecha() {
+        LocalDate hoy = LocalDate.now();
+        return new int[] {hoy.getYear(), hoy.getMonthValue(), hoy.getDayOfMonth(), hoy.getDayOfWeek().getValue() % 7};
+    }
+    
+    /**
+     * gettime
+     * @return Hora, minutos, segundos y centesimas
+     */
+    public static int[] obtenerHora() {
+        LocalTime ahora = LocalTime.now();
+        return new int[] {ahora.getHour(), ahora.getMinute(), ahora.getSecond(), ahora.getNano() / 10_000_000};
+    }
+    
+    // ===== system =====
+    
+    public static String leerLinea() {
+        vaciar();
+        restaurarTerminal();
+        try {
+            ByteArrayOutputStream linea = new ByteArrayOutputStream();
+            int c;
+            while ((c = System.in.read()) >= 0 && c != '\n') {
+                if (c != '\r') {
+                    linea.write(c);
+                }
+            }
+            return linea.toString(StandardCharsets.UTF_8);
+        } catch (IOException e) {
+            return "";
+        }
+    }
+    
+    public static int leerEntero() {
+        String texto = leerLinea().trim();
+        try {
+            return Integer.parseInt(texto);
+        } catch (NumberFormatException e) {
+            return 0;
+        }
+    }
+    
+    public static String cadena(int codigo) {
+        return String.valueOf((char) codigo);
+    }
+    
+    public static String booleano(int valor) {
+        return valor != 0 ? "TRUE" : "FALSE";
+    }
+    
+    public static String[] cadenas(int cantidad) {
+        String[] arreglo = new String[cantidad];
+        Arrays.fill(arreglo, "");
+        return arreglo;
+    }
+    
+    public static int mayuscula(int codigo) {
+        return String.valueOf((char) codigo).toUpperCase(Locale.ROOT).charAt(0);
+    }
+    
+    public static int aleatorio(int limite) {
+        return limite <= 0 ? 0 : ThreadLocalRandom.current().nextInt(limite);
+    }
+    
+    /**
+     * Fin normal del programa
+     */
+    public static void terminar() {
+        vaciar();
+        restaurarTerminal();
+    }
+    
+    /**
+     * halt
+     * @param codigo Codigo de salida del proceso
+     */
+    public static void terminar(int codigo) {
+        terminar();
+        System.exit(codigo);
+    }
+}
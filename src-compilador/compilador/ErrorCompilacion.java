@@ -0,0 +1,31 @@
+package compilador;
+
+/**
+ * Error que impide compilar un programa: construccion no soportada por el
+ * compilador, tipo incorrecto o identificador no declarado
+ */
+public class ErrorCompilacion extends Exception {
+    
+    private static final long serialVersionUID = 1L;
+    
+    private final int numeroLinea;
+    
+    /**
+     * Constructor
+     * @param numeroLinea Linea donde se detecto el error (1-based)
+     * @param descripcion Descripcion del error
+     */
+    public ErrorCompilacion(int numeroLinea, String descripcion) {
+        super(descripcion);
+        this.numeroLinea = numeroLinea;
+    }
+    
+    public int getNumeroLinea() {
+        return numeroLinea;
+    }
+    
+    @Override
+    public String toString() {
+        return String.format("Linea %04d. %s", numeroLinea, getMessage());
+    }
+}
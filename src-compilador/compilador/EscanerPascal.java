@@ -0,0 +1,201 @@
+package compilador;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Escaner del compilador: convierte el codigo fuente en la lista de simbolos
+ * que consume ParserPascal.
+ * A diferencia del analizador lexico del proyecto, que clasifica tokens por
+ * linea para reportar errores, este escaner une las cadenas con caracteres de
+ * control ('texto'#13#10), distingue los operadores de dos caracteres y
+ * descarta los comentarios, que pueden ocupar varias lineas
+ */
+class EscanerPascal {
+    
+    enum Tipo {
+        NUMERO,
+        IDENTIFICADOR,
+        CADENA,
+        SIMBOLO,
+        FIN
+    }
+    
+    /**
+     * Simbolo del codigo fuente
+     */
+    static class Simbolo {
+        final Tipo tipo;
+        // Identificadores en minusculas; simbolos tal cual; cadenas ya decodificadas
+        final String texto;
+        final int valor;
+        final int linea;
+        
+        Simbolo(Tipo tipo, String texto, int valor, int linea) {
+            this.tipo = tipo;
+            this.texto = texto;
+            this.valor = valor;
+            this.linea = linea;
+        }
+        
+        boolean es(String simbolo) {
+            return (tipo == Tipo.SIMBOLO || tipo == Tipo.IDENTIFICADOR) && texto.equals(simbolo);
+        }
+        
+        @Override
+        public String toString() {
+            return tipo == Tipo.FIN ? "fin de archivo" : tipo == Tipo.CADENA ? "'" + texto + "'" : texto;
+        }
+    }
+    
+    private final String fuente;
+    private int posicion;
+    private int linea = 1;
+    
+    EscanerPascal(String fuente) {
+        this.fuente = fuente;
+    }
+    
+    /**
+     * Recorre todo el codigo fuente
+     * @return Simbolos, terminando con uno de tipo FIN
+     * @throws ErrorCompilacion Si hay un caracter no valido o un comentario o cadena sin cerrar
+     */
+    List<Simbolo> escanear() throws ErrorCompilacion {
+        List<Simbolo> simbolos = new ArrayList<>();
+        while (true) {
+            saltarEspaciosYComentarios();
+            if (posicion >= fuente.length()) {
+                simbolos.add(new Simbolo(Tipo.FIN, "", 0, linea));
+                return simbolos;
+            }
+            
+            char c = fuente.charAt(posicion);
+            if (Character.isLetter(c) || c == '_') {
+                int inicio = posicion;
+                while (posicion < fuente.length()
+                       && (Character.isLetterOrDigit(fuente.charAt(posicion)) || fuente.charAt(posicion) == '_')) {
+                    posicion++;
+                }
+                String texto = fuente.substring(inicio, posicion).toLowerCase(Locale.ROOT);
+                simbolos.add(new Simbolo(Tipo.IDENTIFICADOR, texto, 0, linea));
+            } else if (Character.isDigit(c)) {
+                simbolos.add(new Simbolo(Tipo.NUMERO, "", leerEntero(), linea));
+            } else if (c == '\'' || c == '#') {
+                simbolos.add(new Simbolo(Tipo.CADENA, leerCadena(), 0, linea));
+            } else {
+                simbolos.add(new Simbolo(Tipo.SIMBOLO, leerSimbolo(), 0, linea));
+            }
+        }
+    }
+    
+    private void saltarEspaciosYComentarios() throws ErrorCompilacion {
+        while (posicion < fuente.length()) {
+            char c = fuente.charAt(posicion);
+            if (c == '\n') {
+                linea++;
+                posicion++;
+            } else if (Character.isWhitespace(c)) {
+                posicion++;
+            } else if (c == '{') {
+                saltarHasta("}", "Comentario { sin cerrar");
+            } else if (c == '(' && siguienteEs('*')) {
+                saltarHasta("*)", "Comentario (* sin cerrar");
+            } else if (c == '/' && siguienteEs('/')) {
+                while (posicion < fuente.length() && fuente.charAt(posicion) != '\n') {
+                    posicion++;
+                }
+            } else {
+                return;
+            }
+        }
+    }
+    
+    private void saltarHasta(String cierre, String mensaje) throws ErrorCompilacion {
+        int lineaInicio = linea;
+        int fin = fuente.indexOf(cierre, posicion + 1);
+        if (fin < 0) {
+            throw new ErrorCompilacion(lineaInicio, mensaje);
+        }
+        for (int i = posicion; i < fin; i++) {
+            if (fuente.charAt(i) == '\n') {
+                linea++;
+            }
+        }
+        posicion = fin + cierre.length();
+    }
+    
+    private boolean siguienteEs(char c) {
+        return posicion + 1 < fuente.length() && fuente.charAt(posicion + 1) == c;
+    }
+    
+    private int leerEntero() throws ErrorCompilacion {
+        long valor = 0;
+        while (posicion < fuente.length() && Character.isDigit(fuente.charAt(posicion))) {
+            valor = valor * 10 + (fuente.charAt(posicion++) - '0');
+            if (valor > Integer.MAX_VALUE) {
+                throw new ErrorCompilacion(linea, "Numero fuera de rango");
+            }
+        }
+        return (int) valor;
+    }
+    
+    /**
+     * Lee una cadena formada por partes 'texto' y #codigo sin espacios entre ellas
+     */
+    private String leerCadena() throws ErrorCompilacion {
+        StringBuilder texto = new StringBuilder();
+        while (posicion < fuente.length()) {
+            char c = fuente.charAt(posicion);
+            if (c == '#') {
+                posicion++;
+                if (posicion >= fuente.length() || !Character.isDigit(fuente.charAt(posicion))) {
+                    throw new ErrorCompilacion(linea, "Se esperaba un codigo de caracter despues de #");
+                }
+                int codigo = leerEntero();
+                if (codigo > 255) {
+                    throw new ErrorCompilacion(linea, "Codigo de caracter fuera de rango: #" + codigo);
+                }
+                texto.append((char) codigo);
+            } else if (c == '\'') {
+                posicion++;
+                while (true) {
+                    if (posicion >= fuente.length() || fuente.charAt(posicion) == '\n') {
+                        throw new ErrorCompilacion(linea, "Cadena sin cerrar");
+                    }
+                    char actual = fuente.charAt(posicion++);
+                    if (actual != '\'') {
+                        texto.append(actual);
+                    } else if (posicion < fuente.length() && fuente.charAt(posicion) == '\'') {
+                        texto.append('\'');
+                        posicion++;
+                    } else {
+                        break;
+                    }
+                }
+            } else {
+                break;
+            }
+        }
+        return texto.toString();
+    }
+    
+    private String leerSimbolo() throws ErrorCompilacion {
+        char c = fuente.charAt(posicion);
+        if (posicion + 1 < fuente.length()) {
+            String doble = fuente.substring(posicion, posicion + 2);
+            if (doble.equals(":=") || doble.equals("<=") || doble.equals(">=")
+                    || doble.equals("<>") || doble.equals("..")) {
+                posicion += 2;
+                return doble;
+            }
+        }
+        if ("+-*/=<>()[],;:.".indexOf(c) < 0) {
+            throw new ErrorCompilacion(linea, "Caracter no valido: " + c);
+        }
+        posicion++;
+        return String.valueOf(c);
+    }
+}
+    
\ No newline at end of file
@@ -0,0 +1,1269 @@
+package compilador;
+
+import compilador.ArbolPascal.Asignacion;
+import compilador.ArbolPascal.Base;
+import compilador.ArbolPascal.Binaria;
+import compilador.ArbolPascal.Caso;
+import compilador.ArbolPascal.Compuesta;
+import compilador.ArbolPascal.Constante;
+import compilador.ArbolPascal.Expresion;
+import compilador.ArbolPascal.Funcion;
+import compilador.ArbolPascal.Mientras;
+import compilador.ArbolPascal.Nombre;
+import compilador.ArbolPascal.Numero;
+import compilador.ArbolPascal.Para;
+import compilador.ArbolPascal.Procedimiento;
+import compilador.ArbolPascal.Programa;
+import compilador.ArbolPascal.Rama;
+import compilador.ArbolPascal.Repetir;
+import compilador.ArbolPascal.Sentencia;
+import compilador.ArbolPascal.Si;
+import compilador.ArbolPascal.Texto;
+import compilador.ArbolPascal.Tipo;
+import compilador.ArbolPascal.Unaria;
+import compilador.ArbolPascal.Vacia;
+import compilador.ArbolPascal.Variable;
+import java.lang.classfile.ClassFile;
+import java.lang.classfile.CodeBuilder;
+import java.lang.classfile.Label;
+import java.lang.classfile.TypeKind;
+import java.lang.classfile.attribute.SourceFileAttribute;
+import java.lang.classfile.instruction.SwitchCase;
+import java.lang.constant.ClassDesc;
+import java.lang.constant.ConstantDescs;
+import java.lang.constant.MethodTypeDesc;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Traduce un ArbolPascal a una clase de la JVM con la API java.lang.classfile.
+ * La clase tiene un unico metodo main con el bloque principal:
+ * - Las variables escalares son variables locales de main (int para los tipos
+ *   ordinales, String para string), de modo que el JIT las mantiene en registros
+ * - Los arreglos constantes son campos static final int[] o String[]
+ *   inicializados en el inicializador estatico, y los arreglos variables son
+ *   locales creados al entrar a main
+ * - Las constantes escalares se sustituyen por su valor y las expresiones
+ *   constantes se evaluan al compilar
+ * - word y byte se guardan como int enmascarando cada asignacion
+ * - Las condiciones saltan directamente con if_icmpXX, sin producir booleanos
+ *   intermedios, y and/or son de corto circuito como en Turbo Pascal
+ * La entrada/salida y las rutinas de crt/dos las resuelve EntornoPascal
+ */
+class GeneradorBytecode {
+    
+    private static final ClassDesc ENTORNO = ClassDesc.of(EntornoPascal.class.getName());
+    private static final ClassDesc CD_INT_ARRAY = ConstantDescs.CD_int.arrayType();
+    private static final ClassDesc CD_STRING_ARRAY = ConstantDescs.CD_String.arrayType();
+    // Cantidad maxima de valores que puede abarcar un rango a..b en un case
+    private static final int MAXIMO_RANGO_CASO = 256;
+    
+    /**
+     * Constante, variable o arreglo constante declarado en el programa
+     */
+    private static final class Entidad {
+        final Tipo tipo;
+        // Constantes escalares: Integer o String
+        final Object valor;
+        // Arreglos constantes: nombre del campo estatico
+        final String campo;
+        // Variables: slot local en main
+        final int local;
+        
+        Entidad(Tipo tipo, Object valor, String campo, int local) {
+            this.tipo = tipo;
+            this.valor = valor;
+            this.campo = campo;
+            this.local = local;
+        }
+        
+        boolean esVariable() {
+            return campo != null || local >= 0;
+        }
+    }
+    
+    /**
+     * Transporta un ErrorCompilacion fuera de los Consumer de la API, que no
+     * admiten excepciones verificadas
+     */
+    private static final class ErrorEnGeneracion extends RuntimeException {
+        private static final long serialVersionUID = 1L;
+        
+        final ErrorCompilacion error;
+        
+        ErrorEnGeneracion(ErrorCompilacion error) {
+            super(error.getMessage(), null, false, false);
+            this.error = error;
+        }
+    }
+    
+    /**
+     * Codigo que deja un valor en la pila
+     */
+    @FunctionalInterface
+    private interface Valor {
+        void generar() throws ErrorCompilacion;
+    }
+    
+    private final Programa programa;
+    private final String archivoFuente;
+    private final ClassDesc clase;
+    private final Map<String, Entidad> entidades = new HashMap<>();
+    private CodeBuilder cb;
+    
+    /**
+     * Constructor
+     * @param programa Arbol del programa
+     * @param archivoFuente Nombre del archivo .pas, para el atributo SourceFile
+     */
+    GeneradorBytecode(Programa programa, String archivoFuente) {
+        this.programa = programa;
+        this.archivoFuente = archivoFuente;
+        this.clase = ClassDesc.of(programa.nombre);
+    }
+    
+    /**
+     * Genera el archivo de clase
+     * @return Bytes de la clase, cuyo nombre es el del programa
+     * @throws ErrorCompilacion Si el programa usa algo no soportado o tiene errores de tipos
+     */
+    byte[] generar() throws ErrorCompilacion {
+        entidades.put("true", new Entidad(Tipo.BOOLEAN, 1, null, -1));
+        entidades.put("false", new Entidad(Tipo.BOOLEAN, 0, null, -1));
+        declararConstantes();
+        
+        try {
+            return ClassFile.of().build(clase, clb -> {
+                clb.withFlags(ClassFile.ACC_PUBLIC | ClassFile.ACC_FINAL | ClassFile.ACC_SUPER)
+                   .withSuperclass(ConstantDescs.CD_Object)
+                   .with(SourceFileAttribute.of(archivoFuente));
+                
+                boolean hayArreglos = false;
+                for (Constante constante : programa.constantes) {
+                    if (constante.elementos != null) {
+                        clb.withField(constante.nombre, descriptorArreglo(constante.tipo),
+                                      ClassFile.ACC_PRIVATE | ClassFile.ACC_STATIC | ClassFile.ACC_FINAL);
+                        hayArreglos = true;
+                    }
+                }
+                if (hayArreglos) {
+                    clb.withMethodBody(ConstantDescs.CLASS_INIT_NAME, ConstantDescs.MTD_void, ClassFile.ACC_STATIC,
+                                       codigo -> {
+                                           cb = codigo;
+                                           generarInicializadorEstatico();
+                                       });
+                }
+                clb.withMethodBody("main", MethodTypeDesc.of(ConstantDescs.CD_void, CD_STRING_ARRAY),
+                                   ClassFile.ACC_PUBLIC | ClassFile.ACC_STATIC,
+                                   codigo -> {
+                                       cb = codigo;
+                                       try {
+                                           generarMain();
+                                       } catch (ErrorCompilacion e) {
+                                           throw new ErrorEnGeneracion(e);
+                                       }
+                                   });
+            });
+        } catch (ErrorEnGeneracion e) {
+            throw e.error;
+        } finally {
+            cb = null;
+        }
+    }
+    
+    // ===== Declaraciones =====
+    
+    private void declararConstantes() throws ErrorCompilacion {
+        for (Constante constante : programa.constantes) {
+            verificarNuevo(constante.nombre, constante.linea);
+            if (constante.elementos != null) {
+                Tipo elemento = constante.tipo.elemento();
+                for (Expresion valor : constante.elementos) {
+                    if (valorConstante(valor) == null) {
+                        throw new ErrorCompilacion(valor.linea, "Se esperaba un valor constante");
+                    }
+                    verificarCompatible(elemento, tipoDe(valor), valor.linea);
+                }
+                entidades.put(constante.nombre, new Entidad(constante.tipo, null, constante.nombre, -1));
+            } else if (constante.tipo == null) {
+                Object valor = valorConstante(constante.valor);
+                if (valor == null) {
+                    throw new ErrorCompilacion(constante.linea, "Se esperaba un valor constante");
+                }
+                entidades.put(constante.nombre, new Entidad(tipoDe(constante.valor), valor, null, -1));
+            }
+            // Las constantes escalares con tipo son variables inicializadas y se declaran en main
+        }
+    }
+    
+    private void verificarNuevo(String nombre, int linea) throws ErrorCompilacion {
+        if (entidades.containsKey(nombre)) {
+            throw new ErrorCompilacion(linea, "Identificador duplicado: " + nombre);
+        }
+    }
+    
+    private void generarInicializadorEstatico() {
+        for (Constante constante : programa.constantes) {
+            if (constante.elementos == null) {
+                continue;
+            }
+            boolean cadenas = constante.tipo.base == Base.STRING;
+            cb.loadConstant(constante.elementos.size());
+            if (cadenas) {
+                cb.anewarray(ConstantDescs.CD_String);
+            } else {
+                cb.newarray(TypeKind.IntType);
+            }
+            for (int i = 0; i < constante.elementos.size(); i++) {
+                Object valor = valorConstante(constante.elementos.get(i));
+                cb.dup();
+                cb.loadConstant(i);
+                if (cadenas) {
+                    cb.loadConstant(valor.toString());
+                    cb.aastore();
+                } else {
+                    cb.loadConstant(valorOrdinal(valor));
+                    cb.iastore();
+                }
+            }
+            cb.putstatic(clase, constante.nombre, descriptorArreglo(constante.tipo));
+        }
+        cb.return_();
+    }
+    
+    private void generarMain() throws ErrorCompilacion {
+        for (Constante constante : programa.constantes) {
+            if (constante.tipo != null && constante.elementos == null) {
+                declararVariable(constante.nombre, constante.tipo, constante.linea);
+                verificarCompatible(constante.tipo, tipoDe(constante.valor), constante.linea);
+                almacenar(new Nombre(constante.nombre, null, constante.linea),
+                          () -> generarComo(constante.valor, constante.tipo));
+            }
+        }
+        for (Variable variable : programa.variables) {
+            Entidad entidad = declararVariable(variable.nombre, variable.tipo, variable.linea);
+            inicializar(entidad);
+        }
+        
+        generarSentencia(programa.cuerpo);
+        cb.invokestatic(ENTORNO, "terminar", ConstantDescs.MTD_void);
+        cb.return_();
+    }
+    
+    private Entidad declararVariable(String nombre, Tipo tipo, int linea) throws ErrorCompilacion {
+        verificarNuevo(nombre, linea);
+        boolean referencia = tipo.arreglo || tipo.base == Base.STRING;
+        int local = cb.allocateLocal(referencia ? TypeKind.ReferenceType : TypeKind.IntType);
+        Entidad entidad = new Entidad(tipo, null, null, local);
+        entidades.put(nombre, entidad);
+        return entidad;
+    }
+    
+    /**
+     * Valor inicial de una variable: 0, cadena vacia o arreglo lleno de esos valores
+     */
+    private void inicializar(Entidad entidad) {
+        Tipo tipo = entidad.tipo;
+        if (tipo.arreglo) {
+            cb.loadConstant(tipo.longitud());
+            if (tipo.base == Base.STRING) {
+                cb.invokestatic(ENTORNO, "cadenas", MethodTypeDesc.of(CD_STRING_ARRAY, ConstantDescs.CD_int));
+            } else {
+                cb.newarray(TypeKind.IntType);
+            }
+            cb.astore(entidad.local);
+        } else if (tipo.base == Base.STRING) {
+            cb.loadConstant("");
+            cb.astore(entidad.local);
+        } else {
+            cb.iconst_0();
+            cb.istore(entidad.local);
+        }
+    }
+    
+    // ===== Sentencias =====
+    
+    private void generarSentencia(Sentencia sentencia) throws ErrorCompilacion {
+        if (!(sentencia instanceof Compuesta) && !(sentencia instanceof Vacia)) {
+            cb.lineNumber(sentencia.linea);
+        }
+        
+        if (sentencia instanceof Compuesta compuesta) {
+            for (Sentencia s : compuesta.sentencias) {
+                generarSentencia(s);
+            }
+        } else if (sentencia instanceof Asignacion asignacion) {
+            Tipo destino = tipoDe(asignacion.destino);
+            verificarCompatible(destino, tipoDe(asignacion.valor), asignacion.linea);
+            almacenar(asignacion.destino, () -> generarComo(asignacion.valor, destino));
+        } else if (sentencia instanceof Procedimiento procedimiento) {
+            generarProcedimiento(procedimiento);
+        } else if (sentencia instanceof Si si) {
+            Label sino = cb.newLabel();
+            generarCondicion(si.condicion, sino, false);
+            generarSentencia(si.entonces);
+            if (si.sino != null) {
+                Label fin = cb.newLabel();
+                cb.goto_(fin);
+                cb.labelBinding(sino);
+                generarSentencia(si.sino);
+                cb.labelBinding(fin);
+            } else {
+                cb.labelBinding(sino);
+            }
+        } else if (sentencia instanceof Mientras mientras) {
+            // La condicion va al final para que cada vuelta tenga un solo salto
+            Label cuerpo = cb.newLabel();
+            Label prueba = cb.newLabel();
+            cb.goto_(prueba);
+            cb.labelBinding(cuerpo);
+            generarSentencia(mientras.cuerpo);
+            cb.labelBinding(prueba);
+            generarCondicion(mientras.condicion, cuerpo, true);
+        } else if (sentencia instanceof Repetir repetir) {
+            Label inicio = cb.newLabel();
+            cb.labelBinding(inicio);
+            for (Sentencia s : repetir.cuerpo) {
+                generarSentencia(s);
+            }
+            generarCondicion(repetir.condicion, inicio, false);
+        } else if (sentencia instanceof Para para) {
+            generarPara(para);
+        } else if (sentencia instanceof Caso caso) {
+            generarCaso(caso);
+        }
+    }
+    
+    private void generarPara(Para para) throws ErrorCompilacion {
+        Entidad variable = entidades.get(para.variable);
+        if (variable == null || variable.local < 0 || !variable.tipo.esOrdinal()) {
+            throw new ErrorCompilacion(para.linea, "La variable de control del for debe ser una variable ordinal: "
+                                       + para.variable);
+        }
+        verificarCompatible(variable.tipo, tipoDe(para.desde), para.linea);
+        verificarCompatible(variable.tipo, tipoDe(para.hasta), para.linea);
+        
+        Nombre control = new Nombre(para.variable, null, para.linea);
+        almacenar(control, () -> generarValor(para.desde));
+        
+        // El limite se evalua una sola vez
+        Object limiteConstante = valorConstante(para.hasta);
+        int limite = -1;
+        if (limiteConstante == null) {
+            limite = cb.allocateLocal(TypeKind.IntType);
+            generarValor(para.hasta);
+            cb.istore(limite);
+        }
+        
+        Label cuerpo = cb.newLabel();
+        Label fin = cb.newLabel();
+        cb.iload(variable.local);
+        cargarLimite(limiteConstante, limite);
+        if (para.descendente) {
+            cb.if_icmplt(fin);
+        } else {
+            cb.if_icmpgt(fin);
+        }
+        cb.labelBinding(cuerpo);
+        generarSentencia(para.cuerpo);
+        cb.iinc(variable.local, para.descendente ? -1 : 1);
+        cb.iload(variable.local);
+        cargarLimite(limiteConstante, limite);
+        if (para.descendente) {
+            cb.if_icmpge(cuerpo);
+        } else {
+            cb.if_icmple(cuerpo);
+        }
+        cb.labelBinding(fin);
+    }
+    
+    private void cargarLimite(Object constante, int local) {
+        if (constante != null) {
+            cb.loadConstant(valorOrdinal(constante));
+        } else {
+            cb.iload(local);
+        }
+    }
+    
+    /**
+     * case: lookupswitch, o tableswitch si las etiquetas son densas
+     */
+    private void generarCaso(Caso caso) throws ErrorCompilacion {
+        Tipo tipoSelector = tipoDe(caso.selector);
+        if (!tipoSelector.esOrdinal()) {
+            throw new ErrorCompilacion(caso.linea, "El selector del case debe ser ordinal");
+        }
+        
+        Label fin = cb.newLabel();
+        Label defecto = cb.newLabel();
+        List<Label> destinos = new ArrayList<>();
+        TreeMap<Integer, Label> etiquetas = new TreeMap<>();
+        for (Rama rama : caso.ramas) {
+            Label destino = cb.newLabel();
+            destinos.add(destino);
+            for (Expresion etiqueta : rama.etiquetas) {
+                int desde;
+                int hasta;
+                if (etiqueta instanceof Binaria rango && rango.operador.equals("..")) {
+                    desde = etiquetaCaso(rango.izquierda, tipoSelector);
+                    hasta = etiquetaCaso(rango.derecha, tipoSelector);
+                    if (hasta < desde || (long) hasta - desde >= MAXIMO_RANGO_CASO) {
+                        throw new ErrorCompilacion(etiqueta.linea, "Rango de case no soportado: " + desde + ".." + hasta);
+                    }
+                } else {
+                    desde = etiquetaCaso(etiqueta, tipoSelector);
+                    hasta = desde;
+                }
+                for (int valor = desde; valor <= hasta; valor++) {
+                    if (etiquetas.put(valor, destino) != null) {
+                        throw new ErrorCompilacion(etiqueta.linea, "Etiqueta de case repetida: " + valor);
+                    }
+                }
+            }
+        }
+        
+        generarValor(caso.selector);
+        List<SwitchCase> casos = new ArrayList<>();
+        for (Map.Entry<Integer, Label> entrada : etiquetas.entrySet()) {
+            casos.add(SwitchCase.of(entrada.getKey(), entrada.getValue()));
+        }
+        if (casos.isEmpty()) {
+            cb.pop();
+            cb.goto_(defecto);
+        } else {
+            int menor = etiquetas.firstKey();
+            int mayor = etiquetas.lastKey();
+            long rango = (long) mayor - menor + 1;
+            if (rango <= 2L * casos.size()) {
+                cb.tableswitch(menor, mayor, defecto, casos);
+            } else {
+                cb.lookupswitch(defecto, casos);
+            }
+        }
+        
+        for (int i = 0; i < caso.ramas.size(); i++) {
+            cb.labelBinding(destinos.get(i));
+            generarSentencia(caso.ramas.get(i).sentencia);
+            cb.goto_(fin);
+        }
+        cb.labelBinding(defecto);
+        if (caso.sino != null) {
+            generarSentencia(caso.sino);
+        }
+        cb.labelBinding(fin);
+    }
+    
+    private int etiquetaCaso(Expresion etiqueta, Tipo tipoSelector) throws ErrorCompilacion {
+        Object valor = valorConstante(etiqueta);
+        if (valor == null) {
+            throw new ErrorCompilacion(etiqueta.linea, "La etiqueta del case debe ser constante");
+        }
+        verificarCompatible(tipoSelector, tipoDe(etiqueta), etiqueta.linea);
+        return valorOrdinal(valor);
+    }
+    
+    // ===== Procedimientos predefinidos =====
+    
+    private void generarProcedimiento(Procedimiento llamada) throws ErrorCompilacion {
+        List<Expresion> argumentos = llamada.argumentos;
+        switch (llamada.nombre) {
+            case "write":
+                generarEscritura(llamada);
+                break;
+            case "writeln":
+                generarEscritura(llamada);
+                cb.invokestatic(ENTORNO, "escribirLinea", ConstantDescs.MTD_void);
+                break;
+            case "readln":
+                generarLectura(llamada);
+                break;
+            case "clrscr":
+                verificarArgumentos(llamada, 0);
+                cb.invokestatic(ENTORNO, "limpiarPantalla", ConstantDescs.MTD_void);
+                break;
+            case "gotoxy":
+                verificarArgumentos(llamada, 2);
+                generarNumerico(argumentos.get(0));
+                generarNumerico(argumentos.get(1));
+                cb.invokestatic(ENTORNO, "posicionarCursor",
+                                MethodTypeDesc.of(ConstantDescs.CD_void, ConstantDescs.CD_int, ConstantDescs.CD_int));
+                break;
+            case "delay":
+                verificarArgumentos(llamada, 1);
+                generarNumerico(argumentos.get(0));
+                cb.invokestatic(ENTORNO, "esperar", MethodTypeDesc.of(ConstantDescs.CD_void, ConstantDescs.CD_int));
+                break;
+            case "halt":
+                if (argumentos.isEmpty()) {
+                    cb.iconst_0();
+                } else {
+                    verificarArgumentos(llamada, 1);
+                    generarNumerico(argumentos.get(0));
+                }
+                cb.invokestatic(ENTORNO, "terminar", MethodTypeDesc.of(ConstantDescs.CD_void, ConstantDescs.CD_int));
+                break;
+            case "inc":
+            case "dec":
+                generarIncremento(llamada);
+                break;
+            case "getdate":
+                generarLecturaReloj(llamada, "obtenerFecha");
+                break;
+            case "gettime":
+                generarLecturaReloj(llamada, "obtenerHora");
+                break;
+            default:
+                throw new ErrorCompilacion(llamada.linea, "Procedimiento no soportado por el compilador: "
+                                           + llamada.nombre);
+        }
+    }
+    
+    private void verificarArgumentos(Procedimiento llamada, int cantidad) throws ErrorCompilacion {
+        if (llamada.argumentos.size() != cantidad) {
+            throw new ErrorCompilacion(llamada.linea, llamada.nombre + " espera " + cantidad + " argumentos");
+        }
+        for (Expresion ancho : llamada.anchos) {
+            if (ancho != null) {
+                throw new ErrorCompilacion(llamada.linea, "Formato :n solo permitido en write y writeln");
+            }
+        }
+    }
+    
+    /**
+     * write/writeln; los argumentos constantes consecutivos se unen en una
+     * sola cadena al compilar
+     */
+    private void generarEscritura(Procedimiento llamada) throws ErrorCompilacion {
+        StringBuilder pendiente = new StringBuilder();
+        for (int i = 0; i < llamada.argumentos.size(); i++) {
+            Expresion argumento = llamada.argumentos.get(i);
+            Expresion ancho = llamada.anchos.get(i);
+            Tipo tipo = tipoDe(argumento);
+            if (tipo.arreglo) {
+                throw new ErrorCompilacion(argumento.linea, "No se puede escribir un arreglo completo");
+            }
+            
+            Object constante = ancho == null ? valorConstante(argumento) : null;
+            if (constante != null) {
+                pendiente.append(textoConstante(constante, tipo));
+                continue;
+            }
+            escribirPendiente(pendiente);
+            
+            MethodTypeDesc firma;
+            String metodo = "escribir";
+            if (tipo.base == Base.STRING || tipo.base == Base.BOOLEAN) {
+                generarCadena(argumento);
+                firma = MethodTypeDesc.of(ConstantDescs.CD_void, ConstantDescs.CD_String);
+            } else {
+                generarValor(argumento);
+                firma = MethodTypeDesc.of(ConstantDescs.CD_void, ConstantDescs.CD_int);
+                if (tipo.base == Base.CHAR) {
+                    metodo = "escribirCaracter";
+                }
+            }
+            if (ancho != null) {
+                generarNumerico(ancho);
+                firma = firma.insertParameterTypes(firma.parameterCount(), ConstantDescs.CD_int);
+            }
+            cb.invokestatic(ENTORNO, metodo, firma);
+        }
+        escribirPendiente(pendiente);
+    }
+    
+    private void escribirPendiente(StringBuilder pendiente) {
+        if (pendiente.length() > 0) {
+            cb.loadConstant(pendiente.toString());
+            cb.invokestatic(ENTORNO, "escribir", MethodTypeDesc.of(ConstantDescs.CD_void, ConstantDescs.CD_String));
+            pendiente.setLength(0);
+        }
+    }
+    
+    private static String textoConstante(Object valor, Tipo tipo) {
+        if (tipo.base == Base.BOOLEAN) {
+            return valorOrdinal(valor) != 0 ? "TRUE" : "FALSE";
+        }
+        if (tipo.base == Base.CHAR && valor instanceof Integer codigo) {
+            return String.valueOf((char) codigo.intValue());
+        }
+        return valor.toString();
+    }
+    
+    private void generarLectura(Procedimiento llamada) throws ErrorCompilacion {
+        if (llamada.argumentos.isEmpty()) {
+            cb.invokestatic(ENTORNO, "leerLinea", MethodTypeDesc.of(ConstantDescs.CD_String));
+            cb.pop();
+            return;
+        }
+        for (Expresion argumento : llamada.argumentos) {
+            Nombre destino = destinoVariable(argumento, llamada.nombre);
+            Tipo tipo = tipoDe(destino);
+            if (tipo.base == Base.STRING && !tipo.arreglo) {
+                almacenar(destino, () -> cb.invokestatic(ENTORNO, "leerLinea",
+                                                         MethodTypeDesc.of(ConstantDescs.CD_String)));
+            } else if (tipo.esNumerico()) {
+                almacenar(destino, () -> cb.invokestatic(ENTORNO, "leerEntero",
+                                                         MethodTypeDesc.of(ConstantDescs.CD_int)));
+            } else {
+                throw new ErrorCompilacion(argumento.linea, "readln solo lee enteros y cadenas");
+            }
+        }
+    }
+    
+    private void generarIncremento(Procedimiento llamada) throws ErrorCompilacion {
+        if (llamada.argumentos.isEmpty() || llamada.argumentos.size() > 2) {
+            throw new ErrorCompilacion(llamada.linea, llamada.nombre + " espera 1 o 2 argumentos");
+        }
+        Nombre destino = destinoVariable(llamada.argumentos.get(0), llamada.nombre);
+        Tipo tipo = tipoDe(destino);
+        if (!tipo.esOrdinal()) {
+            throw new ErrorCompilacion(llamada.linea, llamada.nombre + " requiere una variable ordinal");
+        }
+        Expresion cantidad = llamada.argumentos.size() > 1 ? llamada.argumentos.get(1) : null;
+        if (cantidad != null && !tipoDe(cantidad).esNumerico()) {
+            throw new ErrorCompilacion(llamada.linea, "La cantidad de " + llamada.nombre + " debe ser entera");
+        }
+        boolean restar = llamada.nombre.equals("dec");
+        
+        // integer local con cantidad constante: una sola instruccion iinc
+        Entidad entidad = entidades.get(destino.nombre);
+        Object constante = cantidad == null ? Integer.valueOf(1) : valorConstante(cantidad);
+        if (destino.indice == null && entidad.local >= 0 && tipo.base == Base.INTEGER && constante != null) {
+            int paso = restar ? -valorOrdinal(constante) : valorOrdinal(constante);
+            if (paso >= Short.MIN_VALUE && paso <= Short.MAX_VALUE) {
+                cb.iinc(entidad.local, paso);
+                return;
+            }
+        }
+        
+        almacenar(destino, () -> {
+            generarValor(destino);
+            if (cantidad == null) {
+                cb.iconst_1();
+            } else {
+                generarValor(cantidad);
+            }
+            if (restar) {
+                cb.isub();
+            } else {
+                cb.iadd();
+            }
+        });
+    }
+    
+    /**
+     * getdate/gettime: el entorno devuelve un int[4] que se reparte en las
+     * variables recibidas
+     */
+    private void generarLecturaReloj(Procedimiento llamada, String metodo) throws ErrorCompilacion {
+        verificarArgumentos(llamada, 4);
+        List<Nombre> destinos = new ArrayList<>();
+        for (Expresion argumento : llamada.argumentos) {
+            Nombre destino = destinoVariable(argumento, llamada.nombre);
+            if (!tipoDe(destino).esNumerico()) {
+                throw new ErrorCompilacion(argumento.linea, llamada.nombre + " requiere variables enteras");
+            }
+            destinos.add(destino);
+        }
+        
+        int valores = cb.allocateLocal(TypeKind.ReferenceType);
+        cb.invokestatic(ENTORNO, metodo, MethodTypeDesc.of(CD_INT_ARRAY));
+        cb.astore(valores);
+        for (int i = 0; i < destinos.size(); i++) {
+            int posicion = i;
+            almacenar(destinos.get(i), () -> {
+                cb.aload(valores);
+                cb.loadConstant(posicion);
+                cb.iaload();
+            });
+        }
+    }
+    
+    private Nombre destinoVariable(Expresion argumento, String procedimiento) throws ErrorCompilacion {
+        if (argumento instanceof Nombre nombre) {
+            Entidad entidad = entidades.get(nombre.nombre);
+            if (entidad != null && entidad.esVariable()) {
+                return nombre;
+            }
+        }
+        throw new ErrorCompilacion(argumento.linea, procedimiento + " requiere una variable como argumento");
+    }
+    
+    // ===== Asignacion =====
+    
+    /**
+     * Guarda en una variable o elemento de arreglo el valor que deja en la
+     * pila el codigo indicado, ajustandolo al rango de word, byte o char
+     */
+    private void almacenar(Nombre destino, Valor valor) throws ErrorCompilacion {
+        Entidad entidad = buscar(destino.nombre, destino.linea);
+        if (!entidad.esVariable()) {
+            throw new ErrorCompilacion(destino.linea, "No se puede asignar a la constante " + destino.nombre);
+        }
+        
+        if (entidad.tipo.arreglo) {
+            if (destino.indice == null) {
+                throw new ErrorCompilacion(destino.linea, "No soportado por el compilador: asignar arreglos completos");
+            }
+            Tipo elemento = entidad.tipo.elemento();
+            cargarArreglo(entidad);
+            generarIndice(destino.indice, entidad.tipo);
+            valor.generar();
+            ajustarRango(elemento);
+            if (elemento.base == Base.STRING) {
+                cb.aastore();
+            } else {
+                cb.iastore();
+            }
+        } else {
+            if (destino.indice != null) {
+                throw new ErrorCompilacion(destino.linea, destino.nombre + " no es un arreglo");
+            }
+            valor.generar();
+            ajustarRango(entidad.tipo);
+            if (entidad.tipo.base == Base.STRING) {
+                cb.astore(entidad.local);
+            } else {
+                cb.istore(entidad.local);
+            }
+        }
+    }
+    
+    private void ajustarRango(Tipo tipo) {
+        switch (tipo.base) {
+            case WORD:
+                cb.loadConstant(0xFFFF);
+                cb.iand();
+                break;
+            case BYTE:
+            case CHAR:
+                cb.loadConstant(0xFF);
+                cb.iand();
+                break;
+            default:
+                break;
+        }
+    }
+    
+    private void cargarArreglo(Entidad entidad) {
+        if (entidad.campo != null) {
+            cb.getstatic(clase, entidad.campo, descriptorArreglo(entidad.tipo));
+        } else {
+            cb.aload(entidad.local);
+        }
+    }
+    
+    /**
+     * Deja en la pila la posicion 0-based; la JVM verifica los limites
+     */
+    private void generarIndice(Expresion indice, Tipo arreglo) throws ErrorCompilacion {
+        if (!tipoDe(indice).esOrdinal()) {
+            throw new ErrorCompilacion(indice.linea, "El indice de un arreglo debe ser ordinal");
+        }
+        Object constante = valorConstante(indice);
+        if (constante != null) {
+            int posicion = valorOrdinal(constante);
+            if (posicion < arreglo.inferior || posicion > arreglo.superior) {
+                throw new ErrorCompilacion(indice.linea, "Indice fuera de rango: " + posicion);
+            }
+            cb.loadConstant(posicion - arreglo.inferior);
+            return;
+        }
+        generarValor(indice);
+        if (arreglo.inferior != 0) {
+            cb.loadConstant(arreglo.inferior);
+            cb.isub();
+        }
+    }
+    
+    // ===== Expresiones =====
+    
+    private void generarComo(Expresion expresion, Tipo destino) throws ErrorCompilacion {
+        if (destino.base == Base.STRING && !destino.arreglo) {
+            generarCadena(expresion);
+        } else {
+            generarValor(expresion);
+        }
+    }
+    
+    private void generarNumerico(Expresion expresion) throws ErrorCompilacion {
+        if (!tipoDe(expresion).esNumerico()) {
+            throw new ErrorCompilacion(expresion.linea, "Se esperaba una expresion entera");
+        }
+        generarValor(expresion);
+    }
+    
+    /**
+     * Deja una cadena en la pila; un char se convierte
+     */
+    private void generarCadena(Expresion expresion) throws ErrorCompilacion {
+        Tipo tipo = tipoDe(expresion);
+        Object constante = valorConstante(expresion);
+        if (constante != null && !tipo.arreglo) {
+            cb.loadConstant(textoConstante(constante, tipo));
+            return;
+        }
+        if (tipo.arreglo) {
+            throw new ErrorCompilacion(expresion.linea, "Se esperaba una cadena");
+        }
+        generarValor(expresion);
+        if (tipo.base == Base.CHAR) {
+            cb.invokestatic(ENTORNO, "cadena", MethodTypeDesc.of(ConstantDescs.CD_String, ConstantDescs.CD_int));
+        } else if (tipo.base == Base.BOOLEAN) {
+            cb.invokestatic(ENTORNO, "booleano", MethodTypeDesc.of(ConstantDescs.CD_String, ConstantDescs.CD_int));
+        } else if (tipo.base != Base.STRING) {
+            throw new ErrorCompilacion(expresion.linea, "Se esperaba una cadena");
+        }
+    }
+    
+    /**
+     * Deja en la pila el valor de la expresion segun su tipo: int para los
+     * ordinales y String para las cadenas
+     */
+    private void generarValor(Expresion expresion) throws ErrorCompilacion {
+        Tipo tipo = tipoDe(expresion);
+        if (tipo.arreglo) {
+            throw new ErrorCompilacion(expresion.linea, "Se esperaba un indice para el arreglo");
+        }
+        Object constante = valorConstante(expresion);
+        if (constante != null) {
+            if (tipo.base == Base.STRING) {
+                cb.loadConstant(constante.toString());
+            } else {
+                cb.loadConstant(valorOrdinal(constante));
+            }
+            return;
+        }
+        
+        if (expresion instanceof Nombre nombre) {
+            Funcion funcion = comoFuncion(nombre);
+            if (funcion != null) {
+                generarFuncion(funcion);
+                return;
+            }
+            Entidad entidad = buscar(nombre.nombre, nombre.linea);
+            if (nombre.indice != null) {
+                cargarArreglo(entidad);
+                generarIndice(nombre.indice, entidad.tipo);
+                if (tipo.base == Base.STRING) {
+                    cb.aaload();
+                } else {
+                    cb.iaload();
+                }
+            } else if (tipo.base == Base.STRING) {
+                cb.aload(entidad.local);
+            } else {
+                cb.iload(entidad.local);
+            }
+        } else if (expresion instanceof Funcion funcion) {
+            generarFuncion(funcion);
+        } else if (expresion instanceof Unaria unaria) {
+            if (tipo.base == Base.BOOLEAN) {
+                generarBooleano(unaria);
+            } else if (unaria.operador.equals("not")) {
+                generarNumerico(unaria.operando);
+                cb.iconst_m1();
+                cb.ixor();
+            } else {
+                generarNumerico(unaria.operando);
+                cb.ineg();
+            }
+        } else if (expresion instanceof Binaria binaria) {
+            generarBinaria(binaria, tipo);
+        }
+    }
+    
+    private void generarBinaria(Binaria binaria, Tipo tipo) throws ErrorCompilacion {
+        if (tipo.base == Base.BOOLEAN) {
+            generarBooleano(binaria);
+            return;
+        }
+        if (tipo.base == Base.STRING) {
+            generarCadena(binaria.izquierda);
+            generarCadena(binaria.derecha);
+            cb.invokevirtual(ConstantDescs.CD_String, "concat",
+                             MethodTypeDesc.of(ConstantDescs.CD_String, ConstantDescs.CD_String));
+            return;
+        }
+        
+        generarNumerico(binaria.izquierda);
+        generarNumerico(binaria.derecha);
+        switch (binaria.operador) {
+            case "+": cb.iadd(); break;
+            case "-": cb.isub(); break;
+            case "*": cb.imul(); break;
+            case "div": cb.idiv(); break;
+            case "mod": cb.irem(); break;
+            case "and": cb.iand(); break;
+            case "or": cb.ior(); break;
+            case "xor": cb.ixor(); break;
+            case "shl": cb.ishl(); break;
+            case "shr": cb.iushr(); break;
+            default:
+                throw new ErrorCompilacion(binaria.linea, "Operador no soportado: " + binaria.operador);
+        }
+    }
+    
+    /**
+     * Deja 1 o 0 en la pila a partir de una condicion
+     */
+    private void generarBooleano(Expresion expresion) throws ErrorCompilacion {
+        Label falso = cb.newLabel();
+        Label fin = cb.newLabel();
+        generarCondicion(expresion, falso, false);
+        cb.iconst_1();
+        cb.goto_(fin);
+        cb.labelBinding(falso);
+        cb.iconst_0();
+        cb.labelBinding(fin);
+    }
+    
+    /**
+     * Salta a destino cuando la condicion vale saltarSi
+     */
+    private void generarCondicion(Expresion expresion, Label destino, boolean saltarSi) throws ErrorCompilacion {
+        if (expresion instanceof Binaria binaria) {
+            String operador = binaria.operador;
+            if (esRelacional(operador)) {
+                generarComparacion(binaria, destino, saltarSi);
+                return;
+            }
+            boolean logico = tipoDe(binaria).base == Base.BOOLEAN;
+            if (logico && (operador.equals("and") || operador.equals("or"))) {
+                // and con saltarSi=false y or con saltarSi=true salen con el primer operando
+                boolean conjuncion = operador.equals("and");
+                if (conjuncion != saltarSi) {
+                    generarCondicion(binaria.izquierda, destino, saltarSi);
+                    generarCondicion(binaria.derecha, destino, saltarSi);
+                } else {
+                    Label salir = cb.newLabel();
+                    generarCondicion(binaria.izquierda, salir, !saltarSi);
+                    generarCondicion(binaria.derecha, destino, saltarSi);
+                    cb.labelBinding(salir);
+                }
+                return;
+            }
+        } else if (expresion instanceof Unaria unaria && unaria.operador.equals("not")
+                   && tipoDe(unaria.operando).base == Base.BOOLEAN) {
+            generarCondicion(unaria.operando, destino, !saltarSi);
+            return;
+        }
+        
+        if (tipoDe(expresion).base != Base.BOOLEAN || tipoDe(expresion).arreglo) {
+            throw new ErrorCompilacion(expresion.linea, "Se esperaba una condicion");
+        }
+        generarValor(expresion);
+        if (saltarSi) {
+            cb.ifne(destino);
+        } else {
+            cb.ifeq(destino);
+        }
+    }
+    
+    private void generarComparacion(Binaria binaria, Label destino, boolean saltarSi) throws ErrorCompilacion {
+        Tipo izquierda = tipoDe(binaria.izquierda);
+        Tipo derecha = tipoDe(binaria.derecha);
+        String operador = saltarSi ? binaria.operador : negar(binaria.operador);
+        
+        boolean cadenas = izquierda.base == Base.STRING || derecha.base == Base.STRING;
+        if (cadenas) {
+            verificarCompatible(Tipo.STRING, izquierda, binaria.linea);
+            verificarCompatible(Tipo.STRING, derecha, binaria.linea);
+            generarCadena(binaria.izquierda);
+            generarCadena(binaria.derecha);
+            cb.invokevirtual(ConstantDescs.CD_String, "compareTo",
+                             MethodTypeDesc.of(ConstantDescs.CD_int, ConstantDescs.CD_String));
+            switch (operador) {
+                case "=": cb.ifeq(destino); break;
+                case "<>": cb.ifne(destino); break;
+                case "<": cb.iflt(destino); break;
+                case ">": cb.ifgt(destino); break;
+                case "<=": cb.ifle(destino); break;
+                default: cb.ifge(destino); break;
+            }
+            return;
+        }
+        
+        verificarCompatible(izquierda, derecha, binaria.linea);
+        generarValor(binaria.izquierda);
+        Object constante = valorConstante(binaria.derecha);
+        if (constante != null && valorOrdinal(constante) == 0) {
+            switch (operador) {
+                case "=": cb.ifeq(destino); break;
+                case "<>": cb.ifne(destino); break;
+                case "<": cb.iflt(destino); break;
+                case ">": cb.ifgt(destino); break;
+                case "<=": cb.ifle(destino); break;
+                default: cb.ifge(destino); break;
+            }
+            return;
+        }
+        generarValor(binaria.derecha);
+        switch (operador) {
+            case "=": cb.if_icmpeq(destino); break;
+            case "<>": cb.if_icmpne(destino); break;
+            case "<": cb.if_icmplt(destino); break;
+            case ">": cb.if_icmpgt(destino); break;
+            case "<=": cb.if_icmple(destino); break;
+            default: cb.if_icmpge(destino); break;
+        }
+    }
+    
+    private static boolean esRelacional(String operador) {
+        switch (operador) {
+            case "=": case "<>": case "<": case ">": case "<=": case ">=":
+                return true;
+            default:
+                return false;
+        }
+    }
+    
+    private static String negar(String operador) {
+        switch (operador) {
+            case "=": return "<>";
+            case "<>": return "=";
+            case "<": return ">=";
+            case ">=": return "<";
+            case ">": return "<=";
+            default: return ">";
+        }
+    }
+    
+    private void generarFuncion(Funcion funcion) throws ErrorCompilacion {
+        List<Expresion> argumentos = funcion.argumentos;
+        int esperados = funcion.nombre.equals("readkey") || funcion.nombre.equals("keypressed") ? 0 : 1;
+        if (argumentos.size() != esperados) {
+            throw new ErrorCompilacion(funcion.linea, funcion.nombre + " espera " + esperados + " argumentos");
+        }
+        
+        switch (funcion.nombre) {
+            case "readkey":
+                cb.invokestatic(ENTORNO, "leerTecla", MethodTypeDesc.of(ConstantDescs.CD_int));
+                break;
+            case "keypressed":
+                cb.invokestatic(ENTORNO, "teclaPresionada", MethodTypeDesc.of(ConstantDescs.CD_int));
+                break;
+            case "ord":
+            case "chr":
+                generarValor(argumentos.get(0));
+                break;
+            case "abs":
+                generarNumerico(argumentos.get(0));
+                cb.invokestatic(ClassDesc.of("java.lang.Math"), "abs",
+                                MethodTypeDesc.of(ConstantDescs.CD_int, ConstantDescs.CD_int));
+                break;
+            case "sqr":
+                generarNumerico(argumentos.get(0));
+                cb.dup();
+                cb.imul();
+                break;
+            case "odd":
+                generarNumerico(argumentos.get(0));
+                cb.iconst_1();
+                cb.iand();
+                break;
+            case "succ":
+            case "pred":
+                generarValor(argumentos.get(0));
+                cb.iconst_1();
+                if (funcion.nombre.equals("succ")) {
+                    cb.iadd();
+                } else {
+                    cb.isub();
+                }
+                break;
+            case "length":
+                generarCadena(argumentos.get(0));
+                cb.invokevirtual(ConstantDescs.CD_String, "length", MethodTypeDesc.of(ConstantDescs.CD_int));
+                break;
+            case "upcase":
+                generarValor(argumentos.get(0));
+                cb.invokestatic(ENTORNO, "mayuscula", MethodTypeDesc.of(ConstantDescs.CD_int, ConstantDescs.CD_int));
+                break;
+            case "random":
+                generarNumerico(argumentos.get(0));
+                cb.invokestatic(ENTORNO, "aleatorio", MethodTypeDesc.of(ConstantDescs.CD_int, ConstantDescs.CD_int));
+                break;
+            default:
+                throw new ErrorCompilacion(funcion.linea, "Funcion no soportada por el compilador: " + funcion.nombre);
+        }
+    }
+    
+    /**
+     * readkey y keypressed se pueden usar sin parentesis
+     */
+    private Funcion comoFuncion(Nombre nombre) {
+        if (nombre.indice == null && !entidades.containsKey(nombre.nombre)
+                && (nombre.nombre.equals("readkey") || nombre.nombre.equals("keypressed"))) {
+            return new Funcion(nombre.nombre, Collections.emptyList(), nombre.linea);
+        }
+        return null;
+    }
+    
+    // ===== Tipos y constantes =====
+    
+    private Entidad buscar(String nombre, int linea) throws ErrorCompilacion {
+        Entidad entidad = entidades.get(nombre);
+        if (entidad == null) {
+            throw new ErrorCompilacion(linea, "Identificador no declarado: " + nombre);
+        }
+        return entidad;
+    }
+    
+    private Tipo tipoDe(Expresion expresion) throws ErrorCompilacion {
+        if (expresion instanceof Numero) {
+            return Tipo.INTEGER;
+        }
+        if (expresion instanceof Texto texto) {
+            return texto.valor.length() == 1 ? Tipo.CHAR : Tipo.STRING;
+        }
+        if (expresion instanceof Nombre nombre) {
+            Funcion funcion = comoFuncion(nombre);
+            if (funcion != null) {
+                return tipoDe(funcion);
+            }
+            Entidad entidad = buscar(nombre.nombre, nombre.linea);
+            if (nombre.indice != null) {
+                if (!entidad.tipo.arreglo) {
+                    throw new ErrorCompilacion(nombre.linea, nombre.nombre + " no es un arreglo");
+                }
+                return entidad.tipo.elemento();
+            }
+            return entidad.tipo;
+        }
+        if (expresion instanceof Funcion funcion) {
+            switch (funcion.nombre) {
+                case "readkey":
+                case "chr":
+                case "upcase":
+                    return Tipo.CHAR;
+                case "keypressed":
+                case "odd":
+                    return Tipo.BOOLEAN;
+                case "succ":
+                case "pred":
+                    return funcion.argumentos.isEmpty() ? Tipo.INTEGER : tipoDe(funcion.argumentos.get(0));
+                default:
+                    return Tipo.INTEGER;
+            }
+        }
+        if (expresion instanceof Unaria unaria) {
+            return unaria.operador.equals("not") ? tipoDe(unaria.operando) : Tipo.INTEGER;
+        }
+        
+        Binaria binaria = (Binaria) expresion;
+        if (esRelacional(binaria.operador)) {
+            return Tipo.BOOLEAN;
+        }
+        Tipo izquierda = tipoDe(binaria.izquierda);
+        Tipo derecha = tipoDe(binaria.derecha);
+        switch (binaria.operador) {
+            case "and":
+            case "or":
+            case "xor":
+                if (izquierda.base == Base.BOOLEAN && derecha.base == Base.BOOLEAN) {
+                    return Tipo.BOOLEAN;
+                }
+                return Tipo.INTEGER;
+            case "+":
+                if (izquierda.base == Base.STRING || izquierda.base == Base.CHAR
+                        || derecha.base == Base.STRING || derecha.base == Base.CHAR) {
+                    return Tipo.STRING;
+                }
+                return Tipo.INTEGER;
+            default:
+                return Tipo.INTEGER;
+        }
+    }
+    
+    private static void verificarCompatible(Tipo destino, Tipo origen, int linea) throws ErrorCompilacion {
+        boolean compatible;
+        if (destino.arreglo || origen.arreglo) {
+            compatible = false;
+        } else if (destino.base == Base.STRING) {
+            compatible = origen.base == Base.STRING || origen.base == Base.CHAR;
+        } else if (destino.esNumerico()) {
+            compatible = origen.esNumerico();
+        } else {
+            compatible = destino.base == origen.base;
+        }
+        if (!compatible) {
+            throw new ErrorCompilacion(linea, "Tipos incompatibles: " + destino + " y " + origen);
+        }
+    }
+    
+    /**
+     * Evalua una expresion constante
+     * @return Integer para ordinales (los char como su codigo si no vienen de
+     *         un literal), String para cadenas, o null si no es constante
+     */
+    private Object valorConstante(Expresion expresion) {
+        if (expresion instanceof Numero numero) {
+            return numero.valor;
+        }
+        if (expresion instanceof Texto texto) {
+            return texto.valor;
+        }
+        if (expresion instanceof Nombre nombre) {
+            Entidad entidad = entidades.get(nombre.nombre);
+            return nombre.indice == null && entidad != null ? entidad.valor : null;
+        }
+        if (expresion instanceof Funcion funcion) {
+            if ((funcion.nombre.equals("ord") || funcion.nombre.equals("chr")) && funcion.argumentos.size() == 1) {
+                Object valor = valorConstante(funcion.argumentos.get(0));
+                return valor == null ? null : valorOrdinal(valor);
+            }
+            return null;
+        }
+        if (expresion instanceof Unaria unaria) {
+            Object valor = valorConstante(unaria.operando);
+            if (!(valor instanceof Integer entero)) {
+                return null;
+            }
+            return unaria.operador.equals("-") ? -entero : null;
+        }
+        
+        Binaria binaria = (Binaria) expresion;
+        Object izquierda = valorConstante(binaria.izquierda);
+        Object derecha = valorConstante(binaria.derecha);
+        if (izquierda == null || derecha == null) {
+            return null;
+        }
+        if (binaria.operador.equals("+") && (izquierda instanceof String || derecha instanceof String)) {
+            return textoConstanteSimple(izquierda) + textoConstanteSimple(derecha);
+        }
+        if (!(izquierda instanceof Integer a) || !(derecha instanceof Integer b)) {
+            return null;
+        }
+        switch (binaria.operador) {
+            case "+": return a + b;
+            case "-": return a - b;
+            case "*": return a * b;
+            case "div": return b == 0 ? null : a / b;
+            case "mod": return b == 0 ? null : a % b;
+            default: return null;
+        }
+    }
+    
+    private static String textoConstanteSimple(Object valor) {
+        return valor instanceof Integer codigo ? String.valueOf((char) codigo.intValue()) : valor.toString();
+    }
+    
+    /**
+     * Valor de una constante ordinal; un literal de un caracter vale su codigo
+     */
+    private static int valorOrdinal(Object valor) {
+        if (valor instanceof String texto) {
+            return texto.isEmpty() ? 0 : texto.charAt(0);
+        }
+        return (Integer) valor;
+    }
+    
+    private static ClassDesc descriptorArreglo(Tipo tipo) {
+        return tipo.base == Base.STRING ? CD_STRING_ARRAY : CD_INT_ARRAY;
+    }
+}
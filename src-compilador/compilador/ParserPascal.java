@@ -0,0 +1,447 @@
+package compilador;
+
+import compilador.ArbolPascal.Asignacion;
+import compilador.ArbolPascal.Base;
+import compilador.ArbolPascal.Binaria;
+import compilador.ArbolPascal.Caso;
+import compilador.ArbolPascal.Compuesta;
+import compilador.ArbolPascal.Constante;
+import compilador.ArbolPascal.Expresion;
+import compilador.ArbolPascal.Funcion;
+import compilador.ArbolPascal.Mientras;
+import compilador.ArbolPascal.Nombre;
+import compilador.ArbolPascal.Numero;
+import compilador.ArbolPascal.Para;
+import compilador.ArbolPascal.Procedimiento;
+import compilador.ArbolPascal.Programa;
+import compilador.ArbolPascal.Rama;
+import compilador.ArbolPascal.Repetir;
+import compilador.ArbolPascal.Sentencia;
+import compilador.ArbolPascal.Si;
+import compilador.ArbolPascal.Texto;
+import compilador.ArbolPascal.Tipo;
+import compilador.ArbolPascal.Unaria;
+import compilador.ArbolPascal.Vacia;
+import compilador.ArbolPascal.Variable;
+import compilador.EscanerPascal.Simbolo;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Parser descendente recursivo que construye el ArbolPascal de un programa.
+ * Acepta un solo bloque principal (sin procedimientos ni funciones propias) y
+ * detiene el analisis en el primer error
+ */
+class ParserPascal {
+    
+    private final List<Simbolo> simbolos;
+    private int posicion;
+    
+    ParserPascal(List<Simbolo> simbolos) {
+        this.simbolos = simbolos;
+    }
+    
+    /**
+     * Analiza el programa completo
+     * @return Arbol del programa
+     * @throws ErrorCompilacion Si el programa no es valido o usa algo no soportado
+     */
+    Programa analizarPrograma() throws ErrorCompilacion {
+        esperar("program");
+        String nombre = esperarIdentificador();
+        esperar(";");
+        
+        if (acepta("uses")) {
+            do {
+                esperarIdentificador();
+            } while (acepta(","));
+            esperar(";");
+        }
+        
+        List<Constante> constantes = new ArrayList<>();
+        List<Variable> variables = new ArrayList<>();
+        while (true) {
+            if (acepta("const")) {
+                do {
+                    constantes.add(analizarConstante());
+                } while (actual().tipo == EscanerPascal.Tipo.IDENTIFICADOR && !esPalabraDeSeccion());
+            } else if (acepta("var")) {
+                do {
+                    analizarVariables(variables);
+                } while (actual().tipo == EscanerPascal.Tipo.IDENTIFICADOR && !esPalabraDeSeccion());
+            } else if (actual().es("procedure") || actual().es("function") || actual().es("type")) {
+                throw new ErrorCompilacion(actual().linea, "No soportado por el compilador: " + actual().texto);
+            } else {
+                break;
+            }
+        }
+        
+        Compuesta cuerpo = analizarCompuesta();
+        esperar(".");
+        return new Programa(nombre, constantes, variables, cuerpo);
+    }
+    
+    private boolean esPalabraDeSeccion() {
+        Simbolo s = actual();
+        return s.es("const") || s.es("var") || s.es("begin") || s.es("procedure")
+               || s.es("function") || s.es("type");
+    }
+    
+    private Constante analizarConstante() throws ErrorCompilacion {
+        int linea = actual().linea;
+        String nombre = esperarIdentificador();
+        Tipo tipo = null;
+        if (acepta(":")) {
+            tipo = analizarTipo();
+        }
+        esperar("=");
+        
+        Constante constante;
+        if (tipo != null && tipo.arreglo) {
+            esperar("(");
+            List<Expresion> elementos = new ArrayList<>();
+            do {
+                elementos.add(analizarExpresion());
+            } while (acepta(","));
+            esperar(")");
+            if (elementos.size() != tipo.longitud()) {
+                throw new ErrorCompilacion(linea, "El arreglo " + nombre + " espera " + tipo.longitud()
+                                           + " valores y tiene " + elementos.size());
+            }
+            constante = new Constante(nombre, tipo, null, elementos, linea);
+        } else {
+            constante = new Constante(nombre, tipo, analizarExpresion(), null, linea);
+        }
+        esperar(";");
+        return constante;
+    }
+    
+    private void analizarVariables(List<Variable> variables) throws ErrorCompilacion {
+        int linea = actual().linea;
+        List<String> nombres = new ArrayList<>();
+        do {
+            nombres.add(esperarIdentificador());
+        } while (acepta(","));
+        esperar(":");
+        Tipo tipo = analizarTipo();
+        esperar(";");
+        for (String nombre : nombres) {
+            variables.add(new Variable(nombre, tipo, linea));
+        }
+    }
+    
+    private Tipo analizarTipo() throws ErrorCompilacion {
+        Simbolo s = actual();
+        if (acepta("array")) {
+            esperar("[");
+            int inferior = analizarLimite();
+            esperar("..");
+            int superior = analizarLimite();
+            esperar("]");
+            esperar("of");
+            Tipo elemento = analizarTipo();
+            if (elemento.arreglo) {
+                throw new ErrorCompilacion(s.linea, "No soportado por el compilador: arreglos de arreglos");
+            }
+            if (superior < inferior) {
+                throw new ErrorCompilacion(s.linea, "Limites de arreglo invalidos: " + inferior + ".." + superior);
+            }
+            return Tipo.arreglo(elemento.base, inferior, superior);
+        }
+        
+        String nombre = esperarIdentificador();
+        switch (nombre) {
+            case "integer":
+            case "longint":
+            case "shortint":
+                return Tipo.INTEGER;
+            case "word":
+                return Tipo.WORD;
+            case "byte":
+                return Tipo.BYTE;
+            case "char":
+                return Tipo.CHAR;
+            case "boolean":
+                return Tipo.BOOLEAN;
+            case "string":
+                return Tipo.STRING;
+            default:
+                throw new ErrorCompilacion(s.linea, "Tipo no soportado por el compilador: " + nombre);
+        }
+    }
+    
+    private int analizarLimite() throws ErrorCompilacion {
+        boolean negativo = acepta("-");
+        Simbolo s = actual();
+        if (s.tipo != EscanerPascal.Tipo.NUMERO) {
+            throw new ErrorCompilacion(s.linea, "Se esperaba un numero y se encontro " + s);
+        }
+        posicion++;
+        return negativo ? -s.valor : s.valor;
+    }
+    
+    // ===== Sentencias =====
+    
+    private Compuesta analizarCompuesta() throws ErrorCompilacion {
+        int linea = actual().linea;
+        esperar("begin");
+        List<Sentencia> sentencias = analizarSecuencia();
+        esperar("end");
+        return new Compuesta(sentencias, linea);
+    }
+    
+    /**
+     * Sentencias separadas por ; hasta un end, until o else
+     */
+    private List<Sentencia> analizarSecuencia() throws ErrorCompilacion {
+        List<Sentencia> sentencias = new ArrayList<>();
+        sentencias.add(analizarSentencia());
+        while (acepta(";")) {
+            sentencias.add(analizarSentencia());
+        }
+        return sentencias;
+    }
+    
+    private Sentencia analizarSentencia() throws ErrorCompilacion {
+        Simbolo s = actual();
+        int linea = s.linea;
+        
+        if (s.es("begin")) {
+            return analizarCompuesta();
+        }
+        if (acepta("if")) {
+            Expresion condicion = analizarExpresion();
+            esperar("then");
+            Sentencia entonces = analizarSentencia();
+            Sentencia sino = acepta("else") ? analizarSentencia() : null;
+            return new Si(condicion, entonces, sino, linea);
+        }
+        if (acepta("while")) {
+            Expresion condicion = analizarExpresion();
+            esperar("do");
+            return new Mientras(condicion, analizarSentencia(), linea);
+        }
+        if (acepta("repeat")) {
+            List<Sentencia> cuerpo = analizarSecuencia();
+            esperar("until");
+            return new Repetir(cuerpo, analizarExpresion(), linea);
+        }
+        if (acepta("for")) {
+            String variable = esperarIdentificador();
+            esperar(":=");
+            Expresion desde = analizarExpresion();
+            boolean descendente;
+            if (acepta("to")) {
+                descendente = false;
+            } else if (acepta("downto")) {
+                descendente = true;
+            } else {
+                throw new ErrorCompilacion(actual().linea, "Se esperaba to o downto y se encontro " + actual());
+            }
+            Expresion hasta = analizarExpresion();
+            esperar("do");
+            return new Para(variable, desde, hasta, descendente, analizarSentencia(), linea);
+        }
+        if (acepta("case")) {
+            return analizarCaso(linea);
+        }
+        
+        if (s.tipo == EscanerPascal.Tipo.IDENTIFICADOR && !esPalabraReservada(s.texto)) {
+            String nombre = esperarIdentificador();
+            if (actual().es("[") || actual().es(":=")) {
+                Expresion indice = null;
+                if (acepta("[")) {
+                    indice = analizarExpresion();
+                    esperar("]");
+                }
+                esperar(":=");
+                return new Asignacion(new Nombre(nombre, indice, linea), analizarExpresion(), linea);
+            }
+            
+            List<Expresion> argumentos = new ArrayList<>();
+            List<Expresion> anchos = new ArrayList<>();
+            if (acepta("(")) {
+                if (!actual().es(")")) {
+                    do {
+                        argumentos.add(analizarExpresion());
+                        anchos.add(acepta(":") ? analizarExpresion() : null);
+                    } while (acepta(","));
+                }
+                esperar(")");
+            }
+            return new Procedimiento(nombre, argumentos, anchos, linea);
+        }
+        
+        // Sentencia vacia: antes de end, until, else o ;
+        return new Vacia(linea);
+    }
+    
+    private Caso analizarCaso(int linea) throws ErrorCompilacion {
+        Expresion selector = analizarExpresion();
+        esperar("of");
+        
+        List<Rama> ramas = new ArrayList<>();
+        Sentencia sino = null;
+        while (!actual().es("end")) {
+            if (acepta("else") || acepta("otherwise")) {
+                int lineaSino = actual().linea;
+                sino = new Compuesta(analizarSecuencia(), lineaSino);
+                break;
+            }
+            List<Expresion> etiquetas = new ArrayList<>();
+            do {
+                Expresion etiqueta = analizarExpresion();
+                if (acepta("..")) {
+                    etiqueta = new Binaria("..", etiqueta, analizarExpresion(), etiqueta.linea);
+                }
+                etiquetas.add(etiqueta);
+            } while (acepta(","));
+            esperar(":");
+            ramas.add(new Rama(etiquetas, analizarSentencia()));
+            if (!acepta(";")) {
+                break;
+            }
+        }
+        esperar("end");
+        return new Caso(selector, ramas, sino, linea);
+    }
+    
+    // ===== Expresiones =====
+    
+    private Expresion analizarExpresion() throws ErrorCompilacion {
+        Expresion izquierda = analizarSimple();
+        Simbolo s = actual();
+        if (s.es("=") || s.es("<>") || s.es("<") || s.es(">") || s.es("<=") || s.es(">=")) {
+            posicion++;
+            return new Binaria(s.texto, izquierda, analizarSimple(), s.linea);
+        }
+        return izquierda;
+    }
+    
+    private Expresion analizarSimple() throws ErrorCompilacion {
+        Expresion resultado;
+        Simbolo signo = actual();
+        if (acepta("-")) {
+            resultado = new Unaria("-", analizarTermino(), signo.linea);
+        } else {
+            acepta("+");
+            resultado = analizarTermino();
+        }
+        while (true) {
+            Simbolo s = actual();
+            if (s.es("+") || s.es("-") || s.es("or") || s.es("xor")) {
+                posicion++;
+                resultado = new Binaria(s.texto, resultado, analizarTermino(), s.linea);
+            } else {
+                return resultado;
+            }
+        }
+    }
+    
+    private Expresion analizarTermino() throws ErrorCompilacion {
+        Expresion resultado = analizarFactor();
+        while (true) {
+            Simbolo s = actual();
+            if (s.es("*") || s.es("div") || s.es("mod") || s.es("and") || s.es("shl") || s.es("shr")) {
+                posicion++;
+                resultado = new Binaria(s.texto, resultado, analizarFactor(), s.linea);
+            } else if (s.es("/")) {
+                throw new ErrorCompilacion(s.linea, "No soportado por el compilador: division real (/)");
+            } else {
+                return resultado;
+            }
+        }
+    }
+    
+    private Expresion analizarFactor() throws ErrorCompilacion {
+        Simbolo s = actual();
+        switch (s.tipo) {
+            case NUMERO:
+                posicion++;
+                return new Numero(s.valor, s.linea);
+            case CADENA:
+                posicion++;
+                return new Texto(s.texto, s.linea);
+            case IDENTIFICADOR:
+                if (acepta("not")) {
+                    return new Unaria("not", analizarFactor(), s.linea);
+                }
+                if (esPalabraReservada(s.texto)) {
+                    break;
+                }
+                posicion++;
+                if (acepta("[")) {
+                    Expresion indice = analizarExpresion();
+                    esperar("]");
+                    return new Nombre(s.texto, indice, s.linea);
+                }
+                if (acepta("(")) {
+                    List<Expresion> argumentos = new ArrayList<>();
+                    if (!actual().es(")")) {
+                        do {
+                            argumentos.add(analizarExpresion());
+                        } while (acepta(","));
+                    }
+                    esperar(")");
+                    return new Funcion(s.texto, argumentos, s.linea);
+                }
+                return new Nombre(s.texto, null, s.linea);
+            case SIMBOLO:
+                if (acepta("(")) {
+                    Expresion interna = analizarExpresion();
+                    esperar(")");
+                    return interna;
+                }
+                if (acepta("-")) {
+                    return new Unaria("-", analizarFactor(), s.linea);
+                }
+                break;
+            default:
+                break;
+        }
+        throw new ErrorCompilacion(s.linea, "Se esperaba una expresion y se encontro " + s);
+    }
+    
+    // ===== Utilidades =====
+    
+    private static boolean esPalabraReservada(String texto) {
+        switch (texto) {
+            case "and": case "array": case "begin": case "case": case "const": case "div":
+            case "do": case "downto": case "else": case "end": case "for": case "function":
+            case "if": case "mod": case "not": case "of": case "or": case "otherwise":
+            case "procedure": case "program": case "repeat": case "shl": case "shr":
+            case "then": case "to": case "type": case "until": case "uses": case "var":
+            case "while": case "xor":
+                return true;
+            default:
+                return false;
+        }
+    }
+    
+    private Simbolo actual() {
+        return simbolos.get(posicion);
+    }
+    
+    private boolean acepta(String texto) {
+        if (actual().es(texto)) {
+            posicion++;
+            return true;
+        }
+        return false;
+    }
+    
+    private void esperar(String texto) throws ErrorCompilacion {
+        if (!acepta(texto)) {
+            throw new ErrorCompilacion(actual().linea, "Se esperaba " + texto + " y se encontro " + actual());
+        }
+    }
+    
+    private String esperarIdentificador() throws ErrorCompilacion {
+        Simbolo s = actual();
+        if (s.tipo != EscanerPascal.Tipo.IDENTIFICADOR || esPalabraReservada(s.texto)) {
+            throw new ErrorCompilacion(s.linea, "Se esperaba un identificador y se encontro " + s);
+        }
+        posicion++;
+        return s.texto;
+    }
+}
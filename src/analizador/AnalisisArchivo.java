@@ -0,0 +1,217 @@
+package analizador;
+
+import metricas.Metricas;
+import tokens.Token;
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * Analisis completo de un archivo .pas sin salida por consola: lectura,
+ * analisis lexico, analisis sintactico y archivo de errores.
+ * Lo usan los modos que analizan muchos archivos con la JVM residente
+ */
+public class AnalisisArchivo {
+    
+    private final String nombreArchivo;
+    private final ManejadorErrores manejadorErrores;
+    private final IndiceLineas indice;
+    private final int totalTokens;
+    private final EstadisticasFuente estadisticas;
+    private final long duracionNanos;
+    private final CompletableFuture<Void> escritura;
+    
+    private AnalisisArchivo(String nombreArchivo, ManejadorErrores manejadorErrores, IndiceLineas indice,
+                            int totalTokens, EstadisticasFuente estadisticas, long duracionNanos,
+                            CompletableFuture<Void> escritura) {
+        this.nombreArchivo = nombreArchivo;
+        this.manejadorErrores = manejadorErrores;
+        this.indice = indice;
+        this.totalTokens = totalTokens;
+        this.estadisticas = estadisticas;
+        this.duracionNanos = duracionNanos;
+        this.escritura = escritura;
+    }
+    
+    /**
+     * Lee y analiza un archivo, y escribe su archivo de errores de forma atomica
+     * @param nombreArchivo Ruta del archivo .pas
+     * @return Resultado del analisis
+     * @throws IOException Si hay error al leer el archivo o escribir el reporte
+     */
+    public static AnalisisArchivo ejecutar(String nombreArchivo) throws IOException {
+        return ejecutar(nombreArchivo, null, Long.MAX_VALUE);
+    }
+    
+    /**
+     * Lee y analiza un archivo que puede cancelarse; si se cancela antes de
+     * terminar no se escribe el archivo de errores
+     * @param nombreArchivo Ruta del archivo .pas
+     * @param cancelacion Cancelacion y plazo del analisis
+     * @return Resultado del analisis
+     * @throws IOException Si hay error al leer el archivo o escribir el reporte
+     * @throws AnalisisCancelado Si el analisis se cancelo o vencio su plazo
+     */
+    public static AnalisisArchivo ejecutar(String nombreArchivo, Cancelacion cancelacion) throws IOException {
+        cancelacion.verificar();
+        long inicio = System.nanoTime();
+        
+        LectorArchivos lector = new LectorArchivos();
+        IndiceLineas indice = lector.leerFuente(nombreArchivo);
+        
+        return analizar(nombreArchivo, indice, null, Long.MAX_VALUE, true, null, cancelacion, inicio);
+    }
+    
+    /**
+     * Lee y analiza un archivo; si el contenido supera el umbral, el analisis
+     * lexico se divide en fragmentos que se ejecutan en el pool indicado
+     * @param nombreArchivo Ruta del archivo .pas
+     * @param pool Pool para el analisis lexico por fragmentos (null para no dividir)
+     * @param umbralFragmentado Cantidad de caracteres a partir de la cual se divide
+     * @return Resultado del analisis
+     * @throws IOException Si hay error al leer el archivo o escribir el reporte
+     */
+    public static AnalisisArchivo ejecutar(String nombreArchivo, ForkJoinPool pool, long umbralFragmentado)
+            throws IOException {
+        long inicio = System.nanoTime();
+        
+        LectorArchivos lector = new LectorArchivos();
+        IndiceLineas indice = lector.leerFuente(nombreArchivo);
+        
+        return analizar(nombreArchivo, indice, pool, umbralFragmentado, true, null, Cancelacion.NINGUNA, inicio);
+    }
+    
+    /**
+     * Lee y analiza una fuente leyendo su contenido directamente del flujo.
+     * El archivo de errores solo se escribe para fuentes del disco; las
+     * entradas de archivos comprimidos se reportan con su nombre
+     * contenedor!/entrada en el reporte del lote
+     * @param fuente Fuente a analizar
+     * @param pool Pool para el analisis lexico por fragmentos (null para no dividir)
+     * @param umbralFragmentado Cantidad de caracteres a partir de la cual se divide
+     * @return Resultado del analisis
+     * @throws IOException Si hay error al leer la fuente o escribir el reporte
+     */
+    public static AnalisisArchivo ejecutar(FuenteEntrada fuente, ForkJoinPool pool, long umbralFragmentado)
+            throws IOException {
+        return ejecutar(fuente, pool, umbralFragmentado, null);
+    }
+    
+    /**
+     * Lee y analiza una fuente; el archivo de errores se entrega al escritor
+     * y el hilo actual no espera a que se escriba (ver getEscritura)
+     * @param fuente Fuente a analizar
+     * @param pool Pool para el analisis lexico por fragmentos (null para no dividir)
+     * @param umbralFragmentado Cantidad de caracteres a partir de la cual se divide
+     * @param escritor Escritor asincrono de reportes (null para escribir en este hilo)
+     * @return Resultado del analisis
+     * @throws IOException Si hay error al leer la fuente o, sin escritor, al escribir el reporte
+     */
+    public static AnalisisArchivo ejecutar(FuenteEntrada fuente, ForkJoinPool pool, long umbralFragmentado,
+                                           EscritorReportes escritor) throws IOException {
+        long inicio = System.nanoTime();
+        
+        LectorArchivos lector = new LectorArchivos();
+        IndiceLineas indice = lector.leerFuente(fuente);
+        
+        return analizar(fuente.getNombre(), indice, pool, umbralFragmentado, fuente.getContenedor() == null,
+                        escritor, Cancelacion.NINGUNA, inicio);
+    }
+    
+    private static AnalisisArchivo analizar(String nombreArchivo, IndiceLineas indice, ForkJoinPool pool,
+                                            long umbralFragmentado, boolean escribirReporte,
+                                            EscritorReportes escritor, Cancelacion cancelacion, long inicio)
+            throws IOException {
+        Metricas metricas = Metricas.getGlobal();
+        long finLectura = System.nanoTime();
+        metricas.registrarFase(Metricas.Fase.LECTURA, finLectura - inicio);
+        
+        ManejadorErrores manejadorErrores = new ManejadorErrores(nombreArchivo);
+        List<Token> tokens;
+        long finLexico;
+        EstadisticasFuente estadisticas;
+        int totalTokens;
+        // Los analizadores del hilo se reutilizan entre archivos; solo se
+        // conservan los errores, las estadisticas y la cantidad de tokens
+        try (PoolAnalizadores analizadores = PoolAnalizadores.tomar()) {
+            if (pool != null && indice.getContenido().length() > umbralFragmentado) {
+                AnalizadorLexicoParalelo analizadorLexico = new AnalizadorLexicoParalelo(
+                    manejadorErrores, pool, AnalizadorLexicoParalelo.TAMANO_FRAGMENTO_DEFECTO);
+                analizadorLexico.setCancelacion(cancelacion);
+                analizadorLexico.analizar(indice);
+                tokens = analizadorLexico.getAlmacenTokens().comoLista();
+                estadisticas = analizadorLexico.getEstadisticas();
+            } else {
+                AnalizadorLexico analizadorLexico = analizadores.getAnalizadorLexico(manejadorErrores);
+                analizadorLexico.setCancelacion(cancelacion);
+                analizadorLexico.analizar(indice);
+                tokens = analizadorLexico.getAlmacenTokens().comoLista();
+                estadisticas = analizadorLexico.getEstadisticas();
+            }
+            finLexico = System.nanoTime();
+            AnalizadorSintactico analizadorSintactico = analizadores.getAnalizadorSintactico(manejadorErrores);
+            analizadorSintactico.setCancelacion(cancelacion);
+            analizadorSintactico.analizar(indice, tokens);
+            totalTokens = tokens.size();
+        }
+        long finSintactico = System.nanoTime();
+        metricas.registrarFase(Metricas.Fase.LEXICO, finLexico - finLectura);
+        metricas.registrarFase(Metricas.Fase.SINTACTICO, finSintactico - finLexico);
+        metricas.registrarArchivo(indice.getContenido().length(), totalTokens);
+        for (ManejadorErrores.ErrorInfo error : manejadorErrores.getErrores()) {
+            metricas.registrarError(error.getNumeroError());
+        }
+        
+        // Un analisis cancelado al final no debe reemplazar el reporte
+        cancelacion.verificar();
+        CompletableFuture<Void> escritura = CompletableFuture.completedFuture(null);
+        if (escribirReporte && escritor != null) {
+            escritura = escritor.escribir(manejadorErrores, indice);
+        } else if (escribirReporte) {
+            manejadorErrores.generarArchivoErroresAtomico(indice);
+            metricas.registrarFase(Metricas.Fase.REPORTE, System.nanoTime() - finSintactico);
+        }
+        
+        return new AnalisisArchivo(nombreArchivo, manejadorErrores, indice, totalTokens,
+                                   estadisticas, System.nanoTime() - inicio, escritura);
+    }
+    
+    public String getNombreArchivo() {
+        return nombreArchivo;
+    }
+    
+    public ManejadorErrores getManejadorErrores() {
+        return manejadorErrores;
+    }
+    
+    public IndiceLineas getIndice() {
+        return indice;
+    }
+    
+    public int getTotalTokens() {
+        return totalTokens;
+    }
+    
+    public EstadisticasFuente getEstadisticas() {
+        return estadisticas;
+    }
+    
+    /**
+     * Obtiene el tiempo que tomo el analisis, incluyendo lectura y, si el
+     * reporte no se entrego a un EscritorReportes, su escritura
+     * @return Duracion en nanosegundos
+     */
+    public long getDuracionNanos() {
+        return duracionNanos;
+    }
+    
+    /**
+     * Obtiene la escritura del archivo de errores; ya terminada salvo que el
+     * reporte se haya entregado a un EscritorReportes
+     * @return Futuro de la escritura del reporte
+     */
+    public CompletableFuture<Void> getEscritura() {
+        return escritura;
+    }
+}
@@ -0,0 +1,14 @@
+package analizador;
+
+/**
+ * Excepcion con la que se detiene un analisis cancelado o con el plazo vencido
+ * (ver Cancelacion). Los resultados parciales del analisis no deben usarse
+ */
+public class AnalisisCancelado extends RuntimeException {
+    
+    private static final long serialVersionUID = 1L;
+    
+    public AnalisisCancelado(String mensaje) {
+        super(mensaje);
+    }
+}
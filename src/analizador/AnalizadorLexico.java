@@ -1,11 +1,15 @@
 package analizador;
 
+import tokens.AlmacenTokens;
+import tokens.AlmacenTokensLista;
 import tokens.PalabrasReservadas;
+import tokens.PoolIdentificadores;
 import tokens.Token;
 import tokens.TipoToken;
 import utils.Utilidades;
 import utils.ValidadorIdentificadores;
 import java.util.*;
+import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
 /**
@@ -14,41 +18,112 @@ import java.util.regex.Pattern;
  */
 public class AnalizadorLexico {
     
-    private final ManejadorErrores manejadorErrores;
-    private final List<Token> tokens;
+    // Variables y constantes conocidas del programa calendario
+    private static final List<String> VARIABLES_CONOCIDAS = List.of(
+        "meses", "tecla", "i", "dia", "modulo", "day", "year", "mes", "dayofweek");
+    private static final List<String> CONSTANTES_CONOCIDAS = List.of(
+        "borde", "months", "year_regular", "year_bisiesto", "nombres");
+    
+    private ManejadorErrores manejadorErrores;
+    private AlmacenTokens tokens;
     private final Set<String> variablesDeclaradas;
     private final Set<String> constantesDeclaradas;
+    private EstadisticasFuente estadisticas;
+    
+    // Estado de comentario de bloque que se conserva entre lineas
+    private EstadoComentario estadoComentario = EstadoComentario.NINGUNO;
+    private int lineaAperturaComentario = -1;
+    private boolean registrarComentarios = false;
+    
+    // Se consulta en cada linea para detener un analisis cancelado
+    private Cancelacion cancelacion = Cancelacion.NINGUNA;
+    
+    // Buffers reutilizados al separar codigo y comentarios
+    private final StringBuilder bufferCodigo = new StringBuilder();
+    private final List<Integer> comentariosLinea = new ArrayList<>();
+    // Tramos de la linea copiados a bufferCodigo, como pares (posicion en el
+    // buffer, posicion en el contenido); sin tramos la linea se uso tal cual
+    private int[] tramosCodigo = new int[16];
+    private int cantidadTramos;
+    
+    // Copia reutilizada de la linea que se tokeniza, recorrida por el escaner
+    private final EscanerCaracteres escaner = EscanerCaracteres.getInstancia();
+    private char[] bufferLinea = new char[256];
+    
+    // Palabras de la linea actual y token en construccion, reutilizados entre lineas
+    private final List<String> palabrasLinea = new ArrayList<>();
+    private final StringBuilder tokenActual = new StringBuilder();
+    // Inicio de cada palabra de palabrasLinea en la linea sin comentarios
+    private int[] iniciosPalabras = new int[64];
+    
+    // Instancias canonicas de identificadores compartidas entre analizadores;
+    // se vuelve a tomar en cada archivo porque el pool compartido se renueva
+    private PoolIdentificadores poolIdentificadores = PoolIdentificadores.getCompartido();
     
     // Patrones de expresiones regulares 
     private static final Pattern PATRON_IDENTIFICADOR = Pattern.compile("^[a-zA-Z][a-zA-Z0-9_]*$");
     private static final Pattern PATRON_NUMERO = Pattern.compile("^\\d+$");
     private static final Pattern PATRON_CADENA = Pattern.compile("^'.*'$");
     private static final Pattern PATRON_CARACTER_ESPECIAL = Pattern.compile("^#\\d+$");
-    private static final Pattern PATRON_CADENA_COMPLEJA = Pattern.compile("^'[^']*'(#\\d+('[^']*')?)*$|^#\\d+('[^']*'(#\\d+)?)*$");
+    
+    // Matchers reutilizables sobre los patrones precompilados; las cadenas
+    // complejas y las comparaciones se reconocen con PatronesLineales
+    private final Matcher matcherCaracterEspecial = PATRON_CARACTER_ESPECIAL.matcher("");
     
     public AnalizadorLexico(ManejadorErrores manejadorErrores) {
         this.manejadorErrores = manejadorErrores;
-        this.tokens = new ArrayList<>();
+        this.tokens = new AlmacenTokensLista();
         this.variablesDeclaradas = new HashSet<>();
         this.constantesDeclaradas = new HashSet<>();
+        this.estadisticas = new EstadisticasFuente();
         
         // Inicia variables conocidas del programa calendario
         inicializarVariablesConocidas();
     }
     
     /**
-     * Inicia variables conocidas del programa calendario
+     * Inicia variables conocidas del programa calendario; se pasan por el pool
+     * para que las consultas las encuentren como cualquier otro identificador
      */
     private void inicializarVariablesConocidas() {
-        // Variables del calendario.pas
-        variablesDeclaradas.addAll(Arrays.asList(
-            "meses", "tecla", "i", "dia", "modulo", "day", "year", "mes", "dayofweek"
-        ));
-        
-        // Constantes del calendario.pas
-        constantesDeclaradas.addAll(Arrays.asList(
-            "borde", "months", "year_regular", "year_bisiesto", "nombres"
-        ));
+        for (String variable : VARIABLES_CONOCIDAS) {
+            variablesDeclaradas.add(poolIdentificadores.plegar(variable));
+        }
+        for (String constante : CONSTANTES_CONOCIDAS) {
+            constantesDeclaradas.add(poolIdentificadores.plegar(constante));
+        }
+    }
+    
+    /**
+     * Prepara el analizador para otro archivo sin crear uno nuevo: vacia los
+     * tokens, las declaraciones y el estado de comentarios, y conserva lo ya
+     * reservado (almacen de tokens, conjuntos, StringBuilder y buffer de linea).
+     * Las estadisticas son un objeto nuevo porque las del archivo anterior
+     * pueden seguir en uso, y los comentarios vuelven a no registrarse
+     * @param manejadorErrores Manejador de errores del nuevo archivo
+     */
+    public void reiniciar(ManejadorErrores manejadorErrores) {
+        this.manejadorErrores = manejadorErrores;
+        poolIdentificadores = PoolIdentificadores.getCompartido();
+        tokens.limpiar();
+        variablesDeclaradas.clear();
+        constantesDeclaradas.clear();
+        inicializarVariablesConocidas();
+        estadisticas = new EstadisticasFuente();
+        estadoComentario = EstadoComentario.NINGUNO;
+        lineaAperturaComentario = -1;
+        registrarComentarios = false;
+        bufferCodigo.setLength(0);
+        comentariosLinea.clear();
+        cancelacion = Cancelacion.NINGUNA;
+    }
+    
+    /**
+     * Fija la cancelacion que se verifica antes de cada linea
+     * @param cancelacion Cancelacion del analisis en curso
+     */
+    public void setCancelacion(Cancelacion cancelacion) {
+        this.cancelacion = cancelacion;
     }
     
     /**
@@ -56,34 +131,116 @@ public class AnalizadorLexico {
      * @param contenido Contenido del archivo a analizar
      */
     public void analizar(String contenido) {
-        String[] lineas = contenido.split("\n");
-        
-        for (int i = 0; i < lineas.length; i++) {
-            int numeroLinea = i + 1;
-            String linea = lineas[i];
-            analizarLinea(linea, numeroLinea);
+        analizar(IndiceLineas.construir(contenido));
+    }
+    
+    /**
+     * Realiza el analisis lexico usando el indice de lineas compartido
+     * @param indice Indice de lineas del archivo a analizar
+     */
+    public void analizar(IndiceLineas indice) {
+        analizar(indice, 1, indice.getTotalLineas());
+        reportarComentarioSinCierre();
+    }
+    
+    /**
+     * Realiza el analisis lexico de un rango de lineas, partiendo del estado
+     * de comentario actual y sin reportar comentarios abiertos al final
+     * Usado por el analisis en paralelo, donde cada fragmento empieza en otra linea
+     * @param indice Indice de lineas del archivo
+     * @param primeraLinea Primera linea del rango (1-based)
+     * @param ultimaLinea Ultima linea del rango (inclusive)
+     */
+    void analizar(IndiceLineas indice, int primeraLinea, int ultimaLinea) {
+        String contenido = indice.getContenido();
+        for (int numeroLinea = primeraLinea; numeroLinea <= ultimaLinea; numeroLinea++) {
+            cancelacion.verificar();
+            analizarLinea(contenido, indice.getInicioLinea(numeroLinea), indice.getFinLinea(numeroLinea), numeroLinea);
         }
     }
     
+    /**
+     * Fija el estado de comentario con el que empieza el siguiente rango
+     * @param estado Estado de comentario de bloque
+     * @param lineaApertura Linea donde se abrio el comentario (-1 si no hay)
+     */
+    void setEstadoComentario(EstadoComentario estado, int lineaApertura) {
+        this.estadoComentario = estado;
+        this.lineaAperturaComentario = lineaApertura;
+    }
+    
+    EstadoComentario getEstadoComentario() {
+        return estadoComentario;
+    }
+    
+    int getLineaAperturaComentario() {
+        return lineaAperturaComentario;
+    }
+    
+    /**
+     * Indica si los comentarios se agregan como tokens COMENTARIO
+     * Por defecto se saltan sin generar tokens
+     * @param registrarComentarios true para generar tokens de comentario
+     */
+    public void setRegistrarComentarios(boolean registrarComentarios) {
+        this.registrarComentarios = registrarComentarios;
+    }
+    
     /**
      * Analiza una linea individual
-     * @param linea Linea a analizar
+     * @param contenido Contenido completo del archivo
+     * @param inicio Inicio de la linea en el contenido
+     * @param fin Fin de la linea (exclusivo, sin el '\n')
      * @param numeroLinea Numero de linea
      */
-    private void analizarLinea(String linea, int numeroLinea) {
-        // Elimina comentarios antes del analisis
-        String lineaSinComentarios = eliminarComentarios(linea, numeroLinea);
+    private void analizarLinea(String contenido, int inicio, int fin, int numeroLinea) {
+        // Separa comentarios antes del analisis
+        String lineaSinComentarios = separarComentarios(contenido, inicio, fin, numeroLinea);
+        int longitud = fin - inicio;
         
-        if (lineaSinComentarios.trim().isEmpty()) {
+        if (lineaSinComentarios.isEmpty()) {
+            if (esLineaEnBlanco(contenido, inicio, fin)) {
+                estadisticas.registrarLineaVacia(longitud);
+            } else {
+                estadisticas.registrarLineaComentario(longitud);
+            }
+            agregarTokensComentario(contenido, inicio, numeroLinea, 0);
             return; // Linea vacia o solo comentarios
         }
+        estadisticas.registrarLineaCodigo(longitud);
         
         // Tokeniza la linea mejorada
         List<String> palabras = tokenizarMejorado(lineaSinComentarios);
         
         for (int i = 0; i < palabras.size(); i++) {
             String palabra = palabras.get(i);
-            analizarToken(palabra, numeroLinea, i, palabras);
+            analizarToken(palabra, numeroLinea, i, columnaTexto(iniciosPalabras[i], inicio), palabras);
+        }
+        agregarTokensComentario(contenido, inicio, numeroLinea, palabras.size());
+    }
+    
+    /**
+     * Verifica si un rango solo contiene espacios
+     */
+    private static boolean esLineaEnBlanco(String contenido, int inicio, int fin) {
+        for (int i = inicio; i < fin; i++) {
+            if (contenido.charAt(i) > ' ') {
+                return false;
+            }
+        }
+        return true;
+    }
+    
+    /**
+     * Agrega los comentarios de la linea como tokens COMENTARIO, despues de
+     * los tokens de codigo de la misma linea
+     */
+    private void agregarTokensComentario(String contenido, int inicioLinea, int numeroLinea, int posicion) {
+        for (int i = 0; i < comentariosLinea.size(); i += 2) {
+            int inicio = comentariosLinea.get(i);
+            String texto = contenido.substring(inicio, comentariosLinea.get(i + 1));
+            tokens.agregar(TipoToken.COMENTARIO, texto, numeroLinea, posicion++, inicio - inicioLinea + 1);
+            estadisticas.registrarToken(TipoToken.COMENTARIO, texto);
         }
     }
     
@@ -93,22 +250,31 @@ public class AnalizadorLexico {
      * @return Lista de tokens
      */
     private List<String> tokenizarMejorado(String linea) {
-        List<String> tokens = new ArrayList<>();
-        StringBuilder tokenActual = new StringBuilder();
+        List<String> tokens = palabrasLinea;
+        tokens.clear();
+        tokenActual.setLength(0);
+        int inicioPalabra = 0;
         boolean enCadena = false;
         char caracterAnterior = ' ';
         
-        for (int i = 0; i < linea.length(); i++) {
+        int longitud = linea.length();
+        if (bufferLinea.length < longitud) {
+            bufferLinea = new char[Math.max(longitud, bufferLinea.length * 2)];
+        }
+        linea.getChars(0, longitud, bufferLinea, 0);
+        
+        for (int i = 0; i < longitud; i++) {
             char c = linea.charAt(i);
             
             if (c == '\'' && caracterAnterior != '\\') {
                 if (!enCadena) {
                     // Comenzando una cadena
                     if (tokenActual.length() > 0) {
-                        tokens.add(tokenActual.toString());
+                        agregarPalabra(extraerPalabra(tokenActual), inicioPalabra);
                         tokenActual.setLength(0);
                     }
                     enCadena = true;
+                    inicioPalabra = i;
                     tokenActual.append(c);
                 } else {
                     // Terminando una cadena
@@ -135,20 +301,25 @@ public class AnalizadorLexico {
                         }
                     }
                     
-                    tokens.add(tokenActual.toString());
+                    agregarPalabra(tokenActual.toString(), inicioPalabra);
                     tokenActual.setLength(0);
                     enCadena = false;
                     i = j - 1; // Ajusta indice
                 }
             } else if (enCadena) {
-                tokenActual.append(c);
+                // Agrega de una vez el tramo hasta la siguiente comilla
+                int fin = escaner.siguienteComilla(bufferLinea, i + 1, longitud);
+                tokenActual.append(bufferLinea, i, fin - i);
+                i = fin - 1;
+                c = bufferLinea[i];
             } else if (c == '#' && !enCadena) {
                 // Maneja caracteres especiales #nnn
                 if (tokenActual.length() > 0) {
-                    tokens.add(tokenActual.toString());
+                    agregarPalabra(extraerPalabra(tokenActual), inicioPalabra);
                     tokenActual.setLength(0);
                 }
                 
+                inicioPalabra = i;
                 tokenActual.append(c);
                 int j = i + 1;
                 while (j < linea.length() && Character.isDigit(linea.charAt(j))) {
@@ -157,22 +328,21 @@ public class AnalizadorLexico {
                 }
                 
                 // Verifica si hay una cadena despues del caracter especial
-                StringBuilder tokenComplejo = new StringBuilder(tokenActual.toString());
                 while (j < linea.length() && linea.charAt(j) == '\'') {
                     // Agrega la cadena que sigue
                     while (j < linea.length() && linea.charAt(j) != '\'' && j > i + 1) {
-                        tokenComplejo.append(linea.charAt(j));
+                        tokenActual.append(linea.charAt(j));
                         j++;
                     }
                     if (j < linea.length() && linea.charAt(j) == '\'') {
-                        tokenComplejo.append(linea.charAt(j));
+                        tokenActual.append(linea.charAt(j));
                         j++;
                     }
                     
                     // Verifica si hay otro caracter especial
                     if (j < linea.length() && linea.charAt(j) == '#') {
                         while (j < linea.length() && (linea.charAt(j) == '#' || Character.isDigit(linea.charAt(j)))) {
-                            tokenComplejo.append(linea.charAt(j));
+                            tokenActual.append(linea.charAt(j));
                             j++;
                         }
                     } else {
@@ -180,52 +350,87 @@ public class AnalizadorLexico {
                     }
                 }
                 
-                tokens.add(tokenComplejo.toString());
+                agregarPalabra(tokenActual.toString(), inicioPalabra);
                 tokenActual.setLength(0);
                 i = j - 1;
             } else if (Character.isWhitespace(c)) {
                 if (tokenActual.length() > 0) {
-                    tokens.add(tokenActual.toString());
+                    agregarPalabra(extraerPalabra(tokenActual), inicioPalabra);
                     tokenActual.setLength(0);
                 }
             } else if (esDelimitadorCompuesto(linea, i)) {
                 // Maneja operadores compuestos
                 if (tokenActual.length() > 0) {
-                    tokens.add(tokenActual.toString());
+                    agregarPalabra(extraerPalabra(tokenActual), inicioPalabra);
                     tokenActual.setLength(0);
                 }
                 
                 String operador = extraerOperadorCompuesto(linea, i);
-                tokens.add(operador);
+                agregarPalabra(operador, i);
                 i += operador.length() - 1;
             } else if (esDelimitador(c)) {
                 if (tokenActual.length() > 0) {
-                    tokens.add(tokenActual.toString());
+                    agregarPalabra(extraerPalabra(tokenActual), inicioPalabra);
                     tokenActual.setLength(0);
                 }
-                tokens.add(String.valueOf(c));
+                agregarPalabra(String.valueOf(c), i);
             } else {
-                tokenActual.append(c);
+                // Agrega de una vez el tramo de caracteres comunes
+                if (tokenActual.length() == 0) {
+                    inicioPalabra = i;
+                }
+                int fin = escaner.siguienteEspecial(bufferLinea, i + 1, longitud);
+                tokenActual.append(bufferLinea, i, fin - i);
+                i = fin - 1;
+                c = bufferLinea[i];
             }
             
             caracterAnterior = c;
         }
         
         if (tokenActual.length() > 0) {
-            tokens.add(tokenActual.toString());
+            agregarPalabra(extraerPalabra(tokenActual), inicioPalabra);
         }
         
         return tokens;
     }
     
+    /**
+     * Agrega una palabra de la linea con la posicion donde empieza
+     */
+    private void agregarPalabra(String palabra, int inicio) {
+        int indice = palabrasLinea.size();
+        if (indice == iniciosPalabras.length) {
+            iniciosPalabras = Arrays.copyOf(iniciosPalabras, indice * 2);
+        }
+        iniciosPalabras[indice] = inicio;
+        palabrasLinea.add(palabra);
+    }
+    
+    /**
+     * Convierte la palabra acumulada en String; si tiene forma de identificador
+     * o palabra reservada usa la instancia canonica del pool en lugar de crear
+     * una copia nueva
+     */
+    private String extraerPalabra(StringBuilder palabra) {
+        int estado = ValidadorIdentificadores.validar(palabra, 0, palabra.length());
+        if (estado == ValidadorIdentificadores.VALIDO || estado == ValidadorIdentificadores.ERROR_PALABRA_RESERVADA) {
+            return poolIdentificadores.internar(palabra, 0, palabra.length());
+        }
+        return palabra.toString();
+    }
+    
     /**
      * Verifica si hay un operador compuesto en la posicion
      */
     private boolean esDelimitadorCompuesto(String linea, int pos) {
         if (pos + 1 < linea.length()) {
-            String doble = linea.substring(pos, pos + 2);
-            return doble.equals("<=") || doble.equals(">=") || doble.equals("<>") || 
-                   doble.equals(":=") || doble.equals("..");
+            char primero = linea.charAt(pos);
+            char segundo = linea.charAt(pos + 1);
+            return (primero == '<' && (segundo == '=' || segundo == '>')) ||
+                   (primero == '>' && segundo == '=') ||
+                   (primero == ':' && segundo == '=') ||
+                   (primero == '.' && segundo == '.');
         }
         return false;
     }
@@ -234,74 +439,185 @@ public class AnalizadorLexico {
      * Extrae el operador compuesto desde la posicion
      */
     private String extraerOperadorCompuesto(String linea, int pos) {
-        if (pos + 1 < linea.length()) {
-            String doble = linea.substring(pos, pos + 2);
-            if (doble.equals("<=") || doble.equals(">=") || doble.equals("<>") || 
-                doble.equals(":=") || doble.equals("..")) {
-                return doble;
-            }
+        if (esDelimitadorCompuesto(linea, pos)) {
+            return linea.substring(pos, pos + 2);
         }
         return String.valueOf(linea.charAt(pos));
     }
     
     /**
-     * Elimina comentarios de una linea y valida su formato
-     * @param linea Linea original
+     * Separa el codigo de los comentarios de una linea y valida su formato
+     * Recorre la linea como una maquina de estados: el estado de comentario
+     * ({ } o (* *)) se conserva entre lineas, y los tramos de comentario se
+     * saltan sin copiarse. Cada comentario se reemplaza por un espacio
+     * @param contenido Contenido completo del archivo
+     * @param inicio Inicio de la linea en el contenido
+     * @param fin Fin de la linea (exclusivo, sin el '\n')
      * @param numeroLinea Numero de linea
-     * @return Línea sin comentarios
+     * @return Codigo de la linea sin comentarios ("" si no hay codigo)
      */
-    private String eliminarComentarios(String linea, int numeroLinea) {
-        String resultado = linea;
+    private String separarComentarios(String contenido, int inicio, int fin, int numeroLinea) {
+        bufferCodigo.setLength(0);
+        comentariosLinea.clear();
+        cantidadTramos = 0;
         
-        // Verifica comentarios con //
-        int posicionSlash = linea.indexOf("//");
-        if (posicionSlash != -1) {
-            // Verifica que no haya espacios entre los slashes
-            if (posicionSlash > 0 && linea.charAt(posicionSlash - 1) == '/') {
-                manejadorErrores.agregarError(numeroLinea,
-                    CodigosError.COMENTARIO_MAL_FORMADO,
-                    "Comentario mal formado: espacios entre // no permitidos");
-            }
+        boolean hayComentario = estadoComentario != EstadoComentario.NINGUNO;
+        boolean hayCodigo = false;
+        boolean enCadena = false;
+        boolean cierreSinApertura = false;
+        char caracterAnterior = ' ';
+        char ultimoCodigo = ' ';
+        int inicioTramo = inicio;
+        int inicioComentario = inicio;
+        
+        for (int i = inicio; i < fin; i++) {
+            char c = contenido.charAt(i);
             
-            // Verifica que no este despues de punto y coma
-            String antesComentario = linea.substring(0, posicionSlash).trim();
-            if (antesComentario.endsWith(";")) {
-                manejadorErrores.agregarError(numeroLinea,
-                    CodigosError.COMENTARIO_UBICACION_INCORRECTA,
-                    "No se permiten comentarios despues de punto y coma");
+            // Dentro de un comentario solo se busca el cierre
+            if (estadoComentario == EstadoComentario.LLAVE) {
+                if (c == '}') {
+                    estadoComentario = EstadoComentario.NINGUNO;
+                    registrarComentario(inicioComentario, i + 1);
+                    inicioTramo = i + 1;
+                }
+                continue;
+            }
+            if (estadoComentario == EstadoComentario.PARENTESIS) {
+                if (c == '*' && i + 1 < fin && contenido.charAt(i + 1) == ')') {
+                    estadoComentario = EstadoComentario.NINGUNO;
+                    i++;
+                    registrarComentario(inicioComentario, i + 1);
+                    inicioTramo = i + 1;
+                }
+                continue;
             }
             
-            resultado = linea.substring(0, posicionSlash);
-        }
-        
-        // Verifica comentarios con {}
-        int inicioLlave = resultado.indexOf("{");
-        int finLlave = resultado.indexOf("}");
-        
-        if (inicioLlave != -1) {
-            if (finLlave == -1) {
-                manejadorErrores.agregarError(numeroLinea,
-                    CodigosError.COMENTARIO_SIN_CIERRE,
-                    "Comentario con llaves sin cerrar");
-            } else {
-                // Verifica que no este despues de punto y coma
-                String antesComentario = resultado.substring(0, inicioLlave).trim();
-                if (antesComentario.endsWith(";")) {
+            if (enCadena) {
+                if (c == '\'' && caracterAnterior != '\\') {
+                    enCadena = false;
+                }
+            } else if (c == '\'' && caracterAnterior != '\\') {
+                enCadena = true;
+            } else if (c == '/' && i + 1 < fin && contenido.charAt(i + 1) == '/') {
+                // Comentario de linea: el resto de la linea se ignora
+                if (ultimoCodigo == ';') {
                     manejadorErrores.agregarError(numeroLinea,
                         CodigosError.COMENTARIO_UBICACION_INCORRECTA,
                         "No se permiten comentarios despues de punto y coma");
                 }
-                
-                resultado = resultado.substring(0, inicioLlave) + 
-                           (finLlave + 1 < resultado.length() ? resultado.substring(finLlave + 1) : "");
+                agregarTramoCodigo(contenido, inicioTramo, i);
+                registrarComentario(i, fin);
+                return hayCodigo ? bufferCodigo.toString() : "";
+            } else if (c == '{' || (c == '(' && i + 1 < fin && contenido.charAt(i + 1) == '*')) {
+                // Inicio de comentario de bloque
+                if (ultimoCodigo == ';') {
+                    manejadorErrores.agregarError(numeroLinea,
+                        CodigosError.COMENTARIO_UBICACION_INCORRECTA,
+                        "No se permiten comentarios despues de punto y coma");
+                }
+                agregarTramoCodigo(contenido, inicioTramo, i);
+                bufferCodigo.append(' ');
+                hayComentario = true;
+                inicioComentario = i;
+                lineaAperturaComentario = numeroLinea;
+                if (c == '{') {
+                    estadoComentario = EstadoComentario.LLAVE;
+                } else {
+                    estadoComentario = EstadoComentario.PARENTESIS;
+                    i++;
+                }
+                continue;
+            } else if (c == '}' && !cierreSinApertura) {
+                cierreSinApertura = true;
+                manejadorErrores.agregarError(numeroLinea,
+                    CodigosError.COMENTARIO_MAL_FORMADO,
+                    "Comentario con llave de cierre sin apertura");
+            }
+            
+            if (!Character.isWhitespace(c)) {
+                hayCodigo = true;
+                ultimoCodigo = c;
             }
-        } else if (finLlave != -1) {
-            manejadorErrores.agregarError(numeroLinea,
-                CodigosError.COMENTARIO_MAL_FORMADO,
-                "Comentario con llave de cierre sin apertura");
+            caracterAnterior = c;
         }
         
-        return resultado;
+        if (estadoComentario != EstadoComentario.NINGUNO) {
+            registrarComentario(inicioComentario, fin);
+        } else if (hayComentario) {
+            agregarTramoCodigo(contenido, inicioTramo, fin);
+        }
+        
+        if (!hayCodigo) {
+            return "";
+        }
+        return hayComentario ? bufferCodigo.toString() : contenido.substring(inicio, fin);
+    }
+    
+    /**
+     * Copia un tramo de codigo a bufferCodigo recordando de donde viene
+     */
+    private void agregarTramoCodigo(String contenido, int inicio, int fin) {
+        if (cantidadTramos == tramosCodigo.length) {
+            tramosCodigo = Arrays.copyOf(tramosCodigo, cantidadTramos * 2);
+        }
+        tramosCodigo[cantidadTramos++] = bufferCodigo.length();
+        tramosCodigo[cantidadTramos++] = inicio;
+        bufferCodigo.append(contenido, inicio, fin);
+    }
+    
+    /**
+     * Convierte una posicion de la linea sin comentarios en la columna de la
+     * linea original
+     * @param desplazamiento Posicion en la linea sin comentarios
+     * @param inicioLinea Inicio de la linea en el contenido
+     * @return Columna (1-based)
+     */
+    private int columnaTexto(int desplazamiento, int inicioLinea) {
+        int posicion = inicioLinea + desplazamiento;
+        for (int t = cantidadTramos - 2; t >= 0; t -= 2) {
+            if (tramosCodigo[t] <= desplazamiento) {
+                posicion = tramosCodigo[t + 1] + desplazamiento - tramosCodigo[t];
+                break;
+            }
+        }
+        return posicion - inicioLinea + 1;
+    }
+    
+    /**
+     * Guarda el tramo de un comentario en la linea actual, solo si se
+     * registran comentarios como tokens
+     */
+    private void registrarComentario(int inicio, int fin) {
+        if (registrarComentarios && fin > inicio) {
+            comentariosLinea.add(inicio);
+            comentariosLinea.add(fin);
+        }
+    }
+    
+    /**
+     * Reporta el comentario que sigue abierto al terminar el archivo
+     */
+    private void reportarComentarioSinCierre() {
+        reportarComentarioSinCierre(manejadorErrores, estadoComentario, lineaAperturaComentario);
+    }
+    
+    /**
+     * Reporta un comentario abierto al terminar el archivo
+     * @param manejadorErrores Manejador donde se agrega el error
+     * @param estado Estado de comentario al final del archivo
+     * @param lineaApertura Linea donde se abrio el comentario
+     */
+    static void reportarComentarioSinCierre(ManejadorErrores manejadorErrores, 
+                                            EstadoComentario estado, int lineaApertura) {
+        if (estado == EstadoComentario.LLAVE) {
+            manejadorErrores.agregarError(lineaApertura,
+                CodigosError.COMENTARIO_SIN_CIERRE,
+                "Comentario con llaves sin cerrar");
+        } else if (estado == EstadoComentario.PARENTESIS) {
+            manejadorErrores.agregarError(lineaApertura,
+                CodigosError.COMENTARIO_SIN_CIERRE,
+                "Comentario con (* sin cerrar");
+        }
     }
     
     /**
@@ -321,16 +637,18 @@ public class AnalizadorLexico {
      * @param token Token a analizar
      * @param numeroLinea Numero de linea
      * @param posicion Posicion en la linea
+     * @param columnaTexto Columna donde empieza en la linea original (1-based)
      * @param todosTokens Todos los tokens de la linea
      */
-    private void analizarToken(String token, int numeroLinea, int posicion, List<String> todosTokens) {
+    private void analizarToken(String token, int numeroLinea, int posicion, int columnaTexto,
+                               List<String> todosTokens) {
         if (token.trim().isEmpty()) {
             return;
         }
         
         TipoToken tipo = determinarTipoTokenMejorado(token);
-        Token tokenObj = new Token(tipo, token, numeroLinea, posicion);
-        tokens.add(tokenObj);
+        tokens.agregar(tipo, token, numeroLinea, posicion, columnaTexto);
+        estadisticas.registrarToken(tipo, token);
         
         // Validaciones especificas segun el tipo
         switch (tipo) {
@@ -361,22 +679,26 @@ public class AnalizadorLexico {
         }
     }
     
+    private static boolean coincide(Matcher matcher, String texto) {
+        return matcher.reset(texto).matches();
+    }
+    
     /**
      * Verifica si un token es complejo pero valido (como caracteres especiales de PASCAL)
      */
     private boolean esTokenComplejo(String token) {
         // Caracteres especiales de PASCAL como #201, #186, etc.
-        if (PATRON_CARACTER_ESPECIAL.matcher(token).matches()) {
+        if (coincide(matcherCaracterEspecial, token)) {
             return true;
         }
         
         // Cadenas complejas con caracteres especiales
-        if (PATRON_CADENA_COMPLEJA.matcher(token).matches()) {
+        if (PatronesLineales.esCadenaCompleja(token)) {
             return true;
         }
         
         // Expresiones como dia<1, mes<11, etc.
-        if (token.matches("^[a-zA-Z][a-zA-Z0-9_]*[<>=]+\\d*[a-zA-Z0-9_]*$")) {
+        if (PatronesLineales.esExpresionComparacion(token)) {
             return true;
         }
         
@@ -393,14 +715,18 @@ public class AnalizadorLexico {
             return TipoToken.DESCONOCIDO;
         }
         
-        // Caracteres especiales de PASCAL
-        if (PATRON_CARACTER_ESPECIAL.matcher(token).matches()) {
-            return TipoToken.CADENA; // Los caracteres especiales se tratan como cadenas
-        }
-        
-        // Cadenas complejas
-        if (PATRON_CADENA_COMPLEJA.matcher(token).matches()) {
-            return TipoToken.CADENA;
+        // Los patrones de cadena solo aplican si empieza con # o comilla
+        char primero = token.charAt(0);
+        if (primero == '#' || primero == '\'') {
+            // Caracteres especiales de PASCAL
+            if (coincide(matcherCaracterEspecial, token)) {
+                return TipoToken.CADENA; // Los caracteres especiales se tratan como cadenas
+            }
+            
+            // Cadenas complejas
+            if (PatronesLineales.esCadenaCompleja(token)) {
+                return TipoToken.CADENA;
+            }
         }
         
         // Usa el metodo original para otros casos
@@ -415,10 +741,9 @@ public class AnalizadorLexico {
      * @param todosTokens Todos los tokens de la linea
      */
     private void validarIdentificador(String identificador, int numeroLinea, int posicion, List<String> todosTokens) {
-        ValidadorIdentificadores.ResultadoValidacion resultado = 
-            ValidadorIdentificadores.validarIdentificador(identificador);
+        int estado = ValidadorIdentificadores.validar(identificador, 0, identificador.length());
         
-        if (!resultado.esValido) {
+        if (estado != ValidadorIdentificadores.VALIDO) {
             // Determina el codigo de error especifico
             int codigoError;
             if (Character.isDigit(identificador.charAt(0))) {
@@ -429,7 +754,8 @@ public class AnalizadorLexico {
                 codigoError = CodigosError.IDENTIFICADOR_CARACTER_INVALIDO;
             }
             
-            manejadorErrores.agregarError(numeroLinea, codigoError, resultado.mensaje);
+            manejadorErrores.agregarError(numeroLinea, codigoError,
+                ValidadorIdentificadores.mensaje(estado, identificador));
         }
     }
     
@@ -445,12 +771,12 @@ public class AnalizadorLexico {
         }
         
         // Para caracteres especiales
-        if (PATRON_CARACTER_ESPECIAL.matcher(cadena).matches()) {
+        if (coincide(matcherCaracterEspecial, cadena)) {
             return; // Valida
         }
         
         // Para cadenas complejas
-        if (PATRON_CADENA_COMPLEJA.matcher(cadena).matches()) {
+        if (PatronesLineales.esCadenaCompleja(cadena)) {
             return; // Valida
         }
         
@@ -465,7 +791,7 @@ public class AnalizadorLexico {
      * @param nombreVariable Nombre de la variable
      */
     public void registrarVariable(String nombreVariable) {
-        variablesDeclaradas.add(nombreVariable.toLowerCase());
+        variablesDeclaradas.add(poolIdentificadores.plegar(nombreVariable));
     }
     
     /**
@@ -473,7 +799,7 @@ public class AnalizadorLexico {
      * @param nombreConstante Nombre de la constante
      */
     public void registrarConstante(String nombreConstante) {
-        constantesDeclaradas.add(nombreConstante.toLowerCase());
+        constantesDeclaradas.add(poolIdentificadores.plegar(nombreConstante));
     }
     
     /**
@@ -482,7 +808,7 @@ public class AnalizadorLexico {
      * @return true si esta declarada
      */
     public boolean estaVariableDeclarada(String nombreVariable) {
-        return variablesDeclaradas.contains(nombreVariable.toLowerCase());
+        return variablesDeclaradas.contains(plegarConsulta(nombreVariable));
     }
     
     /**
@@ -491,7 +817,19 @@ public class AnalizadorLexico {
      * @return true si esta declarada
      */
     public boolean estaConstanteDeclarada(String nombreConstante) {
-        return constantesDeclaradas.contains(nombreConstante.toLowerCase());
+        return constantesDeclaradas.contains(plegarConsulta(nombreConstante));
+    }
+    
+    /**
+     * Pliega un nombre consultado sin agregarlo al pool. Si el pool no lo
+     * tiene (nunca se vio, o el pool compartido se reemplazo al llegar a su
+     * limite) se pliega directamente, porque los conjuntos comparan por valor
+     * @param nombre Nombre consultado
+     * @return Nombre en minusculas
+     */
+    private String plegarConsulta(String nombre) {
+        String plegado = poolIdentificadores.buscarPlegado(nombre);
+        return plegado != null ? plegado : nombre.toLowerCase(Locale.ROOT);
     }
     
     /**
@@ -499,6 +837,40 @@ public class AnalizadorLexico {
      * @return Lista de tokens
      */
     public List<Token> getTokens() {
-        return new ArrayList<>(tokens);
+        return new ArrayList<>(tokens.comoLista());
+    }
+    
+    /**
+     * Cambia el almacenamiento donde se guardan los tokens (por ejemplo, uno en
+     * memoria nativa). Debe llamarse antes de analizar
+     * @param almacen Almacenamiento vacio de tokens
+     */
+    public void setAlmacenTokens(AlmacenTokens almacen) {
+        this.tokens = almacen;
+    }
+    
+    /**
+     * Obtiene el almacenamiento de tokens sin copiarlo
+     * @return Almacenamiento con los tokens generados
+     */
+    public AlmacenTokens getAlmacenTokens() {
+        return tokens;
+    }
+    
+    /**
+     * Estado de comentario de bloque al terminar una linea
+     */
+    enum EstadoComentario {
+        NINGUNO,
+        LLAVE,
+        PARENTESIS
+    }
+    
+    /**
+     * Obtiene las estadisticas recolectadas durante el analisis
+     * @return Estadisticas del contenido analizado
+     */
+    public EstadisticasFuente getEstadisticas() {
+        return estadisticas;
     }
 }
@@ -0,0 +1,247 @@
+package analizador;
+
+import analizador.AnalizadorLexico.EstadoComentario;
+import tokens.AlmacenTokens;
+import tokens.AlmacenTokensLista;
+import tokens.AlmacenTokensNativo;
+import tokens.Token;
+import java.lang.foreign.Arena;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+
+/**
+ * Analizador lexico en paralelo para archivos grandes
+ * Divide el contenido en fragmentos que terminan en un salto de linea, analiza
+ * cada fragmento en un ForkJoinPool y une tokens y errores en el mismo orden
+ * que produce el analisis secuencial de AnalizadorLexico; los errores se
+ * registran en un ColectorErrores compartido.
+ * Cada fragmento se analiza suponiendo que no empieza dentro de un comentario;
+ * al unirlos, si el fragmento anterior termino dentro de un comentario de
+ * bloque, el fragmento se vuelve a analizar con el estado correcto
+ */
+public class AnalizadorLexicoParalelo {
+    
+    /** Tamano aproximado de cada fragmento en caracteres (1 MB) */
+    public static final int TAMANO_FRAGMENTO_DEFECTO = 1 << 20;
+    
+    private final ManejadorErrores manejadorErrores;
+    private final ForkJoinPool pool;
+    private final int tamanoFragmento;
+    private AlmacenTokens tokens;
+    private final EstadisticasFuente estadisticas;
+    private boolean registrarComentarios = false;
+    private boolean fragmentosEnMemoriaNativa = false;
+    private Cancelacion cancelacion = Cancelacion.NINGUNA;
+    
+    public AnalizadorLexicoParalelo(ManejadorErrores manejadorErrores) {
+        this(manejadorErrores, ForkJoinPool.commonPool(), TAMANO_FRAGMENTO_DEFECTO);
+    }
+    
+    /**
+     * Constructor completo
+     * @param manejadorErrores Manejador donde se dejan los errores ya ordenados
+     * @param pool Pool donde se ejecutan los fragmentos
+     * @param tamanoFragmento Tamano minimo de cada fragmento en caracteres
+     */
+    public AnalizadorLexicoParalelo(ManejadorErrores manejadorErrores, ForkJoinPool pool, int tamanoFragmento) {
+        if (tamanoFragmento < 1) {
+            throw new IllegalArgumentException("El tamano de fragmento debe ser positivo: " + tamanoFragmento);
+        }
+        this.manejadorErrores = manejadorErrores;
+        this.pool = pool;
+        this.tamanoFragmento = tamanoFragmento;
+        this.tokens = new AlmacenTokensLista();
+        this.estadisticas = new EstadisticasFuente();
+    }
+    
+    /**
+     * Realiza el analisis lexico del contenido en paralelo
+     * @param contenido Contenido del archivo a analizar
+     */
+    public void analizar(String contenido) {
+        analizar(IndiceLineas.construir(contenido));
+    }
+    
+    /**
+     * Realiza el analisis lexico en paralelo usando el indice de lineas compartido
+     * @param indice Indice de lineas del archivo a analizar
+     */
+    public void analizar(IndiceLineas indice) {
+        List<Fragmento> fragmentos = dividir(indice);
+        List<ForkJoinTask<ResultadoFragmento>> tareas = new ArrayList<>(fragmentos.size());
+        
+        // Los fragmentos registran sus errores sin contencion; el origen 2i es el
+        // primer analisis del fragmento i y 2i + 1 el analisis reconciliado
+        ColectorErrores colector = new ColectorErrores();
+        for (int i = 0; i < fragmentos.size(); i++) {
+            Fragmento fragmento = fragmentos.get(i);
+            int origen = 2 * i;
+            tareas.add(pool.submit(() -> analizarFragmento(indice, fragmento, colector, origen,
+                                                           EstadoComentario.NINGUNO, -1)));
+        }
+        
+        // Une los resultados en orden de fragmento para conservar el orden secuencial
+        EstadoComentario estado = EstadoComentario.NINGUNO;
+        int lineaApertura = -1;
+        for (int i = 0; i < tareas.size(); i++) {
+            ResultadoFragmento resultado = tareas.get(i).join();
+            // Suelta la tarea para que los tokens del fragmento se liberen al unirlos
+            tareas.set(i, null);
+            
+            // Reconcilia el estado de comentario en el limite con el fragmento anterior
+            if (estado != EstadoComentario.NINGUNO) {
+                colector.descartar(2 * i);
+                resultado = analizarFragmento(indice, fragmentos.get(i), colector, 2 * i + 1,
+                                              estado, lineaApertura);
+            }
+            estado = resultado.estadoFinal;
+            lineaApertura = resultado.lineaApertura;
+            
+            tokens.agregarTodos(resultado.tokens);
+            estadisticas.combinar(resultado.estadisticas);
+        }
+        
+        manejadorErrores.agregarErrores(colector);
+        AnalizadorLexico.reportarComentarioSinCierre(manejadorErrores, estado, lineaApertura);
+    }
+    
+    /**
+     * Indica si los comentarios se agregan como tokens COMENTARIO
+     * @param registrarComentarios true para generar tokens de comentario
+     */
+    public void setRegistrarComentarios(boolean registrarComentarios) {
+        this.registrarComentarios = registrarComentarios;
+    }
+    
+    /**
+     * Indica si cada fragmento guarda sus tokens en memoria nativa en lugar
+     * del heap. Cada fragmento usa su propio Arena automatico, que se libera
+     * cuando el recolector descarta el fragmento despues de unirlo
+     * @param fragmentosEnMemoriaNativa true para analizar los fragmentos fuera del heap
+     */
+    public void setFragmentosEnMemoriaNativa(boolean fragmentosEnMemoriaNativa) {
+        this.fragmentosEnMemoriaNativa = fragmentosEnMemoriaNativa;
+    }
+    
+    /**
+     * Fija la cancelacion que verifican los analizadores de cada fragmento
+     * @param cancelacion Cancelacion del analisis en curso
+     */
+    public void setCancelacion(Cancelacion cancelacion) {
+        this.cancelacion = cancelacion;
+    }
+    
+    /**
+     * Divide el archivo en rangos de lineas completas de aproximadamente
+     * tamanoFragmento caracteres. Un comentario que cruza el limite entre dos
+     * fragmentos se resuelve al unir los resultados
+     * @param indice Indice de lineas del archivo
+     * @return Fragmentos en orden
+     */
+    private List<Fragmento> dividir(IndiceLineas indice) {
+        List<Fragmento> fragmentos = new ArrayList<>();
+        int totalLineas = indice.getTotalLineas();
+        int longitud = indice.getContenido().length();
+        int primeraLinea = 1;
+        
+        while (primeraLinea <= totalLineas) {
+            int objetivo = (int) Math.min((long) indice.getInicioLinea(primeraLinea) + tamanoFragmento - 1, longitud);
+            int ultimaLinea = Math.max(primeraLinea, indice.getNumeroLinea(objetivo));
+            
+            fragmentos.add(new Fragmento(primeraLinea, ultimaLinea));
+            primeraLinea = ultimaLinea + 1;
+        }
+        
+        return fragmentos;
+    }
+    
+    /**
+     * Analiza un fragmento con su propio analizador; los errores van al colector
+     * @param colector Colector compartido por todos los fragmentos
+     * @param origen Origen de los errores del fragmento en el colector
+     * @param estadoInicial Estado de comentario al inicio del fragmento
+     * @param lineaApertura Linea donde se abrio ese comentario (-1 si no hay)
+     */
+    private ResultadoFragmento analizarFragmento(IndiceLineas indice, Fragmento fragmento,
+                                                 ColectorErrores colector, int origen,
+                                                 EstadoComentario estadoInicial, int lineaApertura) {
+        ManejadorErrores errores = colector.manejadorPara(manejadorErrores.getNombreArchivoOriginal(), origen);
+        AnalizadorLexico analizador = new AnalizadorLexico(errores);
+        if (fragmentosEnMemoriaNativa) {
+            analizador.setAlmacenTokens(new AlmacenTokensNativo(Arena.ofAuto()));
+        }
+        analizador.setRegistrarComentarios(registrarComentarios);
+        analizador.setCancelacion(cancelacion);
+        analizador.setEstadoComentario(estadoInicial, lineaApertura);
+        analizador.analizar(indice, fragmento.primeraLinea, fragmento.ultimaLinea);
+        return new ResultadoFragmento(analizador.getAlmacenTokens(), analizador.getEstadisticas(),
+                                      analizador.getEstadoComentario(), analizador.getLineaAperturaComentario());
+    }
+    
+    /**
+     * Obtiene la lista de tokens generados
+     * @return Lista de tokens
+     */
+    public List<Token> getTokens() {
+        return new ArrayList<>(tokens.comoLista());
+    }
+    
+    /**
+     * Cambia el almacenamiento donde se unen los tokens de los fragmentos.
+     * Los fragmentos se analizan en el heap, o en memoria nativa con
+     * setFragmentosEnMemoriaNativa, y se copian en orden al unirlos
+     * @param almacen Almacenamiento vacio de tokens
+     */
+    public void setAlmacenTokens(AlmacenTokens almacen) {
+        this.tokens = almacen;
+    }
+    
+    /**
+     * Obtiene el almacenamiento de tokens sin copiarlo
+     * @return Almacenamiento con los tokens de todos los fragmentos
+     */
+    public AlmacenTokens getAlmacenTokens() {
+        return tokens;
+    }
+    
+    /**
+     * Obtiene las estadisticas de todos los fragmentos unidas en orden
+     * @return Estadisticas del contenido analizado
+     */
+    public EstadisticasFuente getEstadisticas() {
+        return estadisticas;
+    }
+    
+    /**
+     * Rango de lineas [primeraLinea, ultimaLinea] de un fragmento
+     */
+    private static class Fragmento {
+        final int primeraLinea;
+        final int ultimaLinea;
+        
+        Fragmento(int primeraLinea, int ultimaLinea) {
+            this.primeraLinea = primeraLinea;
+            this.ultimaLinea = ultimaLinea;
+        }
+    }
+    
+    /**
+     * Tokens, estadisticas y estado final de comentario de un fragmento
+     */
+    private static class ResultadoFragmento {
+        final AlmacenTokens tokens;
+        final EstadisticasFuente estadisticas;
+        final EstadoComentario estadoFinal;
+        final int lineaApertura;
+        
+        ResultadoFragmento(AlmacenTokens tokens, EstadisticasFuente estadisticas,
+                           EstadoComentario estadoFinal, int lineaApertura) {
+            this.tokens = tokens;
+            this.estadisticas = estadisticas;
+            this.estadoFinal = estadoFinal;
+            this.lineaApertura = lineaApertura;
+        }
+    }
+}
@@ -6,10 +6,11 @@ import tokens.PalabrasReservadas;
 import utils.Utilidades;
 import utils.ValidadorIdentificadores;
 import java.util.*;
+import java.util.regex.Matcher;
 
 public class AnalizadorSintactico {
     
-    private final ManejadorErrores manejadorErrores;
+    private ManejadorErrores manejadorErrores;
     private String nombreArchivo;
     private boolean programEncontrado = false;
     private boolean usesEncontrado = false;
@@ -19,23 +20,68 @@ public class AnalizadorSintactico {
     private boolean endEncontrado = false;
     private boolean enSeccionVariables = false;
     
+    // Se consulta en cada linea para detener un analisis cancelado
+    private Cancelacion cancelacion = Cancelacion.NINGUNA;
+    
+    // Matchers reutilizables sobre los patrones precompilados; los que
+    // retroceden con lineas adversas se reconocen con PatronesLineales
+    private final Matcher matcherDeclaracionVariable = PatronesSintacticos.DECLARACION_VARIABLE.matcher("");
+    private final Matcher matcherBegin = PatronesSintacticos.BEGIN.matcher("");
+    
     public AnalizadorSintactico(ManejadorErrores manejadorErrores) {
         this.manejadorErrores = manejadorErrores;
     }
     
+    /**
+     * Prepara el analizador para otro archivo: olvida las secciones
+     * encontradas y conserva los matchers ya creados
+     * @param manejadorErrores Manejador de errores del nuevo archivo
+     */
+    public void reiniciar(ManejadorErrores manejadorErrores) {
+        this.manejadorErrores = manejadorErrores;
+        nombreArchivo = null;
+        programEncontrado = false;
+        usesEncontrado = false;
+        constEncontrado = false;
+        varEncontrado = false;
+        beginEncontrado = false;
+        endEncontrado = false;
+        enSeccionVariables = false;
+        cancelacion = Cancelacion.NINGUNA;
+    }
+    
+    /**
+     * Fija la cancelacion que se verifica antes de cada linea
+     * @param cancelacion Cancelacion del analisis en curso
+     */
+    public void setCancelacion(Cancelacion cancelacion) {
+        this.cancelacion = cancelacion;
+    }
+    
+    /**
+     * Equivalente a String.matches usando un matcher reutilizable
+     */
+    private static boolean coincide(Matcher matcher, String texto) {
+        return matcher.reset(texto).matches();
+    }
+    
     public void analizar(String contenido, List<Token> tokens) {
+        analizar(IndiceLineas.construir(contenido), tokens);
+    }
+    
+    public void analizar(IndiceLineas indice, List<Token> tokens) {
         extraerNombreArchivo();
-        String[] lineas = contenido.split("\n");
+        int totalLineas = indice.getTotalLineas();
         
-        for (int i = 0; i < lineas.length; i++) {
-            int numeroLinea = i + 1;
-            String linea = lineas[i].trim();
+        for (int numeroLinea = 1; numeroLinea <= totalLineas; numeroLinea++) {
+            cancelacion.verificar();
+            String linea = indice.getLinea(numeroLinea).trim();
             
             if (linea.isEmpty() || esComentario(linea)) {
                 continue;
             }
             
-            analizarEstructura(linea, numeroLinea, i == 0, i == lineas.length - 1);
+            analizarEstructura(linea, numeroLinea, numeroLinea == 1, numeroLinea == totalLineas);
         }
         
         validarEstructuraCompleta();
@@ -44,7 +90,9 @@ public class AnalizadorSintactico {
     private void extraerNombreArchivo() {
         String nombreCompleto = manejadorErrores.getNombreArchivoOriginal();
         if (nombreCompleto != null && nombreCompleto.endsWith(".pas")) {
-            this.nombreArchivo = nombreCompleto.substring(0, nombreCompleto.length() - 4);
+            // El nombre del programa se compara sin los directorios de la ruta
+            int inicio = Math.max(nombreCompleto.lastIndexOf('/'), nombreCompleto.lastIndexOf('\\')) + 1;
+            this.nombreArchivo = nombreCompleto.substring(inicio, nombreCompleto.length() - 4);
         } else {
             this.nombreArchivo = "archivo";
         }
@@ -67,7 +115,8 @@ public class AnalizadorSintactico {
         }
         
         if (numeroLinea == 2 && programEncontrado && !lineaLimpia.toLowerCase().startsWith("uses")) {
-            if (lineaLimpia.matches(".*[a-zA-Z]+.*,.*[a-zA-Z]+.*") || lineaLimpia.matches(".*[a-zA-Z]+.*")) {
+            // Toda lista de unidades contiene letras: basta la segunda condicion
+            if (PatronesLineales.contieneLetras(lineaLimpia)) {
                 manejadorErrores.agregarError(numeroLinea, CodigosError.USES_NO_ENCONTRADO,
                     "Falta palabra reservada 'uses' antes de las unidades");
             }
@@ -100,13 +149,13 @@ public class AnalizadorSintactico {
                     "Falta palabra reservada 'const' antes de la declaracion de constante");
             }
             
-            if (enSeccionVariables && lineaLimpia.matches(".*\\s*:\\s*(word|integer|byte|string|real|boolean).*")) {
+            if (enSeccionVariables && PatronesLineales.contieneDeclaracionTipo(lineaLimpia)) {
                 validarDeclaracionVariableSinVar(lineaLimpia, numeroLinea);
                 validarPuntoComaVariable(lineaLimpia, numeroLinea);
                 validarIdentificadorVariableReservada(lineaLimpia, numeroLinea);
             }
             
-            if (varEncontrado && !beginEncontrado && lineaLimpia.matches(".*\\s*:\\s*(word|integer|byte|string|real|boolean).*") && !lineaLimpia.toLowerCase().startsWith("var")) {
+            if (varEncontrado && !beginEncontrado && PatronesLineales.contieneDeclaracionTipo(lineaLimpia) && !lineaLimpia.toLowerCase().startsWith("var")) {
                 validarPuntoComaVariable(lineaLimpia, numeroLinea);
                 validarIdentificadorVariableReservada(lineaLimpia, numeroLinea);
             }
@@ -125,7 +174,7 @@ public class AnalizadorSintactico {
                 "Program debe terminar con punto y coma");
         }
         
-        String[] partes = linea.split("\\s+");
+        String[] partes = PatronesSintacticos.ESPACIOS.split(linea);
         if (partes.length > 1) {
             String identificador = partes[1].replace(";", "");
             if (!identificador.isEmpty() && !identificador.equalsIgnoreCase(nombreArchivo)) {
@@ -224,8 +273,7 @@ public class AnalizadorSintactico {
     }
     
     private void validarDeclaracionVariable(String linea, int numeroLinea) {
-        String patron = "\\s*([a-zA-Z_][a-zA-Z0-9_]*)\\s*:\\s*(word|integer|byte|string|real|boolean)\\s*;?";
-        if (linea.matches(patron)) {
+        if (coincide(matcherDeclaracionVariable, linea)) {
             String[] partes = linea.split(":");
             if (partes.length > 0) {
                 String identificador = partes[0].trim();
@@ -276,27 +324,23 @@ public class AnalizadorSintactico {
     
     private void validarDeclaracionVariableSinVar(String linea, int numeroLinea) {
         if (!linea.toLowerCase().startsWith("var") && varEncontrado) {
-            String patron = "\\s*([a-zA-Z_][a-zA-Z0-9_]*)\\s*:\\s*(word|integer|byte|string|real|boolean)\\s*;?";
-            if (linea.matches(patron)) {
+            if (coincide(matcherDeclaracionVariable, linea)) {
                 return;
             }
         }
     }
     
     private void validarPuntoComaVariable(String linea, int numeroLinea) {
-        if (linea.contains(":") && !linea.trim().endsWith(";") && linea.matches(".*\\s*:\\s*(word|integer|byte|string|real|boolean)\\s*$")) {
+        if (linea.contains(":") && !linea.trim().endsWith(";") && PatronesLineales.terminaEnTipo(linea)) {
             manejadorErrores.agregarError(numeroLinea, CodigosError.VARIABLE_SIN_PUNTO_COMA,
                 "La declaracion de variable debe terminar con punto y coma");
         }
     }
     
     private void validarIdentificadorVariableReservada(String linea, int numeroLinea) {
-        String patron = "\\s*([a-zA-Z_][a-zA-Z0-9_]*)\\s*:\\s*(word|integer|byte|string|real|boolean)";
-        java.util.regex.Pattern p = java.util.regex.Pattern.compile(patron, java.util.regex.Pattern.CASE_INSENSITIVE);
-        java.util.regex.Matcher m = p.matcher(linea);
+        String identificador = PatronesLineales.buscarIdentificadorConTipo(linea);
         
-        if (m.find()) {
-            String identificador = m.group(1);
+        if (identificador != null) {
             if (PalabrasReservadas.esPalabraReservada(identificador)) {
                 manejadorErrores.agregarError(numeroLinea, CodigosError.IDENTIFICADOR_PALABRA_RESERVADA,
                     "No se puede usar la palabra reservada '" + identificador + "' como identificador de variable");
@@ -322,7 +366,7 @@ public class AnalizadorSintactico {
     
     private void analizarBeginConComentario(String linea, int numeroLinea) {
         String lineaLimpia = linea.trim();
-        String despuesDeBegin = lineaLimpia.replaceFirst("(?i)begin", "").trim();
+        String despuesDeBegin = matcherBegin.reset(lineaLimpia).replaceFirst("").trim();
         
         if (!despuesDeBegin.isEmpty()) {
             if (despuesDeBegin.startsWith("//") || despuesDeBegin.startsWith("{")) {
@@ -0,0 +1,78 @@
+package analizador;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Senal de cancelacion de un analisis, con plazo opcional.
+ * Los analizadores lexico y sintactico la consultan en cada linea, de modo
+ * que un analisis reemplazado por otro mas nuevo o con el plazo vencido deja
+ * de usar CPU en cuanto termina la linea actual
+ */
+public class Cancelacion {
+    
+    /** Cancelacion que nunca se activa; la usan los analisis sin plazo */
+    public static final Cancelacion NINGUNA = new Cancelacion(Long.MAX_VALUE);
+    
+    private final long limiteNanos;
+    private volatile boolean cancelada;
+    
+    private Cancelacion(long limiteNanos) {
+        this.limiteNanos = limiteNanos;
+    }
+    
+    /**
+     * Crea una cancelacion sin plazo, que solo se activa con cancelar()
+     * @return Cancelacion nueva
+     */
+    public static Cancelacion sinPlazo() {
+        return new Cancelacion(Long.MAX_VALUE);
+    }
+    
+    /**
+     * Crea una cancelacion que se activa sola al vencer el plazo
+     * @param plazo Tiempo disponible desde ahora
+     * @param unidad Unidad del plazo
+     * @return Cancelacion nueva
+     */
+    public static Cancelacion conPlazo(long plazo, TimeUnit unidad) {
+        return new Cancelacion(System.nanoTime() + unidad.toNanos(plazo));
+    }
+    
+    /**
+     * Cancela el analisis; se detiene en la siguiente verificacion
+     */
+    public void cancelar() {
+        if (this != NINGUNA) {
+            cancelada = true;
+        }
+    }
+    
+    /**
+     * Verifica si el analisis fue cancelado o si vencio su plazo
+     * @return true si el analisis debe detenerse
+     */
+    public boolean estaCancelada() {
+        return cancelada || (limiteNanos != Long.MAX_VALUE && System.nanoTime() - limiteNanos > 0);
+    }
+    
+    /**
+     * Detiene el analisis si fue cancelado o si vencio su plazo
+     * @throws AnalisisCancelado Si el analisis debe detenerse
+     */
+    public void verificar() {
+        if (cancelada) {
+            throw new AnalisisCancelado("Analisis cancelado");
+        }
+        if (limiteNanos != Long.MAX_VALUE && System.nanoTime() - limiteNanos > 0) {
+            throw new AnalisisCancelado("Plazo del analisis vencido");
+        }
+    }
+    
+    /**
+     * Obtiene el plazo como instante de System.nanoTime
+     * @return Limite en nanosegundos, o Long.MAX_VALUE si no tiene plazo
+     */
+    public long getLimiteNanos() {
+        return limiteNanos;
+    }
+}
@@ -0,0 +1,108 @@
+package analizador;
+
+import analizador.ManejadorErrores.ErrorInfo;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Colector de errores para fases que se ejecutan en paralelo sobre el mismo
+ * archivo. Cada hilo escribe en su propio buffer sin sincronizacion; los
+ * buffers son del colector (por hilo, no en ThreadLocal, para no dejar
+ * entradas en los hilos del pool) y se unen y liberan al final.
+ * Cada error lleva un origen (fase o fragmento) que lo produjo. Al unirlos,
+ * los errores se ordenan por origen y, dentro de cada origen, por orden de
+ * llegada, de modo que el resultado no depende de que hilo ejecuto cada tarea
+ * y coincide con el del analisis secuencial.
+ * Un origen debe alimentarse desde una sola tarea a la vez
+ */
+public class ColectorErrores {
+    
+    private final Map<Thread, Buffer> buffers = new ConcurrentHashMap<>();
+    private final Set<Integer> descartados = ConcurrentHashMap.newKeySet();
+    
+    private static final Comparator<Entrada> ORDEN = Comparator
+        .comparingInt((Entrada entrada) -> entrada.origen)
+        .thenComparingLong(entrada -> entrada.secuencia);
+    
+    /**
+     * Registra un error en el buffer del hilo actual
+     * @param origen Fase o fragmento que produjo el error
+     * @param numeroLinea Numero de linea (1-based), o -1 si no tiene linea
+     * @param numeroError Codigo del error
+     * @param descripcion Descripcion del error
+     */
+    public void registrar(int origen, int numeroLinea, int numeroError, String descripcion) {
+        Buffer buffer = buffers.computeIfAbsent(Thread.currentThread(), hilo -> new Buffer());
+        buffer.entradas.add(new Entrada(origen, buffer.siguiente++,
+                                        new ErrorInfo(numeroLinea, numeroError, descripcion)));
+    }
+    
+    /**
+     * Descarta los errores de un origen, por ejemplo un fragmento que se
+     * vuelve a analizar con otro estado inicial
+     * @param origen Origen cuyos errores no se unen
+     */
+    public void descartar(int origen) {
+        descartados.add(origen);
+    }
+    
+    /**
+     * Crea un manejador de errores que registra en este colector con un origen
+     * fijo; se pasa a los analizadores que se ejecutan en una tarea
+     * @param nombreArchivo Nombre del archivo analizado
+     * @param origen Fase o fragmento de la tarea
+     * @return Manejador de errores de la tarea
+     */
+    public ManejadorErrores manejadorPara(String nombreArchivo, int origen) {
+        return new ManejadorErrores(nombreArchivo, this, origen);
+    }
+    
+    /**
+     * Une los buffers de todos los hilos en orden determinista y los libera.
+     * Debe llamarse una vez, despues de esperar (join) todas las tareas que
+     * registran errores
+     * @return Errores ordenados por origen y orden de llegada
+     */
+    public List<ErrorInfo> unir() {
+        List<Entrada> todas = new ArrayList<>();
+        for (Buffer buffer : buffers.values()) {
+            for (Entrada entrada : buffer.entradas) {
+                if (!descartados.contains(entrada.origen)) {
+                    todas.add(entrada);
+                }
+            }
+        }
+        buffers.clear();
+        todas.sort(ORDEN);
+        
+        List<ErrorInfo> errores = new ArrayList<>(todas.size());
+        for (Entrada entrada : todas) {
+            errores.add(entrada.error);
+        }
+        return errores;
+    }
+    
+    /**
+     * Errores escritos por un solo hilo, con su contador de llegada
+     */
+    private static class Buffer {
+        final List<Entrada> entradas = new ArrayList<>();
+        long siguiente;
+    }
+    
+    private static class Entrada {
+        final int origen;
+        final long secuencia;
+        final ErrorInfo error;
+        
+        Entrada(int origen, long secuencia, ErrorInfo error) {
+            this.origen = origen;
+            this.secuencia = secuencia;
+            this.error = error;
+        }
+    }
+}
@@ -0,0 +1,87 @@
+package analizador;
+
+/**
+ * Busqueda de caracteres significativos dentro de una linea
+ * El tokenizador la usa para saltar de una vez los tramos de caracteres
+ * comunes (letras, digitos, etc.) en lugar de revisarlos uno por uno.
+ * Hay una implementacion escalar y otra con la Vector API; crear() elige la
+ * vectorial solo si el modulo jdk.incubator.vector esta disponible
+ */
+public abstract class EscanerCaracteres {
+    
+    private static final EscanerCaracteres INSTANCIA = crear();
+    
+    // Caracteres ASCII que el tokenizador no trata como parte de un tramo comun
+    private static final boolean[] ESPECIALES = new boolean[128];
+    
+    static {
+        for (int c = 0; c <= ' '; c++) {
+            ESPECIALES[c] = true;
+        }
+        ESPECIALES[127] = true;
+        for (char c : ";:()=,[].+-*/<>!'#".toCharArray()) {
+            ESPECIALES[c] = true;
+        }
+    }
+    
+    /**
+     * Obtiene el escaner compartido (no guarda estado)
+     * @return Escaner vectorial o escalar
+     */
+    public static EscanerCaracteres getInstancia() {
+        return INSTANCIA;
+    }
+    
+    /**
+     * Crea el escaner mas rapido disponible
+     * Usa la Vector API si el modulo esta cargado (--add-modules jdk.incubator.vector)
+     * y la propiedad analizador.escalar no esta activa; si no, usa el escalar
+     * @return Escaner de caracteres
+     */
+    static EscanerCaracteres crear() {
+        if (!Boolean.getBoolean("analizador.escalar")
+                && ModuleLayer.boot().findModule("jdk.incubator.vector").isPresent()) {
+            try {
+                return (EscanerCaracteres) Class.forName("analizador.EscanerVectorial")
+                    .getDeclaredConstructor().newInstance();
+            } catch (ReflectiveOperationException | LinkageError e) {
+                // Sin soporte vectorial se usa el escaner escalar
+            }
+        }
+        return new EscanerEscalar();
+    }
+    
+    /**
+     * Indica si un caracter corta un tramo comun: espacios y controles,
+     * delimitadores, comillas, '#' y cualquier caracter no ASCII
+     * @param c Caracter a verificar
+     * @return true si el tokenizador debe revisarlo individualmente
+     */
+    static boolean esEspecial(char c) {
+        return c >= 128 || ESPECIALES[c];
+    }
+    
+    /**
+     * Busca el primer caracter especial (ver esEspecial) en un rango
+     * @param buffer Caracteres de la linea
+     * @param desde Inicio del rango (inclusive)
+     * @param hasta Fin del rango (exclusivo)
+     * @return Posicion del primer caracter especial, o hasta si no hay
+     */
+    public abstract int siguienteEspecial(char[] buffer, int desde, int hasta);
+    
+    /**
+     * Busca la primera comilla simple en un rango
+     * @param buffer Caracteres de la linea
+     * @param desde Inicio del rango (inclusive)
+     * @param hasta Fin del rango (exclusivo)
+     * @return Posicion de la primera comilla, o hasta si no hay
+     */
+    public abstract int siguienteComilla(char[] buffer, int desde, int hasta);
+    
+    /**
+     * Nombre de la implementacion, para mostrar en reportes
+     * @return Nombre del escaner
+     */
+    public abstract String getNombre();
+}
@@ -0,0 +1,30 @@
+package analizador;
+
+/**
+ * Escaner de caracteres que revisa un caracter a la vez
+ */
+final class EscanerEscalar extends EscanerCaracteres {
+    
+    @Override
+    public int siguienteEspecial(char[] buffer, int desde, int hasta) {
+        int i = desde;
+        while (i < hasta && !esEspecial(buffer[i])) {
+            i++;
+        }
+        return i;
+    }
+    
+    @Override
+    public int siguienteComilla(char[] buffer, int desde, int hasta) {
+        int i = desde;
+        while (i < hasta && buffer[i] != '\'') {
+            i++;
+        }
+        return i;
+    }
+    
+    @Override
+    public String getNombre() {
+        return "escalar";
+    }
+}
@@ -0,0 +1,73 @@
+package analizador;
+
+import jdk.incubator.vector.ShortVector;
+import jdk.incubator.vector.VectorMask;
+import jdk.incubator.vector.VectorOperators;
+import jdk.incubator.vector.VectorSpecies;
+
+/**
+ * Escaner de caracteres con la Vector API (jdk.incubator.vector)
+ * Compara 16 o 32 caracteres por iteracion segun el ancho SIMD del procesador;
+ * el resto del rango que no llena un vector se revisa de forma escalar.
+ * Solo se carga por reflexion desde EscanerCaracteres.crear()
+ */
+final class EscanerVectorial extends EscanerCaracteres {
+    
+    private static final VectorSpecies<Short> ESPECIE = ShortVector.SPECIES_PREFERRED;
+    
+    @Override
+    public int siguienteEspecial(char[] buffer, int desde, int hasta) {
+        int i = desde;
+        int limite = desde + ESPECIE.loopBound(hasta - desde);
+        
+        for (; i < limite; i += ESPECIE.length()) {
+            ShortVector v = ShortVector.fromCharArray(ESPECIE, buffer, i);
+            
+            // Espacios, controles y no ASCII: c <= ' ' o c >= 127 (sin signo)
+            VectorMask<Short> especial = v.compare(VectorOperators.UNSIGNED_LE, (short) ' ')
+                .or(v.compare(VectorOperators.UNSIGNED_GE, (short) 127));
+            
+            // Delimitadores ASCII: ! # ' ( ) * + , - . / : ; < = > [ ]
+            especial = especial
+                .or(v.compare(VectorOperators.EQ, (short) '!'))
+                .or(v.compare(VectorOperators.EQ, (short) '#'))
+                .or(v.sub((short) '\'').compare(VectorOperators.UNSIGNED_LE, (short) ('/' - '\'')))
+                .or(v.sub((short) ':').compare(VectorOperators.UNSIGNED_LE, (short) ('>' - ':')))
+                .or(v.compare(VectorOperators.EQ, (short) '['))
+                .or(v.compare(VectorOperators.EQ, (short) ']'));
+            
+            if (especial.anyTrue()) {
+                return i + especial.firstTrue();
+            }
+        }
+        
+        while (i < hasta && !esEspecial(buffer[i])) {
+            i++;
+        }
+        return i;
+    }
+    
+    @Override
+    public int siguienteComilla(char[] buffer, int desde, int hasta) {
+        int i = desde;
+        int limite = desde + ESPECIE.loopBound(hasta - desde);
+        
+        for (; i < limite; i += ESPECIE.length()) {
+            VectorMask<Short> comilla = ShortVector.fromCharArray(ESPECIE, buffer, i)
+                .compare(VectorOperators.EQ, (short) '\'');
+            if (comilla.anyTrue()) {
+                return i + comilla.firstTrue();
+            }
+        }
+        
+        while (i < hasta && buffer[i] != '\'') {
+            i++;
+        }
+        return i;
+    }
+    
+    @Override
+    public String getNombre() {
+        return "vectorial (" + ESPECIE.length() + " caracteres)";
+    }
+}
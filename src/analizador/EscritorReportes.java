@@ -0,0 +1,127 @@
+package analizador;
+
+import metricas.Metricas;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Etapa de salida asincrona para los archivos de errores.
+ * Los hilos de analisis entregan el resultado y siguen con el siguiente
+ * archivo; el reporte se arma y se escribe en hilos de E/S propios.
+ * La cola es acotada: si el disco se atrasa y la cola se llena, el hilo que
+ * entrega espera a que se libere un lugar, de modo que no se acumulan en
+ * memoria los contenidos de todos los archivos pendientes
+ */
+public class EscritorReportes implements AutoCloseable {
+    
+    /** Hilos de escritura por defecto */
+    public static final int HILOS_DEFECTO = 2;
+    
+    /** Reportes que pueden esperar en la cola antes de frenar el analisis */
+    public static final int CAPACIDAD_DEFECTO = 64;
+    
+    /** Nombre de la cola en las metricas */
+    public static final String NOMBRE_COLA = "escritor_reportes";
+    
+    private final ThreadPoolExecutor ejecutor;
+    private final AtomicLong esperaNanos = new AtomicLong();
+    
+    public EscritorReportes() {
+        this(HILOS_DEFECTO, CAPACIDAD_DEFECTO);
+    }
+    
+    /**
+     * Constructor completo
+     * @param hilos Cantidad de hilos de escritura
+     * @param capacidad Cantidad maxima de reportes en espera
+     */
+    public EscritorReportes(int hilos, int capacidad) {
+        if (hilos < 1 || capacidad < 1) {
+            throw new IllegalArgumentException("Hilos y capacidad deben ser positivos: " + hilos + ", " + capacidad);
+        }
+        AtomicInteger numero = new AtomicInteger();
+        this.ejecutor = new ThreadPoolExecutor(hilos, hilos, 0, TimeUnit.MILLISECONDS,
+            new ArrayBlockingQueue<>(capacidad),
+            tarea -> {
+                Thread hilo = new Thread(tarea, "escritor-reportes-" + numero.incrementAndGet());
+                hilo.setDaemon(true);
+                return hilo;
+            },
+            this::esperarLugar);
+        Metricas.getGlobal().registrarCola(NOMBRE_COLA, ejecutor.getQueue()::size);
+    }
+    
+    /**
+     * Contrapresion: con la cola llena, el hilo que entrega espera un lugar
+     */
+    private void esperarLugar(Runnable tarea, ThreadPoolExecutor ejecutor) {
+        if (ejecutor.isShutdown()) {
+            throw new RejectedExecutionException("El escritor de reportes esta cerrado");
+        }
+        long inicio = System.nanoTime();
+        try {
+            ejecutor.getQueue().put(tarea);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RejectedExecutionException("Interrumpido esperando lugar en la cola de reportes", e);
+        } finally {
+            esperaNanos.addAndGet(System.nanoTime() - inicio);
+        }
+    }
+    
+    /**
+     * Encola el archivo de errores de un analisis terminado. Se escribe de
+     * forma atomica, igual que AnalisisArchivo en modo sincrono
+     * @param manejadorErrores Errores del archivo; no debe modificarse despues
+     * @param indice Indice de lineas del archivo .pas original
+     * @return Futuro que termina al escribir el reporte, o con la falla de E/S
+     */
+    public CompletableFuture<Void> escribir(ManejadorErrores manejadorErrores, IndiceLineas indice) {
+        return CompletableFuture.runAsync(() -> {
+            try {
+                long inicio = System.nanoTime();
+                manejadorErrores.generarArchivoErroresAtomico(indice);
+                Metricas.getGlobal().registrarFase(Metricas.Fase.REPORTE, System.nanoTime() - inicio);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }, ejecutor);
+    }
+    
+    /**
+     * Obtiene el tiempo total que los hilos de analisis esperaron lugar en la cola
+     * @return Espera acumulada en nanosegundos
+     */
+    public long getEsperaNanos() {
+        return esperaNanos.get();
+    }
+    
+    /**
+     * Espera a que se escriban todos los reportes encolados y detiene los hilos
+     */
+    @Override
+    public void close() {
+        Metricas.getGlobal().quitarCola(NOMBRE_COLA);
+        ejecutor.shutdown();
+        boolean interrumpido = false;
+        while (true) {
+            try {
+                if (ejecutor.awaitTermination(1, TimeUnit.MINUTES)) {
+                    break;
+                }
+            } catch (InterruptedException e) {
+                interrumpido = true;
+            }
+        }
+        if (interrumpido) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,177 @@
+package analizador;
+
+import tokens.TipoToken;
+
+/**
+ * Estadisticas de un archivo fuente recolectadas por el analizador lexico
+ * Se llenan durante el mismo recorrido del analisis, con contadores primitivos,
+ * sin volver a dividir el contenido ni usar mapas
+ */
+public class EstadisticasFuente {
+    
+    private int lineasTotales;
+    private int lineasCodigo;
+    private int lineasVacias;
+    private int lineasComentario;
+    private long caracteres;
+    private int longitudMaximaLinea;
+    private final int[] tokensPorTipo = new int[TipoToken.values().length];
+    private int identificadores;
+    
+    // Profundidad de anidamiento relativa al inicio del rango analizado
+    private int profundidadActual;
+    private int profundidadMaxima;
+    
+    /**
+     * Registra una linea vacia o con solo espacios
+     * @param longitud Longitud de la linea sin el salto
+     */
+    void registrarLineaVacia(int longitud) {
+        registrarLinea(longitud);
+        lineasVacias++;
+    }
+    
+    /**
+     * Registra una linea que solo contiene comentarios
+     * @param longitud Longitud de la linea sin el salto
+     */
+    void registrarLineaComentario(int longitud) {
+        registrarLinea(longitud);
+        lineasComentario++;
+    }
+    
+    /**
+     * Registra una linea con codigo
+     * @param longitud Longitud de la linea sin el salto
+     */
+    void registrarLineaCodigo(int longitud) {
+        registrarLinea(longitud);
+        lineasCodigo++;
+    }
+    
+    private void registrarLinea(int longitud) {
+        lineasTotales++;
+        caracteres += longitud;
+        if (longitud > longitudMaximaLinea) {
+            longitudMaximaLinea = longitud;
+        }
+    }
+    
+    /**
+     * Registra un token clasificado
+     * @param tipo Tipo del token
+     * @param valor Valor del token
+     */
+    void registrarToken(TipoToken tipo, String valor) {
+        tokensPorTipo[tipo.ordinal()]++;
+        
+        if (tipo == TipoToken.IDENTIFICADOR) {
+            identificadores++;
+        } else if (tipo == TipoToken.PALABRA_RESERVADA) {
+            if (valor.equalsIgnoreCase("begin") || valor.equalsIgnoreCase("repeat")
+                    || valor.equalsIgnoreCase("case") || valor.equalsIgnoreCase("record")) {
+                profundidadActual++;
+                if (profundidadActual > profundidadMaxima) {
+                    profundidadMaxima = profundidadActual;
+                }
+            } else if (valor.equalsIgnoreCase("end") || valor.equalsIgnoreCase("until")) {
+                profundidadActual--;
+            }
+        }
+    }
+    
+    /**
+     * Agrega al final las estadisticas de un rango posterior del mismo archivo
+     * Usado por el analisis en paralelo para unir fragmentos en orden
+     * @param siguiente Estadisticas del rango que sigue a este
+     */
+    void combinar(EstadisticasFuente siguiente) {
+        lineasTotales += siguiente.lineasTotales;
+        lineasCodigo += siguiente.lineasCodigo;
+        lineasVacias += siguiente.lineasVacias;
+        lineasComentario += siguiente.lineasComentario;
+        caracteres += siguiente.caracteres;
+        longitudMaximaLinea = Math.max(longitudMaximaLinea, siguiente.longitudMaximaLinea);
+        for (int i = 0; i < tokensPorTipo.length; i++) {
+            tokensPorTipo[i] += siguiente.tokensPorTipo[i];
+        }
+        identificadores += siguiente.identificadores;
+        
+        profundidadMaxima = Math.max(profundidadMaxima, profundidadActual + siguiente.profundidadMaxima);
+        profundidadActual += siguiente.profundidadActual;
+    }
+    
+    public int getLineasTotales() {
+        return lineasTotales;
+    }
+    
+    public int getLineasCodigo() {
+        return lineasCodigo;
+    }
+    
+    public int getLineasVacias() {
+        return lineasVacias;
+    }
+    
+    public int getLineasComentario() {
+        return lineasComentario;
+    }
+    
+    /**
+     * Obtiene la cantidad de caracteres de todas las lineas, sin contar saltos
+     * @return Total de caracteres
+     */
+    public long getCaracteres() {
+        return caracteres;
+    }
+    
+    public int getLongitudMaximaLinea() {
+        return longitudMaximaLinea;
+    }
+    
+    /**
+     * Obtiene la cantidad de tokens de un tipo
+     * @param tipo Tipo de token
+     * @return Cantidad de tokens de ese tipo
+     */
+    public int getTokens(TipoToken tipo) {
+        return tokensPorTipo[tipo.ordinal()];
+    }
+    
+    /**
+     * Obtiene la cantidad total de tokens
+     * @return Total de tokens de todos los tipos
+     */
+    public int getTotalTokens() {
+        int total = 0;
+        for (int cantidad : tokensPorTipo) {
+            total += cantidad;
+        }
+        return total;
+    }
+    
+    /**
+     * Obtiene la cantidad de apariciones de identificadores
+     * @return Total de tokens identificador
+     */
+    public int getIdentificadores() {
+        return identificadores;
+    }
+    
+    /**
+     * Obtiene la profundidad maxima de anidamiento de bloques
+     * (begin/repeat/case/record abren, end/until cierran)
+     * @return Profundidad maxima alcanzada
+     */
+    public int getProfundidadMaxima() {
+        return profundidadMaxima;
+    }
+    
+    @Override
+    public String toString() {
+        return String.format("EstadisticasFuente{lineas=%d, codigo=%d, vacias=%d, comentario=%d, "
+                + "caracteres=%d, lineaMaxima=%d, tokens=%d, identificadores=%d, profundidad=%d}",
+                lineasTotales, lineasCodigo, lineasVacias, lineasComentario,
+                caracteres, longitudMaximaLinea, getTotalTokens(), identificadores, profundidadMaxima);
+    }
+}
@@ -0,0 +1,38 @@
+package analizador;
+
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * Fuente .pas que se puede leer sin importar donde esta guardada: un archivo
+ * del disco o una entrada dentro de un archivo zip, jar o gzip.
+ * LectorArchivos lee el contenido directamente del flujo, sin extraer nada
+ */
+public interface FuenteEntrada {
+    
+    /**
+     * Obtiene el nombre con el que se reporta la fuente; para una entrada de un
+     * archivo comprimido tiene la forma contenedor!/entrada
+     * @return Nombre de la fuente
+     */
+    String getNombre();
+    
+    /**
+     * Obtiene el tamano sin comprimir; si el formato no lo guarda es un estimado
+     * @return Tamano en bytes
+     */
+    long getTamano();
+    
+    /**
+     * Obtiene el archivo comprimido que contiene la fuente
+     * @return Ruta del contenedor, o null si la fuente es un archivo del disco
+     */
+    String getContenedor();
+    
+    /**
+     * Abre el contenido de la fuente; quien lo abre debe cerrarlo
+     * @return Flujo con el contenido sin comprimir
+     * @throws IOException Si no se puede abrir la fuente
+     */
+    InputStream abrir() throws IOException;
+}
@@ -0,0 +1,206 @@
+package analizador;
+
+import java.lang.foreign.Arena;
+import java.lang.foreign.MemorySegment;
+import java.lang.foreign.ValueLayout;
+import java.util.Arrays;
+
+/**
+ * Indice de lineas sobre el contenido de un archivo
+ * Guarda solo el desplazamiento donde empieza cada linea, de modo que todas las
+ * fases comparten el mismo contenido sin crear un String[] con cada linea.
+ * Las lineas se numeran desde 1 y su cantidad coincide con contenido.split("\n").
+ * Los desplazamientos pueden moverse a memoria nativa con enMemoriaNativa
+ */
+public final class IndiceLineas {
+    
+    private final String contenido;
+    private final int[] inicios;
+    private final int totalLineas;
+    
+    // Desplazamientos en memoria nativa (null si estan en inicios)
+    private final MemorySegment iniciosNativos;
+    private final int cantidadSegmentos;
+    
+    /**
+     * Constructor usado al leer el archivo
+     * @param contenido Contenido completo
+     * @param inicios Desplazamiento de inicio de cada segmento separado por '\n',
+     *                incluyendo el segmento (posiblemente vacio) despues del ultimo salto
+     * @param cantidad Cantidad de posiciones validas en inicios
+     */
+    IndiceLineas(String contenido, int[] inicios, int cantidad) {
+        this.contenido = contenido;
+        this.inicios = cantidad == inicios.length ? inicios : Arrays.copyOf(inicios, cantidad);
+        this.iniciosNativos = null;
+        this.cantidadSegmentos = cantidad;
+        this.totalLineas = calcularTotalLineas();
+    }
+    
+    /**
+     * Constructor de un indice con los desplazamientos en memoria nativa
+     */
+    private IndiceLineas(String contenido, MemorySegment iniciosNativos, int cantidad, int totalLineas) {
+        this.contenido = contenido;
+        this.inicios = null;
+        this.iniciosNativos = iniciosNativos;
+        this.cantidadSegmentos = cantidad;
+        this.totalLineas = totalLineas;
+    }
+    
+    /**
+     * Crea una copia del indice con los desplazamientos de linea en un
+     * MemorySegment del Arena indicado, para que el heap no crezca con la
+     * cantidad de lineas. La copia solo es valida mientras el Arena este abierto
+     * @param arena Arena donde se reserva la memoria
+     * @return Indice equivalente respaldado por memoria nativa
+     */
+    public IndiceLineas enMemoriaNativa(Arena arena) {
+        MemorySegment segmento = arena.allocate((long) cantidadSegmentos * Integer.BYTES, Integer.BYTES);
+        for (int i = 0; i < cantidadSegmentos; i++) {
+            segmento.setAtIndex(ValueLayout.JAVA_INT, i, inicio(i));
+        }
+        return new IndiceLineas(contenido, segmento, cantidadSegmentos, totalLineas);
+    }
+    
+    /**
+     * Desplazamiento de inicio de un segmento 0-based
+     */
+    private int inicio(int segmento) {
+        return inicios != null ? inicios[segmento] : iniciosNativos.getAtIndex(ValueLayout.JAVA_INT, segmento);
+    }
+    
+    /**
+     * Construye el indice recorriendo un contenido ya cargado en memoria
+     * @param contenido Contenido completo
+     * @return Indice de lineas del contenido
+     */
+    public static IndiceLineas construir(String contenido) {
+        int[] inicios = new int[16];
+        int cantidad = 0;
+        inicios[cantidad++] = 0;
+        
+        int pos = contenido.indexOf('\n');
+        while (pos != -1) {
+            if (cantidad == inicios.length) {
+                inicios = Arrays.copyOf(inicios, cantidad * 2);
+            }
+            inicios[cantidad++] = pos + 1;
+            pos = contenido.indexOf('\n', pos + 1);
+        }
+        
+        return new IndiceLineas(contenido, inicios, cantidad);
+    }
+    
+    /**
+     * Calcula la cantidad de lineas con la misma regla que String.split:
+     * sin saltos hay una sola linea, y las lineas vacias del final se descartan
+     */
+    private int calcularTotalLineas() {
+        if (cantidadSegmentos == 1) {
+            return 1;
+        }
+        
+        int total = cantidadSegmentos;
+        while (total > 0 && finSegmento(total - 1) == inicio(total - 1)) {
+            total--;
+        }
+        return total;
+    }
+    
+    /**
+     * Fin (exclusivo, sin el '\n') de un segmento 0-based
+     */
+    private int finSegmento(int segmento) {
+        return segmento + 1 < cantidadSegmentos ? inicio(segmento + 1) - 1 : contenido.length();
+    }
+    
+    /**
+     * Estima la memoria del heap que ocupan el contenido y los desplazamientos
+     * (los desplazamientos en memoria nativa no cuentan)
+     * @return Bytes estimados
+     */
+    public long getBytesEstimados() {
+        long bytes = (long) contenido.length() * Character.BYTES;
+        if (inicios != null) {
+            bytes += (long) inicios.length * Integer.BYTES;
+        }
+        return bytes;
+    }
+    
+    /**
+     * Obtiene el contenido completo
+     * @return Contenido sobre el que se construyo el indice
+     */
+    public String getContenido() {
+        return contenido;
+    }
+    
+    /**
+     * Obtiene la cantidad de lineas
+     * @return Total de lineas
+     */
+    public int getTotalLineas() {
+        return totalLineas;
+    }
+    
+    /**
+     * Obtiene el desplazamiento donde inicia una linea
+     * @param numeroLinea Numero de linea (1-based)
+     * @return Desplazamiento inicial en el contenido
+     */
+    public int getInicioLinea(int numeroLinea) {
+        verificarLinea(numeroLinea);
+        return inicio(numeroLinea - 1);
+    }
+    
+    /**
+     * Obtiene el desplazamiento donde termina una linea, sin incluir el '\n'
+     * @param numeroLinea Numero de linea (1-based)
+     * @return Desplazamiento final (exclusivo) en el contenido
+     */
+    public int getFinLinea(int numeroLinea) {
+        verificarLinea(numeroLinea);
+        return finSegmento(numeroLinea - 1);
+    }
+    
+    /**
+     * Obtiene el texto de una linea sin el '\n'
+     * @param numeroLinea Numero de linea (1-based)
+     * @return Texto de la linea
+     */
+    public String getLinea(int numeroLinea) {
+        return contenido.substring(getInicioLinea(numeroLinea), getFinLinea(numeroLinea));
+    }
+    
+    /**
+     * Obtiene la linea que contiene un desplazamiento (busqueda binaria)
+     * @param desplazamiento Posicion en el contenido
+     * @return Numero de linea (1-based), limitado a getTotalLineas()
+     *         (las lineas vacias finales pertenecen a la ultima linea)
+     */
+    public int getNumeroLinea(int desplazamiento) {
+        if (desplazamiento < 0 || desplazamiento > contenido.length()) {
+            throw new IndexOutOfBoundsException("Desplazamiento fuera del contenido: " + desplazamiento);
+        }
+        
+        // Ultimo segmento cuyo inicio es <= desplazamiento
+        int bajo = 0;
+        int alto = cantidadSegmentos - 1;
+        while (bajo < alto) {
+            int medio = (bajo + alto + 1) >>> 1;
+            if (inicio(medio) <= desplazamiento) {
+                bajo = medio;
+            } else {
+                alto = medio - 1;
+            }
+        }
+        return Math.min(bajo + 1, totalLineas);
+    }
+    
+    private void verificarLinea(int numeroLinea) {
+        if (numeroLinea < 1 || numeroLinea > totalLineas) {
+            throw new IndexOutOfBoundsException("Linea fuera del archivo: " + numeroLinea);
+        }
+    }
+}
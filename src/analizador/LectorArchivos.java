@@ -1,8 +1,17 @@
 package analizador;
 
 import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
 import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
 
 /**
@@ -32,6 +41,61 @@ public class LectorArchivos {
         return contenido.toString();
     }
     
+    /**
+     * Lee un archivo completo y construye su indice de lineas durante la lectura
+     * @param nombreArchivo Nombre del archivo a leer
+     * @return Indice de lineas con el contenido completo del archivo
+     * @throws IOException Si hay error al leer el archivo
+     */
+    public IndiceLineas leerFuente(String nombreArchivo) throws IOException {
+        return leerFuente(new FileInputStream(nombreArchivo));
+    }
+    
+    /**
+     * Lee una fuente (archivo del disco o entrada de un archivo comprimido) y
+     * construye su indice de lineas directamente desde el flujo
+     * @param fuente Fuente a leer
+     * @return Indice de lineas con el contenido completo de la fuente
+     * @throws IOException Si hay error al leer la fuente
+     */
+    public IndiceLineas leerFuente(FuenteEntrada fuente) throws IOException {
+        return leerFuente(fuente.abrir());
+    }
+    
+    /**
+     * Lee un flujo UTF-8 completo y construye su indice de lineas; el flujo se
+     * cierra al terminar
+     * @param entrada Flujo con el contenido de la fuente
+     * @return Indice de lineas con el contenido completo
+     * @throws IOException Si hay error al leer el flujo
+     */
+    public IndiceLineas leerFuente(InputStream entrada) throws IOException {
+        StringBuilder contenido = new StringBuilder();
+        int[] inicios = new int[1024];
+        int cantidad = 0;
+        
+        try (BufferedReader reader = new BufferedReader(
+                new InputStreamReader(entrada, StandardCharsets.UTF_8))) {
+            
+            String linea;
+            while ((linea = reader.readLine()) != null) {
+                if (cantidad == inicios.length) {
+                    inicios = Arrays.copyOf(inicios, cantidad * 2);
+                }
+                inicios[cantidad++] = contenido.length();
+                contenido.append(linea).append("\n");
+            }
+        }
+        
+        // Segmento vacio despues del ultimo salto (o el archivo vacio)
+        if (cantidad == inicios.length) {
+            inicios = Arrays.copyOf(inicios, cantidad + 1);
+        }
+        inicios[cantidad++] = contenido.length();
+        
+        return new IndiceLineas(contenido.toString(), inicios, cantidad);
+    }
+    
     /**
      * Lee un archivo linea por linea para analisis detallado
      * @param nombreArchivo Nombre del archivo a leer
@@ -78,4 +142,69 @@ public class LectorArchivos {
             writer.write(contenido);
         }
     }
+    
+    /**
+     * Escribe contenido a un archivo de forma atomica: primero en un archivo
+     * temporal del mismo directorio y luego lo mueve sobre el destino, de modo
+     * que un lector nunca ve el archivo a medio escribir
+     * @param nombreArchivo Nombre del archivo de salida
+     * @param contenido Contenido a escribir
+     * @throws IOException Si hay error al escribir el archivo
+     */
+    public void escribirArchivoAtomico(String nombreArchivo, String contenido) throws IOException {
+        escribirArchivoAtomico(nombreArchivo, contenido.getBytes(StandardCharsets.UTF_8));
+    }
+    
+    /**
+     * Escribe bytes a un archivo de forma atomica, igual que la version de texto
+     * @param nombreArchivo Nombre del archivo de salida
+     * @param contenido Bytes a escribir
+     * @throws IOException Si hay error al escribir el archivo
+     */
+    public void escribirArchivoAtomico(String nombreArchivo, byte[] contenido) throws IOException {
+        escribirArchivoAtomico(nombreArchivo, canal -> {
+            ByteBuffer buffer = ByteBuffer.wrap(contenido);
+            while (buffer.hasRemaining()) {
+                canal.write(buffer);
+            }
+        });
+    }
+    
+    /**
+     * Escribe un archivo de forma atomica, igual que la version de texto, con
+     * el contenido que produce la escritura indicada sobre el canal del
+     * archivo temporal; sirve para contenidos que no se arman en memoria
+     * @param nombreArchivo Nombre del archivo de salida
+     * @param escritura Escribe el contenido en el canal (puede escribir en
+     *                  posiciones ya escritas, por ejemplo un encabezado)
+     * @throws IOException Si hay error al escribir el archivo
+     */
+    public void escribirArchivoAtomico(String nombreArchivo, Escritura escritura) throws IOException {
+        Path destino = Paths.get(nombreArchivo).toAbsolutePath();
+        // Nombre unico por proceso e hilo; se crea como un archivo normal para
+        // que tenga los permisos por defecto (createTempFile lo dejaria en 0600)
+        Path temporal = destino.resolveSibling("." + destino.getFileName() + "." + ProcessHandle.current().pid()
+                                              + "." + Thread.currentThread().threadId() + ".tmp");
+        try {
+            try (FileChannel canal = FileChannel.open(temporal, StandardOpenOption.WRITE,
+                                                      StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING)) {
+                escritura.escribir(canal);
+            }
+            try {
+                Files.move(temporal, destino, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+            } catch (AtomicMoveNotSupportedException e) {
+                Files.move(temporal, destino, StandardCopyOption.REPLACE_EXISTING);
+            }
+        } finally {
+            Files.deleteIfExists(temporal);
+        }
+    }
+    
+    /**
+     * Contenido de un archivo que se escribe directamente en su canal
+     */
+    @FunctionalInterface
+    public interface Escritura {
+        void escribir(FileChannel canal) throws IOException;
+    }
 }
@@ -2,6 +2,7 @@ package analizador;
 
 import java.io.IOException;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
 
 /**
@@ -14,6 +15,14 @@ public class ManejadorErrores {
     private final String nombreArchivoErrores;
     private final List<ErrorInfo> errores;
     
+    // Memoria estimada de la lista de errores, para PresupuestoMemoria
+    private static final long BYTES_POR_ERROR = 64;
+    private long bytesEstimados;
+    
+    // Colector compartido cuando el manejador es de una tarea en paralelo
+    private final ColectorErrores colector;
+    private final int origen;
+    
     /**
      * Constructor del manejador de errores
      * @param nombreArchivoPas Nombre del archivo .pas original
@@ -22,6 +31,21 @@ public class ManejadorErrores {
         this.nombreArchivoOriginal = nombreArchivoPas;
         this.nombreArchivoErrores = generarNombreArchivoErrores(nombreArchivoPas);
         this.errores = new ArrayList<>();
+        this.colector = null;
+        this.origen = 0;
+    }
+    
+    /**
+     * Constructor de un manejador que registra sus errores en un colector
+     * compartido; ver ColectorErrores.manejadorPara. Los errores no quedan en
+     * este manejador (getErrores() lo ve vacio): se obtienen uniendo el colector
+     */
+    ManejadorErrores(String nombreArchivoPas, ColectorErrores colector, int origen) {
+        this.nombreArchivoOriginal = nombreArchivoPas;
+        this.nombreArchivoErrores = generarNombreArchivoErrores(nombreArchivoPas);
+        this.errores = new ArrayList<>();
+        this.colector = colector;
+        this.origen = origen;
     }
     
     /**
@@ -47,7 +71,16 @@ public class ManejadorErrores {
      * @param descripcion Descripcion del error
      */
     public void agregarError(int numeroLinea, int numeroError, String descripcion) {
-        errores.add(new ErrorInfo(numeroLinea, numeroError, descripcion));
+        if (colector != null) {
+            colector.registrar(origen, numeroLinea, numeroError, descripcion);
+        } else {
+            errores.add(new ErrorInfo(numeroLinea, numeroError, descripcion));
+            bytesEstimados += estimarBytes(descripcion);
+        }
+    }
+    
+    private static long estimarBytes(String descripcion) {
+        return BYTES_POR_ERROR + (descripcion != null ? (long) descripcion.length() * Character.BYTES : 0);
     }
     
     /**
@@ -56,7 +89,42 @@ public class ManejadorErrores {
      * @param descripcion Descripcion del error
      */
     public void agregarError(int numeroError, String descripcion) {
-        errores.add(new ErrorInfo(-1, numeroError, descripcion));
+        agregarError(-1, numeroError, descripcion);
+    }
+    
+    /**
+     * Agrega al final todos los errores de otro manejador, en el mismo orden
+     * @param otro Manejador cuyos errores se copian
+     * @throws IllegalStateException Si el otro manejador registra en un
+     *         colector; sus errores se unen con agregarErrores(ColectorErrores)
+     */
+    public void agregarErrores(ManejadorErrores otro) {
+        if (otro.colector != null) {
+            throw new IllegalStateException("El manejador de " + otro.nombreArchivoOriginal
+                                            + " registra sus errores en un colector");
+        }
+        errores.addAll(otro.errores);
+        bytesEstimados += otro.bytesEstimados;
+    }
+    
+    /**
+     * Agrega al final los errores de un colector, en su orden determinista.
+     * Todas las tareas que registran en el colector deben haber terminado
+     * @param colector Colector de las fases en paralelo
+     */
+    public void agregarErrores(ColectorErrores colector) {
+        for (ErrorInfo error : colector.unir()) {
+            errores.add(error);
+            bytesEstimados += estimarBytes(error.getDescripcion());
+        }
+    }
+    
+    /**
+     * Estima la memoria que ocupa la lista de errores
+     * @return Bytes estimados
+     */
+    public long getBytesEstimados() {
+        return bytesEstimados;
     }
     
     /**
@@ -65,13 +133,45 @@ public class ManejadorErrores {
      * @throws IOException Si hay error al escribir el archivo
      */
     public void generarArchivoErrores(String contenidoOriginal) throws IOException {
+        generarArchivoErrores(IndiceLineas.construir(contenidoOriginal));
+    }
+    
+    /**
+     * Genera el archivo de errores usando el indice de lineas compartido
+     * @param indice Indice de lineas del archivo .pas original
+     * @throws IOException Si hay error al escribir el archivo
+     */
+    public void generarArchivoErrores(IndiceLineas indice) throws IOException {
+        LectorArchivos lector = new LectorArchivos();
+        lector.escribirArchivo(nombreArchivoErrores, generarReporte(indice));
+    }
+    
+    /**
+     * Genera el archivo de errores reemplazando el anterior de forma atomica
+     * Usado cuando el archivo se regenera mientras otros programas lo leen
+     * @param indice Indice de lineas del archivo .pas original
+     * @throws IOException Si hay error al escribir el archivo
+     */
+    public void generarArchivoErroresAtomico(IndiceLineas indice) throws IOException {
+        LectorArchivos lector = new LectorArchivos();
+        lector.escribirArchivoAtomico(nombreArchivoErrores, generarReporte(indice));
+    }
+    
+    /**
+     * Construye el contenido del archivo de errores: el codigo original con
+     * numeracion seguido de los errores encontrados
+     * @param indice Indice de lineas del archivo .pas original
+     * @return Contenido del reporte
+     */
+    private String generarReporte(IndiceLineas indice) {
         StringBuilder contenido = new StringBuilder();
-        String[] lineas = contenidoOriginal.split("\n");
+        String original = indice.getContenido();
         
         // Agrega contenido original con numeracion
-        for (int i = 0; i < lineas.length; i++) {
-            String numeroLinea = String.format("%04d", i + 1);
-            contenido.append(numeroLinea).append(" ").append(lineas[i]).append("\n");
+        for (int i = 1; i <= indice.getTotalLineas(); i++) {
+            String numeroLinea = String.format("%04d", i);
+            contenido.append(numeroLinea).append(" ")
+                     .append(original, indice.getInicioLinea(i), indice.getFinLinea(i)).append("\n");
         }
         
         // Agrega errores al final
@@ -91,9 +191,7 @@ public class ManejadorErrores {
             }
         }
         
-        // Escribe un archivo
-        LectorArchivos lector = new LectorArchivos();
-        lector.escribirArchivo(nombreArchivoErrores, contenido.toString());
+        return contenido.toString();
     }
     
     /**
@@ -120,6 +218,14 @@ public class ManejadorErrores {
         return nombreArchivoOriginal;
     }
     
+    /**
+     * Obtiene los errores en el orden en que se agregaron
+     * @return Lista de solo lectura con los errores
+     */
+    public List<ErrorInfo> getErrores() {
+        return Collections.unmodifiableList(errores);
+    }
+    
     /**
      * Verifica si hay errores
      * @return true si hay errores, false en caso contrario
@@ -131,7 +237,7 @@ public class ManejadorErrores {
     /**
      * Clase interna para almacenar informacion de errores
      */
-    private static class ErrorInfo {
+    public static class ErrorInfo {
         final int numeroLinea;
         final int numeroError;
         final String descripcion;
@@ -141,5 +247,23 @@ public class ManejadorErrores {
             this.numeroError = numeroError;
             this.descripcion = descripcion;
         }
+        
+        /**
+         * @return Numero de linea (1-based), o -1 si el error no tiene linea
+         */
+        public int getNumeroLinea() {
+            return numeroLinea;
+        }
+        
+        /**
+         * @return Codigo del error (ver CodigosError)
+         */
+        public int getNumeroError() {
+            return numeroError;
+        }
+        
+        public String getDescripcion() {
+            return descripcion;
+        }
     }
 }
@@ -0,0 +1,281 @@
+package analizador;
+
+/**
+ * Reconocedores escritos a mano para los patrones que, como expresiones
+ * regulares, retroceden en forma superlineal o agotan la pila con lineas
+ * adversas (rachas de letras, espacios, dos puntos o caracteres #nnn).
+ * Cada metodo acepta exactamente el mismo lenguaje que la expresion que
+ * reemplaza, indicada en su comentario, y recorre el texto una sola vez.
+ * Se comprueban con el modo --complejidad (ver main.PruebaComplejidad) y
+ * contra las expresiones originales en PatronesLinealesTest
+ */
+public final class PatronesLineales {
+    
+    private static final String[] TIPOS = {"word", "integer", "byte", "string", "real", "boolean"};
+    
+    private PatronesLineales() {
+    }
+    
+    /**
+     * Equivale a matches() de {@code '[^']*'(#\d+('[^']*')?)*|#\d+('[^']*'(#\d+)?)*}:
+     * cadena con caracteres especiales, como 'a'#13#10'b' o #201'x'
+     * @param texto Token completo
+     * @return true si es una cadena compleja valida
+     */
+    public static boolean esCadenaCompleja(CharSequence texto) {
+        int longitud = texto.length();
+        if (longitud == 0) {
+            return false;
+        }
+        if (texto.charAt(0) == '\'') {
+            int i = finCadena(texto, 0);
+            while (i > 0 && i < longitud) {
+                i = finCaracterEspecial(texto, i);
+                if (i > 0 && i < longitud && texto.charAt(i) == '\'') {
+                    i = finCadena(texto, i);
+                }
+            }
+            return i == longitud;
+        }
+        int i = finCaracterEspecial(texto, 0);
+        while (i > 0 && i < longitud) {
+            i = texto.charAt(i) == '\'' ? finCadena(texto, i) : -1;
+            if (i > 0 && i < longitud && texto.charAt(i) == '#') {
+                i = finCaracterEspecial(texto, i);
+            }
+        }
+        return i == longitud;
+    }
+    
+    /**
+     * Consume {@code '[^']*'} desde una comilla
+     * @return Posicion siguiente a la comilla de cierre, o -1 si no cierra
+     */
+    private static int finCadena(CharSequence texto, int inicio) {
+        for (int i = inicio + 1; i < texto.length(); i++) {
+            if (texto.charAt(i) == '\'') {
+                return i + 1;
+            }
+        }
+        return -1;
+    }
+    
+    /**
+     * Consume {@code #\d+}
+     * @return Posicion siguiente al ultimo digito, o -1 si no hay # con digitos
+     */
+    private static int finCaracterEspecial(CharSequence texto, int inicio) {
+        if (texto.charAt(inicio) != '#') {
+            return -1;
+        }
+        int i = inicio + 1;
+        while (i < texto.length() && esDigito(texto.charAt(i))) {
+            i++;
+        }
+        return i > inicio + 1 ? i : -1;
+    }
+    
+    /**
+     * Equivale a matches() de {@code [a-zA-Z][a-zA-Z0-9_]*[<>=]+\d*[a-zA-Z0-9_]*}:
+     * comparacion pegada, como dia<1 o mes<=11
+     * @param texto Token completo
+     * @return true si es una expresion de comparacion
+     */
+    public static boolean esExpresionComparacion(CharSequence texto) {
+        int longitud = texto.length();
+        if (longitud == 0 || !esLetra(texto.charAt(0))) {
+            return false;
+        }
+        int i = 1;
+        while (i < longitud && esCaracterIdentificador(texto.charAt(i))) {
+            i++;
+        }
+        int inicioOperador = i;
+        while (i < longitud && esComparador(texto.charAt(i))) {
+            i++;
+        }
+        if (i == inicioOperador) {
+            return false;
+        }
+        // \d* queda incluido en [a-zA-Z0-9_]*
+        while (i < longitud && esCaracterIdentificador(texto.charAt(i))) {
+            i++;
+        }
+        return i == longitud;
+    }
+    
+    /**
+     * Equivale a matches() de {@code .*[a-zA-Z]+.*}: linea sin terminadores
+     * de linea que contiene al menos una letra.
+     * Tambien cubre {@code .*[a-zA-Z]+.*,.*[a-zA-Z]+.*}, que solo acepta
+     * lineas que ya cumplen esta condicion
+     * @param linea Linea completa
+     * @return true si contiene letras
+     */
+    public static boolean contieneLetras(CharSequence linea) {
+        boolean letra = false;
+        for (int i = 0; i < linea.length(); i++) {
+            char c = linea.charAt(i);
+            if (esTerminador(c)) {
+                return false;
+            }
+            letra |= esLetra(c);
+        }
+        return letra;
+    }
+    
+    /**
+     * Equivale a matches() de {@code .*\s*:\s*(word|integer|byte|string|real|boolean).*}:
+     * linea que contiene una declaracion "nombre : tipo"
+     * @param linea Linea completa
+     * @return true si contiene la declaracion
+     */
+    public static boolean contieneDeclaracionTipo(CharSequence linea) {
+        return buscarDeclaracionTipo(linea, false);
+    }
+    
+    /**
+     * Equivale a matches() de {@code .*\s*:\s*(word|integer|byte|string|real|boolean)\s*$}:
+     * linea cuya declaracion termina en el tipo
+     * @param linea Linea completa
+     * @return true si la linea termina en el tipo
+     */
+    public static boolean terminaEnTipo(CharSequence linea) {
+        return buscarDeclaracionTipo(linea, true);
+    }
+    
+    /**
+     * Busca un ':' seguido del tipo. El prefijo {@code .*\s*} no admite
+     * terminadores de linea salvo en los espacios justo antes del ':'; el
+     * resto, {@code .*} o {@code \s*$} segun alFinal, se verifica desde el tipo
+     */
+    private static boolean buscarDeclaracionTipo(CharSequence linea, boolean alFinal) {
+        int longitud = linea.length();
+        int primerTerminador = -1;
+        int ultimoTerminador = -1;
+        int ultimoNoBlanco = -1;
+        for (int i = 0; i < longitud; i++) {
+            if (esTerminador(linea.charAt(i))) {
+                if (primerTerminador < 0) {
+                    primerTerminador = i;
+                }
+                ultimoTerminador = i;
+            }
+        }
+        
+        for (int i = 0; i < longitud; i++) {
+            char c = linea.charAt(i);
+            if (c == ':' && (primerTerminador < 0 || primerTerminador > ultimoNoBlanco)) {
+                int j = saltarEspacios(linea, i + 1);
+                int finTipo = finTipo(linea, j, false);
+                if (finTipo > 0 && (alFinal ? saltarEspacios(linea, finTipo) == longitud
+                                            : ultimoTerminador < finTipo)) {
+                    return true;
+                }
+            }
+            if (!esEspacio(c)) {
+                ultimoNoBlanco = i;
+            }
+        }
+        return false;
+    }
+    
+    /**
+     * Equivale a find() de {@code \s*([a-zA-Z_][a-zA-Z0-9_]*)\s*:\s*(word|integer|byte|string|real|boolean)}
+     * sin distinguir mayusculas, devolviendo el grupo 1
+     * @param linea Linea completa
+     * @return Identificador de la primera declaracion "nombre : tipo", o null
+     */
+    public static String buscarIdentificadorConTipo(String linea) {
+        int longitud = linea.length();
+        int i = 0;
+        while (i < longitud) {
+            if (!esCaracterIdentificador(linea.charAt(i))) {
+                i++;
+                continue;
+            }
+            // Racha maxima de caracteres de identificador; el grupo empieza en
+            // su primera letra o guion bajo, como la busqueda de mas a la izquierda
+            int inicioIdentificador = -1;
+            while (i < longitud && esCaracterIdentificador(linea.charAt(i))) {
+                if (inicioIdentificador < 0 && !esDigito(linea.charAt(i))) {
+                    inicioIdentificador = i;
+                }
+                i++;
+            }
+            if (inicioIdentificador < 0) {
+                continue;
+            }
+            int j = saltarEspacios(linea, i);
+            if (j < longitud && linea.charAt(j) == ':' && finTipo(linea, saltarEspacios(linea, j + 1), true) > 0) {
+                return linea.substring(inicioIdentificador, i);
+            }
+        }
+        return null;
+    }
+    
+    /**
+     * Reconoce uno de los tipos en la posicion
+     * @return Posicion siguiente al tipo, o -1 si no hay tipo
+     */
+    private static int finTipo(CharSequence linea, int inicio, boolean sinMayusculas) {
+        for (String tipo : TIPOS) {
+            int fin = inicio + tipo.length();
+            if (fin <= linea.length() && coincideEn(linea, inicio, tipo, sinMayusculas)) {
+                return fin;
+            }
+        }
+        return -1;
+    }
+    
+    private static boolean coincideEn(CharSequence linea, int inicio, String palabra, boolean sinMayusculas) {
+        for (int k = 0; k < palabra.length(); k++) {
+            char c = linea.charAt(inicio + k);
+            if (sinMayusculas && c >= 'A' && c <= 'Z') {
+                c = (char) (c + ('a' - 'A'));
+            }
+            if (c != palabra.charAt(k)) {
+                return false;
+            }
+        }
+        return true;
+    }
+    
+    private static int saltarEspacios(CharSequence linea, int inicio) {
+        int i = inicio;
+        while (i < linea.length() && esEspacio(linea.charAt(i))) {
+            i++;
+        }
+        return i;
+    }
+    
+    /**
+     * Clase \s de java.util.regex sin UNICODE_CHARACTER_CLASS
+     */
+    private static boolean esEspacio(char c) {
+        return c == ' ' || c == '\t' || c == '\n' || c == '\u000B' || c == '\f' || c == '\r';
+    }
+    
+    /**
+     * Caracteres que '.' no acepta sin DOTALL
+     */
+    private static boolean esTerminador(char c) {
+        return c == '\n' || c == '\r' || c == '\u0085' || c == '\u2028' || c == '\u2029';
+    }
+    
+    private static boolean esDigito(char c) {
+        return c >= '0' && c <= '9';
+    }
+    
+    private static boolean esLetra(char c) {
+        return (c >= 'a' && c <= 'z') || (c >= 'A' && c <= 'Z');
+    }
+    
+    private static boolean esCaracterIdentificador(char c) {
+        return esLetra(c) || esDigito(c) || c == '_';
+    }
+    
+    private static boolean esComparador(char c) {
+        return c == '<' || c == '>' || c == '=';
+    }
+}
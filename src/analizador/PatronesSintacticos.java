@@ -0,0 +1,26 @@
+package analizador;
+
+import java.util.regex.Pattern;
+
+/**
+ * Registro de patrones precompilados usados por el analizador sintactico
+ * Los patrones se compilan una sola vez; cada analizador crea sus propios
+ * Matcher a partir de ellos y los reutiliza linea por linea.
+ * Los patrones que retrocedian en forma superlineal con lineas adversas se
+ * reemplazaron por los reconocedores de PatronesLineales
+ */
+public final class PatronesSintacticos {
+    
+    // Declaracion de variable completa "nombre : tipo;"
+    public static final Pattern DECLARACION_VARIABLE = Pattern.compile(
+        "\\s*([a-zA-Z_][a-zA-Z0-9_]*)\\s*:\\s*(word|integer|byte|string|real|boolean)\\s*;?");
+    
+    // Palabra begin sin distinguir mayusculas (se usa con replaceFirst)
+    public static final Pattern BEGIN = Pattern.compile("(?i)begin");
+    
+    // Separador de palabras
+    public static final Pattern ESPACIOS = Pattern.compile("\\s+");
+    
+    private PatronesSintacticos() {
+    }
+}
@@ -0,0 +1,141 @@
+package analizador;
+
+import metricas.Metricas;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.PriorityBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Planificador de analisis con clases de prioridad y plazos para los modos
+ * residentes. Las solicitudes esperan en una cola de prioridad: primero las
+ * interactivas (el editor), luego las de lote; dentro de cada clase, la de
+ * plazo mas cercano y, a igual plazo, la mas antigua.
+ * Una solicitud cancelada o con el plazo vencido mientras espera se descarta
+ * sin ejecutarse; si ya se esta ejecutando, los analizadores la detienen en
+ * la siguiente linea (ver Cancelacion).
+ * Las tareas en curso no se interrumpen para dar lugar a una interactiva:
+ * la prioridad decide quien toma el siguiente hilo libre
+ */
+public class PlanificadorAnalisis {
+    
+    /**
+     * Clase de prioridad de una solicitud
+     */
+    public enum Prioridad {
+        /** Solicitudes del editor: alguien espera el resultado */
+        INTERACTIVA,
+        /** Analisis de fondo: lotes y observacion de directorios */
+        LOTE
+    }
+    
+    private final ThreadPoolExecutor ejecutor;
+    private final String nombre;
+    private final AtomicLong secuencia = new AtomicLong();
+    
+    /**
+     * Constructor
+     * @param hilos Cantidad de hilos de analisis
+     * @param nombre Nombre de los hilos y de la cola en las metricas
+     */
+    public PlanificadorAnalisis(int hilos, String nombre) {
+        this.nombre = nombre;
+        AtomicInteger numero = new AtomicInteger();
+        this.ejecutor = new ThreadPoolExecutor(hilos, hilos, 0, TimeUnit.MILLISECONDS,
+            new PriorityBlockingQueue<>(),
+            tarea -> {
+                Thread hilo = new Thread(tarea, nombre + "-" + numero.incrementAndGet());
+                hilo.setDaemon(true);
+                return hilo;
+            });
+        Metricas.getGlobal().registrarCola(nombre, ejecutor.getQueue()::size);
+    }
+    
+    /**
+     * Encola una solicitud de analisis
+     * @param prioridad Clase de prioridad
+     * @param cancelacion Cancelacion y plazo de la solicitud; el trabajo debe
+     *                    pasarla a los analizadores para que se detengan a tiempo
+     * @param trabajo Analisis a ejecutar
+     * @return Futuro con el resultado; termina con AnalisisCancelado si la
+     *         solicitud se cancelo o vencio
+     */
+    public <T> CompletableFuture<T> enviar(Prioridad prioridad, Cancelacion cancelacion, Callable<T> trabajo) {
+        Solicitud<T> solicitud = new Solicitud<>(prioridad, cancelacion, secuencia.getAndIncrement(), trabajo);
+        ejecutor.execute(solicitud);
+        return solicitud.resultado;
+    }
+    
+    /**
+     * Obtiene cuantas solicitudes esperan un hilo
+     * @return Solicitudes en la cola
+     */
+    public int getPendientes() {
+        return ejecutor.getQueue().size();
+    }
+    
+    /**
+     * Detiene los hilos; las solicitudes en espera no se ejecutan
+     */
+    public void detener() {
+        Metricas.getGlobal().quitarCola(nombre);
+        ejecutor.shutdownNow();
+    }
+    
+    /**
+     * Solicitud en la cola, ordenada por prioridad, plazo y llegada
+     */
+    private static class Solicitud<T> implements Runnable, Comparable<Solicitud<?>> {
+        final Prioridad prioridad;
+        final Cancelacion cancelacion;
+        final long orden;
+        final Callable<T> trabajo;
+        final CompletableFuture<T> resultado = new CompletableFuture<>();
+        
+        Solicitud(Prioridad prioridad, Cancelacion cancelacion, long orden, Callable<T> trabajo) {
+            this.prioridad = prioridad;
+            this.cancelacion = cancelacion;
+            this.orden = orden;
+            this.trabajo = trabajo;
+        }
+        
+        @Override
+        public void run() {
+            if (resultado.isDone()) {
+                return;
+            }
+            try {
+                cancelacion.verificar();
+                resultado.complete(trabajo.call());
+            } catch (Throwable e) {
+                resultado.completeExceptionally(e);
+            }
+        }
+        
+        @Override
+        public int compareTo(Solicitud<?> otra) {
+            if (prioridad != otra.prioridad) {
+                return prioridad.compareTo(otra.prioridad);
+            }
+            int plazo = compararPlazos(cancelacion.getLimiteNanos(), otra.cancelacion.getLimiteNanos());
+            return plazo != 0 ? plazo : Long.compare(orden, otra.orden);
+        }
+        
+        /**
+         * Compara instantes de System.nanoTime, que pueden ser negativos;
+         * las solicitudes sin plazo van al final
+         */
+        private static int compararPlazos(long limite, long otroLimite) {
+            if (limite == otroLimite) {
+                return 0;
+            }
+            if (limite == Long.MAX_VALUE || otroLimite == Long.MAX_VALUE) {
+                return limite == Long.MAX_VALUE ? 1 : -1;
+            }
+            return Long.signum(limite - otroLimite);
+        }
+    }
+}
@@ -0,0 +1,77 @@
+package analizador;
+
+import metricas.Metricas;
+
+/**
+ * Analizadores lexico y sintactico reutilizables, un juego por hilo.
+ * Crear los analizadores para cada archivo vuelve a reservar sus conjuntos,
+ * buffers y almacen de tokens; en los modos que analizan muchos archivos
+ * (lotes, trabajadores, indice, servidor de lenguaje) cada hilo toma su
+ * juego, lo reinicia con el manejador de errores del archivo y lo devuelve
+ * al cerrar.
+ * Si el juego del hilo ya esta tomado (una tarea anidada por robo de trabajo
+ * en un ForkJoinPool) se entrega uno nuevo que no se guarda
+ */
+public class PoolAnalizadores implements AutoCloseable {
+    
+    private static final ThreadLocal<PoolAnalizadores> POR_HILO = ThreadLocal.withInitial(PoolAnalizadores::new);
+    
+    private AnalizadorLexico analizadorLexico;
+    private AnalizadorSintactico analizadorSintactico;
+    private boolean enUso;
+    
+    private PoolAnalizadores() {
+    }
+    
+    /**
+     * Toma el juego de analizadores del hilo actual
+     * @return Juego de analizadores; debe cerrarse al terminar el archivo
+     */
+    public static PoolAnalizadores tomar() {
+        PoolAnalizadores pool = POR_HILO.get();
+        if (pool.enUso) {
+            pool = new PoolAnalizadores();
+        }
+        pool.enUso = true;
+        return pool;
+    }
+    
+    /**
+     * Obtiene el analizador lexico reiniciado para un archivo
+     * @param manejadorErrores Manejador de errores del archivo
+     * @return Analizador lexico sin tokens ni estado del archivo anterior
+     */
+    public AnalizadorLexico getAnalizadorLexico(ManejadorErrores manejadorErrores) {
+        Metricas.getGlobal().registrarCache(analizadorLexico != null);
+        if (analizadorLexico == null) {
+            analizadorLexico = new AnalizadorLexico(manejadorErrores);
+        } else {
+            analizadorLexico.reiniciar(manejadorErrores);
+        }
+        return analizadorLexico;
+    }
+    
+    /**
+     * Obtiene el analizador sintactico reiniciado para un archivo
+     * @param manejadorErrores Manejador de errores del archivo
+     * @return Analizador sintactico sin estado del archivo anterior
+     */
+    public AnalizadorSintactico getAnalizadorSintactico(ManejadorErrores manejadorErrores) {
+        Metricas.getGlobal().registrarCache(analizadorSintactico != null);
+        if (analizadorSintactico == null) {
+            analizadorSintactico = new AnalizadorSintactico(manejadorErrores);
+        } else {
+            analizadorSintactico.reiniciar(manejadorErrores);
+        }
+        return analizadorSintactico;
+    }
+    
+    /**
+     * Devuelve el juego al hilo; los tokens del analizador lexico dejan de
+     * ser validos en cuanto otro archivo lo use
+     */
+    @Override
+    public void close() {
+        enUso = false;
+    }
+}
@@ -0,0 +1,112 @@
+package analizador;
+
+import tokens.AlmacenTokensDesbordable;
+
+/**
+ * Presupuesto de memoria del analisis de un archivo. Suma la memoria
+ * estimada del indice de lineas, la lista de errores y los tokens; cuando se
+ * supera, el almacenamiento de tokens mueve sus segmentos completos a un
+ * archivo temporal mapeado en memoria (ver AlmacenTokensDesbordable).
+ * El indice y los errores no se mueven: cuentan para el limite y dejan menos
+ * lugar a los tokens en el heap
+ */
+public class PresupuestoMemoria {
+    
+    private final long limiteBytes;
+    private IndiceLineas indice;
+    private ManejadorErrores manejadorErrores;
+    
+    /**
+     * Constructor
+     * @param limiteBytes Memoria estimada maxima del analisis, en bytes
+     */
+    public PresupuestoMemoria(long limiteBytes) {
+        if (limiteBytes <= 0) {
+            throw new IllegalArgumentException("El presupuesto de memoria debe ser positivo: " + limiteBytes);
+        }
+        this.limiteBytes = limiteBytes;
+    }
+    
+    /**
+     * Interpreta un tamano en bytes con sufijo opcional k, m o g (base 1024),
+     * por ejemplo 512k o 64m
+     * @param texto Tamano escrito por el usuario
+     * @return Cantidad de bytes
+     * @throws IllegalArgumentException Si el texto no es un tamano positivo
+     */
+    public static long interpretarTamano(String texto) {
+        String valor = texto.trim().toLowerCase();
+        int desplazamiento = 0;
+        if (!valor.isEmpty()) {
+            switch (valor.charAt(valor.length() - 1)) {
+                case 'k':
+                    desplazamiento = 10;
+                    break;
+                case 'm':
+                    desplazamiento = 20;
+                    break;
+                case 'g':
+                    desplazamiento = 30;
+                    break;
+                default:
+                    break;
+            }
+        }
+        if (desplazamiento > 0) {
+            valor = valor.substring(0, valor.length() - 1);
+        }
+        try {
+            long cantidad = Long.parseLong(valor);
+            if (cantidad <= 0 || cantidad > (Long.MAX_VALUE >> desplazamiento)) {
+                throw new IllegalArgumentException("Tamano fuera de rango: " + texto);
+            }
+            return cantidad << desplazamiento;
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Tamano invalido: " + texto, e);
+        }
+    }
+    
+    /**
+     * Crea el almacenamiento de tokens que respeta este presupuesto; debe
+     * cerrarse cuando ya no se lean los tokens
+     * @return Almacenamiento vacio
+     */
+    public AlmacenTokensDesbordable crearAlmacen() {
+        return new AlmacenTokensDesbordable(limiteBytes, this::getBytesFueraDeTokens);
+    }
+    
+    /**
+     * Fija el indice de lineas del archivo, que cuenta para el presupuesto
+     * @param indice Indice de lineas
+     */
+    public void setIndice(IndiceLineas indice) {
+        this.indice = indice;
+    }
+    
+    /**
+     * Fija el manejador de errores del archivo, que cuenta para el presupuesto
+     * @param manejadorErrores Manejador de errores
+     */
+    public void setManejadorErrores(ManejadorErrores manejadorErrores) {
+        this.manejadorErrores = manejadorErrores;
+    }
+    
+    /**
+     * Obtiene la memoria estimada del indice de lineas y los errores
+     * @return Bytes estimados
+     */
+    public long getBytesFueraDeTokens() {
+        long bytes = 0;
+        if (indice != null) {
+            bytes += indice.getBytesEstimados();
+        }
+        if (manejadorErrores != null) {
+            bytes += manejadorErrores.getBytesEstimados();
+        }
+        return bytes;
+    }
+    
+    public long getLimiteBytes() {
+        return limiteBytes;
+    }
+}
@@ -0,0 +1,260 @@
+package analizador;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.RandomAccessFile;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Enumeration;
+import java.util.List;
+import java.util.stream.Stream;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+
+/**
+ * Obtiene las fuentes .pas de una lista de rutas: archivos .pas, directorios
+ * (recorridos completos) y archivos comprimidos zip/jar (cada entrada .pas) o
+ * gzip (.pas.gz). Las entradas se leen directamente del archivo comprimido,
+ * sin extraerlas al disco.
+ * Los zip se abren con ZipFile, que lee el directorio central: se conocen los
+ * tamanos de todas las entradas antes de analizarlas y cada una se puede abrir
+ * de forma independiente desde varios hilos. Los archivos comprimidos quedan
+ * abiertos hasta llamar a close()
+ */
+public class ProveedorFuentes implements Closeable {
+    
+    private final List<FuenteEntrada> fuentes = new ArrayList<>();
+    private final List<ZipFile> comprimidos = new ArrayList<>();
+    
+    private ProveedorFuentes() {
+    }
+    
+    /**
+     * Busca las fuentes de las rutas indicadas, en el orden en que aparecen
+     * @param rutas Archivos .pas, archivos comprimidos o directorios
+     * @return Proveedor con las fuentes encontradas
+     * @throws IOException Si no se puede recorrer un directorio o abrir un archivo comprimido
+     */
+    public static ProveedorFuentes abrir(List<String> rutas) throws IOException {
+        ProveedorFuentes proveedor = new ProveedorFuentes();
+        try {
+            for (String ruta : rutas) {
+                Path path = Paths.get(ruta);
+                if (Files.isDirectory(path)) {
+                    List<Path> encontrados = new ArrayList<>();
+                    try (Stream<Path> recorrido = Files.walk(path)) {
+                        recorrido.filter(Files::isRegularFile)
+                                 .filter(p -> esFuentePascal(p.toString()) || esComprimido(p.toString()))
+                                 .forEach(encontrados::add);
+                    }
+                    for (Path encontrado : encontrados) {
+                        proveedor.agregar(encontrado);
+                    }
+                } else {
+                    proveedor.agregar(path);
+                }
+            }
+        } catch (IOException | RuntimeException e) {
+            proveedor.close();
+            throw e;
+        }
+        return proveedor;
+    }
+    
+    /**
+     * Crea la fuente de un archivo del disco
+     * @param archivo Ruta del archivo
+     * @return Fuente que lee el archivo
+     * @throws IOException Si no se puede obtener el tamano del archivo
+     */
+    public static FuenteEntrada deArchivo(Path archivo) throws IOException {
+        return new FuenteArchivo(archivo, Files.size(archivo));
+    }
+    
+    private static boolean esFuentePascal(String nombre) {
+        return nombre.toLowerCase().endsWith(".pas");
+    }
+    
+    private static boolean esComprimido(String nombre) {
+        String minusculas = nombre.toLowerCase();
+        return minusculas.endsWith(".zip") || minusculas.endsWith(".jar") || minusculas.endsWith(".pas.gz");
+    }
+    
+    private void agregar(Path archivo) throws IOException {
+        String nombre = archivo.toString().toLowerCase();
+        if (nombre.endsWith(".zip") || nombre.endsWith(".jar")) {
+            agregarZip(archivo);
+        } else if (nombre.endsWith(".gz")) {
+            fuentes.add(new FuenteGzip(archivo, tamanoGzip(archivo)));
+        } else {
+            fuentes.add(deArchivo(archivo));
+        }
+    }
+    
+    private void agregarZip(Path archivo) throws IOException {
+        ZipFile zip = new ZipFile(archivo.toFile());
+        comprimidos.add(zip);
+        Enumeration<? extends ZipEntry> entradas = zip.entries();
+        while (entradas.hasMoreElements()) {
+            ZipEntry entrada = entradas.nextElement();
+            if (!entrada.isDirectory() && esFuentePascal(entrada.getName())) {
+                fuentes.add(new FuenteZip(archivo.toString(), zip, entrada));
+            }
+        }
+    }
+    
+    /**
+     * Lee el tamano sin comprimir de los ultimos 4 bytes del gzip (ISIZE),
+     * que guarda el tamano modulo 2^32
+     */
+    private static long tamanoGzip(Path archivo) throws IOException {
+        try (RandomAccessFile acceso = new RandomAccessFile(archivo.toFile(), "r")) {
+            long longitud = acceso.length();
+            if (longitud < 4) {
+                return longitud;
+            }
+            acceso.seek(longitud - 4);
+            long tamano = 0;
+            for (int i = 0; i < 4; i++) {
+                tamano |= (long) acceso.read() << (8 * i);
+            }
+            return tamano;
+        }
+    }
+    
+    /**
+     * Obtiene las fuentes encontradas
+     * @return Lista de solo lectura con las fuentes, en orden de las rutas
+     */
+    public List<FuenteEntrada> getFuentes() {
+        return Collections.unmodifiableList(fuentes);
+    }
+    
+    /**
+     * Cierra los archivos comprimidos abiertos
+     * @throws IOException Si falla el cierre de algun archivo
+     */
+    @Override
+    public void close() throws IOException {
+        IOException falla = null;
+        for (ZipFile zip : comprimidos) {
+            try {
+                zip.close();
+            } catch (IOException e) {
+                falla = e;
+            }
+        }
+        comprimidos.clear();
+        if (falla != null) {
+            throw falla;
+        }
+    }
+    
+    /**
+     * Archivo .pas del disco
+     */
+    private static class FuenteArchivo implements FuenteEntrada {
+        private final Path archivo;
+        private final long tamano;
+        
+        FuenteArchivo(Path archivo, long tamano) {
+            this.archivo = archivo;
+            this.tamano = tamano;
+        }
+        
+        @Override
+        public String getNombre() {
+            return archivo.toString();
+        }
+        
+        @Override
+        public long getTamano() {
+            return tamano;
+        }
+        
+        @Override
+        public String getContenedor() {
+            return null;
+        }
+        
+        @Override
+        public InputStream abrir() throws IOException {
+            return Files.newInputStream(archivo);
+        }
+    }
+    
+    /**
+     * Entrada .pas de un zip o jar
+     */
+    private static class FuenteZip implements FuenteEntrada {
+        private final String contenedor;
+        private final ZipFile zip;
+        private final ZipEntry entrada;
+        
+        FuenteZip(String contenedor, ZipFile zip, ZipEntry entrada) {
+            this.contenedor = contenedor;
+            this.zip = zip;
+            this.entrada = entrada;
+        }
+        
+        @Override
+        public String getNombre() {
+            return contenedor + "!/" + entrada.getName();
+        }
+        
+        @Override
+        public long getTamano() {
+            // El directorio central siempre guarda el tamano; por si acaso se usa el comprimido
+            return entrada.getSize() >= 0 ? entrada.getSize() : Math.max(0, entrada.getCompressedSize());
+        }
+        
+        @Override
+        public String getContenedor() {
+            return contenedor;
+        }
+        
+        @Override
+        public InputStream abrir() throws IOException {
+            return zip.getInputStream(entrada);
+        }
+    }
+    
+    /**
+     * Archivo .pas.gz: una sola fuente comprimida
+     */
+    private static class FuenteGzip implements FuenteEntrada {
+        private final Path archivo;
+        private final long tamano;
+        
+        FuenteGzip(Path archivo, long tamano) {
+            this.archivo = archivo;
+            this.tamano = tamano;
+        }
+        
+        @Override
+        public String getNombre() {
+            String nombre = archivo.getFileName().toString();
+            return archivo + "!/" + nombre.substring(0, nombre.length() - 3);
+        }
+        
+        @Override
+        public long getTamano() {
+            return tamano;
+        }
+        
+        @Override
+        public String getContenedor() {
+            return archivo.toString();
+        }
+        
+        @Override
+        public InputStream abrir() throws IOException {
+            return new GZIPInputStream(Files.newInputStream(archivo), 1 << 16);
+        }
+    }
+}
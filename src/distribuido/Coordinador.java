@@ -0,0 +1,491 @@
+package distribuido;
+
+import analizador.ManejadorErrores;
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.lang.management.ManagementFactory;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.net.SocketTimeoutException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Coordinador del analisis distribuido entre varios procesos
+ * Divide la lista de archivos en fragmentos equilibrados por tamano y los
+ * entrega a los trabajadores conectados por socket, de uno en uno. Los
+ * resultados de un fragmento solo se aceptan cuando el trabajador confirma
+ * HECHO; si la conexion se pierde antes, el fragmento vuelve a la cola (hasta
+ * REINTENTOS_MAXIMOS veces). Si un trabajador local termina con error se
+ * lanza uno de reemplazo. Al final une los resultados en un solo reporte.
+ * Un trabajador que pasa mas del plazo sin enviar mensajes pierde su
+ * fragmento (se cierra la conexion y, si es local, se detiene el proceso).
+ * Si no queda ningun trabajador local vivo ni reemplazos disponibles, los
+ * fragmentos pendientes se dan por fallidos en lugar de esperar sin fin
+ */
+public class Coordinador {
+    
+    /** Intentos maximos por fragmento antes de darlo por fallido */
+    public static final int REINTENTOS_MAXIMOS = 3;
+    
+    /** Plazo por defecto sin mensajes de un trabajador ocupado, en segundos */
+    public static final int PLAZO_DEFECTO_SEGUNDOS = 300;
+    
+    // Fragmentos por trabajador, para repartir mejor la carga
+    private static final int FRAGMENTOS_POR_TRABAJADOR = 4;
+    
+    private final List<Path> archivos;
+    private final int trabajadoresLocales;
+    private final int puerto;
+    
+    private final BlockingQueue<Fragmento> pendientes = new LinkedBlockingQueue<>();
+    private final Map<String, ResultadoArchivo> resultados = Collections.synchronizedMap(new TreeMap<>());
+    private final List<Fragmento> fallidos = Collections.synchronizedList(new ArrayList<>());
+    private final List<Process> procesos = Collections.synchronizedList(new ArrayList<>());
+    private final AtomicInteger reintentos = new AtomicInteger();
+    private final AtomicInteger reemplazosDisponibles;
+    private final AtomicInteger conexiones = new AtomicInteger();
+    private CountDownLatch fragmentosRestantes;
+    private volatile int puertoAsignado;
+    private int plazoMs = PLAZO_DEFECTO_SEGUNDOS * 1000;
+    
+    /**
+     * Constructor
+     * @param archivos Archivos a analizar (en un sistema de archivos compartido)
+     * @param trabajadoresLocales Procesos trabajadores a lanzar en esta maquina
+     *                            (0 para esperar solo trabajadores externos)
+     * @param puerto Puerto de escucha (0 para uno libre)
+     */
+    public Coordinador(List<Path> archivos, int trabajadoresLocales, int puerto) {
+        this.archivos = archivos;
+        this.trabajadoresLocales = trabajadoresLocales;
+        this.puerto = puerto;
+        this.reemplazosDisponibles = new AtomicInteger(trabajadoresLocales * REINTENTOS_MAXIMOS);
+    }
+    
+    /**
+     * Fija el tiempo maximo que un trabajador puede pasar sin enviar mensajes
+     * mientras analiza un fragmento (cada archivo analizado envia uno)
+     * @param segundos Plazo en segundos
+     */
+    public void setPlazoSegundos(int segundos) {
+        if (segundos <= 0) {
+            throw new IllegalArgumentException("El plazo debe ser positivo: " + segundos);
+        }
+        this.plazoMs = (int) Math.min(Integer.MAX_VALUE, segundos * 1000L);
+    }
+    
+    /**
+     * Reparte el trabajo, espera todos los fragmentos y escribe el reporte
+     * @param reporte Archivo donde se escribe el reporte unido
+     * @return Cantidad de archivos que no se pudieron analizar
+     * @throws IOException Si falla el socket del coordinador o la escritura del reporte
+     * @throws InterruptedException Si se interrumpe la espera
+     */
+    public int ejecutar(Path reporte) throws IOException, InterruptedException {
+        List<Fragmento> fragmentos = dividir();
+        pendientes.addAll(fragmentos);
+        fragmentosRestantes = new CountDownLatch(fragmentos.size());
+        
+        try (ServerSocket servidor = new ServerSocket(puerto)) {
+            puertoAsignado = servidor.getLocalPort();
+            System.out.println("Coordinador escuchando en el puerto " + puertoAsignado
+                               + " (" + archivos.size() + " archivos, " + fragmentos.size() + " fragmentos)");
+            
+            Thread aceptador = new Thread(() -> aceptar(servidor), "coordinador-aceptador");
+            aceptador.setDaemon(true);
+            aceptador.start();
+            
+            for (int i = 0; i < trabajadoresLocales; i++) {
+                lanzarTrabajadorLocal();
+            }
+            
+            while (!fragmentosRestantes.await(1, TimeUnit.SECONDS)) {
+                if (sinTrabajadores()) {
+                    abandonarPendientes();
+                }
+            }
+        } finally {
+            for (Process proceso : procesos) {
+                if (!proceso.waitFor(5, TimeUnit.SECONDS)) {
+                    proceso.destroyForcibly();
+                }
+            }
+        }
+        
+        return escribirReporte(reporte);
+    }
+    
+    /**
+     * Reparte los archivos en fragmentos de tamano parecido, asignando cada
+     * archivo (de mayor a menor) al fragmento con menos bytes
+     */
+    private List<Fragmento> dividir() throws IOException {
+        int trabajadores = Math.max(trabajadoresLocales, 1);
+        int cantidad = Math.max(1, Math.min(archivos.size(), trabajadores * FRAGMENTOS_POR_TRABAJADOR));
+        
+        List<Path> ordenados = new ArrayList<>(archivos);
+        List<Long> tamanos = new ArrayList<>();
+        for (Path archivo : ordenados) {
+            tamanos.add(Files.size(archivo));
+        }
+        Integer[] indices = new Integer[ordenados.size()];
+        for (int i = 0; i < indices.length; i++) {
+            indices[i] = i;
+        }
+        Arrays.sort(indices, Comparator.comparingLong((Integer i) -> tamanos.get(i)).reversed());
+        
+        List<Fragmento> fragmentos = new ArrayList<>();
+        for (int i = 0; i < cantidad; i++) {
+            fragmentos.add(new Fragmento(i));
+        }
+        for (int indice : indices) {
+            Fragmento menor = Collections.min(fragmentos, Comparator.comparingLong(f -> f.bytes));
+            menor.rutas.add(ordenados.get(indice).toString());
+            menor.bytes += tamanos.get(indice);
+        }
+        
+        // Los fragmentos mas pesados se entregan primero
+        fragmentos.removeIf(f -> f.rutas.isEmpty());
+        fragmentos.sort(Comparator.comparingLong((Fragmento f) -> f.bytes).reversed());
+        return fragmentos;
+    }
+    
+    private void aceptar(ServerSocket servidor) {
+        while (!servidor.isClosed()) {
+            try {
+                Socket socket = servidor.accept();
+                Thread hilo = new Thread(() -> atender(socket), "coordinador-trabajador");
+                hilo.setDaemon(true);
+                hilo.start();
+            } catch (IOException e) {
+                // El servidor se cerro al terminar
+                return;
+            }
+        }
+    }
+    
+    /**
+     * Entrega fragmentos a un trabajador hasta que no quede trabajo, se
+     * pierda la conexion o venza el plazo sin mensajes
+     */
+    private void atender(Socket socket) {
+        conexiones.incrementAndGet();
+        Fragmento actual = null;
+        long pid = -1;
+        try (socket;
+             DataInputStream entrada = new DataInputStream(new BufferedInputStream(socket.getInputStream()));
+             DataOutputStream salida = new DataOutputStream(new BufferedOutputStream(socket.getOutputStream()))) {
+            
+            // El plazo corre solo mientras se espera un mensaje del trabajador
+            socket.setSoTimeout(plazoMs);
+            if (!entrada.readUTF().equals(Protocolo.HOLA)) {
+                return;
+            }
+            pid = entrada.readLong();
+            
+            while (true) {
+                actual = siguienteFragmento();
+                if (actual == null) {
+                    salida.writeUTF(Protocolo.FIN);
+                    salida.flush();
+                    return;
+                }
+                
+                salida.writeUTF(Protocolo.FRAGMENTO);
+                salida.writeInt(actual.id);
+                salida.writeInt(actual.rutas.size());
+                for (String ruta : actual.rutas) {
+                    salida.writeUTF(ruta);
+                }
+                salida.flush();
+                
+                // Sin confirmacion de recepcion, la conexion ya estaba muerta y
+                // el fragmento vuelve a la cola sin contar como intento
+                if (!entrada.readUTF().equals(Protocolo.RECIBIDO) || entrada.readInt() != actual.id) {
+                    throw new IOException("El trabajador no confirmo el fragmento " + actual.id);
+                }
+                actual.intentos++;
+                
+                List<ResultadoArchivo> recibidos = recibirFragmento(entrada, actual);
+                for (ResultadoArchivo resultado : recibidos) {
+                    resultados.put(resultado.ruta, resultado);
+                }
+                actual = null;
+                fragmentosRestantes.countDown();
+            }
+        } catch (IOException e) {
+            if (actual != null) {
+                devolverFragmento(actual, e);
+            }
+            if (e instanceof SocketTimeoutException) {
+                detenerTrabajadorLocal(pid);
+            }
+        } finally {
+            conexiones.decrementAndGet();
+        }
+    }
+    
+    /**
+     * Espera el siguiente fragmento; devuelve null cuando ya no queda trabajo
+     * (un fragmento en curso en otro trabajador puede volver a la cola)
+     */
+    private Fragmento siguienteFragmento() throws IOException {
+        try {
+            while (fragmentosRestantes.getCount() > 0) {
+                Fragmento fragmento = pendientes.poll(100, TimeUnit.MILLISECONDS);
+                if (fragmento != null) {
+                    return fragmento;
+                }
+            }
+            return null;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Coordinador interrumpido", e);
+        }
+    }
+    
+    private List<ResultadoArchivo> recibirFragmento(DataInputStream entrada, Fragmento fragmento) throws IOException {
+        List<ResultadoArchivo> recibidos = new ArrayList<>();
+        while (true) {
+            String tipo = entrada.readUTF();
+            if (tipo.equals(Protocolo.HECHO)) {
+                if (entrada.readInt() != fragmento.id) {
+                    throw new IOException("Confirmacion de un fragmento distinto");
+                }
+                return recibidos;
+            }
+            if (!tipo.equals(Protocolo.ARCHIVO)) {
+                throw new IOException("Mensaje inesperado del trabajador: " + tipo);
+            }
+            
+            ResultadoArchivo resultado = new ResultadoArchivo(entrada.readUTF());
+            if (entrada.readBoolean()) {
+                resultado.tokens = entrada.readInt();
+                resultado.lineas = entrada.readInt();
+                int cantidad = entrada.readInt();
+                for (int i = 0; i < cantidad; i++) {
+                    resultado.errores.add(new ManejadorErrores.ErrorInfo(entrada.readInt(), entrada.readInt(),
+                                                                         entrada.readUTF()));
+                }
+            } else {
+                resultado.falla = entrada.readUTF();
+            }
+            recibidos.add(resultado);
+        }
+    }
+    
+    /**
+     * Devuelve a la cola el fragmento de un trabajador que se desconecto
+     */
+    private void devolverFragmento(Fragmento fragmento, IOException causa) {
+        System.err.println("Se perdio el trabajador del fragmento " + fragmento.id + ": " + causa);
+        
+        if (fragmento.intentos >= REINTENTOS_MAXIMOS) {
+            fallidos.add(fragmento);
+            fragmentosRestantes.countDown();
+        } else {
+            reintentos.incrementAndGet();
+            pendientes.add(fragmento);
+        }
+    }
+    
+    /**
+     * Detiene el proceso local de un trabajador trabado; al terminar con
+     * error se lanza su reemplazo. Los trabajadores externos solo pierden
+     * la conexion
+     */
+    private void detenerTrabajadorLocal(long pid) {
+        synchronized (procesos) {
+            for (Process proceso : procesos) {
+                if (proceso.pid() == pid && proceso.isAlive()) {
+                    System.err.println("El trabajador " + pid + " no respondio en " + plazoMs / 1000
+                                       + " s; se detiene");
+                    proceso.destroyForcibly();
+                }
+            }
+        }
+    }
+    
+    /**
+     * Indica si ya no puede llegar ningun trabajador: se esperaban trabajadores
+     * locales, ninguno sigue vivo ni conectado y no quedan reemplazos
+     */
+    private boolean sinTrabajadores() {
+        if (trabajadoresLocales == 0 || conexiones.get() > 0 || reemplazosDisponibles.get() > 0) {
+            return false;
+        }
+        synchronized (procesos) {
+            for (Process proceso : procesos) {
+                if (proceso.isAlive()) {
+                    return false;
+                }
+            }
+        }
+        return true;
+    }
+    
+    /**
+     * Da por fallidos los fragmentos que esperan en la cola
+     */
+    private void abandonarPendientes() {
+        Fragmento fragmento;
+        while ((fragmento = pendientes.poll()) != null) {
+            System.err.println("Sin trabajadores para el fragmento " + fragmento.id + "; se abandona");
+            fragmento.falla = "sin trabajadores disponibles";
+            fallidos.add(fragmento);
+            fragmentosRestantes.countDown();
+        }
+    }
+    
+    /**
+     * Lanza un trabajador en una JVM nueva con el mismo classpath y opciones
+     */
+    private void lanzarTrabajadorLocal() throws IOException {
+        String java = ProcessHandle.current().info().command().orElse("java");
+        List<String> comando = new ArrayList<>();
+        comando.add(java);
+        comando.addAll(ManagementFactory.getRuntimeMXBean().getInputArguments());
+        comando.add("-cp");
+        comando.add(System.getProperty("java.class.path"));
+        comando.add("main.Main");
+        comando.add("--trabajador");
+        comando.add("localhost:" + puertoAsignado);
+        
+        Process proceso = new ProcessBuilder(comando)
+            .redirectOutput(ProcessBuilder.Redirect.DISCARD)
+            .redirectError(ProcessBuilder.Redirect.INHERIT)
+            .start();
+        procesos.add(proceso);
+        proceso.onExit().thenAccept(this::reemplazarSiFallo);
+    }
+    
+    /**
+     * Si un proceso local termino con error mientras queda trabajo, lanza
+     * otro en su lugar (con un limite para no relanzar sin fin)
+     */
+    private void reemplazarSiFallo(Process proceso) {
+        if (proceso.exitValue() == 0 || fragmentosRestantes.getCount() == 0
+                || reemplazosDisponibles.getAndDecrement() <= 0) {
+            return;
+        }
+        System.err.println("El trabajador " + proceso.pid() + " termino con codigo " + proceso.exitValue()
+                           + "; se lanza uno de reemplazo");
+        try {
+            lanzarTrabajadorLocal();
+        } catch (IOException e) {
+            System.err.println("No se pudo lanzar un trabajador de reemplazo: " + e.getMessage());
+        }
+    }
+    
+    /**
+     * Escribe el reporte unido, con los archivos en orden de ruta
+     * @return Cantidad de archivos sin analizar
+     */
+    private int escribirReporte(Path reporte) throws IOException {
+        int totalErrores = 0;
+        List<String> noAnalizados = new ArrayList<>();
+        synchronized (resultados) {
+            for (ResultadoArchivo resultado : resultados.values()) {
+                totalErrores += resultado.errores.size();
+                if (resultado.falla != null) {
+                    noAnalizados.add(resultado.ruta + " (" + resultado.falla + ")");
+                }
+            }
+        }
+        synchronized (fallidos) {
+            for (Fragmento fragmento : fallidos) {
+                String motivo = fragmento.falla != null ? fragmento.falla
+                                                        : "el trabajador fallo " + fragmento.intentos + " veces";
+                for (String ruta : fragmento.rutas) {
+                    noAnalizados.add(ruta + " (" + motivo + ")");
+                }
+            }
+        }
+        try (PrintWriter escritor = new PrintWriter(Files.newBufferedWriter(reporte, StandardCharsets.UTF_8))) {
+            escritor.println("REPORTE DEL ANALISIS DISTRIBUIDO");
+            escritor.println("================================");
+            escritor.println("Archivos: " + archivos.size());
+            escritor.println("Errores: " + totalErrores);
+            escritor.println("Fragmentos reintentados: " + reintentos.get());
+            escritor.println();
+            
+            synchronized (resultados) {
+                for (ResultadoArchivo resultado : resultados.values()) {
+                    if (resultado.falla != null) {
+                        continue;
+                    }
+                    escritor.println(resultado.ruta + " (" + resultado.lineas + " lineas, "
+                                     + resultado.tokens + " tokens, " + resultado.errores.size() + " errores)");
+                    for (ManejadorErrores.ErrorInfo error : resultado.errores) {
+                        if (error.getNumeroLinea() > 0) {
+                            escritor.printf("  Error %d. Linea %04d. %s%n", error.getNumeroError(),
+                                            error.getNumeroLinea(), error.getDescripcion());
+                        } else {
+                            escritor.printf("  Error %d. %s%n", error.getNumeroError(), error.getDescripcion());
+                        }
+                    }
+                }
+            }
+            
+            if (!noAnalizados.isEmpty()) {
+                escritor.println();
+                escritor.println("ARCHIVOS SIN ANALIZAR:");
+                for (String linea : noAnalizados) {
+                    escritor.println("  " + linea);
+                }
+            }
+        }
+        
+        System.out.println("Reporte generado: " + reporte + " (" + resultados.size() + " archivos, "
+                           + totalErrores + " errores, " + reintentos.get() + " fragmentos reintentados)");
+        return noAnalizados.size();
+    }
+    
+    /**
+     * Grupo de archivos que se entrega a un trabajador
+     */
+    private static class Fragmento {
+        final int id;
+        final List<String> rutas = new ArrayList<>();
+        long bytes;
+        int intentos;
+        String falla;
+        
+        Fragmento(int id) {
+            this.id = id;
+        }
+    }
+    
+    /**
+     * Resultado de un archivo recibido de un trabajador
+     */
+    private static class ResultadoArchivo {
+        final String ruta;
+        final List<ManejadorErrores.ErrorInfo> errores = new ArrayList<>();
+        int tokens;
+        int lineas;
+        String falla;
+        
+        ResultadoArchivo(String ruta) {
+            this.ruta = ruta;
+        }
+    }
+}
@@ -0,0 +1,41 @@
+package distribuido;
+
+/**
+ * Mensajes intercambiados entre el coordinador y los trabajadores
+ * Cada mensaje empieza con su tipo (writeUTF) seguido de sus campos con
+ * DataOutputStream:
+ *   HOLA pid                                 trabajador listo (pid de su proceso)
+ *   FRAGMENTO id cantidad ruta...            coordinador asigna archivos
+ *   RECIBIDO id                              trabajador acepta el fragmento
+ *   ARCHIVO ruta true tokens lineas n (linea codigo descripcion)*
+ *   ARCHIVO ruta false mensaje               resultado de un archivo
+ *   HECHO id                                 trabajador termino el fragmento
+ *   FIN                                      no queda trabajo
+ */
+final class Protocolo {
+    
+    static final String HOLA = "HOLA";
+    static final String FRAGMENTO = "FRAGMENTO";
+    static final String RECIBIDO = "RECIBIDO";
+    static final String ARCHIVO = "ARCHIVO";
+    static final String HECHO = "HECHO";
+    static final String FIN = "FIN";
+    
+    // writeUTF acepta hasta 65535 bytes; los textos largos se recortan
+    private static final int LONGITUD_MAXIMA_TEXTO = 16 * 1024;
+    
+    private Protocolo() {
+    }
+    
+    /**
+     * Recorta un texto para que quepa en un writeUTF
+     * @param texto Texto a enviar
+     * @return Texto con a lo sumo LONGITUD_MAXIMA_TEXTO caracteres
+     */
+    static String recortar(String texto) {
+        if (texto == null) {
+            return "";
+        }
+        return texto.length() <= LONGITUD_MAXIMA_TEXTO ? texto : texto.substring(0, LONGITUD_MAXIMA_TEXTO);
+    }
+}
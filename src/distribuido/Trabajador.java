@@ -0,0 +1,104 @@
+package distribuido;
+
+import analizador.AnalisisArchivo;
+import analizador.ManejadorErrores;
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.net.Socket;
+import java.util.List;
+
+/**
+ * Proceso trabajador del analisis distribuido
+ * Se conecta al coordinador, analiza los fragmentos de archivos que recibe
+ * (escribiendo cada .err en el sistema de archivos compartido) y devuelve los
+ * errores de cada archivo hasta recibir FIN
+ */
+public class Trabajador {
+    
+    private final String host;
+    private final int puerto;
+    
+    /**
+     * Constructor
+     * @param host Direccion del coordinador
+     * @param puerto Puerto del coordinador
+     */
+    public Trabajador(String host, int puerto) {
+        this.host = host;
+        this.puerto = puerto;
+    }
+    
+    /**
+     * Atiende fragmentos hasta que el coordinador indique FIN
+     * @throws IOException Si se pierde la conexion con el coordinador
+     */
+    public void ejecutar() throws IOException {
+        try (Socket socket = new Socket(host, puerto);
+             DataInputStream entrada = new DataInputStream(new BufferedInputStream(socket.getInputStream()));
+             DataOutputStream salida = new DataOutputStream(new BufferedOutputStream(socket.getOutputStream()))) {
+            
+            salida.writeUTF(Protocolo.HOLA);
+            salida.writeLong(ProcessHandle.current().pid());
+            salida.flush();
+            
+            while (true) {
+                String tipo = entrada.readUTF();
+                if (tipo.equals(Protocolo.FIN)) {
+                    return;
+                }
+                if (!tipo.equals(Protocolo.FRAGMENTO)) {
+                    throw new IOException("Mensaje inesperado del coordinador: " + tipo);
+                }
+                
+                int id = entrada.readInt();
+                int cantidad = entrada.readInt();
+                String[] rutas = new String[cantidad];
+                for (int i = 0; i < cantidad; i++) {
+                    rutas[i] = entrada.readUTF();
+                }
+                salida.writeUTF(Protocolo.RECIBIDO);
+                salida.writeInt(id);
+                salida.flush();
+                
+                for (String ruta : rutas) {
+                    analizarArchivo(ruta, salida);
+                }
+                
+                salida.writeUTF(Protocolo.HECHO);
+                salida.writeInt(id);
+                salida.flush();
+            }
+        }
+    }
+    
+    private void analizarArchivo(String ruta, DataOutputStream salida) throws IOException {
+        AnalisisArchivo resultado = null;
+        String falla = null;
+        try {
+            resultado = AnalisisArchivo.ejecutar(ruta);
+        } catch (IOException | RuntimeException e) {
+            falla = e.toString();
+        }
+        
+        salida.writeUTF(Protocolo.ARCHIVO);
+        salida.writeUTF(ruta);
+        salida.writeBoolean(resultado != null);
+        if (resultado == null) {
+            salida.writeUTF(Protocolo.recortar(falla));
+            return;
+        }
+        
+        List<ManejadorErrores.ErrorInfo> errores = resultado.getManejadorErrores().getErrores();
+        salida.writeInt(resultado.getTotalTokens());
+        salida.writeInt(resultado.getIndice().getTotalLineas());
+        salida.writeInt(errores.size());
+        for (ManejadorErrores.ErrorInfo error : errores) {
+            salida.writeInt(error.getNumeroLinea());
+            salida.writeInt(error.getNumeroError());
+            salida.writeUTF(Protocolo.recortar(error.getDescripcion()));
+        }
+    }
+}
@@ -0,0 +1,200 @@
+package indice;
+
+import java.io.IOException;
+import java.lang.foreign.Arena;
+import java.lang.foreign.MemorySegment;
+import java.lang.foreign.ValueLayout;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import tokens.LectorBinario;
+
+/**
+ * Consultas sobre un indice escrito por IndiceIdentificadores.
+ * El archivo se mapea en memoria y no se carga: una consulta hace una
+ * busqueda binaria en el directorio de identificadores y decodifica solo las
+ * ocurrencias de ese identificador, de modo que el tiempo no depende de la
+ * cantidad de archivos indexados.
+ * El mapeo vive mientras el Arena indicado este abierto. Una consulta guarda
+ * su posicion de lectura, por lo que cada hilo debe usar la suya
+ */
+public class ConsultaIndice {
+    
+    private static final ValueLayout.OfInt ENTERO = ValueLayout.JAVA_INT_UNALIGNED.withOrder(ByteOrder.LITTLE_ENDIAN);
+    private static final ValueLayout.OfLong LARGO = ValueLayout.JAVA_LONG_UNALIGNED.withOrder(ByteOrder.LITTLE_ENDIAN);
+    
+    private final MemorySegment datos;
+    private final LectorBinario lector;
+    private final int cantidadArchivos;
+    private final int cantidadIdentificadores;
+    private final long directorioArchivos;
+    private final long directorioIdentificadores;
+    
+    private ConsultaIndice(MemorySegment datos) throws IOException {
+        this.datos = datos;
+        this.lector = new LectorBinario(datos);
+        if (datos.byteSize() < IndiceIdentificadores.TAMANO_ENCABEZADO) {
+            throw new IOException("No es un archivo de indice");
+        }
+        for (int i = 0; i < IndiceIdentificadores.MAGICO.length; i++) {
+            if (datos.get(ValueLayout.JAVA_BYTE, i) != IndiceIdentificadores.MAGICO[i]) {
+                throw new IOException("No es un archivo de indice");
+            }
+        }
+        int version = datos.get(ValueLayout.JAVA_BYTE, 4);
+        if (version != IndiceIdentificadores.VERSION) {
+            throw new IOException("Version de indice no soportada: " + version);
+        }
+        
+        cantidadArchivos = datos.get(ENTERO, 5);
+        cantidadIdentificadores = datos.get(ENTERO, 9);
+        directorioArchivos = datos.get(LARGO, 13);
+        directorioIdentificadores = datos.get(LARGO, 21);
+        if (cantidadArchivos < 0 || cantidadIdentificadores < 0
+                || directorioArchivos + 8L * cantidadArchivos > datos.byteSize()
+                || directorioIdentificadores + 8L * cantidadIdentificadores > datos.byteSize()) {
+            throw new IOException("Archivo de indice danado");
+        }
+    }
+    
+    /**
+     * Mapea un indice en memoria
+     * @param ruta Archivo del indice
+     * @param arena Arena al que pertenece el mapeo; el archivo se desmapea al cerrarlo
+     * @return Consulta sobre el indice
+     * @throws IOException Si no se puede leer el archivo o no tiene el formato esperado
+     */
+    public static ConsultaIndice abrir(Path ruta, Arena arena) throws IOException {
+        try (FileChannel canal = FileChannel.open(ruta, StandardOpenOption.READ)) {
+            return new ConsultaIndice(canal.map(FileChannel.MapMode.READ_ONLY, 0, canal.size(), arena));
+        }
+    }
+    
+    /**
+     * Busca todas las ocurrencias de un identificador
+     * @param identificador Identificador buscado (sin distinguir mayusculas)
+     * @return Ocurrencias ordenadas por archivo, linea y columna; vacia si no aparece
+     */
+    public List<Ocurrencia> buscar(String identificador) {
+        String buscado = IndiceIdentificadores.plegar(identificador);
+        int inferior = 0;
+        int superior = cantidadIdentificadores - 1;
+        while (inferior <= superior) {
+            int medio = (inferior + superior) >>> 1;
+            int comparacion = getIdentificador(medio).compareTo(buscado);
+            if (comparacion < 0) {
+                inferior = medio + 1;
+            } else if (comparacion > 0) {
+                superior = medio - 1;
+            } else {
+                return getOcurrencias(medio);
+            }
+        }
+        return new ArrayList<>();
+    }
+    
+    public int getCantidadArchivos() {
+        return cantidadArchivos;
+    }
+    
+    public int getCantidadIdentificadores() {
+        return cantidadIdentificadores;
+    }
+    
+    /**
+     * Obtiene el nombre de un archivo indexado
+     * @param numero Numero del archivo (orden de nombre)
+     * @return Nombre del archivo
+     */
+    public String getNombreArchivo(int numero) {
+        lector.setPosicion(datos.get(LARGO, directorioArchivos + 8L * numero));
+        return lector.cadena();
+    }
+    
+    long getHuellaArchivo(int numero) {
+        lector.setPosicion(datos.get(LARGO, directorioArchivos + 8L * numero));
+        lector.saltar(lector.varint());
+        return lector.varlong();
+    }
+    
+    /**
+     * Obtiene un identificador del indice
+     * @param numero Posicion en el orden alfabetico
+     * @return Identificador en minusculas
+     */
+    public String getIdentificador(int numero) {
+        lector.setPosicion(datos.get(LARGO, directorioIdentificadores + 8L * numero));
+        return lector.cadena();
+    }
+    
+    /**
+     * Decodifica las ocurrencias de un identificador
+     * @param numero Posicion del identificador en el orden alfabetico
+     * @return Ocurrencias ordenadas por archivo, linea y columna
+     */
+    public List<Ocurrencia> getOcurrencias(int numero) {
+        lector.setPosicion(datos.get(LARGO, directorioIdentificadores + 8L * numero));
+        lector.saltar(lector.varint());
+        int cantidad = lector.varint();
+        
+        List<Ocurrencia> ocurrencias = new ArrayList<>(cantidad);
+        int archivo = 0;
+        int linea = 0;
+        int columna = 0;
+        for (int i = 0; i < cantidad; i++) {
+            int diferenciaArchivo = lector.varint();
+            if (diferenciaArchivo != 0) {
+                archivo += diferenciaArchivo;
+                linea = 0;
+                columna = 0;
+            }
+            int diferenciaLinea = lector.varint();
+            int valorColumna = lector.varint();
+            linea += diferenciaLinea;
+            columna = diferenciaLinea != 0 ? valorColumna : columna + valorColumna;
+            ocurrencias.add(new Ocurrencia(this, archivo, linea, columna));
+        }
+        return ocurrencias;
+    }
+    
+    /**
+     * Ocurrencia de un identificador; el nombre del archivo se lee del indice
+     * solo al pedirlo
+     */
+    public static class Ocurrencia {
+        private final ConsultaIndice consulta;
+        private final int numeroArchivo;
+        private final int numeroLinea;
+        private final int posicionColumna;
+        
+        Ocurrencia(ConsultaIndice consulta, int numeroArchivo, int numeroLinea, int posicionColumna) {
+            this.consulta = consulta;
+            this.numeroArchivo = numeroArchivo;
+            this.numeroLinea = numeroLinea;
+            this.posicionColumna = posicionColumna;
+        }
+        
+        public String getArchivo() {
+            return consulta.getNombreArchivo(numeroArchivo);
+        }
+        
+        public int getNumeroArchivo() {
+            return numeroArchivo;
+        }
+        
+        public int getNumeroLinea() {
+            return numeroLinea;
+        }
+        
+        /**
+         * Obtiene la columna del identificador en la linea
+         * @return Columna (1-based)
+         */
+        public int getPosicionColumna() {
+            return posicionColumna;
+        }
+    }
+}
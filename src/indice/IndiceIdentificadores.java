@@ -0,0 +1,332 @@
+package indice;
+
+import analizador.AnalizadorLexico;
+import analizador.FuenteEntrada;
+import analizador.IndiceLineas;
+import analizador.LectorArchivos;
+import analizador.ManejadorErrores;
+import analizador.PoolAnalizadores;
+import java.io.IOException;
+import java.io.InputStream;
+import java.lang.foreign.Arena;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import tokens.AlmacenTokens;
+import tokens.EscritorBinario;
+import tokens.TipoToken;
+import tokens.Token;
+
+/**
+ * Indice invertido de identificadores de muchos archivos: para cada
+ * identificador (sin distinguir mayusculas, como en PASCAL) guarda las
+ * ocurrencias archivo, linea y columna.
+ * Se actualiza de forma incremental: cada archivo guarda una huella de su
+ * contenido (los primeros 8 bytes del SHA-1) y solo se vuelven a analizar los
+ * archivos cuya huella cambio; las ocurrencias de los demas se toman del
+ * indice anterior. La fecha de modificacion no sirve como huella porque no
+ * distingue dos cambios del mismo tamano dentro de su resolucion.
+ *
+ * Formato en disco (version 1), leido por ConsultaIndice. Los enteros fijos
+ * son little-endian y los demas varint (7 bits por byte):
+ * <pre>
+ *   "PIDX" + version                       5 bytes
+ *   cantidad de archivos                   int
+ *   cantidad de identificadores            int
+ *   inicio del directorio de archivos      long
+ *   inicio del directorio de identificadores long
+ *   archivos           por archivo: nombre (longitud + UTF-8), huella varint
+ *   identificadores    por identificador: nombre (longitud + UTF-8),
+ *                      cantidad de ocurrencias, ocurrencias
+ *   directorio de archivos                 long por archivo
+ *   directorio de identificadores          long por identificador, en orden
+ * </pre>
+ * Las ocurrencias de un identificador estan ordenadas por (archivo, linea,
+ * columna) y se guardan como diferencias: archivo respecto al anterior; linea
+ * absoluta si cambio el archivo o diferencia si no; columna absoluta si cambio
+ * la linea o diferencia si no
+ */
+public class IndiceIdentificadores {
+    
+    static final byte[] MAGICO = {'P', 'I', 'D', 'X'};
+    static final int VERSION = 1;
+    static final int TAMANO_ENCABEZADO = 5 + 4 + 4 + 8 + 8;
+    
+    // Archivos indexados, ordenados por nombre: el orden define el numero de archivo en disco
+    private final Map<String, ArchivoIndexado> archivos = new TreeMap<>();
+    
+    private int reanalizados;
+    private int eliminados;
+    
+    /**
+     * Carga un indice existente para actualizarlo; si no existe devuelve uno vacio
+     * @param ruta Archivo del indice
+     * @return Indice cargado
+     * @throws IOException Si el archivo existe pero no se puede leer
+     */
+    public static IndiceIdentificadores cargar(Path ruta) throws IOException {
+        IndiceIdentificadores indice = new IndiceIdentificadores();
+        if (!Files.exists(ruta)) {
+            return indice;
+        }
+        
+        try (Arena arena = Arena.ofConfined()) {
+            ConsultaIndice consulta = ConsultaIndice.abrir(ruta, arena);
+            ArchivoIndexado[] porNumero = new ArchivoIndexado[consulta.getCantidadArchivos()];
+            for (int i = 0; i < porNumero.length; i++) {
+                porNumero[i] = new ArchivoIndexado(consulta.getNombreArchivo(i), consulta.getHuellaArchivo(i));
+                indice.archivos.put(porNumero[i].nombre, porNumero[i]);
+            }
+            
+            // Reparte las ocurrencias de cada identificador entre sus archivos
+            for (int i = 0; i < consulta.getCantidadIdentificadores(); i++) {
+                String identificador = consulta.getIdentificador(i);
+                for (ConsultaIndice.Ocurrencia ocurrencia : consulta.getOcurrencias(i)) {
+                    porNumero[ocurrencia.getNumeroArchivo()].agregar(identificador,
+                        ocurrencia.getNumeroLinea(), ocurrencia.getPosicionColumna());
+                }
+            }
+        }
+        return indice;
+    }
+    
+    /**
+     * Deja en el indice exactamente las fuentes indicadas: analiza las nuevas y
+     * las modificadas, conserva las que no cambiaron y quita las que ya no estan
+     * @param fuentes Fuentes que debe contener el indice
+     * @param pool Pool donde se analizan las fuentes modificadas
+     * @throws IOException Si no se puede obtener la huella de una fuente
+     */
+    public void actualizar(List<FuenteEntrada> fuentes, ForkJoinPool pool) throws IOException {
+        Map<String, ArchivoIndexado> anteriores = new HashMap<>(archivos);
+        archivos.clear();
+        
+        List<ForkJoinTask<ArchivoIndexado>> tareas = new ArrayList<>();
+        for (FuenteEntrada fuente : fuentes) {
+            long huella = calcularHuella(fuente);
+            ArchivoIndexado anterior = anteriores.remove(fuente.getNombre());
+            if (anterior != null && anterior.huella == huella) {
+                archivos.put(anterior.nombre, anterior);
+            } else {
+                tareas.add(pool.submit(() -> indexar(fuente, huella)));
+            }
+        }
+        
+        for (ForkJoinTask<ArchivoIndexado> tarea : tareas) {
+            ArchivoIndexado archivo = tarea.join();
+            archivos.put(archivo.nombre, archivo);
+        }
+        reanalizados = tareas.size();
+        eliminados = anteriores.size();
+    }
+    
+    /**
+     * Huella de una fuente: los primeros 8 bytes del SHA-1 de su contenido
+     */
+    private static long calcularHuella(FuenteEntrada fuente) throws IOException {
+        MessageDigest sha1;
+        try {
+            sha1 = MessageDigest.getInstance("SHA-1");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-1 no disponible", e);
+        }
+        byte[] bloque = new byte[64 * 1024];
+        try (InputStream entrada = fuente.abrir()) {
+            int leidos;
+            while ((leidos = entrada.read(bloque)) > 0) {
+                sha1.update(bloque, 0, leidos);
+            }
+        }
+        long huella = 0;
+        byte[] resumen = sha1.digest();
+        for (int i = 0; i < 8; i++) {
+            huella = (huella << 8) | (resumen[i] & 0xFF);
+        }
+        return huella;
+    }
+    
+    /**
+     * Analiza lexicamente una fuente y registra sus identificadores con la
+     * columna real en la linea (1-based), que el analizador guarda en cada token
+     */
+    private static ArchivoIndexado indexar(FuenteEntrada fuente, long huella) throws IOException {
+        IndiceLineas indice = new LectorArchivos().leerFuente(fuente);
+        try (PoolAnalizadores analizadores = PoolAnalizadores.tomar()) {
+            AnalizadorLexico analizador = analizadores.getAnalizadorLexico(new ManejadorErrores(fuente.getNombre()));
+            analizador.analizar(indice);
+            return indexarTokens(fuente.getNombre(), huella, analizador.getAlmacenTokens());
+        }
+    }
+    
+    private static ArchivoIndexado indexarTokens(String nombre, long huella, AlmacenTokens tokens) {
+        ArchivoIndexado archivo = new ArchivoIndexado(nombre, huella);
+        for (int i = 0; i < tokens.tamano(); i++) {
+            Token token = tokens.obtener(i);
+            if (token.getTipo() == TipoToken.IDENTIFICADOR) {
+                archivo.agregar(plegar(token.getValor()), token.getNumeroLinea(), token.getColumnaTexto());
+            }
+        }
+        return archivo;
+    }
+    
+    /**
+     * Normaliza un identificador para el indice y las consultas
+     * @param identificador Identificador tal como aparece en el codigo
+     * @return Identificador en minusculas
+     */
+    public static String plegar(String identificador) {
+        return identificador.toLowerCase(Locale.ROOT);
+    }
+    
+    /**
+     * Escribe el indice de forma atomica, para que las consultas en curso
+     * nunca vean un indice a medio escribir
+     * @param ruta Archivo del indice
+     * @throws IOException Si hay error al escribir
+     */
+    public void guardar(Path ruta) throws IOException {
+        // Ocurrencias agrupadas por identificador; los archivos ya estan en orden de nombre
+        List<ArchivoIndexado> ordenados = new ArrayList<>(archivos.values());
+        Map<String, List<int[]>> porIdentificador = new TreeMap<>();
+        for (int numero = 0; numero < ordenados.size(); numero++) {
+            for (Map.Entry<String, Posiciones> entrada : ordenados.get(numero).ocurrencias.entrySet()) {
+                Posiciones posiciones = entrada.getValue();
+                int[] bloque = new int[1 + posiciones.cantidad];
+                bloque[0] = numero;
+                System.arraycopy(posiciones.datos, 0, bloque, 1, posiciones.cantidad);
+                porIdentificador.computeIfAbsent(entrada.getKey(), k -> new ArrayList<>()).add(bloque);
+            }
+        }
+        
+        EscritorBinario salida = new EscritorBinario(1 << 16);
+        salida.bytes(MAGICO);
+        salida.bytes(new byte[] {(byte) VERSION});
+        salida.entero(ordenados.size());
+        salida.entero(porIdentificador.size());
+        salida.largo(0);
+        salida.largo(0);
+        
+        long[] inicioArchivos = new long[ordenados.size()];
+        for (int i = 0; i < ordenados.size(); i++) {
+            inicioArchivos[i] = salida.getTamano();
+            salida.cadena(ordenados.get(i).nombre);
+            salida.varlong(ordenados.get(i).huella);
+        }
+        
+        long[] inicioIdentificadores = new long[porIdentificador.size()];
+        int siguiente = 0;
+        for (Map.Entry<String, List<int[]>> entrada : porIdentificador.entrySet()) {
+            inicioIdentificadores[siguiente++] = salida.getTamano();
+            salida.cadena(entrada.getKey());
+            escribirOcurrencias(salida, entrada.getValue());
+        }
+        
+        long directorioArchivos = salida.getTamano();
+        for (long inicio : inicioArchivos) {
+            salida.largo(inicio);
+        }
+        long directorioIdentificadores = salida.getTamano();
+        for (long inicio : inicioIdentificadores) {
+            salida.largo(inicio);
+        }
+        salida.largoEn(13, directorioArchivos);
+        salida.largoEn(21, directorioIdentificadores);
+        
+        new LectorArchivos().escribirArchivoAtomico(ruta.toString(), salida.toArray());
+    }
+    
+    /**
+     * Escribe las ocurrencias de un identificador; cada bloque es el numero de
+     * archivo seguido de pares (linea, columna) en orden
+     */
+    private static void escribirOcurrencias(EscritorBinario salida, List<int[]> bloques) {
+        int cantidad = 0;
+        for (int[] bloque : bloques) {
+            cantidad += (bloque.length - 1) / 2;
+        }
+        salida.varint(cantidad);
+        
+        int archivoAnterior = 0;
+        for (int[] bloque : bloques) {
+            salida.varint(bloque[0] - archivoAnterior);
+            archivoAnterior = bloque[0];
+            int lineaAnterior = 0;
+            int columnaAnterior = 0;
+            for (int i = 1; i < bloque.length; i += 2) {
+                int linea = bloque[i];
+                int columna = bloque[i + 1];
+                if (i > 1) {
+                    salida.varint(0);
+                }
+                salida.varint(linea - lineaAnterior);
+                salida.varint(linea != lineaAnterior ? columna : columna - columnaAnterior);
+                lineaAnterior = linea;
+                columnaAnterior = columna;
+            }
+        }
+    }
+    
+    public int getTotalArchivos() {
+        return archivos.size();
+    }
+    
+    /**
+     * Obtiene cuantas fuentes se analizaron en la ultima actualizacion
+     * @return Fuentes nuevas o modificadas
+     */
+    public int getReanalizados() {
+        return reanalizados;
+    }
+    
+    /**
+     * Obtiene cuantas fuentes se quitaron en la ultima actualizacion
+     * @return Fuentes que ya no estaban en la lista
+     */
+    public int getEliminados() {
+        return eliminados;
+    }
+    
+    /**
+     * Ocurrencias de los identificadores de un archivo
+     */
+    private static class ArchivoIndexado {
+        final String nombre;
+        final long huella;
+        final Map<String, Posiciones> ocurrencias = new HashMap<>();
+        
+        ArchivoIndexado(String nombre, long huella) {
+            this.nombre = nombre;
+            this.huella = huella;
+        }
+        
+        void agregar(String identificador, int linea, int columna) {
+            ocurrencias.computeIfAbsent(identificador, k -> new Posiciones()).agregar(linea, columna);
+        }
+    }
+    
+    /**
+     * Pares (linea, columna) en el orden en que aparecen en el archivo
+     */
+    private static class Posiciones {
+        int[] datos = new int[4];
+        int cantidad;
+        
+        void agregar(int linea, int columna) {
+            if (cantidad + 2 > datos.length) {
+                datos = Arrays.copyOf(datos, datos.length * 2);
+            }
+            datos[cantidad++] = linea;
+            datos[cantidad++] = columna;
+        }
+    }
+}
@@ -0,0 +1,256 @@
+package lsp;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Lectura y escritura minima de JSON para los mensajes del protocolo
+ * Los objetos se representan como Map, los arreglos como List, los numeros
+ * enteros como Long y los decimales como Double
+ */
+final class Json {
+    
+    private final String texto;
+    private int posicion;
+    
+    private Json(String texto) {
+        this.texto = texto;
+    }
+    
+    /**
+     * Interpreta un documento JSON
+     * @param texto Documento JSON
+     * @return Valor leido (Map, List, String, Long, Double, Boolean o null)
+     * @throws IllegalArgumentException Si el documento no es JSON valido
+     */
+    static Object leer(String texto) {
+        Json lector = new Json(texto);
+        lector.saltarEspacios();
+        Object valor = lector.leerValor();
+        lector.saltarEspacios();
+        if (lector.posicion != texto.length()) {
+            throw lector.error("Contenido despues del valor");
+        }
+        return valor;
+    }
+    
+    /**
+     * Convierte un valor a texto JSON
+     * @param valor Map, List, String, Number, Boolean o null
+     * @return Documento JSON
+     */
+    static String escribir(Object valor) {
+        StringBuilder sb = new StringBuilder();
+        escribir(valor, sb);
+        return sb.toString();
+    }
+    
+    private static void escribir(Object valor, StringBuilder sb) {
+        if (valor == null) {
+            sb.append("null");
+        } else if (valor instanceof String) {
+            escribirCadena((String) valor, sb);
+        } else if (valor instanceof Number || valor instanceof Boolean) {
+            sb.append(valor);
+        } else if (valor instanceof Map) {
+            sb.append('{');
+            boolean primero = true;
+            for (Map.Entry<?, ?> entrada : ((Map<?, ?>) valor).entrySet()) {
+                if (!primero) {
+                    sb.append(',');
+                }
+                escribirCadena(String.valueOf(entrada.getKey()), sb);
+                sb.append(':');
+                escribir(entrada.getValue(), sb);
+                primero = false;
+            }
+            sb.append('}');
+        } else if (valor instanceof List) {
+            sb.append('[');
+            boolean primero = true;
+            for (Object elemento : (List<?>) valor) {
+                if (!primero) {
+                    sb.append(',');
+                }
+                escribir(elemento, sb);
+                primero = false;
+            }
+            sb.append(']');
+        } else {
+            throw new IllegalArgumentException("Tipo no soportado en JSON: " + valor.getClass().getName());
+        }
+    }
+    
+    private static void escribirCadena(String cadena, StringBuilder sb) {
+        sb.append('"');
+        for (int i = 0; i < cadena.length(); i++) {
+            char c = cadena.charAt(i);
+            switch (c) {
+                case '"': sb.append("\\\""); break;
+                case '\\': sb.append("\\\\"); break;
+                case '\n': sb.append("\\n"); break;
+                case '\r': sb.append("\\r"); break;
+                case '\t': sb.append("\\t"); break;
+                default:
+                    if (c < 0x20) {
+                        sb.append(String.format("\\u%04x", (int) c));
+                    } else {
+                        sb.append(c);
+                    }
+            }
+        }
+        sb.append('"');
+    }
+    
+    private Object leerValor() {
+        if (posicion >= texto.length()) {
+            throw error("Fin inesperado");
+        }
+        char c = texto.charAt(posicion);
+        switch (c) {
+            case '{': return leerObjeto();
+            case '[': return leerArreglo();
+            case '"': return leerCadena();
+            case 't': return leerLiteral("true", Boolean.TRUE);
+            case 'f': return leerLiteral("false", Boolean.FALSE);
+            case 'n': return leerLiteral("null", null);
+            default: return leerNumero();
+        }
+    }
+    
+    private Map<String, Object> leerObjeto() {
+        Map<String, Object> objeto = new LinkedHashMap<>();
+        posicion++;
+        saltarEspacios();
+        if (consumir('}')) {
+            return objeto;
+        }
+        do {
+            saltarEspacios();
+            if (posicion >= texto.length() || texto.charAt(posicion) != '"') {
+                throw error("Se esperaba el nombre de un campo");
+            }
+            String nombre = leerCadena();
+            saltarEspacios();
+            if (!consumir(':')) {
+                throw error("Se esperaba ':'");
+            }
+            saltarEspacios();
+            objeto.put(nombre, leerValor());
+            saltarEspacios();
+        } while (consumir(','));
+        if (!consumir('}')) {
+            throw error("Se esperaba '}'");
+        }
+        return objeto;
+    }
+    
+    private List<Object> leerArreglo() {
+        List<Object> arreglo = new ArrayList<>();
+        posicion++;
+        saltarEspacios();
+        if (consumir(']')) {
+            return arreglo;
+        }
+        do {
+            saltarEspacios();
+            arreglo.add(leerValor());
+            saltarEspacios();
+        } while (consumir(','));
+        if (!consumir(']')) {
+            throw error("Se esperaba ']'");
+        }
+        return arreglo;
+    }
+    
+    private String leerCadena() {
+        StringBuilder sb = new StringBuilder();
+        posicion++;
+        while (posicion < texto.length()) {
+            char c = texto.charAt(posicion++);
+            if (c == '"') {
+                return sb.toString();
+            }
+            if (c != '\\') {
+                sb.append(c);
+                continue;
+            }
+            if (posicion >= texto.length()) {
+                break;
+            }
+            char escape = texto.charAt(posicion++);
+            switch (escape) {
+                case '"': sb.append('"'); break;
+                case '\\': sb.append('\\'); break;
+                case '/': sb.append('/'); break;
+                case 'b': sb.append('\b'); break;
+                case 'f': sb.append('\f'); break;
+                case 'n': sb.append('\n'); break;
+                case 'r': sb.append('\r'); break;
+                case 't': sb.append('\t'); break;
+                case 'u':
+                    if (posicion + 4 > texto.length()) {
+                        throw error("Escape \\u incompleto");
+                    }
+                    try {
+                        sb.append((char) Integer.parseInt(texto.substring(posicion, posicion + 4), 16));
+                    } catch (NumberFormatException e) {
+                        throw error("Escape \\u invalido");
+                    }
+                    posicion += 4;
+                    break;
+                default:
+                    throw error("Escape invalido: \\" + escape);
+            }
+        }
+        throw error("Cadena sin cerrar");
+    }
+    
+    private Object leerLiteral(String literal, Object valor) {
+        if (!texto.startsWith(literal, posicion)) {
+            throw error("Valor invalido");
+        }
+        posicion += literal.length();
+        return valor;
+    }
+    
+    private Object leerNumero() {
+        int inicio = posicion;
+        boolean decimal = false;
+        while (posicion < texto.length()) {
+            char c = texto.charAt(posicion);
+            if (c == '.' || c == 'e' || c == 'E') {
+                decimal = true;
+            } else if (!(Character.isDigit(c) || c == '-' || c == '+')) {
+                break;
+            }
+            posicion++;
+        }
+        String numero = texto.substring(inicio, posicion);
+        try {
+            return decimal ? (Object) Double.parseDouble(numero) : (Object) Long.parseLong(numero);
+        } catch (NumberFormatException e) {
+            throw error("Numero invalido: " + numero);
+        }
+    }
+    
+    private boolean consumir(char c) {
+        if (posicion < texto.length() && texto.charAt(posicion) == c) {
+            posicion++;
+            return true;
+        }
+        return false;
+    }
+    
+    private void saltarEspacios() {
+        while (posicion < texto.length() && Character.isWhitespace(texto.charAt(posicion))) {
+            posicion++;
+        }
+    }
+    
+    private IllegalArgumentException error(String mensaje) {
+        return new IllegalArgumentException(mensaje + " (posicion " + posicion + ")");
+    }
+}
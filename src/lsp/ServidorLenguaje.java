@@ -0,0 +1,673 @@
+package lsp;
+
+import analizador.AnalisisCancelado;
+import analizador.AnalizadorLexico;
+import analizador.AnalizadorSintactico;
+import analizador.IndiceLineas;
+import analizador.ManejadorErrores;
+import analizador.Cancelacion;
+import analizador.PlanificadorAnalisis;
+import analizador.PoolAnalizadores;
+import metricas.Metricas;
+import tokens.Token;
+import java.io.BufferedInputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Servidor del Language Server Protocol sobre entrada/salida estandar
+ * Mantiene los documentos abiertos en memoria, los vuelve a analizar despues
+ * de cada cambio y publica como diagnosticos los errores de ManejadorErrores,
+ * con el numero de CodigosError como codigo.
+ * Los cambios seguidos se agrupan con un retardo corto (debounce); un analisis
+ * pendiente se cancela cuando llega un cambio nuevo, y el resultado de un
+ * analisis que quedo desactualizado mientras corria se descarta.
+ * Los analisis se ejecutan en un PlanificadorAnalisis con prioridad interactiva
+ * y un plazo; un cambio nuevo cancela el analisis en curso del documento, que
+ * se detiene en la siguiente linea en lugar de terminar un resultado inutil.
+ * Si vence el plazo sin que haya llegado otro cambio, se avisa al cliente
+ * (window/logMessage) y el mismo analisis se repite sin plazo, de modo que un
+ * documento grande recibe sus diagnosticos aunque tarde mas que el plazo
+ */
+public class ServidorLenguaje {
+    
+    /** Retardo por defecto entre el ultimo cambio y el analisis, en milisegundos */
+    public static final int RETARDO_DEFECTO_MS = 20;
+    
+    /** Plazo de cada analisis desde que se envia al planificador, en milisegundos */
+    public static final long PLAZO_ANALISIS_MS = 2_000;
+    
+    // Tipo de mensaje de window/logMessage
+    private static final int MENSAJE_ADVERTENCIA = 2;
+    
+    // Codigos de error de JSON-RPC
+    private static final int ERROR_INTERPRETACION = -32700;
+    private static final int ERROR_METODO_NO_ENCONTRADO = -32601;
+    private static final int ERROR_PARAMETROS_INVALIDOS = -32602;
+    private static final int ERROR_NO_INICIALIZADO = -32002;
+    
+    // Modo de sincronizacion de documentos: cambios incrementales
+    private static final int SINCRONIZACION_INCREMENTAL = 2;
+    
+    private static final int SEVERIDAD_ERROR = 1;
+    
+    private final InputStream entrada;
+    private final OutputStream salida;
+    private final int retardoMs;
+    private final Map<String, Documento> documentos = new ConcurrentHashMap<>();
+    private final ScheduledExecutorService planificador;
+    private final PlanificadorAnalisis planificadorAnalisis;
+    
+    private boolean inicializado = false;
+    private boolean apagado = false;
+    
+    public ServidorLenguaje(InputStream entrada, OutputStream salida) {
+        this(entrada, salida, RETARDO_DEFECTO_MS);
+    }
+    
+    /**
+     * Constructor completo
+     * @param entrada Flujo de donde se leen los mensajes del cliente
+     * @param salida Flujo donde se escriben respuestas y notificaciones
+     * @param retardoMs Milisegundos a esperar despues del ultimo cambio
+     */
+    public ServidorLenguaje(InputStream entrada, OutputStream salida, int retardoMs) {
+        this(entrada, salida, retardoMs,
+             new PlanificadorAnalisis(Runtime.getRuntime().availableProcessors(), "analisis_lsp"));
+    }
+    
+    /**
+     * Constructor con un planificador compartido con otros modos
+     * @param entrada Flujo de donde se leen los mensajes del cliente
+     * @param salida Flujo donde se escriben respuestas y notificaciones
+     * @param retardoMs Milisegundos a esperar despues del ultimo cambio
+     * @param planificadorAnalisis Planificador donde se ejecutan los analisis
+     */
+    public ServidorLenguaje(InputStream entrada, OutputStream salida, int retardoMs,
+                            PlanificadorAnalisis planificadorAnalisis) {
+        this.entrada = new BufferedInputStream(entrada);
+        this.salida = salida;
+        this.retardoMs = retardoMs;
+        this.planificadorAnalisis = planificadorAnalisis;
+        
+        // Un solo hilo para los retardos; los analisis van al planificador
+        this.planificador = Executors.newSingleThreadScheduledExecutor(tarea -> {
+            Thread hilo = new Thread(tarea, "retardo-lsp");
+            hilo.setDaemon(true);
+            return hilo;
+        });
+    }
+    
+    /**
+     * Atiende mensajes hasta recibir "exit" o hasta que se cierre la entrada
+     * @return Codigo de salida: 0 si el cliente pidio shutdown antes de exit
+     * @throws IOException Si falla la lectura o escritura de mensajes
+     */
+    public int ejecutar() throws IOException {
+        try {
+            while (true) {
+                String mensaje = leerMensaje();
+                if (mensaje == null) {
+                    return 1;
+                }
+                
+                Object valor;
+                try {
+                    valor = Json.leer(mensaje);
+                } catch (IllegalArgumentException e) {
+                    enviarError(null, ERROR_INTERPRETACION, "JSON invalido: " + e.getMessage());
+                    continue;
+                }
+                if (!(valor instanceof Map)) {
+                    enviarError(null, ERROR_INTERPRETACION, "Se esperaba un objeto JSON");
+                    continue;
+                }
+                
+                @SuppressWarnings("unchecked")
+                Map<String, Object> solicitud = (Map<String, Object>) valor;
+                if ("exit".equals(solicitud.get("method"))) {
+                    return apagado ? 0 : 1;
+                }
+                try {
+                    atender(solicitud);
+                } catch (RuntimeException e) {
+                    // Un mensaje mal formado se rechaza sin detener el servidor
+                    Object id = solicitud.get("id");
+                    if (id != null) {
+                        enviarError(id, ERROR_PARAMETROS_INVALIDOS, "Parametros invalidos: " + e.getMessage());
+                    } else {
+                        System.err.println("Notificacion " + solicitud.get("method") + " descartada: " + e.getMessage());
+                    }
+                }
+            }
+        } finally {
+            planificador.shutdownNow();
+            planificadorAnalisis.detener();
+        }
+    }
+    
+    /**
+     * Despacha una solicitud o notificacion segun su metodo
+     * @throws IllegalArgumentException Si el mensaje no tiene la forma esperada
+     */
+    private void atender(Map<String, Object> solicitud) throws IOException {
+        Object id = solicitud.get("id");
+        Map<String, Object> parametros = objeto(solicitud.get("params"));
+        
+        if (solicitud.get("method") == null) {
+            // Respuesta del cliente a una solicitud del servidor: no se usan
+            return;
+        }
+        String metodo = cadena(solicitud, "method");
+        
+        if (!inicializado && !metodo.equals("initialize")) {
+            if (id != null) {
+                enviarError(id, ERROR_NO_INICIALIZADO, "El servidor no ha sido inicializado");
+            }
+            return;
+        }
+        
+        switch (metodo) {
+            case "initialize":
+                inicializado = true;
+                enviarResultado(id, capacidades());
+                break;
+            case "shutdown":
+                apagado = true;
+                cancelarTodo();
+                enviarResultado(id, null);
+                break;
+            case "textDocument/didOpen":
+                abrirDocumento(objeto(parametros.get("textDocument")));
+                break;
+            case "textDocument/didChange":
+                cambiarDocumento(parametros);
+                break;
+            case "textDocument/didClose":
+                cerrarDocumento(objeto(parametros.get("textDocument")));
+                break;
+            default:
+                // Las notificaciones desconocidas (initialized, $/cancelRequest, ...) se ignoran
+                if (id != null) {
+                    enviarError(id, ERROR_METODO_NO_ENCONTRADO, "Metodo no soportado: " + metodo);
+                }
+        }
+    }
+    
+    private Map<String, Object> capacidades() {
+        Map<String, Object> sincronizacion = new LinkedHashMap<>();
+        sincronizacion.put("openClose", Boolean.TRUE);
+        sincronizacion.put("change", SINCRONIZACION_INCREMENTAL);
+        
+        Map<String, Object> capacidades = new LinkedHashMap<>();
+        capacidades.put("textDocumentSync", sincronizacion);
+        
+        Map<String, Object> informacion = new LinkedHashMap<>();
+        informacion.put("name", "analizador-pascal");
+        
+        Map<String, Object> resultado = new LinkedHashMap<>();
+        resultado.put("capabilities", capacidades);
+        resultado.put("serverInfo", informacion);
+        return resultado;
+    }
+    
+    private void abrirDocumento(Map<String, Object> textoDocumento) {
+        String uri = cadena(textoDocumento, "uri");
+        Documento documento = new Documento(uri, cadena(textoDocumento, "text"));
+        Documento anterior = documentos.put(uri, documento);
+        if (anterior != null) {
+            anterior.cancelar();
+        }
+        programarAnalisis(documento, 0);
+    }
+    
+    private void cambiarDocumento(Map<String, Object> parametros) {
+        String uri = cadena(objeto(parametros.get("textDocument")), "uri");
+        Documento documento = documentos.get(uri);
+        if (documento == null) {
+            return;
+        }
+        
+        // Se validan todos los cambios antes de modificar el documento
+        Object cambios = parametros.get("contentChanges");
+        if (cambios instanceof List) {
+            String texto = documento.texto;
+            for (Object cambio : (List<?>) cambios) {
+                texto = Documento.aplicarCambio(texto, objeto(cambio));
+            }
+            documento.texto = texto;
+        }
+        programarAnalisis(documento, retardoMs);
+    }
+    
+    private void cerrarDocumento(Map<String, Object> textoDocumento) throws IOException {
+        String uri = cadena(textoDocumento, "uri");
+        Documento documento = documentos.remove(uri);
+        if (documento != null) {
+            documento.cancelar();
+            publicarDiagnosticos(uri, new ArrayList<>());
+        }
+    }
+    
+    private void cancelarTodo() {
+        for (Documento documento : documentos.values()) {
+            documento.cancelar();
+        }
+    }
+    
+    /**
+     * Reemplaza el analisis pendiente del documento por uno nuevo sobre su
+     * texto actual
+     */
+    private void programarAnalisis(Documento documento, int retardo) {
+        synchronized (documento) {
+            documento.detenerAnalisis();
+            long generacion = ++documento.generacion;
+            String texto = documento.texto;
+            documento.pendiente = planificador.schedule(
+                () -> enviarAnalisis(documento, generacion, texto, true), retardo, TimeUnit.MILLISECONDS);
+        }
+    }
+    
+    /**
+     * Pasado el retardo, envia el analisis al planificador
+     * @param conPlazo false para el reintento de un analisis cuyo plazo vencio;
+     *                 sigue pudiendo cancelarse con un cambio nuevo
+     */
+    private void enviarAnalisis(Documento documento, long generacion, String texto, boolean conPlazo) {
+        synchronized (documento) {
+            if (documento.estaDesactualizado(generacion)) {
+                return;
+            }
+            Cancelacion cancelacion = conPlazo ? Cancelacion.conPlazo(PLAZO_ANALISIS_MS, TimeUnit.MILLISECONDS)
+                                               : Cancelacion.sinPlazo();
+            documento.enCurso = cancelacion;
+            planificadorAnalisis.enviar(PlanificadorAnalisis.Prioridad.INTERACTIVA, cancelacion, () -> {
+                analizarYPublicar(documento, generacion, texto, cancelacion);
+                return null;
+            }).exceptionally(e -> {
+                // Cancelado o vencido antes de empezar
+                if (conPlazo) {
+                    plazoVencido(documento, generacion, texto);
+                }
+                return null;
+            });
+        }
+    }
+    
+    /**
+     * Un analisis con plazo se detuvo: si fue por un cambio nuevo no hay nada
+     * que hacer; si vencio el plazo, se avisa y se repite sin plazo
+     */
+    private void plazoVencido(Documento documento, long generacion, String texto) {
+        if (documento.estaDesactualizado(generacion)) {
+            return;
+        }
+        registrarMensaje(MENSAJE_ADVERTENCIA, "El analisis de " + documento.uri + " supero el plazo de "
+                         + PLAZO_ANALISIS_MS + " ms; se completa sin plazo");
+        enviarAnalisis(documento, generacion, texto, false);
+    }
+    
+    private void analizarYPublicar(Documento documento, long generacion, String texto, Cancelacion cancelacion) {
+        if (documento.estaDesactualizado(generacion)) {
+            return;
+        }
+        
+        List<Object> diagnosticos;
+        try {
+            diagnosticos = analizar(documento.uri, texto, cancelacion);
+        } catch (AnalisisCancelado e) {
+            // Un cambio nuevo ya programo otro analisis, o vencio el plazo
+            if (cancelacion.getLimiteNanos() != Long.MAX_VALUE) {
+                plazoVencido(documento, generacion, texto);
+            }
+            return;
+        } catch (RuntimeException e) {
+            System.err.println("Error al analizar " + documento.uri + ": " + e);
+            return;
+        }
+        
+        // Si hubo cambios durante el analisis, el resultado ya no sirve
+        if (documento.estaDesactualizado(generacion)) {
+            return;
+        }
+        try {
+            publicarDiagnosticos(documento.uri, diagnosticos);
+        } catch (IOException e) {
+            System.err.println("Error al publicar diagnosticos: " + e.getMessage());
+        }
+    }
+    
+    /**
+     * Ejecuta el analisis lexico y sintactico sobre el texto en memoria
+     * @param uri Documento analizado (su nombre se usa para validar program)
+     * @param texto Contenido actual del documento
+     * @return Diagnosticos en formato LSP
+     */
+    List<Object> analizar(String uri, String texto) {
+        return analizar(uri, texto, Cancelacion.NINGUNA);
+    }
+    
+    /**
+     * Ejecuta el analisis sobre el texto en memoria, deteniendolo si se cancela
+     * @param uri Documento analizado (su nombre se usa para validar program)
+     * @param texto Contenido actual del documento
+     * @param cancelacion Cancelacion y plazo del analisis
+     * @return Diagnosticos en formato LSP
+     * @throws AnalisisCancelado Si el analisis se cancelo o vencio su plazo
+     */
+    List<Object> analizar(String uri, String texto, Cancelacion cancelacion) {
+        Metricas metricas = Metricas.getGlobal();
+        IndiceLineas indice = IndiceLineas.construir(texto);
+        ManejadorErrores manejadorErrores = new ManejadorErrores(nombreArchivo(uri));
+        try (PoolAnalizadores analizadores = PoolAnalizadores.tomar()) {
+            long inicio = System.nanoTime();
+            AnalizadorLexico analizadorLexico = analizadores.getAnalizadorLexico(manejadorErrores);
+            analizadorLexico.setCancelacion(cancelacion);
+            analizadorLexico.analizar(indice);
+            long finLexico = System.nanoTime();
+            List<Token> tokens = analizadorLexico.getAlmacenTokens().comoLista();
+            AnalizadorSintactico analizadorSintactico = analizadores.getAnalizadorSintactico(manejadorErrores);
+            analizadorSintactico.setCancelacion(cancelacion);
+            analizadorSintactico.analizar(indice, tokens);
+            metricas.registrarFase(Metricas.Fase.LEXICO, finLexico - inicio);
+            metricas.registrarFase(Metricas.Fase.SINTACTICO, System.nanoTime() - finLexico);
+            metricas.registrarArchivo(texto.length(), tokens.size());
+        }
+        
+        List<Object> diagnosticos = new ArrayList<>();
+        for (ManejadorErrores.ErrorInfo error : manejadorErrores.getErrores()) {
+            metricas.registrarError(error.getNumeroError());
+            diagnosticos.add(diagnostico(error, indice));
+        }
+        return diagnosticos;
+    }
+    
+    /**
+     * Convierte un error en un diagnostico que cubre toda su linea
+     * Los errores sin linea se muestran en la primera linea
+     */
+    private static Map<String, Object> diagnostico(ManejadorErrores.ErrorInfo error, IndiceLineas indice) {
+        int numeroLinea = error.getNumeroLinea();
+        if (numeroLinea < 1 || numeroLinea > indice.getTotalLineas()) {
+            numeroLinea = 1;
+        }
+        int longitud = indice.getFinLinea(numeroLinea) - indice.getInicioLinea(numeroLinea);
+        if (longitud > 0 && indice.getContenido().charAt(indice.getFinLinea(numeroLinea) - 1) == '\r') {
+            longitud--;
+        }
+        
+        Map<String, Object> rango = new LinkedHashMap<>();
+        rango.put("start", posicion(numeroLinea - 1, 0));
+        rango.put("end", posicion(numeroLinea - 1, longitud));
+        
+        Map<String, Object> diagnostico = new LinkedHashMap<>();
+        diagnostico.put("range", rango);
+        diagnostico.put("severity", SEVERIDAD_ERROR);
+        diagnostico.put("code", error.getNumeroError());
+        diagnostico.put("source", "pascal");
+        diagnostico.put("message", error.getDescripcion());
+        return diagnostico;
+    }
+    
+    private static Map<String, Object> posicion(int linea, int caracter) {
+        Map<String, Object> posicion = new LinkedHashMap<>();
+        posicion.put("line", linea);
+        posicion.put("character", caracter);
+        return posicion;
+    }
+    
+    /**
+     * Obtiene el nombre del archivo de un URI (ej: file:///src/calendario.pas)
+     */
+    private static String nombreArchivo(String uri) {
+        String ruta = uri;
+        try {
+            String decodificada = URI.create(uri).getPath();
+            if (decodificada != null) {
+                ruta = decodificada;
+            }
+        } catch (IllegalArgumentException e) {
+            // URI no estandar: se usa tal cual
+        }
+        return ruta.substring(ruta.lastIndexOf('/') + 1);
+    }
+    
+    private void publicarDiagnosticos(String uri, List<Object> diagnosticos) throws IOException {
+        Map<String, Object> parametros = new LinkedHashMap<>();
+        parametros.put("uri", uri);
+        parametros.put("diagnostics", diagnosticos);
+        
+        Map<String, Object> notificacion = new LinkedHashMap<>();
+        notificacion.put("jsonrpc", "2.0");
+        notificacion.put("method", "textDocument/publishDiagnostics");
+        notificacion.put("params", parametros);
+        enviar(notificacion);
+    }
+    
+    /**
+     * Envia un mensaje al registro del cliente (window/logMessage)
+     */
+    private void registrarMensaje(int tipo, String mensaje) {
+        Map<String, Object> parametros = new LinkedHashMap<>();
+        parametros.put("type", tipo);
+        parametros.put("message", mensaje);
+        
+        Map<String, Object> notificacion = new LinkedHashMap<>();
+        notificacion.put("jsonrpc", "2.0");
+        notificacion.put("method", "window/logMessage");
+        notificacion.put("params", parametros);
+        try {
+            enviar(notificacion);
+        } catch (IOException e) {
+            System.err.println(mensaje);
+        }
+    }
+    
+    private void enviarResultado(Object id, Object resultado) throws IOException {
+        Map<String, Object> respuesta = new LinkedHashMap<>();
+        respuesta.put("jsonrpc", "2.0");
+        respuesta.put("id", id);
+        respuesta.put("result", resultado);
+        enviar(respuesta);
+    }
+    
+    private void enviarError(Object id, int codigo, String mensaje) throws IOException {
+        Map<String, Object> error = new LinkedHashMap<>();
+        error.put("code", codigo);
+        error.put("message", mensaje);
+        
+        Map<String, Object> respuesta = new LinkedHashMap<>();
+        respuesta.put("jsonrpc", "2.0");
+        respuesta.put("id", id);
+        respuesta.put("error", error);
+        enviar(respuesta);
+    }
+    
+    /**
+     * Escribe un mensaje con su encabezado Content-Length
+     * Sincronizado porque responden tanto el hilo lector como el de analisis
+     */
+    private synchronized void enviar(Map<String, Object> mensaje) throws IOException {
+        byte[] cuerpo = Json.escribir(mensaje).getBytes(StandardCharsets.UTF_8);
+        String encabezado = "Content-Length: " + cuerpo.length + "\r\n\r\n";
+        salida.write(encabezado.getBytes(StandardCharsets.US_ASCII));
+        salida.write(cuerpo);
+        salida.flush();
+    }
+    
+    /**
+     * Lee un mensaje completo segun su encabezado Content-Length
+     * @return Cuerpo del mensaje, o null si la entrada se cerro
+     */
+    private String leerMensaje() throws IOException {
+        int longitud = -1;
+        while (true) {
+            String linea = leerLineaEncabezado();
+            if (linea == null) {
+                return null;
+            }
+            if (linea.isEmpty()) {
+                if (longitud >= 0) {
+                    break;
+                }
+                continue;
+            }
+            int separador = linea.indexOf(':');
+            if (separador > 0 && linea.substring(0, separador).trim().equalsIgnoreCase("Content-Length")) {
+                try {
+                    longitud = Integer.parseInt(linea.substring(separador + 1).trim());
+                } catch (NumberFormatException e) {
+                    throw new IOException("Content-Length invalido: " + linea);
+                }
+            }
+        }
+        
+        byte[] cuerpo = entrada.readNBytes(longitud);
+        if (cuerpo.length < longitud) {
+            throw new EOFException("Mensaje incompleto");
+        }
+        return new String(cuerpo, StandardCharsets.UTF_8);
+    }
+    
+    /**
+     * Lee una linea de encabezado terminada en \r\n (o \n)
+     * @return Linea sin el salto, o null al final de la entrada
+     */
+    private String leerLineaEncabezado() throws IOException {
+        StringBuilder linea = new StringBuilder();
+        int c;
+        while ((c = entrada.read()) != -1) {
+            if (c == '\n') {
+                int fin = linea.length();
+                if (fin > 0 && linea.charAt(fin - 1) == '\r') {
+                    linea.setLength(fin - 1);
+                }
+                return linea.toString();
+            }
+            linea.append((char) c);
+        }
+        return linea.length() > 0 ? linea.toString() : null;
+    }
+    
+    @SuppressWarnings("unchecked")
+    private static Map<String, Object> objeto(Object valor) {
+        return valor instanceof Map ? (Map<String, Object>) valor : new LinkedHashMap<>();
+    }
+    
+    /**
+     * Obtiene un campo de texto obligatorio de un objeto del mensaje
+     * @throws IllegalArgumentException Si el campo falta o no es una cadena
+     */
+    private static String cadena(Map<String, Object> objeto, String campo) {
+        Object valor = objeto.get(campo);
+        if (!(valor instanceof String)) {
+            throw new IllegalArgumentException("se esperaba una cadena en '" + campo + "'");
+        }
+        return (String) valor;
+    }
+    
+    /**
+     * Documento abierto en el editor
+     */
+    private static class Documento {
+        final String uri;
+        volatile String texto;
+        
+        // Cada cambio incrementa la generacion; un analisis solo publica si
+        // sigue siendo el de la generacion mas reciente
+        volatile long generacion;
+        ScheduledFuture<?> pendiente;
+        Cancelacion enCurso;
+        
+        Documento(String uri, String texto) {
+            this.uri = uri;
+            this.texto = texto != null ? texto : "";
+        }
+        
+        boolean estaDesactualizado(long generacionAnalisis) {
+            return generacion != generacionAnalisis;
+        }
+        
+        synchronized void cancelar() {
+            generacion++;
+            detenerAnalisis();
+        }
+        
+        /**
+         * Cancela el retardo pendiente y detiene el analisis enviado, si lo hay
+         */
+        synchronized void detenerAnalisis() {
+            if (pendiente != null) {
+                pendiente.cancel(false);
+                pendiente = null;
+            }
+            if (enCurso != null) {
+                enCurso.cancelar();
+                enCurso = null;
+            }
+        }
+        
+        /**
+         * Aplica un cambio: con "range" reemplaza ese rango, sin "range"
+         * reemplaza el documento completo
+         * @param actual Texto antes del cambio
+         * @param cambio Cambio recibido en didChange
+         * @return Texto despues del cambio
+         * @throws IllegalArgumentException Si el cambio no trae su texto
+         */
+        static String aplicarCambio(String actual, Map<String, Object> cambio) {
+            String nuevo = cadena(cambio, "text");
+            Object rango = cambio.get("range");
+            if (!(rango instanceof Map)) {
+                return nuevo;
+            }
+            
+            Map<String, Object> mapaRango = objeto(rango);
+            int inicio = desplazamiento(actual, objeto(mapaRango.get("start")));
+            int fin = Math.max(inicio, desplazamiento(actual, objeto(mapaRango.get("end"))));
+            return new StringBuilder(actual.length() - (fin - inicio) + nuevo.length())
+                .append(actual, 0, inicio).append(nuevo).append(actual, fin, actual.length()).toString();
+        }
+        
+        /**
+         * Convierte una posicion LSP (linea y caracter UTF-16, 0-based) en un
+         * desplazamiento del texto; las posiciones fuera del texto se limitan
+         */
+        private static int desplazamiento(String texto, Map<String, Object> posicion) {
+            int linea = entero(posicion.get("line"));
+            int caracter = entero(posicion.get("character"));
+            
+            int inicioLinea = 0;
+            for (int i = 0; i < linea; i++) {
+                int salto = texto.indexOf('\n', inicioLinea);
+                if (salto == -1) {
+                    return texto.length();
+                }
+                inicioLinea = salto + 1;
+            }
+            int finLinea = texto.indexOf('\n', inicioLinea);
+            if (finLinea == -1) {
+                finLinea = texto.length();
+            }
+            return inicioLinea + Math.min(Math.max(caracter, 0), finLinea - inicioLinea);
+        }
+        
+        private static int entero(Object valor) {
+            return valor instanceof Number ? ((Number) valor).intValue() : 0;
+        }
+    }
+}
@@ -1,7 +1,25 @@
 package main;
 
 import analizador.*;
+import tokens.AlmacenTokens;
+import tokens.AlmacenTokensDesbordable;
+import tokens.AlmacenTokensNativo;
+import tokens.ArchivoTokens;
+import tokens.Token;
 import java.io.File;
+import java.lang.foreign.Arena;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.nio.file.Paths;
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+import distribuido.Coordinador;
+import distribuido.Trabajador;
+import indice.ConsultaIndice;
+import indice.IndiceIdentificadores;
+import lsp.ServidorLenguaje;
+import metricas.ServidorMetricas;
+import java.util.List;
 
 /**
  * Javier Rojas Cordero
@@ -12,19 +30,163 @@ import java.io.File;
 public class Main {
     
     public static void main(String[] args) {
+        // En modo servidor la salida estandar es del protocolo, sin encabezado
+        if (args.length >= 1 && args[0].equals("--lsp")) {
+            if (args.length == 3 && args[1].equals("--metricas")) {
+                iniciarMetricas(args[2]);
+            } else if (args.length != 1) {
+                System.err.println("Uso: java -jar JavierRojasCorderoPY1C.jar --lsp [--metricas puerto]");
+                System.exit(1);
+            }
+            try {
+                System.exit(new ServidorLenguaje(System.in, System.out).ejecutar());
+            } catch (java.io.IOException e) {
+                System.err.println("Error de E/S en el servidor de lenguaje: " + e.getMessage());
+                System.exit(1);
+            }
+        }
+        
+        // Consulta del indice de identificadores: salida archivo:linea:columna, sin encabezado
+        if (args.length == 3 && args[0].equals("--buscar")) {
+            buscarIdentificador(args[1], args[2]);
+            return;
+        }
+        
+        // Proceso trabajador del analisis distribuido: sin salida por consola
+        if (args.length == 2 && args[0].equals("--trabajador")) {
+            ejecutarTrabajador(args[1]);
+            return;
+        }
+        
+        // Ejecucion de un programa compilado: la consola es del programa, sin encabezado
+        if (args.length == 2 && args[0].equals("--ejecutar")) {
+            ejecutarPrograma(args[1]);
+            return;
+        }
+        
         System.out.println("=== ANALIZADOR PASCAL ===");
         System.out.println("Javier Rojas Cordero");
         System.out.println("Proyecto: Compiladores - Analisis Lexico y Sintactico\n");
         
+        // Modo de observacion: analiza los .pas del directorio cada vez que cambian
+        if (args.length >= 1 && args[0].equals("--watch")) {
+            String directorio = ".";
+            for (int i = 1; i < args.length; i++) {
+                if (args[i].equals("--metricas") && i + 1 < args.length) {
+                    iniciarMetricas(args[++i]);
+                } else {
+                    directorio = args[i];
+                }
+            }
+            try {
+                new ObservadorFuentes(Paths.get(directorio), Runtime.getRuntime().availableProcessors(),
+                                      ObservadorFuentes.RETARDO_DEFECTO_MS).ejecutar();
+            } catch (java.io.IOException e) {
+                System.err.println("Error al observar el directorio " + directorio + ": " + e.getMessage());
+                System.exit(1);
+            }
+            return;
+        }
+        
+        // Modo por lotes: analiza todos los archivos y directorios indicados
+        if (args.length >= 2 && args[0].equals("--lote")) {
+            int fallidos;
+            try (ProveedorFuentes fuentes = ProveedorFuentes.abrir(Arrays.asList(args).subList(1, args.length))) {
+                ForkJoinPool pool = new ForkJoinPool(Runtime.getRuntime().availableProcessors());
+                ProcesadorLotes procesador = new ProcesadorLotes(pool, ProcesadorLotes.UMBRAL_FRAGMENTADO_DEFECTO);
+                fallidos = procesador.procesar(fuentes.getFuentes());
+            } catch (java.io.IOException e) {
+                System.err.println("Error al preparar el lote: " + e.getMessage());
+                System.exit(1);
+                return;
+            }
+            System.exit(fallidos == 0 ? 0 : 1);
+        }
+        
+        // Analiza solo los archivos cambiados respecto a una revision de git
+        if (args.length >= 1 && args[0].equals("--cambios")) {
+            analizarCambios(args);
+            return;
+        }
+        
+        // Mide el analisis con entradas patologicas y falla si crece mas que linealmente
+        if (args.length >= 1 && args[0].equals("--complejidad")) {
+            long semilla = System.nanoTime();
+            if (args.length == 2) {
+                try {
+                    semilla = Long.parseLong(args[1]);
+                } catch (NumberFormatException e) {
+                    System.err.println("Semilla invalida: " + args[1]);
+                    System.exit(1);
+                }
+            } else if (args.length != 1) {
+                System.err.println("Uso: java -jar JavierRojasCorderoPY1C.jar --complejidad [semilla]");
+                System.exit(1);
+            }
+            System.exit(new PruebaComplejidad(semilla).ejecutar() == 0 ? 0 : 1);
+        }
+        
+        // Crea o actualiza el indice de identificadores de las rutas indicadas
+        if (args.length >= 3 && args[0].equals("--indice")) {
+            actualizarIndice(args[1], Arrays.asList(args).subList(2, args.length));
+            return;
+        }
+        
+        // Coordinador del analisis distribuido entre procesos trabajadores
+        if (args.length >= 1 && args[0].equals("--coordinador")) {
+            ejecutarCoordinador(args);
+            return;
+        }
+        
+        // Compila el programa a un archivo .class
+        if (args.length == 2 && args[0].equals("--compilar")) {
+            compilarPrograma(args[1]);
+            return;
+        }
+        
+        // Separa opciones del nombre de archivo
+        boolean paralelo = false;
+        boolean memoriaNativa = false;
+        boolean archivoTokens = false;
+        PresupuestoMemoria presupuesto = null;
+        String nombreArchivo = null;
+        for (int i = 0; i < args.length; i++) {
+            String arg = args[i];
+            if (arg.equals("--paralelo")) {
+                paralelo = true;
+            } else if (arg.equals("--memoria-nativa")) {
+                memoriaNativa = true;
+            } else if (arg.equals("--tokens")) {
+                archivoTokens = true;
+            } else if (arg.equals("--presupuesto-memoria") && i + 1 < args.length) {
+                try {
+                    presupuesto = new PresupuestoMemoria(PresupuestoMemoria.interpretarTamano(args[++i]));
+                } catch (IllegalArgumentException e) {
+                    System.err.println("Error: " + e.getMessage());
+                    System.exit(1);
+                }
+            } else if (nombreArchivo == null) {
+                nombreArchivo = arg;
+            } else {
+                nombreArchivo = null;
+                break;
+            }
+        }
+        
         // Verifica argumentos de linea de comandos
-        if (args.length != 1) {
+        if (nombreArchivo == null) {
             System.err.println("Error: Debe proporcionar el nombre del archivo .pas");
-            System.err.println("Uso: java -jar JavierRojasCorderoPY1C.jar archivo.pas");
+            System.err.println("Uso: java -jar JavierRojasCorderoPY1C.jar [--paralelo] [--memoria-nativa] [--tokens]"
+                               + " [--presupuesto-memoria tamano] archivo.pas");
             System.err.println("Ejemplo: java -jar JavierRojasCorderoPY1C.jar calendario.pas");
             System.exit(1);
         }
         
-        String nombreArchivo = args[0];
+        // Los fragmentos en paralelo y la memoria nativa tienen su propio almacenamiento
+        if (presupuesto != null && (paralelo || memoriaNativa)) {
+            System.err.println("Error: --presupuesto-memoria no se puede combinar con --paralelo ni --memoria-nativa");
+            System.exit(1);
+        }
         
         // Verifica que el archivo tenga extension .pas
         if (!nombreArchivo.toLowerCase().endsWith(".pas")) {
@@ -48,7 +210,9 @@ public class Main {
             System.exit(1);
         }
         
-        try {
+        // En modo paralelo los hilos del pool leen el indice, por eso el Arena es compartido
+        try (Arena arena = !memoriaNativa ? null : paralelo ? Arena.ofShared() : Arena.ofConfined();
+             AlmacenTokensDesbordable desbordable = presupuesto != null ? presupuesto.crearAlmacen() : null) {
             System.out.println("Iniciando analisis del archivo: " + nombreArchivo);
             System.out.println("Tamano del archivo: " + archivo.length() + " bytes");
             System.out.println();
@@ -57,28 +221,62 @@ public class Main {
             LectorArchivos lector = new LectorArchivos();
             ManejadorErrores manejadorErrores = new ManejadorErrores(nombreArchivo);
             AnalizadorLexico analizadorLexico = new AnalizadorLexico(manejadorErrores);
+            AnalizadorLexicoParalelo analizadorParalelo = new AnalizadorLexicoParalelo(manejadorErrores);
             AnalizadorSintactico analizadorSintactico = new AnalizadorSintactico(manejadorErrores);
             
             // Lee el archivo
             System.out.println("1. Leyendo archivo...");
-            String contenido = lector.leerArchivo(nombreArchivo);
-            String[] lineas = contenido.split("\n");
-            System.out.println("   Archivo leido correctamente (" + lineas.length + " lineas)");
+            IndiceLineas indice = lector.leerFuente(nombreArchivo);
+            if (arena != null) {
+                indice = indice.enMemoriaNativa(arena);
+                analizadorLexico.setAlmacenTokens(new AlmacenTokensNativo(arena));
+                analizadorParalelo.setAlmacenTokens(new AlmacenTokensNativo(arena));
+                analizadorParalelo.setFragmentosEnMemoriaNativa(true);
+            }
+            if (desbordable != null) {
+                presupuesto.setIndice(indice);
+                presupuesto.setManejadorErrores(manejadorErrores);
+                analizadorLexico.setAlmacenTokens(desbordable);
+            }
+            int totalLineas = indice.getTotalLineas();
+            System.out.println("   Archivo leido correctamente (" + totalLineas + " lineas)");
             
             // Realiza analisis lexico
             System.out.println("2. Realizando analisis lexico...");
-            analizadorLexico.analizar(contenido);
-            int totalTokens = analizadorLexico.getTokens().size();
+            System.out.println("   Escaner de caracteres: " + EscanerCaracteres.getInstancia().getNombre());
+            AlmacenTokens almacen;
+            EstadisticasFuente estadisticas;
+            if (paralelo) {
+                analizadorParalelo.analizar(indice);
+                almacen = analizadorParalelo.getAlmacenTokens();
+                estadisticas = analizadorParalelo.getEstadisticas();
+            } else {
+                analizadorLexico.analizar(indice);
+                almacen = analizadorLexico.getAlmacenTokens();
+                estadisticas = analizadorLexico.getEstadisticas();
+            }
+            List<Token> tokens = almacen.comoLista();
+            int totalTokens = tokens.size();
             System.out.println("   Analisis lexico completado (" + totalTokens + " tokens procesados)");
+            if (desbordable != null) {
+                System.out.println("   Memoria estimada: " + desbordable.getMaximoEstimado() + " de "
+                                   + presupuesto.getLimiteBytes() + " bytes; segmentos de tokens en disco: "
+                                   + desbordable.getSegmentosEnDisco() + " (" + desbordable.getBytesEnDisco() + " bytes)");
+            }
+            if (archivoTokens) {
+                String nombreTokens = ArchivoTokens.generarNombre(nombreArchivo);
+                lector.escribirArchivoAtomico(nombreTokens, canal -> ArchivoTokens.escribir(almacen, canal));
+                System.out.println("   Archivo de tokens generado: " + nombreTokens);
+            }
             
             // Realiza analisis sintactico
             System.out.println("3. Realizando analisis sintactico...");
-            analizadorSintactico.analizar(contenido, analizadorLexico.getTokens());
+            analizadorSintactico.analizar(indice, tokens);
             System.out.println("   Analisis sintactico completado");
             
             // Genera archivo de errores
             System.out.println("4. Generando archivo de errores...");
-            manejadorErrores.generarArchivoErrores(contenido);
+            manejadorErrores.generarArchivoErrores(indice);
             System.out.println("   Archivo de errores generado: " + manejadorErrores.getNombreArchivoErrores());
             
             // Muestra resumen final
@@ -89,18 +287,27 @@ public class Main {
             if (totalErrores == 0) {
                 System.out.println("ANALISIS COMPLETADO SIN ERRORES");
                 System.out.println("  El codigo PASCAL es sintacticamente correcto");
-                System.out.println("  Total de lineas procesadas: " + lineas.length);
+                System.out.println("  Total de lineas procesadas: " + totalLineas);
                 System.out.println("  Total de tokens analizados: " + totalTokens);
             } else {
                 System.out.println("ANALISIS COMPLETADO CON ERRORES");
                 System.out.println("  Total de errores encontrados: " + totalErrores);
-                System.out.println("  Total de lineas procesadas: " + lineas.length);
+                System.out.println("  Total de lineas procesadas: " + totalLineas);
                 System.out.println("  Total de tokens analizados: " + totalTokens);
                 System.out.println();
                 System.out.println("  Revise el archivo de errores para mas detalles:");
                 System.out.println("  " + manejadorErrores.getNombreArchivoErrores());
             }
             
+            System.out.println();
+            System.out.println("=== ESTADISTICAS ===");
+            System.out.println("  Lineas de codigo: " + estadisticas.getLineasCodigo());
+            System.out.println("  Lineas de comentario: " + estadisticas.getLineasComentario());
+            System.out.println("  Lineas vacias: " + estadisticas.getLineasVacias());
+            System.out.println("  Identificadores: " + estadisticas.getIdentificadores());
+            System.out.println("  Linea mas larga: " + estadisticas.getLongitudMaximaLinea() + " caracteres");
+            System.out.println("  Anidamiento maximo: " + estadisticas.getProfundidadMaxima());
+            
             System.out.println();
             System.out.println("=== ARCHIVOS GENERADOS ===");
             System.out.println("Archivo de errores: " + manejadorErrores.getNombreArchivoErrores());
@@ -132,6 +339,238 @@ public class Main {
         }
     }
     
+    /**
+     * Ejecuta el coordinador: --coordinador [--trabajadores N] [--puerto P] [--plazo S] rutas...
+     */
+    private static void ejecutarCoordinador(String[] args) {
+        int trabajadores = Runtime.getRuntime().availableProcessors();
+        int puerto = 0;
+        int plazo = Coordinador.PLAZO_DEFECTO_SEGUNDOS;
+        List<String> rutas = new java.util.ArrayList<>();
+        try {
+            for (int i = 1; i < args.length; i++) {
+                if (args[i].equals("--trabajadores") && i + 1 < args.length) {
+                    trabajadores = Integer.parseInt(args[++i]);
+                } else if (args[i].equals("--puerto") && i + 1 < args.length) {
+                    puerto = Integer.parseInt(args[++i]);
+                } else if (args[i].equals("--plazo") && i + 1 < args.length) {
+                    plazo = Integer.parseInt(args[++i]);
+                } else {
+                    rutas.add(args[i]);
+                }
+            }
+        } catch (NumberFormatException e) {
+            System.err.println("Error: Valor numerico invalido - " + e.getMessage());
+            System.exit(1);
+        }
+        if (rutas.isEmpty() || plazo <= 0) {
+            System.err.println("Uso: java -jar JavierRojasCorderoPY1C.jar --coordinador [--trabajadores N] [--puerto P] [--plazo S] rutas...");
+            System.exit(1);
+        }
+        
+        try {
+            Coordinador coordinador = new Coordinador(ProcesadorLotes.buscarArchivos(rutas), trabajadores, puerto);
+            coordinador.setPlazoSegundos(plazo);
+            int sinAnalizar = coordinador.ejecutar(Paths.get("reporte-distribuido.err"));
+            System.exit(sinAnalizar == 0 ? 0 : 1);
+        } catch (java.io.IOException e) {
+            System.err.println("Error en el coordinador: " + e.getMessage());
+            System.exit(1);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            System.exit(1);
+        }
+    }
+    
+    /**
+     * Inicia el endpoint /metrics en formato Prometheus; termina el proceso si
+     * el puerto no es valido o no se puede abrir
+     * @param puerto Puerto TCP indicado en --metricas
+     */
+    private static void iniciarMetricas(String puerto) {
+        try {
+            ServidorMetricas servidor = ServidorMetricas.iniciar(Integer.parseInt(puerto));
+            System.err.println("Metricas en http://localhost:" + servidor.getPuerto() + "/metrics");
+        } catch (NumberFormatException e) {
+            System.err.println("Error: Puerto de metricas invalido - " + puerto);
+            System.exit(1);
+        } catch (java.io.IOException e) {
+            System.err.println("Error al iniciar el servidor de metricas: " + e.getMessage());
+            System.exit(1);
+        }
+    }
+    
+    /**
+     * Analiza los .pas cambiados y resume todos con los resultados guardados:
+     * --cambios (--base revision | --lista archivo) [--resultados archivo] [rutas...]
+     */
+    private static void analizarCambios(String[] args) {
+        String revision = null;
+        String lista = null;
+        String archivoResultados = "resultados-analisis.txt";
+        List<String> rutas = new java.util.ArrayList<>();
+        for (int i = 1; i < args.length; i++) {
+            if (args[i].equals("--base") && i + 1 < args.length) {
+                revision = args[++i];
+            } else if (args[i].equals("--lista") && i + 1 < args.length) {
+                lista = args[++i];
+            } else if (args[i].equals("--resultados") && i + 1 < args.length) {
+                archivoResultados = args[++i];
+            } else {
+                rutas.add(args[i]);
+            }
+        }
+        if ((revision == null) == (lista == null)) {
+            System.err.println("Uso: java -jar JavierRojasCorderoPY1C.jar --cambios (--base revision | --lista archivo)"
+                               + " [--resultados archivo] [rutas...]");
+            System.exit(1);
+        }
+        if (rutas.isEmpty()) {
+            rutas.add(".");
+        }
+        
+        int fallidos;
+        try {
+            java.util.Set<java.nio.file.Path> cambiados = revision != null
+                ? RevisionCambios.cambiadosDesde(revision)
+                : RevisionCambios.leerLista(Paths.get(lista));
+            // Con --base las rutas se guardan relativas a la raiz del repositorio
+            java.nio.file.Path raiz = revision != null ? RevisionCambios.raizRepositorio() : Paths.get("");
+            RevisionCambios revisionCambios = new RevisionCambios(new ForkJoinPool(Runtime.getRuntime().availableProcessors()),
+                                                                  raiz);
+            revisionCambios.cargar(Paths.get(archivoResultados));
+            fallidos = revisionCambios.actualizar(ProcesadorLotes.buscarArchivos(rutas), cambiados);
+            revisionCambios.guardar(Paths.get(archivoResultados));
+            revisionCambios.reportar();
+        } catch (java.io.IOException e) {
+            System.err.println("Error al analizar los cambios: " + e.getMessage());
+            System.exit(1);
+            return;
+        }
+        System.exit(fallidos == 0 ? 0 : 1);
+    }
+    
+    /**
+     * Crea o actualiza el indice de identificadores: --indice archivo.idx rutas...
+     * Solo se vuelven a analizar las fuentes que cambiaron desde la ultima vez
+     */
+    private static void actualizarIndice(String archivoIndice, List<String> rutas) {
+        long inicio = System.nanoTime();
+        try (ProveedorFuentes fuentes = ProveedorFuentes.abrir(rutas)) {
+            IndiceIdentificadores indice = IndiceIdentificadores.cargar(Paths.get(archivoIndice));
+            indice.actualizar(fuentes.getFuentes(), new ForkJoinPool(Runtime.getRuntime().availableProcessors()));
+            indice.guardar(Paths.get(archivoIndice));
+            System.out.println("Indice actualizado: " + archivoIndice + " (" + indice.getTotalArchivos()
+                               + " archivos, " + indice.getReanalizados() + " analizados, "
+                               + indice.getEliminados() + " eliminados, "
+                               + (System.nanoTime() - inicio) / 1_000_000 + " ms)");
+        } catch (java.io.IOException e) {
+            System.err.println("Error al actualizar el indice: " + e.getMessage());
+            System.exit(1);
+        }
+    }
+    
+    /**
+     * Muestra las ocurrencias de un identificador: --buscar archivo.idx identificador
+     */
+    private static void buscarIdentificador(String archivoIndice, String identificador) {
+        try (Arena arena = Arena.ofConfined()) {
+            ConsultaIndice consulta = ConsultaIndice.abrir(Paths.get(archivoIndice), arena);
+            List<ConsultaIndice.Ocurrencia> ocurrencias = consulta.buscar(identificador);
+            for (ConsultaIndice.Ocurrencia ocurrencia : ocurrencias) {
+                System.out.println(ocurrencia.getArchivo() + ":" + ocurrencia.getNumeroLinea() + ":"
+                                   + ocurrencia.getPosicionColumna());
+            }
+            if (ocurrencias.isEmpty()) {
+                System.exit(1);
+            }
+        } catch (java.io.IOException e) {
+            System.err.println("Error al leer el indice: " + e.getMessage());
+            System.exit(2);
+        }
+    }
+    
+    /**
+     * Compila un programa a <programa>.class: --compilar archivo.pas
+     */
+    private static void compilarPrograma(String nombreArchivo) {
+        try {
+            System.out.println("Clase generada: " + invocarCompilador("compilarArchivo", nombreArchivo));
+        } catch (java.io.IOException e) {
+            System.err.println("Error de E/S al compilar: " + e.getMessage());
+            System.exit(1);
+        } catch (RuntimeException e) {
+            throw e;
+        } catch (Exception e) {
+            System.err.println("Error de compilacion en " + nombreArchivo + ": " + e);
+            System.exit(1);
+        }
+    }
+    
+    /**
+     * Compila un programa y lo ejecuta en esta JVM: --ejecutar archivo.pas
+     */
+    private static void ejecutarPrograma(String nombreArchivo) {
+        try {
+            invocarCompilador("ejecutarArchivo", nombreArchivo);
+        } catch (java.io.IOException e) {
+            System.err.println("Error de E/S al compilar: " + e.getMessage());
+            System.exit(1);
+        } catch (RuntimeException e) {
+            throw e;
+        } catch (Exception e) {
+            System.err.println("Error de compilacion en " + nombreArchivo + ": " + e);
+            System.exit(1);
+        }
+    }
+    
+    /**
+     * Llama a un metodo estatico de compilador.CompiladorPascal. El compilador
+     * usa java.lang.classfile, que en JDK 23 es una API preview, por eso se
+     * compila aparte (src-compilador, ver build.xml) y se carga por reflexion:
+     * el resto del analizador no necesita --enable-preview
+     * @param metodo Nombre del metodo, que recibe el nombre del archivo
+     * @param nombreArchivo Archivo .pas
+     * @return Valor devuelto por el metodo
+     * @throws Exception Excepcion verificada del compilador (ErrorCompilacion o IOException)
+     */
+    private static Object invocarCompilador(String metodo, String nombreArchivo) throws Exception {
+        Method llamada;
+        try {
+            llamada = Class.forName("compilador.CompiladorPascal").getMethod(metodo, String.class);
+        } catch (ReflectiveOperationException | LinkageError e) {
+            System.err.println("El compilador no esta disponible: " + e);
+            System.err.println("Requiere JDK 23 y ejecutar con --enable-preview");
+            System.exit(1);
+            return null;
+        }
+        try {
+            return llamada.invoke(null, nombreArchivo);
+        } catch (InvocationTargetException e) {
+            if (e.getCause() instanceof Error error) {
+                throw error;
+            }
+            throw (Exception) e.getCause();
+        }
+    }
+    
+    /**
+     * Ejecuta un trabajador conectado al coordinador en host:puerto
+     */
+    private static void ejecutarTrabajador(String direccion) {
+        int separador = direccion.lastIndexOf(':');
+        try {
+            new Trabajador(direccion.substring(0, separador), Integer.parseInt(direccion.substring(separador + 1)))
+                .ejecutar();
+        } catch (NumberFormatException | StringIndexOutOfBoundsException e) {
+            System.err.println("Error: Direccion de coordinador invalida - " + direccion);
+            System.exit(1);
+        } catch (java.io.IOException e) {
+            System.err.println("Error en el trabajador: " + e.getMessage());
+            System.exit(1);
+        }
+    }
+    
     /**
      * Muestra informacion de ayuda sobre el uso del programa
      */
@@ -143,10 +582,34 @@ public class Main {
         System.out.println("  Detecta errores de sintaxis y genera reportes detallados");
         System.out.println();
         System.out.println("USO:");
-        System.out.println("  java -jar JavierRojasCorderoPY1C.jar <archivo.pas>");
+        System.out.println("  java -jar JavierRojasCorderoPY1C.jar [--paralelo] [--memoria-nativa] [--tokens] <archivo.pas>");
         System.out.println();
         System.out.println("PARAMETROS:");
         System.out.println("  archivo.pas    Archivo fuente PASCAL a analizar");
+        System.out.println("  --paralelo     Analisis lexico en paralelo (archivos grandes)");
+        System.out.println("  --memoria-nativa  Tokens e indice de lineas fuera del heap");
+        System.out.println("  --tokens       Escribe los tokens en <archivo>.tok (binario, ver ArchivoTokens)");
+        System.out.println("  --presupuesto-memoria tamano  Limita la memoria estimada de tokens, lineas y");
+        System.out.println("                 errores (ej. 64m); los tokens que no caben van a un archivo temporal");
+        System.out.println("  --lsp          Servidor Language Server Protocol por stdin/stdout");
+        System.out.println("  --watch [dir]  Vuelve a analizar los .pas del directorio al guardarlos");
+        System.out.println("  --metricas puerto  Con --lsp o --watch, expone /metrics (Prometheus)");
+        System.out.println("  --lote rutas   Analiza varios archivos o directorios, los mas grandes primero");
+        System.out.println("                 (tambien las entradas .pas de archivos .zip, .jar y .pas.gz)");
+        System.out.println("  --cambios (--base rev | --lista archivo) [--resultados archivo] [rutas]");
+        System.out.println("                 Analiza solo los .pas cambiados desde rev (git diff) y reutiliza");
+        System.out.println("                 los resultados guardados de los demas en el resumen");
+        System.out.println("  --complejidad [semilla]  Mide el analisis con entradas patologicas de tamano");
+        System.out.println("                 creciente y falla si el tiempo no crece en forma lineal");
+        System.out.println("  --indice archivo.idx rutas  Crea o actualiza el indice de identificadores");
+        System.out.println("  --buscar archivo.idx nombre  Lista archivo:linea:columna de un identificador");
+        System.out.println("  --coordinador [--trabajadores N] [--puerto P] [--plazo S] rutas");
+        System.out.println("                 Reparte el analisis entre procesos trabajadores; un trabajador");
+        System.out.println("                 sin responder S segundos pierde su fragmento (300 por defecto)");
+        System.out.println("  --trabajador host:puerto  Trabajador conectado a un coordinador");
+        System.out.println("  --compilar archivo.pas  Compila el programa a <programa>.class (JVM);");
+        System.out.println("                          requiere JDK 23 con --enable-preview");
+        System.out.println("  --ejecutar archivo.pas  Compila el programa y lo ejecuta (igual que --compilar)");
         System.out.println();
         System.out.println("EJEMPLOS:");
         System.out.println("  java -jar JavierRojasCorderoPY1C.jar calendario.pas");
@@ -154,6 +617,8 @@ public class Main {
         System.out.println();
         System.out.println("ARCHIVOS DE SALIDA:");
         System.out.println("  <archivo>-errores.err    Reporte de errores encontrados");
+        System.out.println("  <archivo>.tok            Tokens en formato binario (con --tokens)");
+        System.out.println("  <programa>.class         Programa compilado (con --compilar)");
         System.out.println();
         System.out.println("REQUISITOS:");
         System.out.println("  • El archivo .pas debe estar en la misma carpeta que el .jar");
@@ -0,0 +1,253 @@
+package main;
+
+import analizador.AnalisisArchivo;
+import analizador.AnalisisCancelado;
+import analizador.Cancelacion;
+import analizador.PlanificadorAnalisis;
+import java.io.IOException;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.FileSystems;
+import java.nio.file.FileVisitResult;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.time.LocalTime;
+import java.time.format.DateTimeFormatter;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Modo --watch: observa un arbol de directorios y vuelve a analizar solo los
+ * archivos .pas que cambian, con la JVM residente.
+ * Los eventos que llegan seguidos (un editor suele generar varios por cada
+ * guardado) se agrupan hasta que pasa un intervalo sin eventos; luego cada
+ * archivo modificado se analiza una vez en el planificador, con prioridad de
+ * lote y un plazo. Si un archivo cambia mientras se analiza, el analisis en
+ * curso se cancela (se detiene en la siguiente linea) y se vuelve a empezar
+ * con el contenido nuevo. Si vence el plazo sin cambios nuevos, se avisa y
+ * el analisis se repite sin plazo, para que un archivo grande no quede
+ * sin resultado
+ */
+public class ObservadorFuentes {
+    
+    /** Intervalo sin eventos que cierra un grupo de cambios, en milisegundos */
+    public static final long RETARDO_DEFECTO_MS = 50;
+    
+    /** Plazo de cada analisis, en milisegundos */
+    public static final long PLAZO_ANALISIS_MS = 60_000;
+    
+    private static final DateTimeFormatter FORMATO_HORA = DateTimeFormatter.ofPattern("HH:mm:ss");
+    
+    private final Path raiz;
+    private final long retardoMs;
+    private final WatchService servicio;
+    private final PlanificadorAnalisis planificador;
+    private final Map<WatchKey, Path> directorios = new ConcurrentHashMap<>();
+    
+    // Estado por archivo: presente mientras se analiza o espera en el planificador
+    private final Map<Path, Estado> enProceso = new ConcurrentHashMap<>();
+    
+    /**
+     * Constructor
+     * @param raiz Directorio raiz a observar (incluye subdirectorios)
+     * @param hilos Cantidad de hilos de analisis
+     * @param retardoMs Intervalo sin eventos que cierra un grupo de cambios
+     * @throws IOException Si no se puede crear el servicio de observacion
+     */
+    public ObservadorFuentes(Path raiz, int hilos, long retardoMs) throws IOException {
+        this(raiz, new PlanificadorAnalisis(hilos, "analisis_watch"), retardoMs);
+    }
+    
+    /**
+     * Constructor con un planificador compartido con otros modos, donde las
+     * solicitudes interactivas pasan antes que los analisis del observador
+     * @param raiz Directorio raiz a observar (incluye subdirectorios)
+     * @param planificador Planificador donde se analizan los archivos
+     * @param retardoMs Intervalo sin eventos que cierra un grupo de cambios
+     * @throws IOException Si no se puede crear el servicio de observacion
+     */
+    public ObservadorFuentes(Path raiz, PlanificadorAnalisis planificador, long retardoMs) throws IOException {
+        this.raiz = raiz.toAbsolutePath().normalize();
+        this.retardoMs = retardoMs;
+        this.servicio = FileSystems.getDefault().newWatchService();
+        this.planificador = planificador;
+    }
+    
+    /**
+     * Registra el arbol y atiende eventos hasta que el proceso termine o se
+     * llame a detener()
+     * @throws IOException Si no se puede registrar el arbol de directorios
+     */
+    public void ejecutar() throws IOException {
+        registrarArbol(raiz);
+        System.out.println("Observando " + raiz + " (Ctrl+C para terminar)");
+        
+        try {
+            while (true) {
+                // Espera el primer evento y agrupa los que llegan despues
+                Set<Path> modificados = new LinkedHashSet<>();
+                WatchKey clave = servicio.take();
+                do {
+                    procesarEventos(clave, modificados);
+                    clave = servicio.poll(retardoMs, TimeUnit.MILLISECONDS);
+                } while (clave != null);
+                
+                for (Path archivo : modificados) {
+                    programar(archivo);
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (ClosedWatchServiceException e) {
+            // detener() cerro el servicio
+        } finally {
+            planificador.detener();
+        }
+    }
+    
+    /**
+     * Detiene la observacion
+     * @throws IOException Si falla el cierre del servicio
+     */
+    public void detener() throws IOException {
+        servicio.close();
+    }
+    
+    private void procesarEventos(WatchKey clave, Set<Path> modificados) {
+        Path directorio = directorios.get(clave);
+        for (WatchEvent<?> evento : clave.pollEvents()) {
+            if (evento.kind() == StandardWatchEventKinds.OVERFLOW || directorio == null) {
+                continue;
+            }
+            Path ruta = directorio.resolve((Path) evento.context());
+            
+            if (evento.kind() == StandardWatchEventKinds.ENTRY_CREATE && Files.isDirectory(ruta)) {
+                try {
+                    registrarArbol(ruta);
+                } catch (IOException e) {
+                    System.err.println("No se pudo observar " + ruta + ": " + e.getMessage());
+                }
+            } else if (esFuentePascal(ruta)) {
+                modificados.add(ruta);
+            }
+        }
+        
+        if (!clave.reset()) {
+            directorios.remove(clave);
+        }
+    }
+    
+    private static boolean esFuentePascal(Path ruta) {
+        return ruta.getFileName().toString().toLowerCase().endsWith(".pas") && Files.isRegularFile(ruta);
+    }
+    
+    private void registrarArbol(Path inicio) throws IOException {
+        Files.walkFileTree(inicio, new SimpleFileVisitor<Path>() {
+            @Override
+            public FileVisitResult preVisitDirectory(Path directorio, BasicFileAttributes atributos) throws IOException {
+                WatchKey clave = directorio.register(servicio,
+                    StandardWatchEventKinds.ENTRY_CREATE, StandardWatchEventKinds.ENTRY_MODIFY);
+                directorios.put(clave, directorio);
+                return FileVisitResult.CONTINUE;
+            }
+        });
+    }
+    
+    /**
+     * Envia un archivo al planificador; si ya se esta analizando cancela ese
+     * analisis y lo marca para repetirlo con el contenido nuevo
+     */
+    private void programar(Path archivo) {
+        Estado nuevo = new Estado();
+        Estado estado = enProceso.merge(archivo, nuevo, (actual, ignorado) -> {
+            actual.repetir = true;
+            actual.cancelacion.cancelar();
+            return actual;
+        });
+        if (estado == nuevo) {
+            enviar(archivo, nuevo);
+        }
+    }
+    
+    /**
+     * Envia el analisis al planificador con la cancelacion actual del estado.
+     * Si el planificador la descarta (cancelada o vencida antes de empezar),
+     * terminar() decide igual si hay que repetirla
+     */
+    private void enviar(Path archivo, Estado estado) {
+        Cancelacion cancelacion = estado.cancelacion;
+        planificador.enviar(PlanificadorAnalisis.Prioridad.LOTE, cancelacion, () -> {
+            analizar(archivo, cancelacion);
+            return null;
+        }).exceptionally(e -> {
+            terminar(archivo, cancelacion, true);
+            return null;
+        });
+    }
+    
+    private void analizar(Path archivo, Cancelacion cancelacion) {
+        boolean detenido = false;
+        try {
+            AnalisisArchivo resultado = AnalisisArchivo.ejecutar(archivo.toString(), cancelacion);
+            int errores = resultado.getManejadorErrores().getTotalErrores();
+            System.out.printf("[%s] %s: %d %s (%d ms)%n", LocalTime.now().format(FORMATO_HORA),
+                raiz.relativize(archivo), errores, errores == 1 ? "error" : "errores",
+                TimeUnit.NANOSECONDS.toMillis(resultado.getDuracionNanos()));
+        } catch (AnalisisCancelado e) {
+            // terminar() lo repite: con el contenido nuevo, o sin plazo si este vencio
+            detenido = true;
+        } catch (IOException e) {
+            System.err.println("Error al analizar " + archivo + ": " + e.getMessage());
+        } catch (RuntimeException e) {
+            System.err.println("Error inesperado al analizar " + archivo + ": " + e);
+        }
+        terminar(archivo, cancelacion, detenido);
+    }
+    
+    /**
+     * Termina un analisis: si hubo cambios durante el analisis se repite con
+     * un plazo nuevo; si vencio el plazo sin cambios se repite sin plazo; si
+     * no, el archivo deja de estar en proceso
+     * @param detenido true si el analisis se detuvo o se descarto sin terminar
+     */
+    private void terminar(Path archivo, Cancelacion cancelacion, boolean detenido) {
+        Estado siguiente = enProceso.compute(archivo, (ruta, actual) -> {
+            if (actual.repetir) {
+                actual.repetir = false;
+                actual.cancelacion = nuevaCancelacion();
+                return actual;
+            }
+            if (detenido && cancelacion.getLimiteNanos() != Long.MAX_VALUE) {
+                System.err.println("Analisis de " + raiz.relativize(archivo) + " supero el plazo de "
+                                   + PLAZO_ANALISIS_MS / 1000 + " s; se completa sin plazo");
+                actual.cancelacion = Cancelacion.sinPlazo();
+                return actual;
+            }
+            return null;
+        });
+        if (siguiente != null) {
+            enviar(archivo, siguiente);
+        }
+    }
+    
+    private static Cancelacion nuevaCancelacion() {
+        return Cancelacion.conPlazo(PLAZO_ANALISIS_MS, TimeUnit.MILLISECONDS);
+    }
+    
+    /**
+     * Analisis en curso de un archivo; se modifica dentro de compute/merge
+     * del mapa enProceso
+     */
+    private static class Estado {
+        volatile Cancelacion cancelacion = nuevaCancelacion();
+        volatile boolean repetir;
+    }
+}
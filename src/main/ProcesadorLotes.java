@@ -0,0 +1,324 @@
+package main;
+
+import analizador.AnalisisArchivo;
+import analizador.AnalizadorLexicoParalelo;
+import analizador.EscritorReportes;
+import analizador.FuenteEntrada;
+import analizador.LectorArchivos;
+import analizador.ManejadorErrores;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.stream.Stream;
+
+/**
+ * Modo --lote: analiza muchos archivos .pas con la JVM residente.
+ * Primero obtiene el tamano de todas las entradas y las despacha de mayor a
+ * menor a un ForkJoinPool, para que los archivos grandes empiecen primero y
+ * los pequenos llenen los huecos al final. Los archivos que superan el umbral
+ * se analizan por fragmentos en el mismo pool, de modo que los hilos libres
+ * roban fragmentos del archivo grande en lugar de quedar inactivos.
+ * Al terminar informa que parte del tiempo fue cola: el intervalo despues de
+ * que empezo el ultimo archivo, cuando ya no queda trabajo por repartir.
+ * Las entradas de archivos comprimidos no generan un .err propio: al final se
+ * escribe un reporte por archivo comprimido con los errores de cada entrada.
+ * Los .err se escriben en un EscritorReportes, asi los hilos del pool pasan
+ * al siguiente archivo sin esperar al disco
+ */
+public class ProcesadorLotes {
+    
+    /** Tamano a partir del cual un archivo se analiza por fragmentos (8 MB) */
+    public static final long UMBRAL_FRAGMENTADO_DEFECTO = 8L * AnalizadorLexicoParalelo.TAMANO_FRAGMENTO_DEFECTO;
+    
+    // Cantidad de archivos de la cola que se listan en el reporte
+    private static final int MAXIMO_REZAGADOS = 5;
+    
+    private final ForkJoinPool pool;
+    private final long umbralFragmentado;
+    private final List<Resultado> resultados = new ArrayList<>();
+    
+    /**
+     * Constructor
+     * @param pool Pool donde se analizan archivos y fragmentos
+     * @param umbralFragmentado Tamano en caracteres a partir del cual se divide un archivo
+     */
+    public ProcesadorLotes(ForkJoinPool pool, long umbralFragmentado) {
+        this.pool = pool;
+        this.umbralFragmentado = umbralFragmentado;
+    }
+    
+    /**
+     * Busca los archivos .pas de las rutas indicadas (archivos o directorios)
+     * @param rutas Rutas de entrada
+     * @return Archivos encontrados
+     * @throws IOException Si no se puede recorrer un directorio
+     */
+    public static List<Path> buscarArchivos(List<String> rutas) throws IOException {
+        List<Path> archivos = new ArrayList<>();
+        for (String ruta : rutas) {
+            Path path = Paths.get(ruta);
+            if (Files.isDirectory(path)) {
+                try (Stream<Path> recorrido = Files.walk(path)) {
+                    recorrido.filter(Files::isRegularFile)
+                             .filter(p -> p.getFileName().toString().toLowerCase().endsWith(".pas"))
+                             .forEach(archivos::add);
+                }
+            } else {
+                archivos.add(path);
+            }
+        }
+        return archivos;
+    }
+    
+    /**
+     * Analiza todas las fuentes, de mayor a menor, y muestra el resumen
+     * @param fuentes Fuentes a analizar (archivos o entradas de archivos comprimidos)
+     * @return Cantidad de fuentes que no se pudieron analizar
+     * @throws IOException Si no se puede escribir el reporte de un archivo comprimido
+     */
+    public int procesar(List<FuenteEntrada> fuentes) throws IOException {
+        List<Trabajo> trabajos = new ArrayList<>(fuentes.size());
+        Map<String, List<Trabajo>> porContenedor = new LinkedHashMap<>();
+        for (FuenteEntrada fuente : fuentes) {
+            Trabajo trabajo = new Trabajo(fuente);
+            trabajos.add(trabajo);
+            if (fuente.getContenedor() != null) {
+                porContenedor.computeIfAbsent(fuente.getContenedor(), c -> new ArrayList<>()).add(trabajo);
+            }
+        }
+        trabajos.sort(Comparator.comparingLong((Trabajo t) -> t.tamano).reversed());
+        
+        // Las tareas enviadas desde fuera del pool se toman en orden de envio
+        long inicioLote = System.nanoTime();
+        long esperaEscritura;
+        try (EscritorReportes escritor = new EscritorReportes()) {
+            List<ForkJoinTask<?>> tareas = new ArrayList<>(trabajos.size());
+            for (Trabajo trabajo : trabajos) {
+                tareas.add(pool.submit(() -> trabajo.ejecutar(inicioLote, escritor)));
+            }
+            for (ForkJoinTask<?> tarea : tareas) {
+                tarea.join();
+            }
+            esperaEscritura = escritor.getEsperaNanos();
+        }
+        long duracionLote = System.nanoTime() - inicioLote;
+        for (Trabajo trabajo : trabajos) {
+            trabajo.verificarEscritura();
+        }
+        
+        for (Map.Entry<String, List<Trabajo>> contenedor : porContenedor.entrySet()) {
+            escribirReporteContenedor(contenedor.getKey(), contenedor.getValue());
+        }
+        resultados.clear();
+        for (Trabajo trabajo : trabajos) {
+            ManejadorErrores errores = trabajo.errores;
+            resultados.add(new Resultado(trabajo.fuente.getNombre(), trabajo.tamano, trabajo.lineas,
+                                         errores != null ? errores.getTotalErrores() : -1));
+        }
+        return reportar(trabajos, duracionLote, esperaEscritura);
+    }
+    
+    /**
+     * Obtiene el resumen por fuente del ultimo lote, en orden de despacho
+     * @return Resultados del ultimo llamado a procesar
+     */
+    public List<Resultado> getResultados() {
+        return resultados;
+    }
+    
+    /**
+     * Escribe el reporte de un archivo comprimido junto a el, con los errores
+     * de cada entrada en el orden del archivo
+     */
+    private void escribirReporteContenedor(String contenedor, List<Trabajo> entradas) throws IOException {
+        int totalErrores = 0;
+        for (Trabajo trabajo : entradas) {
+            if (trabajo.errores != null) {
+                totalErrores += trabajo.errores.getTotalErrores();
+            }
+        }
+        
+        StringBuilder contenido = new StringBuilder();
+        contenido.append("REPORTE DEL ARCHIVO ").append(contenedor).append("\n");
+        contenido.append("====================\n");
+        contenido.append("Entradas: ").append(entradas.size()).append("\n");
+        contenido.append("Errores: ").append(totalErrores).append("\n");
+        for (Trabajo trabajo : entradas) {
+            contenido.append("\n").append(trabajo.fuente.getNombre());
+            if (trabajo.errores == null) {
+                contenido.append(" (no se pudo analizar: ").append(trabajo.falla).append(")\n");
+                continue;
+            }
+            contenido.append(" (").append(trabajo.lineas).append(" lineas, ")
+                     .append(trabajo.errores.getTotalErrores()).append(" errores)\n");
+            for (ManejadorErrores.ErrorInfo error : trabajo.errores.getErrores()) {
+                if (error.getNumeroLinea() > 0) {
+                    contenido.append(String.format("  Error %d. Linea %04d. %s\n", error.getNumeroError(),
+                                                   error.getNumeroLinea(), error.getDescripcion()));
+                } else {
+                    contenido.append(String.format("  Error %d. %s\n", error.getNumeroError(), error.getDescripcion()));
+                }
+            }
+        }
+        
+        int ultimoPunto = contenedor.lastIndexOf('.');
+        String reporte = (ultimoPunto > 0 ? contenedor.substring(0, ultimoPunto) : contenedor) + "-errores.err";
+        new LectorArchivos().escribirArchivoAtomico(reporte, contenido.toString());
+        System.out.println("Reporte generado: " + reporte + " (" + entradas.size() + " entradas, "
+                           + totalErrores + " errores)");
+    }
+    
+    private int reportar(List<Trabajo> trabajos, long duracionLote, long esperaEscritura) {
+        long bytes = 0;
+        int errores = 0;
+        int fallidos = 0;
+        long inicioUltimo = 0;
+        for (Trabajo trabajo : trabajos) {
+            bytes += trabajo.tamano;
+            inicioUltimo = Math.max(inicioUltimo, trabajo.inicio);
+            if (trabajo.errores != null) {
+                errores += trabajo.errores.getTotalErrores();
+            } else {
+                fallidos++;
+                System.err.println("Error al analizar " + trabajo.fuente.getNombre() + ": " + trabajo.falla);
+            }
+        }
+        
+        // Cola: desde que empezo el ultimo archivo hasta el final del lote
+        long cola = trabajos.isEmpty() ? 0 : duracionLote - inicioUltimo;
+        List<Trabajo> rezagados = new ArrayList<>();
+        for (Trabajo trabajo : trabajos) {
+            if (trabajo.fin > inicioUltimo) {
+                rezagados.add(trabajo);
+            }
+        }
+        rezagados.sort(Comparator.comparingLong((Trabajo t) -> t.fin).reversed());
+        
+        System.out.println("=== RESUMEN DEL LOTE ===");
+        System.out.println("  Archivos analizados: " + (trabajos.size() - fallidos) + " de " + trabajos.size());
+        System.out.println("  Bytes procesados: " + bytes);
+        System.out.println("  Errores encontrados: " + errores);
+        System.out.println("  Hilos: " + pool.getParallelism());
+        System.out.println("  Tiempo total: " + milisegundos(duracionLote) + " ms");
+        System.out.printf("  Tiempo en cola (rezagados): %d ms (%.1f%%)%n", milisegundos(cola),
+                          duracionLote > 0 ? 100.0 * cola / duracionLote : 0.0);
+        System.out.println("  Espera por escritura de reportes: " + milisegundos(esperaEscritura) + " ms");
+        for (int i = 0; i < Math.min(MAXIMO_REZAGADOS, rezagados.size()); i++) {
+            Trabajo trabajo = rezagados.get(i);
+            System.out.println("    " + trabajo.fuente.getNombre() + " (" + trabajo.tamano + " bytes, "
+                               + milisegundos(trabajo.fin - trabajo.inicio) + " ms"
+                               + (trabajo.fragmentado ? ", por fragmentos" : "") + ")");
+        }
+        
+        return fallidos;
+    }
+    
+    private static long milisegundos(long nanos) {
+        return nanos / 1_000_000;
+    }
+    
+    /**
+     * Resumen de una fuente analizada en el lote
+     */
+    public static class Resultado {
+        private final String nombre;
+        private final long tamano;
+        private final int lineas;
+        private final int errores;
+        
+        public Resultado(String nombre, long tamano, int lineas, int errores) {
+            this.nombre = nombre;
+            this.tamano = tamano;
+            this.lineas = lineas;
+            this.errores = errores;
+        }
+        
+        public String getNombre() {
+            return nombre;
+        }
+        
+        public long getTamano() {
+            return tamano;
+        }
+        
+        public int getLineas() {
+            return lineas;
+        }
+        
+        /**
+         * @return Cantidad de errores, o -1 si la fuente no se pudo analizar
+         */
+        public int getErrores() {
+            return errores;
+        }
+        
+        public boolean esFallido() {
+            return errores < 0;
+        }
+    }
+    
+    /**
+     * Fuente del lote con sus tiempos relativos al inicio del lote.
+     * Del resultado solo se guardan los errores, para no retener el contenido
+     * de todas las fuentes hasta el final del lote
+     */
+    private class Trabajo {
+        final FuenteEntrada fuente;
+        final long tamano;
+        volatile long inicio;
+        volatile long fin;
+        volatile boolean fragmentado;
+        volatile ManejadorErrores errores;
+        volatile int lineas;
+        volatile Exception falla;
+        volatile CompletableFuture<Void> escritura;
+        
+        Trabajo(FuenteEntrada fuente) {
+            this.fuente = fuente;
+            this.tamano = fuente.getTamano();
+        }
+        
+        void ejecutar(long inicioLote, EscritorReportes escritor) {
+            inicio = System.nanoTime() - inicioLote;
+            // Aproximado: el umbral se aplica sobre caracteres y tamano esta en bytes
+            fragmentado = tamano > umbralFragmentado;
+            try {
+                AnalisisArchivo resultado = AnalisisArchivo.ejecutar(fuente, pool, umbralFragmentado, escritor);
+                lineas = resultado.getIndice().getTotalLineas();
+                errores = resultado.getManejadorErrores();
+                escritura = resultado.getEscritura();
+            } catch (IOException | RuntimeException e) {
+                falla = e;
+            }
+            fin = System.nanoTime() - inicioLote;
+        }
+        
+        /**
+         * Marca como fallido el trabajo cuyo reporte no se pudo escribir;
+         * se llama despues de cerrar el escritor
+         */
+        void verificarEscritura() {
+            if (escritura == null) {
+                return;
+            }
+            try {
+                escritura.join();
+            } catch (CompletionException e) {
+                errores = null;
+                Throwable causa = e.getCause() instanceof UncheckedIOException es ? es.getCause() : e.getCause();
+                falla = causa instanceof Exception ex ? ex : e;
+            }
+        }
+    }
+}
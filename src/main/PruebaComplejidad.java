@@ -0,0 +1,264 @@
+package main;
+
+import analizador.AnalizadorLexico;
+import analizador.AnalizadorSintactico;
+import analizador.IndiceLineas;
+import analizador.ManejadorErrores;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.IntFunction;
+
+/**
+ * Modo --complejidad: genera entradas patologicas (lineas muy largas, rachas
+ * de comillas, #, comas y dos puntos) de tamano creciente, mide el tiempo de
+ * los analisis lexico y sintactico en memoria y falla si el tiempo crece mas
+ * rapido que el tamano.
+ * Cada caso se mide con tamanos que se duplican; el exponente de crecimiento
+ * es la pendiente de log(tiempo) contra log(tamano) por minimos cuadrados
+ * (1 es lineal, 2 cuadratico) y debe quedar por debajo de EXPONENTE_MAXIMO. Una medicion que supera el
+ * tiempo limite, o que termina con una excepcion (por ejemplo la pila agotada
+ * por una expresion regular recursiva), cuenta como falla
+ */
+public class PruebaComplejidad {
+    
+    /** Exponente de crecimiento maximo aceptado; deja margen para el ruido de la medicion */
+    public static final double EXPONENTE_MAXIMO = 1.4;
+    
+    /** Tamano menor de la linea patologica, en caracteres */
+    public static final int TAMANO_INICIAL = 20_000;
+    
+    /** Cantidad de tamanos medidos por caso; cada uno duplica al anterior */
+    public static final int PASOS = 4;
+    
+    /** Tiempo maximo de una medicion, en segundos */
+    public static final long LIMITE_SEGUNDOS = 20;
+    
+    private static final int REPETICIONES = 5;
+    
+    // Cada repeticion analiza la entrada las veces necesarias para durar al
+    // menos esto, de modo que las entradas chicas no queden en el ruido del reloj
+    private static final long DURACION_MINIMA_NANOS = TimeUnit.MILLISECONDS.toNanos(20);
+    
+    private final long semilla;
+    private final List<Caso> casos = new ArrayList<>();
+    
+    // Hilo propio para abandonar una medicion que no termina
+    private ExecutorService ejecutor = nuevoEjecutor();
+    
+    /**
+     * Constructor
+     * @param semilla Semilla de los casos aleatorios, para repetir una falla
+     */
+    public PruebaComplejidad(long semilla) {
+        this.semilla = semilla;
+        agregarCasos();
+    }
+    
+    private static ExecutorService nuevoEjecutor() {
+        return Executors.newSingleThreadExecutor(tarea -> {
+            Thread hilo = new Thread(tarea, "prueba-complejidad");
+            hilo.setDaemon(true);
+            return hilo;
+        });
+    }
+    
+    /**
+     * Casos patologicos: cada uno arma una linea de n caracteres y la ubica
+     * en la seccion del programa donde se aplican las reglas que la recorren
+     */
+    private void agregarCasos() {
+        casos.add(new Caso("comillas", n -> enCuerpo(repetir("'", n))));
+        casos.add(new Caso("comillas impares", n -> enCuerpo("'" + repetir("''", n / 2))));
+        casos.add(new Caso("numerales", n -> enCuerpo(repetir("#", n))));
+        casos.add(new Caso("caracteres especiales", n -> enCuerpo(repetir("'a'#1", n / 5))));
+        casos.add(new Caso("especiales sin cierre", n -> enCuerpo(repetir("#1'", n / 3))));
+        casos.add(new Caso("digitos tras numeral", n -> enCuerpo("#" + repetir("1", n - 2) + "x")));
+        casos.add(new Caso("comas", n -> enUses(repetir(",", n))));
+        casos.add(new Caso("letras sin coma", n -> enUses(repetir("a", n))));
+        casos.add(new Caso("letras y comas", n -> enUses(repetir("a,", n / 2))));
+        casos.add(new Caso("dos puntos", n -> enVar(repetir(":", n))));
+        casos.add(new Caso("espacios y dos puntos", n -> enVar(repetir(" ", n / 2) + ":" + repetir(" ", n / 2) + "x")));
+        casos.add(new Caso("dos puntos sin tipo", n -> enVar(repetir(" : x", n / 4))));
+        casos.add(new Caso("identificador sin tipo", n -> enVar(repetir("a", n) + " ;")));
+        casos.add(new Caso("identificadores y espacios", n -> enVar(repetir("a ", n / 2) + ": x")));
+        casos.add(new Caso("comparaciones", n -> enCuerpo("a" + repetir("<", n / 2) + repetir("1", n / 2) + "!")));
+        casos.add(new Caso("muchas lineas", n -> enCuerpo(repetir("x := 'a'#1, b: integer;\n", n / 24))));
+        
+        Random aleatorio = new Random(semilla);
+        for (int i = 0; i < 4; i++) {
+            long semillaCaso = aleatorio.nextLong();
+            casos.add(new Caso("aleatorio " + i, n -> enVar(aleatoria(new Random(semillaCaso), n))));
+        }
+    }
+    
+    /**
+     * Linea aleatoria sobre un alfabeto reducido a los caracteres que cambian
+     * el camino del analisis
+     */
+    private static String aleatoria(Random aleatorio, int n) {
+        String alfabeto = "'#,:;<=>.a1 ";
+        StringBuilder linea = new StringBuilder(n);
+        while (linea.length() < n) {
+            // Rachas del mismo caracter, que son las que provocan rescaneos
+            char c = alfabeto.charAt(aleatorio.nextInt(alfabeto.length()));
+            int racha = 1 + aleatorio.nextInt(64);
+            for (int i = 0; i < racha && linea.length() < n; i++) {
+                linea.append(c);
+            }
+        }
+        return linea.toString();
+    }
+    
+    private static String repetir(String texto, int veces) {
+        return texto.repeat(Math.max(veces, 0));
+    }
+    
+    private static String enCuerpo(String linea) {
+        return "program prueba;\nbegin\n" + linea + "\nend.\n";
+    }
+    
+    private static String enUses(String linea) {
+        return "program prueba;\nuses\n" + linea + "\nbegin\nend.\n";
+    }
+    
+    private static String enVar(String linea) {
+        return "program prueba;\nvar\n" + linea + "\nbegin\nend.\n";
+    }
+    
+    /**
+     * Mide todos los casos y muestra el exponente de crecimiento de cada uno
+     * @return Cantidad de casos con crecimiento no lineal
+     */
+    public int ejecutar() {
+        System.out.println("=== PRUEBA DE COMPLEJIDAD (semilla " + semilla + ") ===");
+        
+        // Calentamiento: compila en JIT los caminos comunes antes de medir
+        for (Caso caso : casos) {
+            try {
+                medirContenido(caso.generador.apply(TAMANO_INICIAL / 4));
+            } catch (TimeoutException | ExecutionException e) {
+                // La falla se informa al medir el caso
+            }
+        }
+        
+        int fallidos = 0;
+        for (Caso caso : casos) {
+            if (!medir(caso)) {
+                fallidos++;
+            }
+        }
+        ejecutor.shutdownNow();
+        
+        System.out.println();
+        System.out.println(fallidos == 0 ? "Todos los casos crecen en forma lineal"
+                                         : fallidos + " caso(s) con crecimiento no lineal");
+        return fallidos;
+    }
+    
+    private boolean medir(Caso caso) {
+        StringBuilder detalle = new StringBuilder();
+        double[] logTamanos = new double[PASOS];
+        double[] logTiempos = new double[PASOS];
+        int tamano = TAMANO_INICIAL;
+        for (int paso = 0; paso < PASOS; paso++, tamano *= 2) {
+            String contenido = caso.generador.apply(tamano);
+            // Que la basura del tamano anterior no se cobre en este
+            System.gc();
+            long nanos;
+            try {
+                nanos = medirContenido(contenido);
+            } catch (TimeoutException e) {
+                System.out.printf("  FALLA %-28s %s %d: mas de %d s%n", caso.nombre, detalle, tamano, LIMITE_SEGUNDOS);
+                return false;
+            } catch (ExecutionException e) {
+                System.out.printf("  FALLA %-28s %s %d: %s%n", caso.nombre, detalle, tamano, e.getCause());
+                return false;
+            }
+            detalle.append(tamano).append(':').append(TimeUnit.NANOSECONDS.toMicros(nanos)).append("us ");
+            logTamanos[paso] = Math.log(tamano);
+            logTiempos[paso] = Math.log(Math.max(nanos, 1));
+        }
+        
+        double exponente = pendiente(logTamanos, logTiempos);
+        boolean lineal = exponente <= EXPONENTE_MAXIMO;
+        System.out.printf("  %-5s %-28s exponente %.2f  %s%n", lineal ? "OK" : "FALLA", caso.nombre, exponente, detalle);
+        return lineal;
+    }
+    
+    /**
+     * Pendiente de la recta de minimos cuadrados
+     */
+    private static double pendiente(double[] x, double[] y) {
+        double mediaX = 0;
+        double mediaY = 0;
+        for (int i = 0; i < x.length; i++) {
+            mediaX += x[i] / x.length;
+            mediaY += y[i] / y.length;
+        }
+        double covarianza = 0;
+        double varianza = 0;
+        for (int i = 0; i < x.length; i++) {
+            covarianza += (x[i] - mediaX) * (y[i] - mediaY);
+            varianza += (x[i] - mediaX) * (x[i] - mediaX);
+        }
+        return covarianza / varianza;
+    }
+    
+    /**
+     * Mejor tiempo por analisis de varias repeticiones, para descartar pausas del GC
+     */
+    private long medirContenido(String contenido) throws TimeoutException, ExecutionException {
+        long mejor = Long.MAX_VALUE;
+        for (int i = 0; i < REPETICIONES; i++) {
+            Future<Long> medicion = ejecutor.submit(() -> {
+                int veces = 0;
+                long inicio = System.nanoTime();
+                long transcurrido;
+                do {
+                    analizar(contenido);
+                    veces++;
+                    transcurrido = System.nanoTime() - inicio;
+                } while (transcurrido < DURACION_MINIMA_NANOS);
+                return transcurrido / veces;
+            });
+            try {
+                mejor = Math.min(mejor, medicion.get(LIMITE_SEGUNDOS, TimeUnit.SECONDS));
+            } catch (TimeoutException e) {
+                // El hilo sigue ocupado con la medicion abandonada; se usa otro
+                ejecutor.shutdownNow();
+                ejecutor = nuevoEjecutor();
+                throw e;
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new TimeoutException("Interrumpido");
+            }
+        }
+        return mejor;
+    }
+    
+    private static void analizar(String contenido) {
+        IndiceLineas indice = IndiceLineas.construir(contenido);
+        ManejadorErrores manejadorErrores = new ManejadorErrores("prueba.pas");
+        AnalizadorLexico analizadorLexico = new AnalizadorLexico(manejadorErrores);
+        analizadorLexico.analizar(indice);
+        AnalizadorSintactico analizadorSintactico = new AnalizadorSintactico(manejadorErrores);
+        analizadorSintactico.analizar(indice, analizadorLexico.getAlmacenTokens().comoLista());
+    }
+    
+    private static class Caso {
+        final String nombre;
+        final IntFunction<String> generador;
+        
+        Caso(String nombre, IntFunction<String> generador) {
+            this.nombre = nombre;
+            this.generador = generador;
+        }
+    }
+}
@@ -0,0 +1,332 @@
+package main;
+
+import analizador.FuenteEntrada;
+import analizador.LectorArchivos;
+import analizador.ProveedorFuentes;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * Modo --cambios: analiza solo los .pas que cambiaron respecto a una revision
+ * de git (o los de una lista de archivos) y toma de un archivo de resultados
+ * guardados el resumen de los demas, de modo que el tiempo depende del tamano
+ * del cambio y no del repositorio.
+ * Un resultado guardado solo se reutiliza si el contenido de la fuente es el
+ * mismo con el que se obtuvo: se guarda su identificador de blob de git (SHA-1
+ * del contenido, el mismo que muestra git ls-files -s). Si la fecha de
+ * modificacion y el tamano coinciden se confia en el identificador guardado;
+ * si no, se recalcula leyendo el archivo. Asi los resultados siguen siendo
+ * validos al cambiar de rama o de copia de trabajo, y la primera ejecucion
+ * analiza todo.
+ *
+ * Formato del archivo de resultados (texto UTF-8), una fuente por linea con
+ * la ruta relativa a la raiz (separada con /) al final:
+ * <pre>
+ *   # resultados v2
+ *   blob TAB modificado TAB tamano TAB lineas TAB errores TAB ruta
+ * </pre>
+ * Un archivo de una version anterior se descarta y se vuelve a analizar todo
+ */
+public class RevisionCambios {
+    
+    static final String ENCABEZADO = "# resultados v2";
+    
+    private static final String PREFIJO_ENCABEZADO = "# resultados v";
+    
+    private final ForkJoinPool pool;
+    private final Path raiz;
+    private final Map<String, Guardado> guardados = new TreeMap<>();
+    
+    private int analizados;
+    private int reutilizados;
+    private int eliminados;
+    
+    /**
+     * Constructor
+     * @param pool Pool donde se analizan las fuentes cambiadas
+     * @param raiz Directorio respecto al cual se guardan las rutas (la raiz
+     *             del repositorio), para reutilizar los resultados en otra copia
+     */
+    public RevisionCambios(ForkJoinPool pool, Path raiz) {
+        this.pool = pool;
+        this.raiz = normalizar(raiz);
+    }
+    
+    /**
+     * Obtiene la raiz del repositorio de git del directorio actual
+     * @return Ruta absoluta de la raiz
+     * @throws IOException Si git falla o no se esta dentro de un repositorio
+     */
+    public static Path raizRepositorio() throws IOException {
+        return Paths.get(ejecutarGit(Paths.get(""), "rev-parse", "--show-toplevel").trim());
+    }
+    
+    /**
+     * Obtiene los .pas que cambiaron respecto a una revision: los que muestra
+     * git diff --name-only (incluidos los borrados) y los nuevos sin seguimiento
+     * @param revision Revision base, por ejemplo origin/main
+     * @return Rutas absolutas de los archivos cambiados
+     * @throws IOException Si git falla o no se esta dentro de un repositorio
+     */
+    public static Set<Path> cambiadosDesde(String revision) throws IOException {
+        Path raiz = raizRepositorio();
+        Set<Path> cambiados = new HashSet<>();
+        agregarPascal(cambiados, raiz, ejecutarGit(raiz, "diff", "--name-only", "-z", revision, "--"));
+        agregarPascal(cambiados, raiz, ejecutarGit(raiz, "ls-files", "--others", "--exclude-standard", "-z"));
+        return cambiados;
+    }
+    
+    /**
+     * Lee una lista de archivos cambiados, una ruta por linea
+     * @param lista Archivo con la lista
+     * @return Rutas absolutas de los archivos cambiados
+     * @throws IOException Si no se puede leer la lista
+     */
+    public static Set<Path> leerLista(Path lista) throws IOException {
+        Set<Path> cambiados = new HashSet<>();
+        for (String linea : Files.readAllLines(lista, StandardCharsets.UTF_8)) {
+            if (!linea.isBlank()) {
+                cambiados.add(normalizar(Paths.get(linea.trim())));
+            }
+        }
+        return cambiados;
+    }
+    
+    private static void agregarPascal(Set<Path> cambiados, Path raiz, String salida) {
+        for (String nombre : salida.split("\0")) {
+            if (nombre.toLowerCase().endsWith(".pas")) {
+                cambiados.add(normalizar(raiz.resolve(nombre)));
+            }
+        }
+    }
+    
+    /**
+     * Ejecuta git en un directorio y devuelve su salida estandar
+     */
+    private static String ejecutarGit(Path directorio, String... argumentos) throws IOException {
+        List<String> comando = new ArrayList<>();
+        comando.add("git");
+        comando.addAll(List.of(argumentos));
+        
+        Process proceso = new ProcessBuilder(comando)
+            .directory(directorio.toAbsolutePath().toFile())
+            .redirectError(ProcessBuilder.Redirect.INHERIT)
+            .start();
+        String salida = new String(proceso.getInputStream().readAllBytes(), StandardCharsets.UTF_8);
+        try {
+            if (proceso.waitFor() != 0) {
+                throw new IOException("git " + String.join(" ", argumentos) + " termino con codigo " + proceso.exitValue());
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrumpido esperando a git", e);
+        }
+        return salida;
+    }
+    
+    private static Path normalizar(Path ruta) {
+        return ruta.toAbsolutePath().normalize();
+    }
+    
+    /**
+     * Ruta con la que se guarda una fuente: relativa a la raiz y con /
+     */
+    private String clave(Path ruta) {
+        return raiz.relativize(ruta).toString().replace(ruta.getFileSystem().getSeparator(), "/");
+    }
+    
+    /**
+     * Calcula el identificador de blob de git del contenido de un archivo:
+     * SHA-1 de "blob tamano\0" seguido del contenido
+     * @param archivo Archivo a leer
+     * @return Identificador en hexadecimal
+     * @throws IOException Si no se puede leer el archivo
+     */
+    static String calcularBlob(Path archivo) throws IOException {
+        MessageDigest sha1;
+        try {
+            sha1 = MessageDigest.getInstance("SHA-1");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-1 no disponible", e);
+        }
+        sha1.update(("blob " + Files.size(archivo) + "\0").getBytes(StandardCharsets.US_ASCII));
+        byte[] bloque = new byte[64 * 1024];
+        try (InputStream entrada = Files.newInputStream(archivo)) {
+            int leidos;
+            while ((leidos = entrada.read(bloque)) > 0) {
+                sha1.update(bloque, 0, leidos);
+            }
+        }
+        return HexFormat.of().formatHex(sha1.digest());
+    }
+    
+    /**
+     * Carga los resultados guardados; si el archivo no existe no hay ninguno
+     * @param archivo Archivo de resultados
+     * @throws IOException Si el archivo existe pero no se puede leer o no tiene el formato esperado
+     */
+    public void cargar(Path archivo) throws IOException {
+        guardados.clear();
+        if (!Files.exists(archivo)) {
+            return;
+        }
+        List<String> lineas = Files.readAllLines(archivo, StandardCharsets.UTF_8);
+        if (lineas.isEmpty() || !lineas.get(0).startsWith(PREFIJO_ENCABEZADO)) {
+            throw new IOException("No es un archivo de resultados: " + archivo);
+        }
+        if (!lineas.get(0).equals(ENCABEZADO)) {
+            System.err.println("Resultados de otra version en " + archivo + "; se analiza todo");
+            return;
+        }
+        for (int i = 1; i < lineas.size(); i++) {
+            String[] campos = lineas.get(i).split("\t", 6);
+            if (campos.length != 6) {
+                throw new IOException("Linea " + (i + 1) + " invalida en " + archivo);
+            }
+            try {
+                ProcesadorLotes.Resultado resultado = new ProcesadorLotes.Resultado(campos[5],
+                    Long.parseLong(campos[2]), Integer.parseInt(campos[3]), Integer.parseInt(campos[4]));
+                guardados.put(campos[5], new Guardado(campos[0], Long.parseLong(campos[1]), resultado));
+            } catch (NumberFormatException e) {
+                throw new IOException("Linea " + (i + 1) + " invalida en " + archivo, e);
+            }
+        }
+    }
+    
+    /**
+     * Analiza las fuentes cambiadas, nuevas o con otro contenido, reutiliza
+     * los resultados guardados de las demas y olvida las que ya no estan
+     * @param archivos Todos los .pas que abarca la revision
+     * @param cambiados Archivos cambiados (los que no estan en archivos se ignoran)
+     * @return Cantidad de fuentes que no se pudieron analizar
+     * @throws IOException Si no se puede leer un archivo
+     */
+    public int actualizar(List<Path> archivos, Set<Path> cambiados) throws IOException {
+        Map<String, Guardado> anteriores = new TreeMap<>(guardados);
+        guardados.clear();
+        
+        List<FuenteEntrada> pendientes = new ArrayList<>();
+        // Clave e identificacion de cada fuente pendiente, por nombre de fuente
+        Map<String, Guardado> identidades = new HashMap<>();
+        for (Path archivo : archivos) {
+            Path ruta = normalizar(archivo);
+            String clave = clave(ruta);
+            FuenteEntrada fuente = ProveedorFuentes.deArchivo(ruta);
+            long modificado = Files.getLastModifiedTime(ruta).toMillis();
+            Guardado anterior = anteriores.remove(clave);
+            
+            boolean igual = false;
+            String blob = null;
+            if (anterior != null && anterior.resultado.getTamano() == fuente.getTamano() && !cambiados.contains(ruta)) {
+                if (anterior.modificado == modificado) {
+                    blob = anterior.blob;
+                } else {
+                    blob = calcularBlob(ruta);
+                }
+                igual = blob.equals(anterior.blob);
+            }
+            if (igual) {
+                guardados.put(clave, new Guardado(blob, modificado, anterior.resultado));
+            } else {
+                pendientes.add(fuente);
+                identidades.put(fuente.getNombre(), new Guardado(blob != null ? blob : calcularBlob(ruta), modificado,
+                    new ProcesadorLotes.Resultado(clave, fuente.getTamano(), 0, 0)));
+            }
+        }
+        eliminados = anteriores.size();
+        reutilizados = guardados.size();
+        analizados = pendientes.size();
+        if (pendientes.isEmpty()) {
+            return 0;
+        }
+        
+        ProcesadorLotes procesador = new ProcesadorLotes(pool, ProcesadorLotes.UMBRAL_FRAGMENTADO_DEFECTO);
+        int fallidos = procesador.procesar(pendientes);
+        for (ProcesadorLotes.Resultado resultado : procesador.getResultados()) {
+            // Las fuentes que fallaron no se guardan, para volver a analizarlas
+            Guardado identidad = identidades.get(resultado.getNombre());
+            if (!resultado.esFallido() && identidad != null) {
+                String clave = identidad.resultado.getNombre();
+                guardados.put(clave, new Guardado(identidad.blob, identidad.modificado,
+                    new ProcesadorLotes.Resultado(clave, resultado.getTamano(), resultado.getLineas(),
+                                                  resultado.getErrores())));
+            }
+        }
+        return fallidos;
+    }
+    
+    /**
+     * Escribe los resultados de forma atomica
+     * @param archivo Archivo de resultados
+     * @throws IOException Si hay error al escribir
+     */
+    public void guardar(Path archivo) throws IOException {
+        StringBuilder contenido = new StringBuilder(ENCABEZADO).append('\n');
+        for (Guardado guardado : guardados.values()) {
+            ProcesadorLotes.Resultado resultado = guardado.resultado;
+            contenido.append(guardado.blob).append('\t')
+                     .append(guardado.modificado).append('\t')
+                     .append(resultado.getTamano()).append('\t')
+                     .append(resultado.getLineas()).append('\t')
+                     .append(resultado.getErrores()).append('\t')
+                     .append(resultado.getNombre()).append('\n');
+        }
+        new LectorArchivos().escribirArchivoAtomico(archivo.toString(), contenido.toString());
+    }
+    
+    /**
+     * Muestra el resumen de todas las fuentes, analizadas y reutilizadas
+     */
+    public void reportar() {
+        long bytes = 0;
+        long lineas = 0;
+        long errores = 0;
+        int conErrores = 0;
+        for (Guardado guardado : guardados.values()) {
+            ProcesadorLotes.Resultado resultado = guardado.resultado;
+            bytes += resultado.getTamano();
+            lineas += resultado.getLineas();
+            errores += resultado.getErrores();
+            if (resultado.getErrores() > 0) {
+                conErrores++;
+            }
+        }
+        
+        System.out.println("=== RESUMEN CON CAMBIOS ===");
+        System.out.println("  Archivos: " + guardados.size() + " (" + analizados + " analizados, "
+                           + reutilizados + " reutilizados, " + eliminados + " eliminados)");
+        System.out.println("  Bytes: " + bytes);
+        System.out.println("  Lineas: " + lineas);
+        System.out.println("  Errores encontrados: " + errores + " en " + conErrores + " archivos");
+    }
+    
+    /**
+     * Resultado guardado de una fuente con la identificacion de su contenido
+     */
+    private static class Guardado {
+        final String blob;
+        final long modificado;
+        final ProcesadorLotes.Resultado resultado;
+        
+        Guardado(String blob, long modificado, ProcesadorLotes.Resultado resultado) {
+            this.blob = blob;
+            this.modificado = modificado;
+            this.resultado = resultado;
+        }
+    }
+}
@@ -0,0 +1,90 @@
+package metricas;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Histograma de latencias con cubetas log-lineales, al estilo HdrHistogram:
+ * cada potencia de dos se divide en SUBCUBETAS cubetas iguales, de modo que
+ * el error relativo de un percentil es menor a 1/SUBCUBETAS (~3%) en todo el
+ * rango de un long.
+ * Registrar es un incremento atomico sin bloqueos; los percentiles se calculan
+ * sobre una lectura de las cubetas que no detiene a los hilos que registran
+ */
+public class Histograma {
+    
+    private static final int BITS_SUBCUBETA = 5;
+    private static final int SUBCUBETAS = 1 << BITS_SUBCUBETA;
+    private static final int CUBETAS = (64 - BITS_SUBCUBETA) * SUBCUBETAS;
+    
+    private final AtomicLongArray cubetas = new AtomicLongArray(CUBETAS);
+    private final LongAdder cantidad = new LongAdder();
+    private final LongAdder suma = new LongAdder();
+    
+    /**
+     * Registra un valor; los negativos se cuentan como cero
+     * @param valor Valor a registrar (por ejemplo nanosegundos)
+     */
+    public void registrar(long valor) {
+        long positivo = Math.max(0, valor);
+        cubetas.incrementAndGet(indice(positivo));
+        cantidad.increment();
+        suma.add(positivo);
+    }
+    
+    private static int indice(long valor) {
+        if (valor < SUBCUBETAS) {
+            return (int) valor;
+        }
+        int exponente = 63 - Long.numberOfLeadingZeros(valor);
+        int desplazamiento = exponente - BITS_SUBCUBETA;
+        return (desplazamiento + 1) * SUBCUBETAS + (int) (valor >>> desplazamiento) - SUBCUBETAS;
+    }
+    
+    /**
+     * Mayor valor que cae en la cubeta indicada
+     */
+    private static long maximoCubeta(int indice) {
+        if (indice < SUBCUBETAS) {
+            return indice;
+        }
+        int grupo = indice / SUBCUBETAS;
+        long inicio = (long) (SUBCUBETAS + indice % SUBCUBETAS) << (grupo - 1);
+        return inicio + (1L << (grupo - 1)) - 1;
+    }
+    
+    /**
+     * Obtiene un percentil; el valor devuelto es el mayor de su cubeta
+     * @param cuantil Cuantil entre 0 y 1 (0.99 para el percentil 99)
+     * @return Valor del percentil, o 0 si no hay valores
+     */
+    public long percentil(double cuantil) {
+        long[] copia = new long[CUBETAS];
+        long total = 0;
+        for (int i = 0; i < CUBETAS; i++) {
+            copia[i] = cubetas.get(i);
+            total += copia[i];
+        }
+        if (total == 0) {
+            return 0;
+        }
+        
+        long objetivo = Math.max(1, (long) Math.ceil(cuantil * total));
+        long acumulado = 0;
+        for (int i = 0; i < CUBETAS; i++) {
+            acumulado += copia[i];
+            if (acumulado >= objetivo) {
+                return maximoCubeta(i);
+            }
+        }
+        return maximoCubeta(CUBETAS - 1);
+    }
+    
+    public long getCantidad() {
+        return cantidad.sum();
+    }
+    
+    public long getSuma() {
+        return suma.sum();
+    }
+}
@@ -0,0 +1,212 @@
+package metricas;
+
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.util.Locale;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.IntSupplier;
+
+/**
+ * Metricas operativas del analizador residente (--watch, --lsp, --lote).
+ * Los contadores son LongAdder y las latencias histogramas sin bloqueos, para
+ * que registrar no frene a los hilos de analisis; todo se lee solo al generar
+ * el texto en formato Prometheus que sirve ServidorMetricas.
+ * Las tasas (bytes o tokens por segundo) no se calculan aqui: se exponen los
+ * contadores acumulados y Prometheus las obtiene con rate()
+ */
+public final class Metricas {
+    
+    private static final Metricas GLOBAL = new Metricas();
+    
+    private static final double[] CUANTILES = {0.5, 0.9, 0.99};
+    
+    /**
+     * Fases del analisis de un archivo
+     */
+    public enum Fase {
+        LECTURA, LEXICO, SINTACTICO, REPORTE;
+        
+        String etiqueta() {
+            return name().toLowerCase(Locale.ROOT);
+        }
+    }
+    
+    private final LongAdder archivos = new LongAdder();
+    private final LongAdder caracteres = new LongAdder();
+    private final LongAdder tokens = new LongAdder();
+    private final LongAdder aciertosCache = new LongAdder();
+    private final LongAdder fallosCache = new LongAdder();
+    private final Map<Integer, LongAdder> erroresPorCodigo = new ConcurrentHashMap<>();
+    private final Histograma[] fases = new Histograma[Fase.values().length];
+    private final Map<String, IntSupplier> colas = new ConcurrentHashMap<>();
+    
+    private Metricas() {
+        for (int i = 0; i < fases.length; i++) {
+            fases[i] = new Histograma();
+        }
+    }
+    
+    /**
+     * Obtiene las metricas del proceso
+     * @return Metricas compartidas por todos los hilos
+     */
+    public static Metricas getGlobal() {
+        return GLOBAL;
+    }
+    
+    /**
+     * Registra un archivo analizado
+     * @param cantidadCaracteres Tamano del contenido en caracteres
+     * @param cantidadTokens Tokens generados por el analisis lexico
+     */
+    public void registrarArchivo(long cantidadCaracteres, int cantidadTokens) {
+        archivos.increment();
+        caracteres.add(cantidadCaracteres);
+        tokens.add(cantidadTokens);
+    }
+    
+    /**
+     * Registra un error encontrado
+     * @param codigo Codigo del error (ver CodigosError)
+     */
+    public void registrarError(int codigo) {
+        LongAdder contador = erroresPorCodigo.get(codigo);
+        if (contador == null) {
+            contador = erroresPorCodigo.computeIfAbsent(codigo, c -> new LongAdder());
+        }
+        contador.increment();
+    }
+    
+    /**
+     * Registra la duracion de una fase del analisis
+     * @param fase Fase medida
+     * @param nanos Duracion en nanosegundos
+     */
+    public void registrarFase(Fase fase, long nanos) {
+        fases[fase.ordinal()].registrar(nanos);
+    }
+    
+    /**
+     * Registra si se reutilizaron analizadores ya creados (ver PoolAnalizadores)
+     * @param acierto true si se reutilizo un analizador, false si hubo que crearlo
+     */
+    public void registrarCache(boolean acierto) {
+        if (acierto) {
+            aciertosCache.increment();
+        } else {
+            fallosCache.increment();
+        }
+    }
+    
+    /**
+     * Registra una cola cuya profundidad se lee al exponer las metricas
+     * @param nombre Nombre de la cola en la etiqueta cola
+     * @param profundidad Funcion que devuelve la cantidad de elementos en espera
+     */
+    public void registrarCola(String nombre, IntSupplier profundidad) {
+        colas.put(nombre, profundidad);
+    }
+    
+    /**
+     * Deja de exponer una cola
+     * @param nombre Nombre con que se registro
+     */
+    public void quitarCola(String nombre) {
+        colas.remove(nombre);
+    }
+    
+    /**
+     * Obtiene la fraccion de aciertos del cache de analizadores
+     * @return Aciertos sobre el total de usos, o 0 si no hubo usos
+     */
+    public double getProporcionAciertosCache() {
+        long aciertos = aciertosCache.sum();
+        long total = aciertos + fallosCache.sum();
+        return total == 0 ? 0.0 : (double) aciertos / total;
+    }
+    
+    /**
+     * Genera las metricas en el formato de texto de Prometheus (version 0.0.4)
+     * @return Texto de las metricas
+     */
+    public String formatoPrometheus() {
+        StringBuilder salida = new StringBuilder();
+        
+        encabezado(salida, "analizador_archivos_total", "counter", "Archivos analizados");
+        valor(salida, "analizador_archivos_total", "", archivos.sum());
+        encabezado(salida, "analizador_caracteres_total", "counter", "Caracteres de fuente analizados");
+        valor(salida, "analizador_caracteres_total", "", caracteres.sum());
+        encabezado(salida, "analizador_tokens_total", "counter", "Tokens generados por el analisis lexico");
+        valor(salida, "analizador_tokens_total", "", tokens.sum());
+        
+        encabezado(salida, "analizador_errores_total", "counter", "Errores encontrados por codigo");
+        for (Map.Entry<Integer, LongAdder> entrada : new TreeMap<>(erroresPorCodigo).entrySet()) {
+            valor(salida, "analizador_errores_total", "codigo=\"" + entrada.getKey() + "\"", entrada.getValue().sum());
+        }
+        
+        encabezado(salida, "analizador_fase_segundos", "summary", "Duracion de cada fase del analisis por archivo");
+        for (Fase fase : Fase.values()) {
+            Histograma histograma = fases[fase.ordinal()];
+            String etiqueta = "fase=\"" + fase.etiqueta() + "\"";
+            for (double cuantil : CUANTILES) {
+                valor(salida, "analizador_fase_segundos", etiqueta + ",quantile=\"" + cuantil + "\"",
+                      segundos(histograma.percentil(cuantil)));
+            }
+            valor(salida, "analizador_fase_segundos_sum", etiqueta, segundos(histograma.getSuma()));
+            valor(salida, "analizador_fase_segundos_count", etiqueta, histograma.getCantidad());
+        }
+        
+        encabezado(salida, "analizador_cola_profundidad", "gauge", "Elementos en espera en cada cola");
+        for (Map.Entry<String, IntSupplier> cola : new TreeMap<>(colas).entrySet()) {
+            valor(salida, "analizador_cola_profundidad", "cola=\"" + cola.getKey() + "\"", cola.getValue().getAsInt());
+        }
+        
+        encabezado(salida, "analizador_cache_analizadores_total", "counter", "Usos del cache de analizadores por resultado");
+        valor(salida, "analizador_cache_analizadores_total", "resultado=\"acierto\"", aciertosCache.sum());
+        valor(salida, "analizador_cache_analizadores_total", "resultado=\"fallo\"", fallosCache.sum());
+        encabezado(salida, "analizador_cache_analizadores_proporcion", "gauge", "Fraccion de aciertos del cache de analizadores");
+        valor(salida, "analizador_cache_analizadores_proporcion", "", getProporcionAciertosCache());
+        
+        // Tiempo acumulado que reportan los recolectores; en los concurrentes incluye trabajo no pausado
+        long gcMilis = 0;
+        long gcCantidad = 0;
+        for (GarbageCollectorMXBean recolector : ManagementFactory.getGarbageCollectorMXBeans()) {
+            gcMilis += Math.max(0, recolector.getCollectionTime());
+            gcCantidad += Math.max(0, recolector.getCollectionCount());
+        }
+        encabezado(salida, "jvm_gc_pausa_segundos_total", "counter", "Tiempo total de recoleccion de basura");
+        valor(salida, "jvm_gc_pausa_segundos_total", "", gcMilis / 1000.0);
+        encabezado(salida, "jvm_gc_recolecciones_total", "counter", "Cantidad de recolecciones de basura");
+        valor(salida, "jvm_gc_recolecciones_total", "", gcCantidad);
+        
+        return salida.toString();
+    }
+    
+    private static void encabezado(StringBuilder salida, String nombre, String tipo, String ayuda) {
+        salida.append("# HELP ").append(nombre).append(' ').append(ayuda).append('\n');
+        salida.append("# TYPE ").append(nombre).append(' ').append(tipo).append('\n');
+    }
+    
+    private static void valor(StringBuilder salida, String nombre, String etiquetas, long valor) {
+        linea(salida, nombre, etiquetas).append(valor).append('\n');
+    }
+    
+    private static void valor(StringBuilder salida, String nombre, String etiquetas, double valor) {
+        linea(salida, nombre, etiquetas).append(valor).append('\n');
+    }
+    
+    private static StringBuilder linea(StringBuilder salida, String nombre, String etiquetas) {
+        salida.append(nombre);
+        if (!etiquetas.isEmpty()) {
+            salida.append('{').append(etiquetas).append('}');
+        }
+        return salida.append(' ');
+    }
+    
+    private static double segundos(long nanos) {
+        return nanos / 1e9;
+    }
+}
@@ -0,0 +1,75 @@
+package metricas;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.Executors;
+
+/**
+ * Servidor HTTP minimo (HttpServer del JDK) que expone GET /metrics en el
+ * formato de texto de Prometheus. Atiende en un solo hilo daemon, aparte de
+ * los hilos de analisis
+ */
+public class ServidorMetricas implements AutoCloseable {
+    
+    private static final String TIPO_CONTENIDO = "text/plain; version=0.0.4; charset=utf-8";
+    
+    private final HttpServer servidor;
+    
+    private ServidorMetricas(HttpServer servidor) {
+        this.servidor = servidor;
+    }
+    
+    /**
+     * Inicia el servidor en todas las interfaces
+     * @param puerto Puerto TCP (0 para uno libre)
+     * @return Servidor iniciado
+     * @throws IOException Si no se puede abrir el puerto
+     */
+    public static ServidorMetricas iniciar(int puerto) throws IOException {
+        HttpServer servidor = HttpServer.create(new InetSocketAddress(puerto), 0);
+        servidor.createContext("/metrics", ServidorMetricas::atender);
+        servidor.setExecutor(Executors.newSingleThreadExecutor(tarea -> {
+            Thread hilo = new Thread(tarea, "servidor-metricas");
+            hilo.setDaemon(true);
+            return hilo;
+        }));
+        servidor.start();
+        return new ServidorMetricas(servidor);
+    }
+    
+    private static void atender(HttpExchange intercambio) throws IOException {
+        try (intercambio) {
+            if (!intercambio.getRequestMethod().equals("GET")) {
+                intercambio.getResponseHeaders().set("Allow", "GET");
+                intercambio.sendResponseHeaders(405, -1);
+                return;
+            }
+            byte[] cuerpo = Metricas.getGlobal().formatoPrometheus().getBytes(StandardCharsets.UTF_8);
+            intercambio.getResponseHeaders().set("Content-Type", TIPO_CONTENIDO);
+            intercambio.sendResponseHeaders(200, cuerpo.length);
+            try (OutputStream salida = intercambio.getResponseBody()) {
+                salida.write(cuerpo);
+            }
+        }
+    }
+    
+    /**
+     * Obtiene el puerto en que escucha el servidor
+     * @return Puerto TCP
+     */
+    public int getPuerto() {
+        return servidor.getAddress().getPort();
+    }
+    
+    /**
+     * Detiene el servidor
+     */
+    @Override
+    public void close() {
+        servidor.stop(0);
+    }
+}
@@ -0,0 +1,84 @@
+package tokens;
+
+import java.util.AbstractList;
+import java.util.List;
+
+/**
+ * Almacenamiento de los tokens producidos por el analizador lexico
+ * Permite guardar los tokens como objetos en el heap (AlmacenTokensLista) o
+ * por columnas en memoria nativa (AlmacenTokensNativo)
+ */
+public interface AlmacenTokens {
+    
+    /**
+     * Agrega un token al final
+     * @param tipo Tipo del token
+     * @param valor Valor textual del token
+     * @param numeroLinea Numero de linea
+     * @param posicionColumna Posicion en la linea
+     * @param columnaTexto Columna del primer caracter en la linea original
+     *                     (1-based), o 0 si no se conoce
+     */
+    void agregar(TipoToken tipo, String valor, int numeroLinea, int posicionColumna, int columnaTexto);
+    
+    /**
+     * Agrega un token al final sin columna en la linea original
+     * @param tipo Tipo del token
+     * @param valor Valor textual del token
+     * @param numeroLinea Numero de linea
+     * @param posicionColumna Posicion en la linea
+     */
+    default void agregar(TipoToken tipo, String valor, int numeroLinea, int posicionColumna) {
+        agregar(tipo, valor, numeroLinea, posicionColumna, 0);
+    }
+    
+    /**
+     * Obtiene la cantidad de tokens almacenados
+     * @return Cantidad de tokens
+     */
+    int tamano();
+    
+    /**
+     * Obtiene un token por su posicion
+     * @param indice Posicion del token (0-based)
+     * @return Token en esa posicion
+     */
+    Token obtener(int indice);
+    
+    /**
+     * Vacia el almacenamiento para reutilizarlo con otro archivo, conservando
+     * la memoria ya reservada. Las listas obtenidas antes con comoLista dejan
+     * de ser validas
+     */
+    void limpiar();
+    
+    /**
+     * Agrega al final todos los tokens de otro almacenamiento, en orden
+     * @param otro Almacenamiento cuyos tokens se copian
+     */
+    default void agregarTodos(AlmacenTokens otro) {
+        for (int i = 0; i < otro.tamano(); i++) {
+            Token token = otro.obtener(i);
+            agregar(token.getTipo(), token.getValor(), token.getNumeroLinea(), token.getPosicionColumna(),
+                    token.getColumnaTexto());
+        }
+    }
+    
+    /**
+     * Vista de solo lectura como lista, sin copiar los tokens
+     * @return Lista respaldada por este almacenamiento
+     */
+    default List<Token> comoLista() {
+        return new AbstractList<Token>() {
+            @Override
+            public Token get(int indice) {
+                return obtener(indice);
+            }
+            
+            @Override
+            public int size() {
+                return tamano();
+            }
+        };
+    }
+}
@@ -0,0 +1,293 @@
+package tokens;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.lang.foreign.Arena;
+import java.lang.foreign.MemorySegment;
+import java.lang.foreign.ValueLayout;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.LongSupplier;
+
+/**
+ * Almacenamiento de tokens con presupuesto de memoria. Los tokens se guardan
+ * en el heap en segmentos de TOKENS_POR_SEGMENTO; cada vez que se completa un
+ * segmento se estima la memoria usada (estos segmentos mas lo que informe
+ * bytesExternos, por ejemplo el indice de lineas y los errores) y, si supera
+ * el limite, los segmentos completos mas antiguos se escriben en un archivo
+ * temporal y se leen desde un mapeo en memoria. Los segmentos en disco no
+ * ocupan heap; el sistema operativo carga sus paginas al leerlos.
+ * El archivo temporal se borra al limpiar o cerrar el almacenamiento.
+ *
+ * Formato de un segmento en disco, enteros en el orden nativo:
+ * <pre>
+ *   tipos           n bytes (ordinal de TipoToken), rellenado a multiplo de 4
+ *   lineas          n enteros
+ *   columnas        n enteros
+ *   columnasTexto   n enteros (columna en la linea original, 0 si no se conoce)
+ *   finTexto        n enteros (fin acumulado del texto de cada token, en caracteres)
+ *   texto           caracteres UTF-16
+ * </pre>
+ */
+public class AlmacenTokensDesbordable implements AlmacenTokens, AutoCloseable {
+    
+    /** Tokens por segmento; es la unidad que se mueve a disco */
+    public static final int TOKENS_POR_SEGMENTO = 1 << 12;
+    
+    // Estimacion del heap: columnas de un segmento y costo de cada String
+    private static final long BYTES_COLUMNAS = (long) TOKENS_POR_SEGMENTO * (1 + 4 * Integer.BYTES) + 64;
+    private static final long BYTES_STRING = 48;
+    
+    private static final TipoToken[] TIPOS = TipoToken.values();
+    
+    private final long limiteBytes;
+    private final LongSupplier bytesExternos;
+    
+    private final List<Segmento> segmentos = new ArrayList<>();
+    private int cantidad;
+    
+    // Primer segmento que sigue en el heap; los anteriores estan en disco
+    private int primeroEnHeap;
+    private long bytesEnHeap;
+    private long maximoEstimado;
+    
+    // Archivo temporal: se crea al desbordar el primer segmento
+    private FileChannel canal;
+    private Arena arena;
+    private long bytesEnDisco;
+    private int segmentosEnDisco;
+    
+    /**
+     * Constructor
+     * @param limiteBytes Memoria estimada maxima, en bytes
+     * @param bytesExternos Memoria estimada de lo que no son tokens y cuenta
+     *                      para el mismo limite (0 si solo cuentan los tokens)
+     */
+    public AlmacenTokensDesbordable(long limiteBytes, LongSupplier bytesExternos) {
+        this.limiteBytes = limiteBytes;
+        this.bytesExternos = bytesExternos;
+    }
+    
+    @Override
+    public void agregar(TipoToken tipo, String valor, int numeroLinea, int posicionColumna, int columnaTexto) {
+        int pos = cantidad % TOKENS_POR_SEGMENTO;
+        if (pos == 0) {
+            if (!segmentos.isEmpty()) {
+                controlarPresupuesto();
+            }
+            segmentos.add(new Segmento());
+            bytesEnHeap += BYTES_COLUMNAS;
+        }
+        
+        Segmento segmento = segmentos.get(segmentos.size() - 1);
+        segmento.tipos[pos] = (byte) tipo.ordinal();
+        segmento.lineas[pos] = numeroLinea;
+        segmento.columnas[pos] = posicionColumna;
+        segmento.columnasTexto[pos] = columnaTexto;
+        segmento.valores[pos] = valor;
+        segmento.caracteres += valor.length();
+        long bytes = BYTES_STRING + (long) valor.length() * Character.BYTES;
+        segmento.bytes += bytes;
+        bytesEnHeap += bytes;
+        cantidad++;
+    }
+    
+    /**
+     * Con un segmento recien completado, mueve a disco los segmentos mas
+     * antiguos mientras la memoria estimada supere el limite. En este punto
+     * todos los segmentos estan completos
+     */
+    private void controlarPresupuesto() {
+        long estimado = getBytesEstimados();
+        maximoEstimado = Math.max(maximoEstimado, estimado);
+        while (estimado > limiteBytes && primeroEnHeap < segmentos.size()) {
+            Segmento segmento = segmentos.get(primeroEnHeap++);
+            desbordar(segmento);
+            bytesEnHeap -= segmento.bytes;
+            estimado -= segmento.bytes;
+        }
+    }
+    
+    /**
+     * Escribe un segmento completo al final del archivo temporal y lo mapea
+     */
+    private void desbordar(Segmento segmento) {
+        int n = TOKENS_POR_SEGMENTO;
+        int bytesTipos = (n + 3) & ~3;
+        long tamano = bytesTipos + 4L * n * Integer.BYTES + segmento.caracteres * Character.BYTES;
+        ByteBuffer buffer = ByteBuffer.allocate(Math.toIntExact(tamano)).order(ByteOrder.nativeOrder());
+        buffer.put(segmento.tipos, 0, n);
+        buffer.position(bytesTipos);
+        buffer.asIntBuffer().put(segmento.lineas, 0, n);
+        buffer.position(bytesTipos + n * Integer.BYTES);
+        buffer.asIntBuffer().put(segmento.columnas, 0, n);
+        buffer.position(bytesTipos + 2 * n * Integer.BYTES);
+        buffer.asIntBuffer().put(segmento.columnasTexto, 0, n);
+        buffer.position(bytesTipos + 3 * n * Integer.BYTES);
+        int fin = 0;
+        for (int i = 0; i < n; i++) {
+            fin += segmento.valores[i].length();
+            buffer.putInt(fin);
+        }
+        for (int i = 0; i < n; i++) {
+            String valor = segmento.valores[i];
+            for (int k = 0; k < valor.length(); k++) {
+                buffer.putChar(valor.charAt(k));
+            }
+        }
+        buffer.flip();
+        
+        try {
+            if (canal == null) {
+                Path temporal = Files.createTempFile("tokens-", ".tmp");
+                canal = FileChannel.open(temporal, StandardOpenOption.READ, StandardOpenOption.WRITE,
+                                         StandardOpenOption.DELETE_ON_CLOSE);
+                arena = Arena.ofShared();
+            }
+            long posicion = bytesEnDisco;
+            while (buffer.hasRemaining()) {
+                posicion += canal.write(buffer, posicion);
+            }
+            segmento.mapeado = canal.map(FileChannel.MapMode.READ_ONLY, bytesEnDisco, tamano, arena);
+        } catch (IOException e) {
+            throw new UncheckedIOException("No se pudo mover tokens al archivo temporal", e);
+        }
+        bytesEnDisco += tamano;
+        segmentosEnDisco++;
+        segmento.liberarHeap();
+    }
+    
+    @Override
+    public int tamano() {
+        return cantidad;
+    }
+    
+    @Override
+    public Token obtener(int indice) {
+        if (indice < 0 || indice >= cantidad) {
+            throw new IndexOutOfBoundsException("Token fuera del almacenamiento: " + indice);
+        }
+        Segmento segmento = segmentos.get(indice / TOKENS_POR_SEGMENTO);
+        int pos = indice % TOKENS_POR_SEGMENTO;
+        if (segmento.mapeado == null) {
+            return new Token(TIPOS[segmento.tipos[pos]], segmento.valores[pos],
+                             segmento.lineas[pos], segmento.columnas[pos], segmento.columnasTexto[pos]);
+        }
+        
+        // Lectura del segmento mapeado; las columnas no estan alineadas en el archivo
+        MemorySegment datos = segmento.mapeado;
+        int n = TOKENS_POR_SEGMENTO;
+        long lineas = (n + 3) & ~3;
+        long columnas = lineas + (long) n * Integer.BYTES;
+        long columnasTexto = columnas + (long) n * Integer.BYTES;
+        long finTexto = columnasTexto + (long) n * Integer.BYTES;
+        long texto = finTexto + (long) n * Integer.BYTES;
+        
+        TipoToken tipo = TIPOS[datos.get(ValueLayout.JAVA_BYTE, pos)];
+        int numeroLinea = datos.get(ValueLayout.JAVA_INT_UNALIGNED, lineas + (long) pos * Integer.BYTES);
+        int posicionColumna = datos.get(ValueLayout.JAVA_INT_UNALIGNED, columnas + (long) pos * Integer.BYTES);
+        int columnaTexto = datos.get(ValueLayout.JAVA_INT_UNALIGNED, columnasTexto + (long) pos * Integer.BYTES);
+        int fin = datos.get(ValueLayout.JAVA_INT_UNALIGNED, finTexto + (long) pos * Integer.BYTES);
+        int inicio = pos == 0 ? 0 : datos.get(ValueLayout.JAVA_INT_UNALIGNED, finTexto + (long) (pos - 1) * Integer.BYTES);
+        
+        char[] caracteres = new char[fin - inicio];
+        MemorySegment.copy(datos, ValueLayout.JAVA_CHAR_UNALIGNED, texto + (long) inicio * Character.BYTES,
+                           caracteres, 0, caracteres.length);
+        return new Token(tipo, new String(caracteres), numeroLinea, posicionColumna, columnaTexto);
+    }
+    
+    /**
+     * Descarta los tokens y borra el archivo temporal
+     */
+    @Override
+    public void limpiar() {
+        close();
+        segmentos.clear();
+        cantidad = 0;
+        primeroEnHeap = 0;
+        bytesEnHeap = 0;
+        maximoEstimado = 0;
+        bytesEnDisco = 0;
+        segmentosEnDisco = 0;
+    }
+    
+    /**
+     * Libera el mapeo y borra el archivo temporal; los tokens que estaban en
+     * disco dejan de poder leerse
+     */
+    @Override
+    public void close() {
+        if (arena != null) {
+            arena.close();
+            arena = null;
+        }
+        if (canal != null) {
+            try {
+                canal.close();
+            } catch (IOException e) {
+                throw new UncheckedIOException("No se pudo cerrar el archivo temporal de tokens", e);
+            } finally {
+                canal = null;
+            }
+        }
+    }
+    
+    /**
+     * Obtiene la memoria estimada actual: tokens en el heap mas bytesExternos
+     * @return Bytes estimados
+     */
+    public long getBytesEstimados() {
+        return bytesEnHeap + bytesExternos.getAsLong();
+    }
+    
+    /**
+     * Obtiene la mayor memoria estimada vista al completar un segmento, antes
+     * de mover segmentos a disco
+     * @return Bytes estimados
+     */
+    public long getMaximoEstimado() {
+        return Math.max(maximoEstimado, getBytesEstimados());
+    }
+    
+    public long getLimiteBytes() {
+        return limiteBytes;
+    }
+    
+    public int getSegmentosEnDisco() {
+        return segmentosEnDisco;
+    }
+    
+    public long getBytesEnDisco() {
+        return bytesEnDisco;
+    }
+    
+    /**
+     * Tokens de un segmento: columnas en el heap hasta que se mueve a disco
+     */
+    private static class Segmento {
+        byte[] tipos = new byte[TOKENS_POR_SEGMENTO];
+        int[] lineas = new int[TOKENS_POR_SEGMENTO];
+        int[] columnas = new int[TOKENS_POR_SEGMENTO];
+        int[] columnasTexto = new int[TOKENS_POR_SEGMENTO];
+        String[] valores = new String[TOKENS_POR_SEGMENTO];
+        long caracteres;
+        long bytes = BYTES_COLUMNAS;
+        
+        // Datos en el archivo temporal (null mientras esta en el heap)
+        MemorySegment mapeado;
+        
+        void liberarHeap() {
+            tipos = null;
+            lineas = null;
+            columnas = null;
+            columnasTexto = null;
+            valores = null;
+        }
+    }
+}
@@ -0,0 +1,45 @@
+package tokens;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Almacenamiento de tokens como objetos Token en una lista del heap
+ */
+public class AlmacenTokensLista implements AlmacenTokens {
+    
+    // Tokens a partir de los cuales limpiar descarta la lista en lugar de
+    // vaciarla, para no retener el arreglo de un archivo muy grande
+    private static final int MAXIMO_RETENIDO = 1 << 16;
+    
+    private List<Token> tokens = new ArrayList<>();
+    
+    @Override
+    public void agregar(TipoToken tipo, String valor, int numeroLinea, int posicionColumna, int columnaTexto) {
+        tokens.add(new Token(tipo, valor, numeroLinea, posicionColumna, columnaTexto));
+    }
+    
+    @Override
+    public int tamano() {
+        return tokens.size();
+    }
+    
+    @Override
+    public Token obtener(int indice) {
+        return tokens.get(indice);
+    }
+    
+    @Override
+    public void limpiar() {
+        if (tokens.size() > MAXIMO_RETENIDO) {
+            tokens = new ArrayList<>();
+        } else {
+            tokens.clear();
+        }
+    }
+    
+    @Override
+    public List<Token> comoLista() {
+        return java.util.Collections.unmodifiableList(tokens);
+    }
+}
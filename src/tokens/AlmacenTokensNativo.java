@@ -0,0 +1,142 @@
+package tokens;
+
+import java.lang.foreign.Arena;
+import java.lang.foreign.MemorySegment;
+import java.lang.foreign.ValueLayout;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Almacenamiento de tokens por columnas en memoria nativa (Foreign Function &
+ * Memory API). Tipo, linea, columnas y texto de cada token se guardan en
+ * MemorySegment reservados de un Arena; el heap solo guarda la lista de bloques.
+ * La memoria se libera de forma determinista al cerrar el Arena, normalmente
+ * al terminar el analisis de cada archivo. Los Token se crean solo al leerlos
+ */
+public class AlmacenTokensNativo implements AlmacenTokens {
+    
+    // Tokens por bloque de columnas y caracteres por bloque de texto
+    private static final int TOKENS_POR_BLOQUE = 1 << 16;
+    private static final int CARACTERES_POR_BLOQUE = 1 << 20;
+    
+    private static final TipoToken[] TIPOS = TipoToken.values();
+    
+    private final Arena arena;
+    
+    // Columnas: un segmento por bloque de TOKENS_POR_BLOQUE tokens
+    private final List<MemorySegment> tipos = new ArrayList<>();
+    private final List<MemorySegment> lineas = new ArrayList<>();
+    private final List<MemorySegment> columnas = new ArrayList<>();
+    private final List<MemorySegment> columnasTexto = new ArrayList<>();
+    private final List<MemorySegment> inicioTexto = new ArrayList<>();
+    private final List<MemorySegment> longitudTexto = new ArrayList<>();
+    
+    // Texto de los tokens, en bloques de caracteres UTF-16
+    private final List<MemorySegment> bloquesTexto = new ArrayList<>();
+    // Bloque de texto que se esta llenando; tras limpiar se reutilizan desde el primero
+    private int bloqueTextoActual = -1;
+    private long usadoBloqueTexto = CARACTERES_POR_BLOQUE;
+    
+    private int cantidad;
+    
+    /**
+     * Constructor
+     * @param arena Arena de donde se reserva la memoria; quien lo crea es
+     *              responsable de cerrarlo cuando ya no se usen los tokens
+     */
+    public AlmacenTokensNativo(Arena arena) {
+        this.arena = arena;
+    }
+    
+    @Override
+    public void agregar(TipoToken tipo, String valor, int numeroLinea, int posicionColumna, int columnaTexto) {
+        int bloque = cantidad / TOKENS_POR_BLOQUE;
+        int pos = cantidad % TOKENS_POR_BLOQUE;
+        if (bloque == tipos.size()) {
+            tipos.add(arena.allocate(TOKENS_POR_BLOQUE, 1));
+            lineas.add(arena.allocate((long) TOKENS_POR_BLOQUE * Integer.BYTES, Integer.BYTES));
+            columnas.add(arena.allocate((long) TOKENS_POR_BLOQUE * Integer.BYTES, Integer.BYTES));
+            columnasTexto.add(arena.allocate((long) TOKENS_POR_BLOQUE * Integer.BYTES, Integer.BYTES));
+            inicioTexto.add(arena.allocate((long) TOKENS_POR_BLOQUE * Long.BYTES, Long.BYTES));
+            longitudTexto.add(arena.allocate((long) TOKENS_POR_BLOQUE * Integer.BYTES, Integer.BYTES));
+        }
+        
+        tipos.get(bloque).set(ValueLayout.JAVA_BYTE, pos, (byte) tipo.ordinal());
+        lineas.get(bloque).setAtIndex(ValueLayout.JAVA_INT, pos, numeroLinea);
+        columnas.get(bloque).setAtIndex(ValueLayout.JAVA_INT, pos, posicionColumna);
+        columnasTexto.get(bloque).setAtIndex(ValueLayout.JAVA_INT, pos, columnaTexto);
+        inicioTexto.get(bloque).setAtIndex(ValueLayout.JAVA_LONG, pos, guardarTexto(valor));
+        longitudTexto.get(bloque).setAtIndex(ValueLayout.JAVA_INT, pos, valor.length());
+        cantidad++;
+    }
+    
+    /**
+     * Copia el texto de un token a los bloques de texto
+     * @return Posicion global (bloque * CARACTERES_POR_BLOQUE + desplazamiento)
+     */
+    private long guardarTexto(String valor) {
+        int longitud = valor.length();
+        if (usadoBloqueTexto + longitud > CARACTERES_POR_BLOQUE) {
+            bloqueTextoActual++;
+            if (bloqueTextoActual == bloquesTexto.size()
+                    || bloquesTexto.get(bloqueTextoActual).byteSize() < (long) longitud * Character.BYTES) {
+                MemorySegment nuevo = arena.allocate((long) Math.max(longitud, CARACTERES_POR_BLOQUE) * Character.BYTES,
+                                                     Character.BYTES);
+                if (bloqueTextoActual == bloquesTexto.size()) {
+                    bloquesTexto.add(nuevo);
+                } else {
+                    bloquesTexto.set(bloqueTextoActual, nuevo);
+                }
+            }
+            usadoBloqueTexto = 0;
+        }
+        
+        MemorySegment bloque = bloquesTexto.get(bloqueTextoActual);
+        for (int i = 0; i < longitud; i++) {
+            bloque.setAtIndex(ValueLayout.JAVA_CHAR, usadoBloqueTexto + i, valor.charAt(i));
+        }
+        
+        long posicion = (long) bloqueTextoActual * CARACTERES_POR_BLOQUE + usadoBloqueTexto;
+        usadoBloqueTexto += longitud;
+        return posicion;
+    }
+    
+    /**
+     * Los bloques ya reservados se reutilizan; la memoria se libera solo al
+     * cerrar el Arena
+     */
+    @Override
+    public void limpiar() {
+        cantidad = 0;
+        bloqueTextoActual = -1;
+        usadoBloqueTexto = CARACTERES_POR_BLOQUE;
+    }
+    
+    @Override
+    public int tamano() {
+        return cantidad;
+    }
+    
+    @Override
+    public Token obtener(int indice) {
+        if (indice < 0 || indice >= cantidad) {
+            throw new IndexOutOfBoundsException("Token fuera del almacenamiento: " + indice);
+        }
+        int bloque = indice / TOKENS_POR_BLOQUE;
+        int pos = indice % TOKENS_POR_BLOQUE;
+        
+        TipoToken tipo = TIPOS[tipos.get(bloque).get(ValueLayout.JAVA_BYTE, pos)];
+        int numeroLinea = lineas.get(bloque).getAtIndex(ValueLayout.JAVA_INT, pos);
+        int posicionColumna = columnas.get(bloque).getAtIndex(ValueLayout.JAVA_INT, pos);
+        int columnaTexto = columnasTexto.get(bloque).getAtIndex(ValueLayout.JAVA_INT, pos);
+        long inicio = inicioTexto.get(bloque).getAtIndex(ValueLayout.JAVA_LONG, pos);
+        int longitud = longitudTexto.get(bloque).getAtIndex(ValueLayout.JAVA_INT, pos);
+        
+        char[] texto = new char[longitud];
+        MemorySegment bloqueTexto = bloquesTexto.get((int) (inicio / CARACTERES_POR_BLOQUE));
+        MemorySegment.copy(bloqueTexto, ValueLayout.JAVA_CHAR, 
+                           (inicio % CARACTERES_POR_BLOQUE) * Character.BYTES, texto, 0, longitud);
+        
+        return new Token(tipo, new String(texto), numeroLinea, posicionColumna, columnaTexto);
+    }
+}
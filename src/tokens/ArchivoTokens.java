@@ -0,0 +1,198 @@
+package tokens;
+
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Archivo binario compacto con los tokens de una fuente, para que otras
+ * herramientas usen los tokens sin volver a ejecutar el analizador lexico.
+ * Se lee con CursorTokens. Quien lo escribe debe hacerlo de forma atomica
+ * (ver LectorArchivos.escribirArchivoAtomico), porque los lectores lo mapean
+ * en memoria y no deben ver un archivo a medio escribir.
+ *
+ * Formato (version 3), enteros fijos little-endian, enteros sin signo en
+ * varint (ver EscritorBinario) y diferencias con signo en zigzag:
+ * <pre>
+ *   "PTOK"                      4 bytes
+ *   version                     1 byte
+ *   cantidad de cadenas         int
+ *   cantidad de tokens          int
+ *   inicio de la tabla          long
+ *   tokens                      por token: codigo de tipo varint,
+ *                               diferencia de linea zigzag,
+ *                               columna zigzag (absoluta si cambio la linea,
+ *                               diferencia con la anterior si es la misma),
+ *                               indice de la cadena + 1 varint (0 si el
+ *                               token no tiene valor)
+ *   tabla de cadenas            por cadena: longitud varint + bytes UTF-8
+ * </pre>
+ * Los tokens se escriben a medida que se recorren y la tabla va al final,
+ * de modo que solo las cadenas distintas se guardan en memoria; el
+ * encabezado se completa al terminar.
+ * Cada valor distinto se guarda una sola vez en la tabla de cadenas y vuelve
+ * a leerse igual: un valor que no es UTF-16 bien formado (un sustituto sin
+ * pareja) no tiene UTF-8 y se rechaza.
+ * El tipo se guarda con el codigo fijo de TIPOS_POR_CODIGO y no con el orden
+ * de TipoToken; un tipo nuevo se agrega al final de esa tabla
+ */
+public class ArchivoTokens {
+    
+    /** Marca al inicio de todo archivo de tokens */
+    static final byte[] MAGICO = {'P', 'T', 'O', 'K'};
+    
+    /** Version del formato que se escribe y que se puede leer */
+    public static final int VERSION = 3;
+    
+    /** Tamano del encabezado; los tokens empiezan a continuacion */
+    static final int TAMANO_ENCABEZADO = 4 + 1 + 4 + 4 + 8;
+    
+    // Bytes acumulados antes de volcarlos al archivo
+    private static final int TAMANO_VOLCADO = 1 << 16;
+    
+    // Tipo de cada codigo del archivo; los codigos no se reasignan
+    private static final TipoToken[] TIPOS_POR_CODIGO = {
+        TipoToken.PALABRA_RESERVADA,
+        TipoToken.IDENTIFICADOR,
+        TipoToken.NUMERO,
+        TipoToken.CADENA,
+        TipoToken.OPERADOR,
+        TipoToken.DELIMITADOR,
+        TipoToken.COMENTARIO,
+        TipoToken.DESCONOCIDO,
+        TipoToken.ESPACIO,
+        TipoToken.NUEVA_LINEA,
+        TipoToken.FIN_ARCHIVO
+    };
+    
+    private static final Map<TipoToken, Integer> CODIGOS = new EnumMap<>(TipoToken.class);
+    
+    static {
+        for (int i = 0; i < TIPOS_POR_CODIGO.length; i++) {
+            CODIGOS.put(TIPOS_POR_CODIGO[i], i);
+        }
+    }
+    
+    private ArchivoTokens() {
+    }
+    
+    /**
+     * Escribe los tokens en el formato binario
+     * @param tokens Tokens a escribir
+     * @param canal Canal de un archivo vacio, en la posicion 0
+     * @throws IOException Si hay error al escribir
+     * @throws IllegalArgumentException Si un valor tiene un sustituto UTF-16 sin pareja
+     */
+    public static void escribir(AlmacenTokens tokens, FileChannel canal) throws IOException {
+        Map<String, Integer> indices = new HashMap<>();
+        EscritorBinario tabla = new EscritorBinario(4096);
+        EscritorBinario salida = new EscritorBinario(TAMANO_VOLCADO + 64);
+        salida.bytes(MAGICO);
+        salida.bytes(new byte[] {(byte) VERSION});
+        salida.entero(0);
+        salida.entero(0);
+        salida.largo(0);
+        
+        int lineaAnterior = 0;
+        int columnaAnterior = 0;
+        for (int i = 0; i < tokens.tamano(); i++) {
+            Token token = tokens.obtener(i);
+            String valor = token.getValor();
+            Integer indice = -1;
+            if (valor != null) {
+                indice = indices.get(valor);
+                if (indice == null) {
+                    validarUtf16(valor, i);
+                    indice = indices.size();
+                    indices.put(valor, indice);
+                    tabla.cadena(valor);
+                }
+            }
+            
+            int linea = token.getNumeroLinea();
+            int columna = token.getPosicionColumna();
+            salida.varint(codigo(token.getTipo()));
+            salida.varint(zigzag(linea - lineaAnterior));
+            if (linea != lineaAnterior) {
+                salida.varint(zigzag(columna));
+            } else {
+                salida.varint(zigzag(columna - columnaAnterior));
+            }
+            salida.varint(indice + 1);
+            lineaAnterior = linea;
+            columnaAnterior = columna;
+            
+            if (salida.getTamano() >= TAMANO_VOLCADO) {
+                salida.volcarEn(canal);
+            }
+        }
+        
+        long inicioTabla = salida.getPosicion();
+        salida.volcarEn(canal);
+        tabla.volcarEn(canal);
+        
+        EscritorBinario encabezado = new EscritorBinario(16);
+        encabezado.entero(indices.size());
+        encabezado.entero(tokens.tamano());
+        encabezado.largo(inicioTabla);
+        canal.position(MAGICO.length + 1);
+        encabezado.volcarEn(canal);
+    }
+    
+    /**
+     * Verifica que un valor se pueda guardar en UTF-8 sin perder caracteres
+     * @throws IllegalArgumentException Si tiene un sustituto sin pareja
+     */
+    private static void validarUtf16(String valor, int token) {
+        for (int i = 0; i < valor.length(); i++) {
+            char c = valor.charAt(i);
+            if (Character.isHighSurrogate(c) && i + 1 < valor.length() && Character.isLowSurrogate(valor.charAt(i + 1))) {
+                i++;
+            } else if (Character.isSurrogate(c)) {
+                throw new IllegalArgumentException("El valor del token " + token
+                                                   + " tiene un sustituto UTF-16 sin pareja en la posicion " + i);
+            }
+        }
+    }
+    
+    /**
+     * Obtiene el codigo fijo con el que se guarda un tipo
+     * @throws IllegalStateException Si el tipo no tiene codigo asignado
+     */
+    static int codigo(TipoToken tipo) {
+        Integer codigo = CODIGOS.get(tipo);
+        if (codigo == null) {
+            throw new IllegalStateException("Tipo de token sin codigo en el archivo de tokens: " + tipo);
+        }
+        return codigo;
+    }
+    
+    /**
+     * Obtiene el tipo guardado con un codigo
+     * @return Tipo, o null si el codigo no existe
+     */
+    static TipoToken tipo(int codigo) {
+        return codigo >= 0 && codigo < TIPOS_POR_CODIGO.length ? TIPOS_POR_CODIGO[codigo] : null;
+    }
+    
+    /**
+     * Genera el nombre del archivo de tokens de una fuente
+     * @param nombreFuente Nombre del archivo .pas
+     * @return Nombre con extension .tok
+     */
+    public static String generarNombre(String nombreFuente) {
+        int ultimoPunto = nombreFuente.lastIndexOf('.');
+        return (ultimoPunto > 0 ? nombreFuente.substring(0, ultimoPunto) : nombreFuente) + ".tok";
+    }
+    
+    // Las columnas absolutas tambien van en zigzag porque pueden ser -1
+    static int zigzag(int valor) {
+        return (valor << 1) ^ (valor >> 31);
+    }
+    
+    static int deszigzag(int valor) {
+        return (valor >>> 1) ^ -(valor & 1);
+    }
+}
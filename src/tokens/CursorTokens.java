@@ -0,0 +1,210 @@
+package tokens;
+
+import java.io.IOException;
+import java.lang.foreign.Arena;
+import java.lang.foreign.MemorySegment;
+import java.lang.foreign.ValueLayout;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Cursor de solo lectura sobre un archivo de tokens escrito por ArchivoTokens.
+ * El archivo se mapea en memoria y los tokens se decodifican en el lugar, uno
+ * por uno, sin copiarlos ni crear objetos: tipo, linea, columna e indice del
+ * valor se leen del token actual, y el valor se puede obtener como segmento
+ * de bytes UTF-8 del archivo. Los String solo se crean al pedirlos con
+ * getValor(), una vez por cadena distinta.
+ * El mapeo vive mientras el Arena indicado este abierto
+ */
+public class CursorTokens {
+    
+    private final MemorySegment datos;
+    private final LectorBinario lector;
+    private final int cantidadCadenas;
+    private final int cantidadTokens;
+    private final long inicioTokens;
+    
+    // Inicio y longitud de cada cadena en el archivo (se calculan al abrir) y valores ya decodificados
+    private final long[] iniciosCadenas;
+    private final int[] longitudesCadenas;
+    private final String[] valores;
+    
+    // Token actual
+    private int indiceToken = -1;
+    private int tipo;
+    private int numeroLinea;
+    private int posicionColumna;
+    // -1 si el token no tiene valor
+    private int indiceValor;
+    
+    private CursorTokens(MemorySegment datos) throws IOException {
+        this.datos = datos;
+        this.lector = new LectorBinario(datos);
+        for (int i = 0; i < ArchivoTokens.MAGICO.length; i++) {
+            if (datos.byteSize() <= i || datos.get(ValueLayout.JAVA_BYTE, i) != ArchivoTokens.MAGICO[i]) {
+                throw new IOException("No es un archivo de tokens");
+            }
+        }
+        int version = datos.byteSize() > 4 ? datos.get(ValueLayout.JAVA_BYTE, 4) : -1;
+        if (version != ArchivoTokens.VERSION) {
+            throw new IOException("Version de archivo de tokens no soportada: " + version);
+        }
+        
+        if (datos.byteSize() < ArchivoTokens.TAMANO_ENCABEZADO) {
+            throw new IOException("Archivo de tokens danado");
+        }
+        lector.setPosicion(ArchivoTokens.MAGICO.length + 1);
+        cantidadCadenas = lector.entero();
+        cantidadTokens = lector.entero();
+        long inicioTabla = lector.largo();
+        inicioTokens = lector.getPosicion();
+        if (cantidadCadenas < 0 || cantidadTokens < 0 || inicioTabla < inicioTokens || inicioTabla > datos.byteSize()) {
+            throw new IOException("Archivo de tokens danado");
+        }
+        
+        // Recorre la tabla una vez para ubicar cada cadena; termina con el archivo
+        iniciosCadenas = new long[cantidadCadenas];
+        longitudesCadenas = new int[cantidadCadenas];
+        lector.setPosicion(inicioTabla);
+        for (int i = 0; i < cantidadCadenas; i++) {
+            longitudesCadenas[i] = lector.varint();
+            iniciosCadenas[i] = lector.getPosicion();
+            lector.saltar(longitudesCadenas[i]);
+        }
+        if (lector.getPosicion() != datos.byteSize()) {
+            throw new IOException("Archivo de tokens danado");
+        }
+        valores = new String[cantidadCadenas];
+    }
+    
+    /**
+     * Mapea un archivo de tokens en memoria
+     * @param archivo Ruta del archivo .tok
+     * @param arena Arena al que pertenece el mapeo; el archivo se desmapea al cerrarlo
+     * @return Cursor posicionado antes del primer token
+     * @throws IOException Si no se puede leer el archivo o no tiene el formato esperado
+     */
+    public static CursorTokens abrir(Path archivo, Arena arena) throws IOException {
+        try (FileChannel canal = FileChannel.open(archivo, StandardOpenOption.READ)) {
+            return new CursorTokens(canal.map(FileChannel.MapMode.READ_ONLY, 0, canal.size(), arena));
+        }
+    }
+    
+    /**
+     * Avanza al siguiente token
+     * @return true si hay un token actual, false si se llego al final
+     */
+    public boolean siguiente() {
+        if (indiceToken + 1 >= cantidadTokens) {
+            indiceToken = cantidadTokens;
+            return false;
+        }
+        if (indiceToken < 0) {
+            lector.setPosicion(inicioTokens);
+            numeroLinea = 0;
+            posicionColumna = 0;
+        }
+        
+        tipo = lector.varint();
+        if (ArchivoTokens.tipo(tipo) == null) {
+            throw new IllegalStateException("Codigo de tipo desconocido en el token " + (indiceToken + 1) + ": " + tipo);
+        }
+        int diferenciaLinea = ArchivoTokens.deszigzag(lector.varint());
+        int columna = ArchivoTokens.deszigzag(lector.varint());
+        posicionColumna = diferenciaLinea != 0 ? columna : posicionColumna + columna;
+        numeroLinea += diferenciaLinea;
+        indiceValor = lector.varint() - 1;
+        indiceToken++;
+        return true;
+    }
+    
+    /**
+     * Vuelve a posicionar el cursor antes del primer token
+     */
+    public void reiniciar() {
+        indiceToken = -1;
+    }
+    
+    public int getCantidadTokens() {
+        return cantidadTokens;
+    }
+    
+    public int getCantidadCadenas() {
+        return cantidadCadenas;
+    }
+    
+    /**
+     * Obtiene la posicion del token actual
+     * @return Posicion (0-based)
+     */
+    public int getIndiceToken() {
+        return indiceToken;
+    }
+    
+    public TipoToken getTipo() {
+        return ArchivoTokens.tipo(tipo);
+    }
+    
+    public int getNumeroLinea() {
+        return numeroLinea;
+    }
+    
+    public int getPosicionColumna() {
+        return posicionColumna;
+    }
+    
+    /**
+     * Obtiene el indice del valor del token actual en la tabla de cadenas;
+     * dos tokens con el mismo valor tienen el mismo indice
+     * @return Indice de la cadena, o -1 si el token no tiene valor
+     */
+    public int getIndiceValor() {
+        return indiceValor;
+    }
+    
+    /**
+     * Obtiene los bytes UTF-8 del valor del token actual sin copiarlos
+     * @return Segmento de solo lectura dentro del archivo mapeado, o null si
+     *         el token no tiene valor
+     */
+    public MemorySegment getBytesValor() {
+        if (indiceValor < 0) {
+            return null;
+        }
+        return datos.asSlice(iniciosCadenas[indiceValor], longitudesCadenas[indiceValor]).asReadOnly();
+    }
+    
+    /**
+     * Obtiene el valor del token actual; cada cadena distinta se decodifica
+     * una sola vez
+     * @return Valor textual del token, o null si no tiene valor
+     */
+    public String getValor() {
+        return indiceValor >= 0 ? obtenerCadena(indiceValor) : null;
+    }
+    
+    /**
+     * Obtiene una cadena de la tabla
+     * @param indice Indice de la cadena
+     * @return Cadena decodificada
+     */
+    public String obtenerCadena(int indice) {
+        String valor = valores[indice];
+        if (valor == null) {
+            byte[] bytes = datos.asSlice(iniciosCadenas[indice], longitudesCadenas[indice]).toArray(ValueLayout.JAVA_BYTE);
+            valor = new String(bytes, StandardCharsets.UTF_8);
+            valores[indice] = valor;
+        }
+        return valor;
+    }
+    
+    /**
+     * Crea un Token con los datos del token actual
+     * @return Token actual
+     */
+    public Token getToken() {
+        return new Token(getTipo(), getValor(), numeroLinea, posicionColumna);
+    }
+}
@@ -0,0 +1,141 @@
+package tokens;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * Arreglo de bytes que crece segun se necesite, con la codificacion comun de
+ * los formatos binarios (archivo de tokens e indice de identificadores).
+ * Los enteros sin signo van en varint (7 bits por byte, el bit alto indica
+ * que sigue otro byte) y los de tamano fijo en little endian.
+ * Para contenidos grandes lo acumulado se puede volcar a un canal cada tanto,
+ * de modo que el arreglo no crece con el archivo completo.
+ * Se lee con LectorBinario
+ */
+public class EscritorBinario {
+    
+    private byte[] datos;
+    private int tamano;
+    // Bytes ya volcados a un canal
+    private long volcados;
+    
+    /**
+     * @param capacidadInicial Bytes reservados al crear el escritor
+     */
+    public EscritorBinario(int capacidadInicial) {
+        datos = new byte[capacidadInicial];
+    }
+    
+    /**
+     * Escribe un entero como varint, tomandolo sin signo
+     */
+    public void varint(int valor) {
+        varlong(valor & 0xFFFFFFFFL);
+    }
+    
+    public void varlong(long valor) {
+        asegurar(10);
+        while ((valor & ~0x7FL) != 0) {
+            datos[tamano++] = (byte) ((valor & 0x7F) | 0x80);
+            valor >>>= 7;
+        }
+        datos[tamano++] = (byte) valor;
+    }
+    
+    public void entero(int valor) {
+        asegurar(4);
+        for (int i = 0; i < 4; i++) {
+            datos[tamano++] = (byte) (valor >>> (8 * i));
+        }
+    }
+    
+    public void largo(long valor) {
+        asegurar(8);
+        largoEn(tamano, valor);
+        tamano += 8;
+    }
+    
+    /**
+     * Sobrescribe un largo ya escrito, para completar encabezados al final
+     * @param posicion Posicion del largo
+     */
+    public void largoEn(int posicion, long valor) {
+        for (int i = 0; i < 8; i++) {
+            datos[posicion + i] = (byte) (valor >>> (8 * i));
+        }
+    }
+    
+    /**
+     * Escribe una cadena como longitud varint seguida de sus bytes UTF-8
+     */
+    public void cadena(String valor) {
+        byte[] utf8 = valor.getBytes(StandardCharsets.UTF_8);
+        varint(utf8.length);
+        bytes(utf8);
+    }
+    
+    public void bytes(byte[] valor) {
+        asegurar(valor.length);
+        System.arraycopy(valor, 0, datos, tamano, valor.length);
+        tamano += valor.length;
+    }
+    
+    /**
+     * Agrega todo lo escrito en otro escritor
+     */
+    public void agregar(EscritorBinario otro) {
+        asegurar(otro.tamano);
+        System.arraycopy(otro.datos, 0, datos, tamano, otro.tamano);
+        tamano += otro.tamano;
+    }
+    
+    /**
+     * Obtiene la cantidad de bytes acumulados (escritos y no volcados)
+     */
+    public int getTamano() {
+        return tamano;
+    }
+    
+    /**
+     * Obtiene la posicion del siguiente byte, contando lo ya volcado
+     */
+    public long getPosicion() {
+        return volcados + tamano;
+    }
+    
+    /**
+     * Escribe lo acumulado en un canal y vacia el arreglo; las posiciones
+     * siguen contando lo ya volcado
+     * @param canal Canal de destino
+     * @throws IOException Si hay error al escribir
+     */
+    public void volcarEn(WritableByteChannel canal) throws IOException {
+        ByteBuffer buffer = ByteBuffer.wrap(datos, 0, tamano);
+        while (buffer.hasRemaining()) {
+            canal.write(buffer);
+        }
+        volcados += tamano;
+        tamano = 0;
+    }
+    
+    /**
+     * Copia lo escrito
+     * @return Arreglo con exactamente los bytes escritos
+     */
+    public byte[] toArray() {
+        return Arrays.copyOf(datos, tamano);
+    }
+    
+    private void asegurar(int adicional) {
+        if ((long) tamano + adicional > datos.length) {
+            long nuevo = Math.max((long) datos.length * 2, (long) tamano + adicional);
+            if (nuevo > Integer.MAX_VALUE - 8) {
+                throw new IllegalStateException("Contenido binario demasiado grande");
+            }
+            datos = Arrays.copyOf(datos, (int) nuevo);
+        }
+    }
+}
@@ -0,0 +1,95 @@
+package tokens;
+
+import java.lang.foreign.MemorySegment;
+import java.lang.foreign.ValueLayout;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Lectura secuencial de lo escrito con EscritorBinario sobre un segmento de
+ * memoria (normalmente un archivo mapeado). Guarda su posicion de lectura,
+ * por lo que no se debe compartir entre hilos
+ */
+public class LectorBinario {
+    
+    private static final ValueLayout.OfInt ENTERO = ValueLayout.JAVA_INT_UNALIGNED.withOrder(ByteOrder.LITTLE_ENDIAN);
+    private static final ValueLayout.OfLong LARGO = ValueLayout.JAVA_LONG_UNALIGNED.withOrder(ByteOrder.LITTLE_ENDIAN);
+    
+    private final MemorySegment datos;
+    private long posicion;
+    
+    public LectorBinario(MemorySegment datos) {
+        this.datos = datos;
+    }
+    
+    public long getPosicion() {
+        return posicion;
+    }
+    
+    public void setPosicion(long posicion) {
+        this.posicion = posicion;
+    }
+    
+    /**
+     * Avanza la posicion sin leer
+     * @param cantidad Bytes a saltar
+     */
+    public void saltar(long cantidad) {
+        posicion += cantidad;
+    }
+    
+    /**
+     * Lee un varint escrito con EscritorBinario.varint
+     */
+    public int varint() {
+        int valor = 0;
+        int desplazamiento = 0;
+        byte actual;
+        do {
+            actual = datos.get(ValueLayout.JAVA_BYTE, posicion++);
+            valor |= (actual & 0x7F) << desplazamiento;
+            desplazamiento += 7;
+        } while (actual < 0 && desplazamiento < 35);
+        return valor;
+    }
+    
+    public long varlong() {
+        long valor = 0;
+        int desplazamiento = 0;
+        byte actual;
+        do {
+            actual = datos.get(ValueLayout.JAVA_BYTE, posicion++);
+            valor |= (long) (actual & 0x7F) << desplazamiento;
+            desplazamiento += 7;
+        } while (actual < 0 && desplazamiento < 70);
+        return valor;
+    }
+    
+    /**
+     * Lee un entero escrito con EscritorBinario.entero
+     */
+    public int entero() {
+        int valor = datos.get(ENTERO, posicion);
+        posicion += Integer.BYTES;
+        return valor;
+    }
+    
+    /**
+     * Lee un largo escrito con EscritorBinario.largo
+     */
+    public long largo() {
+        long valor = datos.get(LARGO, posicion);
+        posicion += Long.BYTES;
+        return valor;
+    }
+    
+    /**
+     * Lee una cadena escrita con EscritorBinario.cadena
+     */
+    public String cadena() {
+        int longitud = varint();
+        byte[] bytes = datos.asSlice(posicion, longitud).toArray(ValueLayout.JAVA_BYTE);
+        posicion += longitud;
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+}
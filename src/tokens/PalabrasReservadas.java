@@ -1,5 +1,6 @@
 package tokens;
 
+import java.util.Arrays;
 import java.util.HashSet;
 import java.util.Set;
 
@@ -10,6 +11,9 @@ public class PalabrasReservadas {
     
     private static final Set<String> PALABRAS_RESERVADAS = new HashSet<>();
     
+    // Palabras reservadas agrupadas por longitud para comparar rangos sin crear Strings
+    private static final String[][] PALABRAS_POR_LONGITUD;
+    
     static {
         // Inicia palabras reservadas 
         String[] palabras = {
@@ -27,6 +31,18 @@ public class PalabrasReservadas {
         for (String palabra : palabras) {
             PALABRAS_RESERVADAS.add(palabra.toUpperCase());
         }
+        
+        int longitudMaxima = 0;
+        for (String palabra : PALABRAS_RESERVADAS) {
+            longitudMaxima = Math.max(longitudMaxima, palabra.length());
+        }
+        PALABRAS_POR_LONGITUD = new String[longitudMaxima + 1][0];
+        for (String palabra : PALABRAS_RESERVADAS) {
+            String[] grupo = PALABRAS_POR_LONGITUD[palabra.length()];
+            grupo = Arrays.copyOf(grupo, grupo.length + 1);
+            grupo[grupo.length - 1] = palabra;
+            PALABRAS_POR_LONGITUD[palabra.length()] = grupo;
+        }
     }
     
     /**
@@ -41,6 +57,40 @@ public class PalabrasReservadas {
         return PALABRAS_RESERVADAS.contains(palabra.toUpperCase());
     }
     
+    /**
+     * Verifica si un rango de caracteres ASCII es palabra reservada, sin crear Strings
+     * Equivale a esPalabraReservada(texto.subSequence(inicio, fin).toString())
+     * cuando el rango solo contiene letras, digitos y guiones bajos ASCII
+     * @param texto Texto que contiene la palabra
+     * @param inicio Inicio del rango (inclusive)
+     * @param fin Fin del rango (exclusivo)
+     * @return true si es palabra reservada, false en caso contrario
+     */
+    public static boolean esPalabraReservadaAscii(CharSequence texto, int inicio, int fin) {
+        int longitud = fin - inicio;
+        if (longitud <= 0 || longitud >= PALABRAS_POR_LONGITUD.length) {
+            return false;
+        }
+        
+        for (String palabra : PALABRAS_POR_LONGITUD[longitud]) {
+            int i = 0;
+            while (i < longitud) {
+                char c = texto.charAt(inicio + i);
+                if (c >= 'a' && c <= 'z') {
+                    c -= 'a' - 'A';
+                }
+                if (c != palabra.charAt(i)) {
+                    break;
+                }
+                i++;
+            }
+            if (i == longitud) {
+                return true;
+            }
+        }
+        return false;
+    }
+    
     /**
      * Obtiene todas las palabras reservadas
      * @return Set con todas las palabras reservadas
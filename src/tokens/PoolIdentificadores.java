@@ -0,0 +1,299 @@
+package tokens;
+
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Pool de identificadores sin distinguir mayusculas, compartido por todos los
+ * hilos de analisis. Cada identificador tiene una instancia canonica plegada a
+ * minusculas con su hash precalculado, y cada forma de escribirlo (ej: "Total",
+ * "TOTAL") se guarda una sola vez. Dos identificadores iguales sin distinguir
+ * mayusculas obtienen la misma instancia plegada, por lo que compararlos es
+ * una comparacion de referencias.
+ * Las busquedas reciben rangos de caracteres y no crean objetos si el
+ * identificador ya existe; solo las inserciones toman un bloqueo por segmento.
+ * El pool no borra entradas: para que los modos residentes no crezcan sin
+ * limite, el pool compartido se reemplaza por uno vacio al llegar a
+ * LIMITE_COMPARTIDO identificadores. Cada analizador toma el pool al empezar
+ * un archivo y lo conserva hasta terminarlo, asi las instancias de un mismo
+ * archivo siguen siendo comparables por referencia; el pool anterior se
+ * libera cuando ningun analisis lo usa
+ */
+public final class PoolIdentificadores {
+    
+    /** Identificadores distintos a partir de los cuales se reemplaza el pool compartido */
+    public static final int LIMITE_COMPARTIDO = 1 << 16;
+    
+    private static final AtomicReference<PoolIdentificadores> COMPARTIDO =
+        new AtomicReference<>(new PoolIdentificadores());
+    
+    private static final int SEGMENTOS = 16;
+    private static final int CAPACIDAD_INICIAL = 64;
+    
+    private final Segmento[] segmentos;
+    
+    public PoolIdentificadores() {
+        segmentos = new Segmento[SEGMENTOS];
+        for (int i = 0; i < SEGMENTOS; i++) {
+            segmentos[i] = new Segmento();
+        }
+    }
+    
+    /**
+     * Obtiene el pool compartido por todos los analizadores; si llego a
+     * LIMITE_COMPARTIDO lo reemplaza por uno vacio
+     * @return Pool compartido actual
+     */
+    public static PoolIdentificadores getCompartido() {
+        PoolIdentificadores actual = COMPARTIDO.get();
+        if (actual.tamano() >= LIMITE_COMPARTIDO) {
+            COMPARTIDO.compareAndSet(actual, new PoolIdentificadores());
+            actual = COMPARTIDO.get();
+        }
+        return actual;
+    }
+    
+    /**
+     * Obtiene la instancia canonica de un identificador tal como esta escrito
+     * @param texto Texto que contiene el identificador
+     * @param inicio Posicion inicial (inclusiva)
+     * @param fin Posicion final (exclusiva)
+     * @return String canonico con la misma escritura del rango
+     */
+    public String internar(CharSequence texto, int inicio, int fin) {
+        int hash = hashPlegado(texto, inicio, fin);
+        return segmento(hash).obtener(texto, inicio, fin, hash).variante(texto, inicio, fin);
+    }
+    
+    /**
+     * Obtiene la instancia canonica de un identificador tal como esta escrito
+     * @param identificador Identificador
+     * @return String canonico con la misma escritura
+     */
+    public String internar(String identificador) {
+        return internar(identificador, 0, identificador.length());
+    }
+    
+    /**
+     * Obtiene la instancia canonica plegada a minusculas de un identificador,
+     * agregandolo al pool si no existe
+     * @param texto Texto que contiene el identificador
+     * @param inicio Posicion inicial (inclusiva)
+     * @param fin Posicion final (exclusiva)
+     * @return String canonico en minusculas
+     */
+    public String plegar(CharSequence texto, int inicio, int fin) {
+        int hash = hashPlegado(texto, inicio, fin);
+        return segmento(hash).obtener(texto, inicio, fin, hash).plegado;
+    }
+    
+    /**
+     * Obtiene la instancia canonica plegada a minusculas de un identificador,
+     * agregandolo al pool si no existe
+     * @param identificador Identificador
+     * @return String canonico en minusculas
+     */
+    public String plegar(String identificador) {
+        return plegar(identificador, 0, identificador.length());
+    }
+    
+    /**
+     * Busca la instancia canonica plegada sin agregar el identificador
+     * @param identificador Identificador
+     * @return String canonico en minusculas, o null si no esta en el pool
+     */
+    public String buscarPlegado(String identificador) {
+        int hash = hashPlegado(identificador, 0, identificador.length());
+        Entrada entrada = segmento(hash).buscar(identificador, 0, identificador.length(), hash);
+        return entrada != null ? entrada.plegado : null;
+    }
+    
+    /**
+     * Obtiene la cantidad de identificadores distintos (sin distinguir mayusculas)
+     * @return Cantidad de entradas del pool
+     */
+    public int tamano() {
+        int total = 0;
+        for (Segmento segmento : segmentos) {
+            total += segmento.cantidad;
+        }
+        return total;
+    }
+    
+    /**
+     * Calcula el hash de un rango plegado a minusculas, igual al hashCode del
+     * String plegado correspondiente
+     * @param texto Texto que contiene el identificador
+     * @param inicio Posicion inicial (inclusiva)
+     * @param fin Posicion final (exclusiva)
+     * @return Hash plegado
+     */
+    public static int hashPlegado(CharSequence texto, int inicio, int fin) {
+        int hash = 0;
+        for (int i = inicio; i < fin; i++) {
+            hash = 31 * hash + plegarCaracter(texto.charAt(i));
+        }
+        return hash;
+    }
+    
+    /**
+     * Pliega un caracter con la misma regla que String.equalsIgnoreCase
+     */
+    private static char plegarCaracter(char c) {
+        if (c < 128) {
+            return c >= 'A' && c <= 'Z' ? (char) (c + ('a' - 'A')) : c;
+        }
+        return Character.toLowerCase(Character.toUpperCase(c));
+    }
+    
+    private Segmento segmento(int hash) {
+        // Mezcla los bits altos para repartir mejor entre segmentos
+        return segmentos[(hash ^ (hash >>> 16)) & (SEGMENTOS - 1)];
+    }
+    
+    /**
+     * Identificador canonico con sus escrituras conocidas
+     */
+    private static final class Entrada {
+        final String plegado;
+        final int hash;
+        volatile String[] variantes;
+        
+        Entrada(String plegado, int hash) {
+            this.plegado = plegado;
+            this.hash = hash;
+            this.variantes = new String[0];
+        }
+        
+        boolean coincidePlegado(CharSequence texto, int inicio, int fin) {
+            if (plegado.length() != fin - inicio) {
+                return false;
+            }
+            for (int i = inicio; i < fin; i++) {
+                if (plegado.charAt(i - inicio) != plegarCaracter(texto.charAt(i))) {
+                    return false;
+                }
+            }
+            return true;
+        }
+        
+        String variante(CharSequence texto, int inicio, int fin) {
+            String encontrada = buscarVariante(variantes, texto, inicio, fin);
+            if (encontrada != null) {
+                return encontrada;
+            }
+            synchronized (this) {
+                String[] actuales = variantes;
+                encontrada = buscarVariante(actuales, texto, inicio, fin);
+                if (encontrada == null) {
+                    encontrada = texto.subSequence(inicio, fin).toString();
+                    if (encontrada.equals(plegado)) {
+                        encontrada = plegado;
+                    }
+                    String[] nuevas = Arrays.copyOf(actuales, actuales.length + 1);
+                    nuevas[actuales.length] = encontrada;
+                    variantes = nuevas;
+                }
+                return encontrada;
+            }
+        }
+        
+        private static String buscarVariante(String[] variantes, CharSequence texto, int inicio, int fin) {
+            for (String variante : variantes) {
+                if (variante.length() == fin - inicio && igualesExactos(variante, texto, inicio)) {
+                    return variante;
+                }
+            }
+            return null;
+        }
+        
+        private static boolean igualesExactos(String variante, CharSequence texto, int inicio) {
+            for (int i = 0; i < variante.length(); i++) {
+                if (variante.charAt(i) != texto.charAt(inicio + i)) {
+                    return false;
+                }
+            }
+            return true;
+        }
+    }
+    
+    /**
+     * Nodo inmutable de una cadena de colision
+     */
+    private static final class Nodo {
+        final Entrada entrada;
+        final Nodo siguiente;
+        
+        Nodo(Entrada entrada, Nodo siguiente) {
+            this.entrada = entrada;
+            this.siguiente = siguiente;
+        }
+    }
+    
+    /**
+     * Tabla hash de un segmento: las lecturas no toman bloqueo, las
+     * inserciones y el crecimiento se hacen con el bloqueo del segmento
+     */
+    private static final class Segmento {
+        volatile AtomicReferenceArray<Nodo> tabla = new AtomicReferenceArray<>(CAPACIDAD_INICIAL);
+        volatile int cantidad;
+        
+        Entrada buscar(CharSequence texto, int inicio, int fin, int hash) {
+            AtomicReferenceArray<Nodo> actual = tabla;
+            Nodo nodo = actual.get(hash & (actual.length() - 1));
+            while (nodo != null) {
+                Entrada entrada = nodo.entrada;
+                if (entrada.hash == hash && entrada.coincidePlegado(texto, inicio, fin)) {
+                    return entrada;
+                }
+                nodo = nodo.siguiente;
+            }
+            return null;
+        }
+        
+        Entrada obtener(CharSequence texto, int inicio, int fin, int hash) {
+            Entrada entrada = buscar(texto, inicio, fin, hash);
+            if (entrada != null) {
+                return entrada;
+            }
+            synchronized (this) {
+                entrada = buscar(texto, inicio, fin, hash);
+                if (entrada != null) {
+                    return entrada;
+                }
+                
+                char[] plegado = new char[fin - inicio];
+                for (int i = inicio; i < fin; i++) {
+                    plegado[i - inicio] = plegarCaracter(texto.charAt(i));
+                }
+                entrada = new Entrada(new String(plegado), hash);
+                
+                if (cantidad + 1 > tabla.length() * 3 / 4) {
+                    crecer();
+                }
+                AtomicReferenceArray<Nodo> actual = tabla;
+                int posicion = hash & (actual.length() - 1);
+                actual.set(posicion, new Nodo(entrada, actual.get(posicion)));
+                cantidad++;
+                return entrada;
+            }
+        }
+        
+        /**
+         * Duplica la tabla; los lectores siguen usando la anterior hasta que
+         * se publica la nueva
+         */
+        private void crecer() {
+            AtomicReferenceArray<Nodo> anterior = tabla;
+            AtomicReferenceArray<Nodo> nueva = new AtomicReferenceArray<>(anterior.length() * 2);
+            for (int i = 0; i < anterior.length(); i++) {
+                for (Nodo nodo = anterior.get(i); nodo != null; nodo = nodo.siguiente) {
+                    int posicion = nodo.entrada.hash & (nueva.length() - 1);
+                    nueva.set(posicion, new Nodo(nodo.entrada, nueva.get(posicion)));
+                }
+            }
+            tabla = nueva;
+        }
+    }
+}
@@ -8,6 +8,7 @@ public class Token {
     private final String valor;
     private final int numeroLinea;
     private final int posicionColumna;
+    private final int columnaTexto;
     private final int posicionInicial;
     private final int posicionFinal;
     
@@ -22,14 +23,33 @@ public class Token {
      */
     public Token(TipoToken tipo, String valor, int numeroLinea, int posicionColumna, 
                  int posicionInicial, int posicionFinal) {
+        this(tipo, valor, numeroLinea, posicionColumna, 0, posicionInicial, posicionFinal);
+    }
+    
+    private Token(TipoToken tipo, String valor, int numeroLinea, int posicionColumna, int columnaTexto,
+                  int posicionInicial, int posicionFinal) {
         this.tipo = tipo;
         this.valor = valor;
         this.numeroLinea = numeroLinea;
         this.posicionColumna = posicionColumna;
+        this.columnaTexto = columnaTexto;
         this.posicionInicial = posicionInicial;
         this.posicionFinal = posicionFinal;
     }
     
+    /**
+     * Constructor del token con la columna donde empieza en la linea
+     * @param tipo Tipo del token
+     * @param valor Valor textual del token
+     * @param numeroLinea Numero de linea
+     * @param posicionColumna Posicion en la columna
+     * @param columnaTexto Columna del primer caracter en la linea original
+     *                     (1-based), o 0 si no se conoce
+     */
+    public Token(TipoToken tipo, String valor, int numeroLinea, int posicionColumna, int columnaTexto) {
+        this(tipo, valor, numeroLinea, posicionColumna, columnaTexto, -1, -1);
+    }
+    
     /**
      * Constructor simplificado del token
      * @param tipo Tipo del token
@@ -38,7 +58,7 @@ public class Token {
      * @param posicionColumna Posicion en la columna
      */
     public Token(TipoToken tipo, String valor, int numeroLinea, int posicionColumna) {
-        this(tipo, valor, numeroLinea, posicionColumna, -1, -1);
+        this(tipo, valor, numeroLinea, posicionColumna, 0);
     }
     
     /**
@@ -67,6 +87,15 @@ public class Token {
         return posicionColumna;
     }
     
+    /**
+     * Obtiene la columna donde empieza el token en la linea original, contando
+     * los comentarios y espacios que el analizador descarta
+     * @return Columna (1-based), o 0 si no se conoce
+     */
+    public int getColumnaTexto() {
+        return columnaTexto;
+    }
+    
     public int getPosicionInicial() {
         return posicionInicial;
     }
@@ -98,7 +127,8 @@ public class Token {
      * @return true si coincide el valor
      */
     public boolean esValor(String valor) {
-        return this.valor != null && this.valor.equalsIgnoreCase(valor);
+        // Los identificadores internados suelen ser la misma instancia
+        return this.valor == valor || (this.valor != null && this.valor.equalsIgnoreCase(valor));
     }
     
     /**
@@ -133,7 +163,7 @@ public class Token {
      * @return Nueva instancia de Token
      */
     public Token conTipo(TipoToken nuevoTipo) {
-        return new Token(nuevoTipo, valor, numeroLinea, posicionColumna, 
+        return new Token(nuevoTipo, valor, numeroLinea, posicionColumna, columnaTexto,
                         posicionInicial, posicionFinal);
     }
     
@@ -143,7 +173,7 @@ public class Token {
      * @return Nueva instancia de Token
      */
     public Token conValor(String nuevoValor) {
-        return new Token(tipo, nuevoValor, numeroLinea, posicionColumna, 
+        return new Token(tipo, nuevoValor, numeroLinea, posicionColumna, columnaTexto,
                         posicionInicial, posicionFinal);
     }
     
@@ -251,19 +251,21 @@ public class Utilidades {
             return TipoToken.PALABRA_RESERVADA;
         }
         
-        // Verifica si es numero
-        if (PATRON_NUMERO_ENTERO.matcher(valor).matches() || 
-            PATRON_NUMERO_REAL.matcher(valor).matches()) {
+        // Verifica si es numero (solo si empieza con signo o digito)
+        char primero = valor.charAt(0);
+        if ((primero == '-' || Character.isDigit(primero))
+            && (PATRON_NUMERO_ENTERO.matcher(valor).matches() || 
+                PATRON_NUMERO_REAL.matcher(valor).matches())) {
             return TipoToken.NUMERO;
         }
         
         // Verifica si es cadena
-        if (PATRON_CADENA_PASCAL.matcher(valor).matches()) {
+        if (primero == '\'' && PATRON_CADENA_PASCAL.matcher(valor).matches()) {
             return TipoToken.CADENA;
         }
         
         // Verifica si es identificador
-        if (ValidadorIdentificadores.validarIdentificador(valor).esValido) {
+        if (ValidadorIdentificadores.validar(valor, 0, valor.length()) == ValidadorIdentificadores.VALIDO) {
             return TipoToken.IDENTIFICADOR;
         }
         
@@ -516,6 +518,9 @@ public class Utilidades {
     
     /**
      * Genera estadisticas basicas de un archivo
+     * El analizador lexico ya recolecta estadisticas mas completas durante el
+     * analisis (ver analizador.EstadisticasFuente); este metodo queda para
+     * contenidos que no se analizan
      * @param contenido Contenido del archivo
      * @return Map con estadísticas
      */
@@ -526,24 +531,48 @@ public class Utilidades {
             return stats;
         }
         
-        String[] lineas = contenido.split("\n");
+        // Recorre las lineas con contadores primitivos, sin split ni boxing por linea
+        int lineasTotales = 0;
+        int lineasVacias = 0;
+        int lineasComentario = 0;
+        int lineasCodigo = 0;
+        int lineasVaciasPendientes = 0;
+        boolean sinSaltos = contenido.indexOf('\n') == -1;
+        int inicio = 0;
         
-        stats.put("lineas_totales", lineas.length);
-        stats.put("lineas_vacias", 0);
-        stats.put("lineas_comentario", 0);
-        stats.put("lineas_codigo", 0);
-        stats.put("caracteres_totales", contenido.length());
-        
-        for (String linea : lineas) {
-            if (esLineaVacia(linea)) {
-                stats.put("lineas_vacias", stats.get("lineas_vacias") + 1);
-            } else if (esComentario(linea)) {
-                stats.put("lineas_comentario", stats.get("lineas_comentario") + 1);
+        while (inicio <= contenido.length()) {
+            int fin = contenido.indexOf('\n', inicio);
+            if (fin == -1) {
+                fin = contenido.length();
+            }
+            String linea = contenido.substring(inicio, fin);
+            
+            // Como split, las lineas vacias del final no se cuentan
+            if (linea.isEmpty() && !sinSaltos) {
+                lineasVaciasPendientes++;
             } else {
-                stats.put("lineas_codigo", stats.get("lineas_codigo") + 1);
+                lineasTotales += lineasVaciasPendientes + 1;
+                lineasVacias += lineasVaciasPendientes;
+                lineasVaciasPendientes = 0;
+                
+                if (esLineaVacia(linea)) {
+                    lineasVacias++;
+                } else if (esComentario(linea)) {
+                    lineasComentario++;
+                } else {
+                    lineasCodigo++;
+                }
             }
+            
+            inicio = fin + 1;
         }
         
+        stats.put("lineas_totales", lineasTotales);
+        stats.put("lineas_vacias", lineasVacias);
+        stats.put("lineas_comentario", lineasComentario);
+        stats.put("lineas_codigo", lineasCodigo);
+        stats.put("caracteres_totales", contenido.length());
+        
         return stats;
     }
     
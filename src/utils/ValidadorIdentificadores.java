@@ -9,48 +9,113 @@ import java.util.regex.Pattern;
 public class ValidadorIdentificadores {
     
     // Patrones de expresiones regulares
-    private static final Pattern PATRON_IDENTIFICADOR = Pattern.compile("^[a-zA-Z][a-zA-Z0-9_]*$");
     private static final Pattern PATRON_SOLO_LETRAS = Pattern.compile("^[a-zA-Z]+$");
     private static final Pattern PATRON_NUMERO = Pattern.compile("^\\d+$");
     private static final Pattern PATRON_NUMERO_DECIMAL = Pattern.compile("^\\d+\\.\\d+$");
     
+    // Codigos de estado de validar(); VALIDO es el unico estado sin error
+    public static final int VALIDO = 0;
+    public static final int ERROR_VACIO = 1;
+    public static final int ERROR_NUMERO_INICIAL = 2;
+    public static final int ERROR_CARACTER_INVALIDO = 3;
+    public static final int ERROR_PALABRA_RESERVADA = 4;
+    
+    // Resultado compartido para el caso valido (ResultadoValidacion es inmutable)
+    private static final ResultadoValidacion RESULTADO_VALIDO = 
+        new ResultadoValidacion(true, "Identificador valido");
+    
     /**
      * Valida si un identificador es valido segun las reglas de PASCAL
      * @param identificador Identificador a validar
      * @return ResultadoValidacion con el resultado y mensaje de error
      */
     public static ResultadoValidacion validarIdentificador(String identificador) {
-        if (identificador == null || identificador.trim().isEmpty()) {
-            return new ResultadoValidacion(false, "Identificador no puede estar vacio");
+        if (identificador == null) {
+            return new ResultadoValidacion(false, mensaje(ERROR_VACIO, null));
         }
         
-        String id = identificador.trim();
+        int estado = validar(identificador, 0, identificador.length());
+        if (estado == VALIDO) {
+            return RESULTADO_VALIDO;
+        }
+        return new ResultadoValidacion(false, mensaje(estado, identificador));
+    }
+    
+    /**
+     * Valida un identificador sobre un rango de caracteres sin crear objetos
+     * Aplica las mismas reglas que validarIdentificador, incluyendo ignorar
+     * los espacios al inicio y al final del rango
+     * @param texto Texto que contiene el identificador
+     * @param inicio Inicio del rango (inclusive)
+     * @param fin Fin del rango (exclusivo)
+     * @return VALIDO o uno de los codigos ERROR_*
+     */
+    public static int validar(CharSequence texto, int inicio, int fin) {
+        // Equivalente a trim()
+        while (inicio < fin && texto.charAt(inicio) <= ' ') {
+            inicio++;
+        }
+        while (fin > inicio && texto.charAt(fin - 1) <= ' ') {
+            fin--;
+        }
         
-        // Verifica longitud minima
-        if (id.length() < 1) {
-            return new ResultadoValidacion(false, "Identificador debe tener al menos un caracter");
+        if (inicio == fin) {
+            return ERROR_VACIO;
         }
         
         // Verifica que no empiece con numero
-        if (Character.isDigit(id.charAt(0))) {
-            return new ResultadoValidacion(false, 
-                "Identificador no puede comenzar con numero: " + id);
+        char primero = texto.charAt(inicio);
+        if (Character.isDigit(primero)) {
+            return ERROR_NUMERO_INICIAL;
         }
         
-        // Verifica patron general
-        if (!PATRON_IDENTIFICADOR.matcher(id).matches()) {
-            return new ResultadoValidacion(false, 
-                "Identificador contiene caracteres invalidos: " + id + 
-                ". Solo se permiten letras, numeros y guiones bajos");
+        // Verifica patron general: [a-zA-Z][a-zA-Z0-9_]*
+        if (!esLetraAscii(primero)) {
+            return ERROR_CARACTER_INVALIDO;
+        }
+        for (int i = inicio + 1; i < fin; i++) {
+            char c = texto.charAt(i);
+            if (!esLetraAscii(c) && !(c >= '0' && c <= '9') && c != '_') {
+                return ERROR_CARACTER_INVALIDO;
+            }
         }
         
         // Verifica que no sea palabra reservada
-        if (PalabrasReservadas.esPalabraReservada(id)) {
-            return new ResultadoValidacion(false, 
-                "No se puede usar palabra reservada como identificador: " + id);
+        if (PalabrasReservadas.esPalabraReservadaAscii(texto, inicio, fin)) {
+            return ERROR_PALABRA_RESERVADA;
         }
         
-        return new ResultadoValidacion(true, "Identificador valido");
+        return VALIDO;
+    }
+    
+    private static boolean esLetraAscii(char c) {
+        return (c >= 'a' && c <= 'z') || (c >= 'A' && c <= 'Z');
+    }
+    
+    /**
+     * Construye el mensaje de un codigo de estado; solo se llama al reportar un error
+     * @param estado Codigo devuelto por validar()
+     * @param identificador Identificador validado
+     * @return Mensaje legible del resultado
+     */
+    public static String mensaje(int estado, String identificador) {
+        String id = identificador != null ? identificador.trim() : null;
+        
+        switch (estado) {
+            case VALIDO:
+                return "Identificador valido";
+            case ERROR_VACIO:
+                return "Identificador no puede estar vacio";
+            case ERROR_NUMERO_INICIAL:
+                return "Identificador no puede comenzar con numero: " + id;
+            case ERROR_CARACTER_INVALIDO:
+                return "Identificador contiene caracteres invalidos: " + id + 
+                       ". Solo se permiten letras, numeros y guiones bajos";
+            case ERROR_PALABRA_RESERVADA:
+                return "No se puede usar palabra reservada como identificador: " + id;
+            default:
+                throw new IllegalArgumentException("Codigo de estado desconocido: " + estado);
+        }
     }
     
     /**
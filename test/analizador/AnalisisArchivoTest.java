@@ -0,0 +1,61 @@
+package analizador;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.concurrent.ForkJoinPool;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+/**
+ * Prueba dorada del analisis completo: dist/calendario.pas debe producir
+ * exactamente dist/calendario-errores.err, el reporte de la version original.
+ * Se ejecuta desde el directorio del proyecto
+ */
+public class AnalisisArchivoTest {
+    
+    private static final Path FUENTE = Paths.get("dist", "calendario.pas");
+    private static final Path REPORTE = Paths.get("dist", "calendario-errores.err");
+    
+    private Path directorio;
+    
+    @Before
+    public void crearDirectorio() throws IOException {
+        directorio = Files.createTempDirectory("analisis");
+    }
+    
+    @After
+    public void borrarDirectorio() throws IOException {
+        try (var archivos = Files.list(directorio)) {
+            for (Path archivo : (Iterable<Path>) archivos::iterator) {
+                Files.delete(archivo);
+            }
+        }
+        Files.delete(directorio);
+    }
+    
+    @Test
+    public void calendarioProduceElReporteOriginal() throws IOException {
+        Path copia = Files.copy(FUENTE, directorio.resolve("calendario.pas"));
+        AnalisisArchivo.ejecutar(copia.toString());
+        assertReporte(directorio.resolve("calendario-errores.err"));
+    }
+    
+    @Test
+    public void calendarioFragmentadoProduceElMismoReporte() throws IOException {
+        Path copia = Files.copy(FUENTE, directorio.resolve("calendario.pas"));
+        // Umbral 0: el analisis lexico siempre pasa por AnalizadorLexicoParalelo
+        AnalisisArchivo.ejecutar(copia.toString(), ForkJoinPool.commonPool(), 0);
+        assertReporte(directorio.resolve("calendario-errores.err"));
+    }
+    
+    private static void assertReporte(Path generado) throws IOException {
+        assertTrue("No se genero " + generado, Files.isRegularFile(generado));
+        assertEquals(new String(Files.readAllBytes(REPORTE), StandardCharsets.UTF_8),
+                     new String(Files.readAllBytes(generado), StandardCharsets.UTF_8));
+    }
+}
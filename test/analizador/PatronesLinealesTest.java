@@ -0,0 +1,115 @@
+package analizador;
+
+import java.util.Random;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+/**
+ * Compara cada reconocedor de PatronesLineales con la expresion regular que
+ * reemplazo, sobre casos conocidos y sobre textos aleatorios armados con los
+ * fragmentos que cambian el resultado (comillas, #, digitos, dos puntos,
+ * tipos, espacios y terminadores de linea).
+ * Los textos son cortos: las expresiones originales retroceden o agotan la
+ * pila con entradas largas, que es justamente lo que los reconocedores evitan
+ */
+public class PatronesLinealesTest {
+    
+    // Expresiones originales de AnalizadorLexico y PatronesSintacticos
+    private static final Pattern CADENA_COMPLEJA = Pattern.compile(
+        "^'[^']*'(#\\d+('[^']*')?)*$|^#\\d+('[^']*'(#\\d+)?)*$");
+    private static final Pattern EXPRESION_COMPARACION = Pattern.compile(
+        "^[a-zA-Z][a-zA-Z0-9_]*[<>=]+\\d*[a-zA-Z0-9_]*$");
+    private static final Pattern LISTA_UNIDADES = Pattern.compile(".*[a-zA-Z]+.*,.*[a-zA-Z]+.*");
+    private static final Pattern CONTIENE_LETRAS = Pattern.compile(".*[a-zA-Z]+.*");
+    private static final Pattern CONTIENE_DECLARACION_TIPO = Pattern.compile(
+        ".*\\s*:\\s*(word|integer|byte|string|real|boolean).*");
+    private static final Pattern TIPO_AL_FINAL = Pattern.compile(
+        ".*\\s*:\\s*(word|integer|byte|string|real|boolean)\\s*$");
+    private static final Pattern IDENTIFICADOR_CON_TIPO = Pattern.compile(
+        "\\s*([a-zA-Z_][a-zA-Z0-9_]*)\\s*:\\s*(word|integer|byte|string|real|boolean)",
+        Pattern.CASE_INSENSITIVE);
+    
+    private static final String[] FRAGMENTOS = {
+        "'", "'", "#", "#", "1", "13", "a", "Z", "_", "x1", " ", " ", "\t", "\n", "\r", "\u000B", "\u0085",
+        " ", ":", ":", ",", ";", "<", "=", ">", "<=", "word", "integer", "Integer", "byte", "string",
+        "STRING", "real", "boolean", "intege", "var"
+    };
+    
+    private static final int TEXTOS_ALEATORIOS = 200_000;
+    
+    @Test
+    public void cadenaComplejaEnCasosConocidos() {
+        for (String texto : new String[] {"'a'#13#10'b'", "#201'x'", "'a'", "#1", "''", "#1'a'#2", "'a'#",
+                                          "#'a'", "'a'#1'b", "#1#2", "'a''b'", "", "'", "#"}) {
+            assertIgual(CADENA_COMPLEJA, texto, PatronesLineales.esCadenaCompleja(texto));
+        }
+    }
+    
+    @Test
+    public void expresionComparacionEnCasosConocidos() {
+        for (String texto : new String[] {"dia<1", "mes<=11", "a<>b", "x=", "1<a", "a<1!", "a_1>=b_2", "a", ""}) {
+            assertIgual(EXPRESION_COMPARACION, texto, PatronesLineales.esExpresionComparacion(texto));
+        }
+    }
+    
+    @Test
+    public void declaracionesEnCasosConocidos() {
+        for (String linea : new String[] {"x : integer;", "  nombre:String ;", "a, b: word", "x : integ",
+                                          "x :\n integer", "x\n: integer", "x : integer\n", ": real", ""}) {
+            assertIgual(CONTIENE_DECLARACION_TIPO, linea, PatronesLineales.contieneDeclaracionTipo(linea));
+            assertIgual(TIPO_AL_FINAL, linea, PatronesLineales.terminaEnTipo(linea));
+            assertIdentificador(linea);
+        }
+    }
+    
+    @Test
+    public void equivalenciaConTextosAleatorios() {
+        Random aleatorio = new Random(49);
+        for (int i = 0; i < TEXTOS_ALEATORIOS; i++) {
+            String texto = aleatorio(aleatorio);
+            assertIgual(CADENA_COMPLEJA, texto, PatronesLineales.esCadenaCompleja(texto));
+            assertIgual(EXPRESION_COMPARACION, texto, PatronesLineales.esExpresionComparacion(texto));
+            assertIgual(CONTIENE_LETRAS, texto, PatronesLineales.contieneLetras(texto));
+            assertIgual(CONTIENE_DECLARACION_TIPO, texto, PatronesLineales.contieneDeclaracionTipo(texto));
+            assertIgual(TIPO_AL_FINAL, texto, PatronesLineales.terminaEnTipo(texto));
+            assertIdentificador(texto);
+            // La lista de unidades se elimino porque solo acepta lineas con letras
+            assertTrue(escapar(texto), !LISTA_UNIDADES.matcher(texto).matches()
+                                       || PatronesLineales.contieneLetras(texto));
+        }
+    }
+    
+    private static String aleatorio(Random aleatorio) {
+        StringBuilder texto = new StringBuilder();
+        int fragmentos = aleatorio.nextInt(12);
+        for (int i = 0; i < fragmentos; i++) {
+            texto.append(FRAGMENTOS[aleatorio.nextInt(FRAGMENTOS.length)]);
+        }
+        return texto.toString();
+    }
+    
+    private static void assertIgual(Pattern patron, String texto, boolean obtenido) {
+        assertEquals(patron.pattern() + " con \"" + escapar(texto) + "\"",
+                     patron.matcher(texto).matches(), obtenido);
+    }
+    
+    private static void assertIdentificador(String linea) {
+        Matcher m = IDENTIFICADOR_CON_TIPO.matcher(linea);
+        assertEquals(IDENTIFICADOR_CON_TIPO.pattern() + " con \"" + escapar(linea) + "\"",
+                     m.find() ? m.group(1) : null, PatronesLineales.buscarIdentificadorConTipo(linea));
+    }
+    
+    private static String escapar(String texto) {
+        StringBuilder escapado = new StringBuilder();
+        for (char c : texto.toCharArray()) {
+            if (c < ' ' || c > '~') {
+                escapado.append(String.format("\\u%04X", (int) c));
+            } else {
+                escapado.append(c);
+            }
+        }
+        return escapado.toString();
+    }
+}
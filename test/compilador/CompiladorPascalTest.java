@@ -0,0 +1,100 @@
+package compilador;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+/**
+ * Prueba dorada del compilador: compila muestra.pas, lo ejecuta y compara la
+ * salida con muestra.salida.
+ * El compilador usa java.lang.classfile (preview en JDK 23), asi que se ejecuta
+ * en una JVM hija con --enable-preview, igual que lo haria un usuario; esta
+ * clase no lo referencia directamente y compila sin preview
+ */
+public class CompiladorPascalTest {
+    
+    private Path directorio;
+    private Path fuente;
+    
+    @Before
+    public void prepararFuente() throws IOException {
+        directorio = Files.createTempDirectory("compilador");
+        fuente = directorio.resolve("muestra.pas");
+        Files.write(fuente, leerRecurso("muestra.pas"));
+    }
+    
+    @After
+    public void borrarDirectorio() throws IOException {
+        try (var archivos = Files.list(directorio)) {
+            for (Path archivo : (Iterable<Path>) archivos::iterator) {
+                Files.delete(archivo);
+            }
+        }
+        Files.delete(directorio);
+    }
+    
+    @Test
+    public void compilarYEjecutarLaClaseGenerada() throws Exception {
+        String salida = ejecutarJava(System.getProperty("java.class.path"),
+            "main.Main", "--compilar", fuente.toString());
+        Path clase = directorio.resolve("muestra.class");
+        assertTrue(salida, salida.contains("Clase generada: " + clase));
+        assertTrue(Files.isRegularFile(clase));
+        
+        String classpath = directorio + java.io.File.pathSeparator + System.getProperty("java.class.path");
+        assertEquals(salidaEsperada(), ejecutarJava(classpath, "muestra"));
+    }
+    
+    @Test
+    public void ejecutarCompilaEnMemoria() throws Exception {
+        assertEquals(salidaEsperada(), ejecutarJava(System.getProperty("java.class.path"),
+            "main.Main", "--ejecutar", fuente.toString()));
+        assertFalse(Files.exists(directorio.resolve("muestra.class")));
+    }
+    
+    private String salidaEsperada() throws IOException {
+        return new String(leerRecurso("muestra.salida"), StandardCharsets.UTF_8);
+    }
+    
+    private byte[] leerRecurso(String nombre) throws IOException {
+        try (InputStream entrada = getClass().getResourceAsStream(nombre)) {
+            assertNotNull("Falta el recurso " + nombre, entrada);
+            return entrada.readAllBytes();
+        }
+    }
+    
+    /**
+     * Ejecuta una clase en una JVM nueva con --enable-preview
+     * @return Salida estandar completa; falla si el proceso no termina con 0
+     */
+    private String ejecutarJava(String classpath, String clase, String... argumentos) throws Exception {
+        List<String> comando = new ArrayList<>();
+        comando.add(Paths.get(System.getProperty("java.home"), "bin", "java").toString());
+        comando.add("--enable-preview");
+        comando.add("-cp");
+        comando.add(classpath);
+        comando.add(clase);
+        comando.addAll(Arrays.asList(argumentos));
+        
+        Process proceso = new ProcessBuilder(comando)
+            .directory(directorio.toFile())
+            .redirectError(ProcessBuilder.Redirect.INHERIT)
+            .start();
+        String salida;
+        try (InputStream entrada = proceso.getInputStream()) {
+            salida = new String(entrada.readAllBytes(), StandardCharsets.UTF_8);
+        }
+        assertEquals("Codigo de salida de " + comando, 0, proceso.waitFor());
+        return salida;
+    }
+}
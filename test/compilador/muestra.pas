@@ -0,0 +1,39 @@
+program Muestra;
+const
+  Dias = 7;
+  Nombre = 'Semana';
+var
+  i, suma: integer;
+  cuadrados: array[1..5] of integer;
+  letra: char;
+begin
+  writeln(Nombre, ' de ', Dias, ' dias');
+  suma := 0;
+  for i := 1 to 5 do
+  begin
+    cuadrados[i] := i * i;
+    suma := suma + cuadrados[i]
+  end;
+  writeln('Suma de cuadrados: ', suma);
+  for i := 5 downto 1 do
+    write(cuadrados[i]:4);
+  writeln;
+  i := 0;
+  while i < 3 do
+    i := i + 1;
+  repeat
+    i := i - 1
+  until i = 0;
+  for i := 1 to 4 do
+    case i mod 3 of
+      0: writeln(i, ' multiplo de 3');
+      1: writeln(i, ' resto 1');
+    else
+      writeln(i, ' resto 2')
+    end;
+  letra := 'Z';
+  if (suma > 50) and not (letra = 'A') then
+    writeln('Mayor: ', suma div 2, ' ', suma mod 7, ' ', letra)
+  else
+    writeln('Menor')
+end.
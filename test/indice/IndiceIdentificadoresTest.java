@@ -0,0 +1,137 @@
+package indice;
+
+import analizador.FuenteEntrada;
+import analizador.ProveedorFuentes;
+import java.io.IOException;
+import java.lang.foreign.Arena;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+/**
+ * Ida y vuelta del indice de identificadores: lo que se guarda debe
+ * consultarse con ConsultaIndice y recargarse igual, y una actualizacion
+ * solo debe reanalizar las fuentes cuyo contenido cambio
+ */
+public class IndiceIdentificadoresTest {
+    
+    private static final String PROGRAMA =
+        "program p;\n"
+        + "var total: integer;\n"
+        + "begin\n"
+        + "  { total } total := 1; (* x *)total:=3;\n"
+        + "\t  writeln(total); // total\n"
+        + "end.\n";
+    
+    private Path directorio;
+    private Path programa;
+    private Path otro;
+    private Path indice;
+    
+    @Before
+    public void crearFuentes() throws IOException {
+        directorio = Files.createTempDirectory("indice");
+        programa = escribir("p.pas", PROGRAMA);
+        otro = escribir("q.pas", "program q;\nvar total, dia: word;\nbegin\nend.\n");
+        indice = directorio.resolve("fuentes.idx");
+    }
+    
+    @After
+    public void borrarDirectorio() throws IOException {
+        try (var archivos = Files.list(directorio)) {
+            for (Path archivo : (Iterable<Path>) archivos::iterator) {
+                Files.delete(archivo);
+            }
+        }
+        Files.delete(directorio);
+    }
+    
+    @Test
+    public void consultaConColumnasReales() throws IOException {
+        actualizar(programa, otro).guardar(indice);
+        
+        try (Arena arena = Arena.ofConfined()) {
+            ConsultaIndice consulta = ConsultaIndice.abrir(indice, arena);
+            assertEquals(2, consulta.getCantidadArchivos());
+            // Las ocurrencias en comentarios no cuentan; las columnas son las
+            // del texto original, despues de comentarios y tabuladores
+            assertEquals(List.of(programa + ":2:5", programa + ":4:13", programa + ":4:32",
+                                 programa + ":5:12", otro + ":2:5"),
+                         describir(consulta.buscar("TOTAL")));
+            assertEquals(List.of(otro + ":2:12"), describir(consulta.buscar("dia")));
+            assertTrue(consulta.buscar("ausente").isEmpty());
+        }
+    }
+    
+    @Test
+    public void recargarYGuardarDaElMismoArchivo() throws IOException {
+        actualizar(programa, otro).guardar(indice);
+        byte[] original = Files.readAllBytes(indice);
+        
+        IndiceIdentificadores recargado = IndiceIdentificadores.cargar(indice);
+        recargado.actualizar(fuentes(programa, otro), ForkJoinPool.commonPool());
+        assertEquals(0, recargado.getReanalizados());
+        assertEquals(0, recargado.getEliminados());
+        recargado.guardar(indice);
+        assertArrayEquals(original, Files.readAllBytes(indice));
+    }
+    
+    @Test
+    public void reanalizaSoloLoQueCambio() throws IOException {
+        actualizar(programa, otro).guardar(indice);
+        
+        // Mismo tamano y misma fecha: solo cambia el contenido
+        FileTime fecha = Files.getLastModifiedTime(programa);
+        Files.write(programa, PROGRAMA.replace("total", "suma_").getBytes(StandardCharsets.UTF_8));
+        Files.setLastModifiedTime(programa, fecha);
+        
+        IndiceIdentificadores recargado = IndiceIdentificadores.cargar(indice);
+        recargado.actualizar(fuentes(programa), ForkJoinPool.commonPool());
+        assertEquals(1, recargado.getReanalizados());
+        assertEquals(1, recargado.getEliminados());
+        recargado.guardar(indice);
+        
+        try (Arena arena = Arena.ofConfined()) {
+            ConsultaIndice consulta = ConsultaIndice.abrir(indice, arena);
+            assertEquals(1, consulta.getCantidadArchivos());
+            assertTrue(consulta.buscar("total").isEmpty());
+            assertEquals(4, consulta.buscar("suma_").size());
+        }
+    }
+    
+    private Path escribir(String nombre, String contenido) throws IOException {
+        return Files.write(directorio.resolve(nombre), contenido.getBytes(StandardCharsets.UTF_8));
+    }
+    
+    private IndiceIdentificadores actualizar(Path... archivos) throws IOException {
+        IndiceIdentificadores nuevo = IndiceIdentificadores.cargar(indice);
+        nuevo.actualizar(fuentes(archivos), ForkJoinPool.commonPool());
+        assertEquals(archivos.length, nuevo.getReanalizados());
+        return nuevo;
+    }
+    
+    private static List<FuenteEntrada> fuentes(Path... archivos) throws IOException {
+        List<FuenteEntrada> fuentes = new ArrayList<>();
+        for (Path archivo : archivos) {
+            fuentes.add(ProveedorFuentes.deArchivo(archivo));
+        }
+        return fuentes;
+    }
+    
+    private static List<String> describir(List<ConsultaIndice.Ocurrencia> ocurrencias) {
+        List<String> descripciones = new ArrayList<>();
+        for (ConsultaIndice.Ocurrencia ocurrencia : ocurrencias) {
+            descripciones.add(ocurrencia.getArchivo() + ":" + ocurrencia.getNumeroLinea() + ":"
+                              + ocurrencia.getPosicionColumna());
+        }
+        return descripciones;
+    }
+}
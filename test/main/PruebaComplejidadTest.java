@@ -0,0 +1,20 @@
+package main;
+
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+/**
+ * Ejecuta el modo --complejidad como prueba: todos los casos patologicos
+ * deben crecer en forma lineal. La semilla es fija para que una falla se
+ * pueda repetir con java -jar ... --complejidad 49
+ */
+public class PruebaComplejidadTest {
+    
+    private static final long SEMILLA = 49;
+    
+    @Test
+    public void analisisLinealConEntradasPatologicas() {
+        assertEquals("Casos con crecimiento no lineal (ver la salida)", 0,
+                     new PruebaComplejidad(SEMILLA).ejecutar());
+    }
+}
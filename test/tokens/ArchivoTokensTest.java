@@ -0,0 +1,124 @@
+package tokens;
+
+import java.io.IOException;
+import java.lang.foreign.Arena;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+/**
+ * Ida y vuelta de los archivos .tok: lo que escribe ArchivoTokens debe leerse
+ * igual con CursorTokens
+ */
+public class ArchivoTokensTest {
+    
+    private Path archivo;
+    
+    @Before
+    public void crearArchivo() throws IOException {
+        archivo = Files.createTempFile("tokens", ".tok");
+    }
+    
+    @After
+    public void borrarArchivo() throws IOException {
+        Files.deleteIfExists(archivo);
+    }
+    
+    @Test
+    public void idaYVueltaConValoresVariados() throws IOException {
+        AlmacenTokensLista tokens = new AlmacenTokensLista();
+        tokens.agregar(TipoToken.PALABRA_RESERVADA, "program", 1, 1);
+        tokens.agregar(TipoToken.IDENTIFICADOR, "año", 1, 9);
+        tokens.agregar(TipoToken.CADENA, "'😀 #13'", 4, 0);
+        tokens.agregar(TipoToken.COMENTARIO, "", 2, -1);
+        tokens.agregar(TipoToken.NUEVA_LINEA, null, 2, Integer.MAX_VALUE);
+        tokens.agregar(TipoToken.IDENTIFICADOR, "año", 2, 3);
+        tokens.agregar(TipoToken.FIN_ARCHIVO, null, Integer.MAX_VALUE, Integer.MIN_VALUE);
+        escribir(tokens);
+        
+        try (Arena arena = Arena.ofConfined()) {
+            CursorTokens cursor = CursorTokens.abrir(archivo, arena);
+            assertEquals(tokens.tamano(), cursor.getCantidadTokens());
+            // "año" se guarda una sola vez
+            assertEquals(4, cursor.getCantidadCadenas());
+            assertMismosTokens(tokens, cursor);
+            cursor.reiniciar();
+            assertMismosTokens(tokens, cursor);
+        }
+    }
+    
+    @Test
+    public void idaYVueltaConVariosVolcados() throws IOException {
+        // Suficientes tokens para volcar el buffer al archivo varias veces
+        AlmacenTokensLista tokens = new AlmacenTokensLista();
+        TipoToken[] tipos = TipoToken.values();
+        for (int i = 0; i < 200_000; i++) {
+            TipoToken tipo = tipos[i % tipos.length];
+            tokens.agregar(tipo, tipo == TipoToken.FIN_ARCHIVO ? null : "v" + (i % 3000), i / 7 + 1, i % 40 - 1);
+        }
+        escribir(tokens);
+        
+        try (Arena arena = Arena.ofConfined()) {
+            assertMismosTokens(tokens, CursorTokens.abrir(archivo, arena));
+        }
+    }
+    
+    @Test
+    public void almacenVacio() throws IOException {
+        escribir(new AlmacenTokensLista());
+        try (Arena arena = Arena.ofConfined()) {
+            CursorTokens cursor = CursorTokens.abrir(archivo, arena);
+            assertEquals(0, cursor.getCantidadTokens());
+            assertFalse(cursor.siguiente());
+        }
+    }
+    
+    @Test
+    public void rechazaSustitutosSinPareja() throws IOException {
+        for (String valor : new String[] {"'a\uD800'", "\uDC00", "x\uD83D"}) {
+            AlmacenTokensLista tokens = new AlmacenTokensLista();
+            tokens.agregar(TipoToken.CADENA, valor, 1, 1);
+            assertThrows(IllegalArgumentException.class, () -> escribir(tokens));
+        }
+    }
+    
+    @Test
+    public void zigzagEsReversible() {
+        for (int valor : new int[] {0, 1, -1, 63, -64, Integer.MAX_VALUE, Integer.MIN_VALUE}) {
+            assertEquals(valor, ArchivoTokens.deszigzag(ArchivoTokens.zigzag(valor)));
+        }
+    }
+    
+    @Test
+    public void nombreDelArchivoDeTokens() {
+        assertEquals("calendario.tok", ArchivoTokens.generarNombre("calendario.pas"));
+        assertEquals("dir.v2/prog.tok", ArchivoTokens.generarNombre("dir.v2/prog.pas"));
+        assertEquals(".pas.tok", ArchivoTokens.generarNombre(".pas"));
+    }
+    
+    private void escribir(AlmacenTokens tokens) throws IOException {
+        try (FileChannel canal = FileChannel.open(archivo, StandardOpenOption.WRITE,
+                                                  StandardOpenOption.TRUNCATE_EXISTING)) {
+            ArchivoTokens.escribir(tokens, canal);
+        }
+    }
+    
+    private static void assertMismosTokens(AlmacenTokens esperados, CursorTokens cursor) {
+        int i = 0;
+        while (cursor.siguiente()) {
+            Token esperado = esperados.obtener(i);
+            String contexto = "token " + i;
+            assertEquals(contexto, esperado.getTipo(), cursor.getTipo());
+            assertEquals(contexto, esperado.getValor(), cursor.getValor());
+            assertEquals(contexto, esperado.getNumeroLinea(), cursor.getNumeroLinea());
+            assertEquals(contexto, esperado.getPosicionColumna(), cursor.getPosicionColumna());
+            i++;
+        }
+        assertEquals(esperados.tamano(), i);
+    }
+}